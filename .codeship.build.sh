@@ -7,7 +7,7 @@ wildfly-8.1.0.Final/bin/jboss-cli.sh -c "/subsystem=datasources/data-source=mybu
 driver-name=mysql-connector-java-5.1.34.jar_com.mysql.jdbc.Driver_5_1,\
 user-name=$MYSQL_USER,\
 password=$MYSQL_PASSWORD,\
-connection-url=jdbc:mysql://localhost:3306/test,\
+connection-url=jdbc:mysql://localhost:3306/test?rewriteBatchedStatements=true,\
 min-pool-size=5,\
 max-pool-size=15,\
 jndi-name=java:/jboss/datasources/mybudgetDS,\
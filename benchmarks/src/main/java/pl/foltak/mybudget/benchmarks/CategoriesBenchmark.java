@@ -0,0 +1,64 @@
+package pl.foltak.mybudget.benchmarks;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import pl.foltak.mybudget.server.entity.Category;
+import pl.foltak.mybudget.server.entity.User;
+
+/**
+ * The list returned to GET /categories and walked by the marshaller. The baseline is the former
+ * LinkedList copy of a LinkedList backed collection. Allocation per request is reported as
+ * gc.alloc.rate.norm when run with the gc profiler:
+ * {@code java -jar benchmarks/target/benchmarks.jar CategoriesBenchmark -prof gc}.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CategoriesBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int size;
+
+    private User user;
+    private List<Category> linkedCategories;
+
+    @Setup
+    public void setUp() {
+        user = new User();
+        linkedCategories = new LinkedList<>();
+        for (int i = 0; i < size; i++) {
+            final Category category = new Category();
+            category.setName("category" + i);
+            user.addCategory(category);
+            linkedCategories.add(category);
+        }
+    }
+
+    @Benchmark
+    public void linkedListCopy(Blackhole blackhole) {
+        marshal(new LinkedList<>(linkedCategories), blackhole);
+    }
+
+    @Benchmark
+    public void getCategories(Blackhole blackhole) {
+        marshal(user.getCategories(), blackhole);
+    }
+
+    private static void marshal(List<Category> categories, Blackhole blackhole) {
+        for (Category category : categories) {
+            blackhole.consume(category.getName());
+        }
+    }
+}
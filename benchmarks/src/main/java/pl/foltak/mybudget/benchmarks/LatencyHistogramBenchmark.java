@@ -0,0 +1,36 @@
+package pl.foltak.mybudget.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import pl.foltak.mybudget.server.metrics.LatencyHistogram;
+
+/**
+ * Recording of a latency, done for every request and DAO call. All threads record into one
+ * histogram, like concurrent requests of one resource method.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LatencyHistogramBenchmark {
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    @Benchmark
+    public void record() {
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(3));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void recordConcurrently() {
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(3));
+    }
+}
@@ -0,0 +1,83 @@
+package pl.foltak.mybudget.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.jaxb.JaxbAnnotationModule;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import pl.foltak.mybudget.server.dto.AccountDTO;
+import pl.foltak.mybudget.server.dto.CategoryDTO;
+import pl.foltak.mybudget.server.entity.Account;
+import pl.foltak.mybudget.server.entity.Category;
+import pl.foltak.mybudget.server.entity.User;
+
+/**
+ * JSON marshalling of account and category lists, as entities and as the DTOs returned by the
+ * list endpoints. The mapper honours JAXB annotations, like the JSON provider of the server.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MarshallingBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int size;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JaxbAnnotationModule());
+    private List<Account> accounts;
+    private List<Category> categories;
+    private List<AccountDTO> accountDTOs;
+    private List<CategoryDTO> categoryDTOs;
+
+    @Setup
+    public void setUp() {
+        final User user = new User();
+        accountDTOs = new ArrayList<>();
+        categoryDTOs = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            final Account account = new Account();
+            account.setId((long) i);
+            account.setName("account" + i);
+            user.addAccount(account);
+            accountDTOs.add(new AccountDTO((long) i, account.getName()));
+            final Category category = new Category();
+            category.setName("category" + i);
+            user.addCategory(category);
+            categoryDTOs.add(new CategoryDTO(category.getName()));
+        }
+        accounts = user.getAccounts();
+        categories = user.getCategories();
+    }
+
+    @Benchmark
+    public byte[] accounts() throws IOException {
+        return objectMapper.writeValueAsBytes(accounts);
+    }
+
+    @Benchmark
+    public byte[] categories() throws IOException {
+        return objectMapper.writeValueAsBytes(categories);
+    }
+
+    @Benchmark
+    public byte[] accountDTOs() throws IOException {
+        return objectMapper.writeValueAsBytes(accountDTOs);
+    }
+
+    @Benchmark
+    public byte[] categoryDTOs() throws IOException {
+        return objectMapper.writeValueAsBytes(categoryDTOs);
+    }
+}
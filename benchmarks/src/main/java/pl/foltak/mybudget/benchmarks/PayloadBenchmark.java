@@ -0,0 +1,108 @@
+package pl.foltak.mybudget.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+import javax.ws.rs.core.MediaType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import pl.foltak.mybudget.server.dto.Money;
+import pl.foltak.mybudget.server.dto.ReportRowDTO;
+import pl.foltak.mybudget.server.dto.TransactionDTO;
+import pl.foltak.mybudget.server.dto.TransactionPageDTO;
+import pl.foltak.mybudget.server.rest.CborWriter;
+
+/**
+ * Serialization CPU of the largest responses, a full page of GET /transactions and a monthly
+ * report, in each representation a client can negotiate. Bytes on the wire are printed in setup,
+ * run with {@code java -jar benchmarks/target/benchmarks.jar PayloadBenchmark}.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PayloadBenchmark {
+
+    private static final String[] ACCOUNTS = {"Wallet", "Bank account", "Savings"};
+    private static final String[] CATEGORIES = {"Food", "Transport", "Home", "Entertainment"};
+
+    @Param({"transactions", "report"})
+    private String endpoint;
+
+    @Param({"json", "json+gzip", "cbor", "cbor+gzip"})
+    private String format;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final CborWriter cborWriter = new CborWriter();
+    private Object entity;
+
+    @Setup
+    public void setUp() throws IOException {
+        entity = "transactions".equals(endpoint) ? createPage(500) : createReport(300);
+        System.out.println();
+        System.out.println(endpoint + " " + format + ": " + write().length + " bytes");
+    }
+
+    @Benchmark
+    public byte[] write() throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * 1024);
+        final OutputStream output = format.endsWith("+gzip") ? new GZIPOutputStream(bytes) : bytes;
+        if (format.startsWith("cbor")) {
+            cborWriter.writeTo(entity, entity.getClass(), entity.getClass(), null,
+                    MediaType.valueOf(CborWriter.APPLICATION_CBOR), null, output);
+        } else {
+            objectMapper.writeValue(output, entity);
+        }
+        output.close();
+        return bytes.toByteArray();
+    }
+
+    private static TransactionPageDTO createPage(int size) {
+        final Random random = new Random(1);
+        final List<TransactionDTO> transactions = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            final TransactionDTO transaction = new TransactionDTO();
+            transaction.setId(100000L + i);
+            transaction.setAccountName(ACCOUNTS[random.nextInt(ACCOUNTS.length)]);
+            transaction.setMainCategoryName(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+            transaction.setSubCategoryName("Subcategory " + random.nextInt(10));
+            transaction.setDescription("Shopping at store number " + random.nextInt(200));
+            transaction.setAmount(Money.toDecimal(random.nextInt(100000)));
+            transaction.setTransactionDate(new Date(1700000000000L + i * 86400000L));
+            transaction.setTags(Arrays.asList("tag" + random.nextInt(20)));
+            transactions.add(transaction);
+        }
+        final TransactionPageDTO page = new TransactionPageDTO();
+        page.setTransactions(transactions);
+        return page;
+    }
+
+    private static List<ReportRowDTO> createReport(int size) {
+        final Random random = new Random(1);
+        final List<ReportRowDTO> rows = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            final ReportRowDTO row = new ReportRowDTO();
+            row.setMainCategoryName(CATEGORIES[i % CATEGORIES.length]);
+            row.setMonth(String.format("2026-%02d", 1 + i % 12));
+            row.setSum(random.nextInt(10000000));
+            row.setCount(random.nextInt(300));
+            rows.add(row);
+        }
+        return rows;
+    }
+}
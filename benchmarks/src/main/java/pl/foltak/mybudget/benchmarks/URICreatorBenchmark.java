@@ -0,0 +1,30 @@
+package pl.foltak.mybudget.benchmarks;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import pl.foltak.mybudget.server.rest.URICreator;
+
+/**
+ * Location of created resources, built for every POST and PUT.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class URICreatorBenchmark {
+
+    private final String mainCategory = "Food & drinks";
+    private final String subCategory = "Sweets";
+
+    @Benchmark
+    public URI create() {
+        return new URICreator("categories").create(mainCategory, subCategory);
+    }
+}
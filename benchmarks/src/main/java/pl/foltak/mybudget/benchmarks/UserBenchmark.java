@@ -0,0 +1,65 @@
+package pl.foltak.mybudget.benchmarks;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import pl.foltak.mybudget.server.entity.Account;
+import pl.foltak.mybudget.server.entity.Category;
+import pl.foltak.mybudget.server.entity.User;
+
+/**
+ * Lookups of accounts and categories of an user with many of them. The searched element is the
+ * last one, the worst case of a linear search.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UserBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    private int size;
+
+    private User user;
+    private String lastName;
+    private Long lastId;
+
+    @Setup
+    public void setUp() {
+        user = new User();
+        for (int i = 0; i < size; i++) {
+            final Account account = new Account();
+            account.setId((long) i);
+            account.setName("account" + i);
+            user.addAccount(account);
+            final Category category = new Category();
+            category.setName("category" + i);
+            user.addCategory(category);
+        }
+        lastName = String.valueOf(size - 1);
+        lastId = (long) size - 1;
+    }
+
+    @Benchmark
+    public Optional<Account> findAccountByName() {
+        return user.findAccount("account" + lastName);
+    }
+
+    @Benchmark
+    public Optional<Account> findAccountById() {
+        return user.findAccount(lastId);
+    }
+
+    @Benchmark
+    public Optional<Category> findCategory() {
+        return user.findCategory("category" + lastName);
+    }
+}
@@ -0,0 +1,193 @@
+package pl.foltak.mybudget.server.dao;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import org.hibernate.Session;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import pl.foltak.mybudget.server.dto.AccountDTO;
+import pl.foltak.mybudget.server.dto.CategoryNodeDTO;
+import pl.foltak.mybudget.server.dto.ReportDimension;
+import pl.foltak.mybudget.server.dto.ReportFilter;
+import pl.foltak.mybudget.server.dto.ReportRowDTO;
+import pl.foltak.mybudget.server.dto.TransactionDTO;
+import pl.foltak.mybudget.server.dto.TransactionFilter;
+
+/**
+ * Read operations of {@link MyBudgetDao} against an embedded H2 database in MySQL mode, with the
+ * schema created from entities. Every operation gets a new entity manager, as a request does in
+ * the server. The absolute numbers differ from MySQL, but the number and shape of queries are
+ * the same, so they show regressions.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MyBudgetDaoBenchmark {
+
+    private static final String PERSISTENCE_UNIT = "pl.foltak.my-budget.benchmarks";
+    private static final long USER_ID = 1L;
+    private static final String USERNAME = "alibaba";
+    private static final int ACCOUNTS = 10;
+    private static final int MAIN_CATEGORIES = 20;
+    private static final int SUB_CATEGORIES = 5;
+    private static final int TAGS = 20;
+
+    @Param({"10000"})
+    private int transactions;
+
+    private EntityManagerFactory entityManagerFactory;
+    private TransactionFilter transactionFilter;
+    private ReportFilter reportFilter;
+
+    @Setup
+    public void setUp() {
+        entityManagerFactory = Persistence.createEntityManagerFactory(PERSISTENCE_UNIT);
+        final EntityManager em = entityManagerFactory.createEntityManager();
+        em.getTransaction().begin();
+        em.unwrap(Session.class).doWork(this::insertData);
+        em.getTransaction().commit();
+        em.close();
+
+        transactionFilter = new TransactionFilter();
+        transactionFilter.setLimit(50);
+        reportFilter = new ReportFilter();
+        reportFilter.setDimensions(EnumSet.of(ReportDimension.MAIN_CATEGORY, ReportDimension.MONTH));
+    }
+
+    @TearDown
+    public void tearDown() {
+        entityManagerFactory.close();
+    }
+
+    @Benchmark
+    public List<AccountDTO> getAccounts() {
+        return call(dao -> dao.getAccounts(USER_ID));
+    }
+
+    @Benchmark
+    public List<CategoryNodeDTO> getCategoryTree() {
+        return call(dao -> dao.getCategoryTree(USER_ID, true));
+    }
+
+    @Benchmark
+    public List<TransactionDTO> getTransactions() {
+        return call(dao -> dao.getTransactions(USER_ID, transactionFilter));
+    }
+
+    @Benchmark
+    public List<ReportRowDTO> getReport() {
+        return call(dao -> dao.getReport(USER_ID, reportFilter));
+    }
+
+    private <T> T call(Function<MyBudgetDao, T> operation) {
+        final MyBudgetDao dao = new MyBudgetDao();
+        dao.em = entityManagerFactory.createEntityManager();
+        try {
+            return operation.apply(dao);
+        } finally {
+            dao.em.close();
+        }
+    }
+
+    private void insertData(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("INSERT INTO users (id, username, passwordHash) "
+                    + "VALUES (" + USER_ID + ", '" + USERNAME + "', '')");
+        }
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO accounts (id, name, user_id) VALUES (?, ?, 1)")) {
+            for (int i = 1; i <= ACCOUNTS; i++) {
+                statement.setLong(1, i);
+                statement.setString(2, "account" + i);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO categories (id, name, user_id, parent_id) VALUES (?, ?, ?, ?)")) {
+            for (int i = 1; i <= MAIN_CATEGORIES; i++) {
+                statement.setLong(1, i);
+                statement.setString(2, "category" + i);
+                statement.setLong(3, 1);
+                statement.setObject(4, null);
+                statement.addBatch();
+                for (int j = 1; j <= SUB_CATEGORIES; j++) {
+                    statement.setLong(1, subCategoryId(i, j));
+                    statement.setString(2, "subcategory" + j);
+                    statement.setObject(3, null);
+                    statement.setLong(4, i);
+                    statement.addBatch();
+                }
+            }
+            statement.executeBatch();
+        }
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO tags (id, name, user_id) VALUES (?, ?, 1)")) {
+            for (int i = 1; i <= TAGS; i++) {
+                statement.setLong(1, i);
+                statement.setString(2, "tag" + i);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+        insertTransactions(connection);
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("INSERT INTO monthly_totals (user_id, account_id, category_id, "
+                    + "month_start, amount_sum, transaction_count) SELECT 1, account_id, "
+                    + "category_id, month_start, SUM(amount), COUNT(*) FROM (SELECT account_id, "
+                    + "category_id, DATEADD('DAY', 1 - DAY_OF_MONTH(transaction_date), "
+                    + "transaction_date) AS month_start, amount FROM transactions) "
+                    + "GROUP BY account_id, category_id, month_start");
+        }
+    }
+
+    private void insertTransactions(Connection connection) throws SQLException {
+        final Random random = new Random(1);
+        final long firstDay = Date.valueOf("2024-01-01").getTime();
+        try (PreparedStatement transaction = connection.prepareStatement(
+                "INSERT INTO transactions (id, description, amount, transaction_date, account_id, "
+                + "category_id) VALUES (?, ?, ?, ?, ?, ?)");
+                PreparedStatement tag = connection.prepareStatement(
+                        "INSERT INTO transactions_tags (transaction_id, tag_id) VALUES (?, ?)")) {
+            for (int i = 1; i <= transactions; i++) {
+                transaction.setLong(1, i);
+                transaction.setString(2, "transaction" + i);
+                transaction.setLong(3, random.nextInt(100000));
+                transaction.setDate(4, new Date(firstDay + TimeUnit.HOURS.toMillis(i)));
+                transaction.setLong(5, 1 + random.nextInt(ACCOUNTS));
+                transaction.setLong(6, subCategoryId(1 + random.nextInt(MAIN_CATEGORIES),
+                        1 + random.nextInt(SUB_CATEGORIES)));
+                transaction.addBatch();
+                tag.setLong(1, i);
+                tag.setLong(2, 1 + random.nextInt(TAGS));
+                tag.addBatch();
+            }
+            transaction.executeBatch();
+            tag.executeBatch();
+        }
+    }
+
+    private static long subCategoryId(int mainCategory, int subCategory) {
+        return MAIN_CATEGORIES + (mainCategory - 1) * SUB_CATEGORIES + subCategory;
+    }
+}
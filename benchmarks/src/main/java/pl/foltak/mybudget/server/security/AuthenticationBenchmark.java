@@ -0,0 +1,136 @@
+package pl.foltak.mybudget.server.security;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.SecurityContext;
+import org.mindrot.jbcrypt.BCrypt;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Authentication run before every request: a session token, credentials verified recently and
+ * credentials checked with BCrypt. The credentials query is replaced with a precomputed hash, so
+ * the last case measures BCrypt only. The benchmark lives in the package of the filter to wire its
+ * dependencies without the container.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AuthenticationBenchmark {
+
+    private static final long USER_ID = 7L;
+    private static final String USERNAME = "alibaba";
+    private static final String PASSWORD = "open sesame";
+
+    private UserAuthenticator cachedAuthenticator;
+    private UserAuthenticator uncachedAuthenticator;
+    private AuthenticationFilter filter;
+    private ContainerRequestContext tokenRequest;
+    private ContainerRequestContext passwordRequest;
+
+    @Setup
+    public void setUp() {
+        final String passwordHash = BCrypt.hashpw(PASSWORD, BCrypt.gensalt());
+        cachedAuthenticator = createAuthenticator(passwordHash, new CredentialCache());
+        // entries expire at once, so every call is checked with BCrypt
+        uncachedAuthenticator = createAuthenticator(passwordHash, new CredentialCache(10, 0));
+        final TokenManager tokenManager = new TokenManager();
+        filter = new AuthenticationFilter() {
+
+            @Override
+            UserAuthenticator getUserAuthenticator() {
+                return cachedAuthenticator;
+            }
+
+            @Override
+            TokenManager getTokenManager() {
+                return tokenManager;
+            }
+        };
+        final Map<String, String> tokenHeaders = new HashMap<>();
+        tokenHeaders.put(HttpHeaders.AUTHORIZATION, AuthenticationFilter.BEARER_PREFIX
+                + tokenManager.issue(
+                new UserPrincipal(USER_ID, USERNAME), System.currentTimeMillis() + 3600000));
+        tokenRequest = createRequest(tokenHeaders);
+        final Map<String, String> passwordHeaders = new HashMap<>();
+        passwordHeaders.put(AuthenticationFilter.AUTHORIZATION_USERNAME, USERNAME);
+        passwordHeaders.put(AuthenticationFilter.AUTHORIZATION_PASSWORD, PASSWORD);
+        passwordRequest = createRequest(passwordHeaders);
+        cachedAuthenticator.authenticate(USERNAME, PASSWORD);
+    }
+
+    @Benchmark
+    public ContainerRequestContext filterWithToken() throws IOException {
+        filter.filter(tokenRequest);
+        return tokenRequest;
+    }
+
+    @Benchmark
+    public ContainerRequestContext filterWithPassword() throws IOException {
+        filter.filter(passwordRequest);
+        return passwordRequest;
+    }
+
+    @Benchmark
+    public Optional<Long> authenticateCached() {
+        return cachedAuthenticator.authenticate(USERNAME, PASSWORD);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Optional<Long> authenticateWithBCrypt() {
+        return uncachedAuthenticator.authenticate(USERNAME, PASSWORD);
+    }
+
+    private static UserAuthenticator createAuthenticator(String passwordHash,
+            CredentialCache credentialCache) {
+        final UserAuthenticator authenticator = new UserAuthenticator() {
+
+            @Override
+            Object[] getCredentials(String username) {
+                return new Object[]{USER_ID, passwordHash};
+            }
+        };
+        authenticator.credentialCache = credentialCache;
+        return authenticator;
+    }
+
+    private static ContainerRequestContext createRequest(Map<String, String> headers) {
+        final Request request = (Request) Proxy.newProxyInstance(Request.class.getClassLoader(),
+                new Class<?>[]{Request.class}, (proxy, method, arguments) -> "GET");
+        final SecurityContext[] securityContext = new SecurityContext[1];
+        return (ContainerRequestContext) Proxy.newProxyInstance(
+                ContainerRequestContext.class.getClassLoader(),
+                new Class<?>[]{ContainerRequestContext.class}, (proxy, method, arguments) -> {
+                    switch (method.getName()) {
+                        case "getHeaderString":
+                            return headers.get((String) arguments[0]);
+                        case "getRequest":
+                            return request;
+                        case "getSecurityContext":
+                            return securityContext[0];
+                        case "setSecurityContext":
+                            securityContext[0] = (SecurityContext) arguments[0];
+                            return null;
+                        case "abortWith":
+                            throw new IllegalStateException("Request not authenticated");
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
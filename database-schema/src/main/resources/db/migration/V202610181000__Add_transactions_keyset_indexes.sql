@@ -0,0 +1,2 @@
+-- Transactions are listed newest first by accounts of the user and paged by (transaction_date, id).
+CREATE INDEX idx_transactions_account_date_id ON transactions (account_id, transaction_date, id);
@@ -0,0 +1,25 @@
+CREATE TABLE monthly_totals (
+  user_id bigint(20) NOT NULL,
+  account_id bigint(20) NOT NULL,
+  category_id bigint(20) NOT NULL,
+  month_start date NOT NULL,
+  amount_sum double NOT NULL DEFAULT 0,
+  transaction_count bigint(20) NOT NULL DEFAULT 0,
+  PRIMARY KEY (user_id, account_id, category_id, month_start),
+  KEY idx_monthly_totals_user_month (user_id, month_start),
+  KEY fk_monthly_totals_account_id (account_id),
+  KEY fk_monthly_totals_category_id (category_id),
+  CONSTRAINT fk_monthly_totals_user_id FOREIGN KEY (user_id) REFERENCES users (id),
+  CONSTRAINT fk_monthly_totals_account_id FOREIGN KEY (account_id) REFERENCES accounts (id),
+  CONSTRAINT fk_monthly_totals_category_id FOREIGN KEY (category_id) REFERENCES categories (id)
+);
+
+INSERT INTO monthly_totals (user_id, account_id, category_id, month_start, amount_sum, transaction_count)
+SELECT a.user_id, t.account_id, t.category_id,
+  DATE_SUB(t.transaction_date, INTERVAL DAYOFMONTH(t.transaction_date) - 1 DAY),
+  SUM(t.amount), COUNT(*)
+FROM transactions t
+JOIN accounts a ON a.id = t.account_id
+WHERE t.transaction_date IS NOT NULL AND t.category_id IS NOT NULL
+GROUP BY a.user_id, t.account_id, t.category_id,
+  DATE_SUB(t.transaction_date, INTERVAL DAYOFMONTH(t.transaction_date) - 1 DAY);
@@ -0,0 +1,19 @@
+-- Amounts are stored as exact integers in minor units (1/100 of the currency unit)
+
+ALTER TABLE transactions ADD COLUMN amount_minor bigint(20) NOT NULL DEFAULT 0;
+UPDATE transactions SET amount_minor = COALESCE(ROUND(amount * 100), 0);
+ALTER TABLE transactions DROP COLUMN amount;
+ALTER TABLE transactions CHANGE COLUMN amount_minor amount bigint(20) NOT NULL DEFAULT 0;
+
+-- totals are computed again from converted amounts, so they are exact sums of them
+DELETE FROM monthly_totals;
+ALTER TABLE monthly_totals MODIFY COLUMN amount_sum bigint(20) NOT NULL DEFAULT 0;
+INSERT INTO monthly_totals (user_id, account_id, category_id, month_start, amount_sum, transaction_count)
+SELECT a.user_id, t.account_id, t.category_id,
+  DATE_SUB(t.transaction_date, INTERVAL DAYOFMONTH(t.transaction_date) - 1 DAY),
+  SUM(t.amount), COUNT(*)
+FROM transactions t
+JOIN accounts a ON a.id = t.account_id
+WHERE t.transaction_date IS NOT NULL AND t.category_id IS NOT NULL
+GROUP BY a.user_id, t.account_id, t.category_id,
+  DATE_SUB(t.transaction_date, INTERVAL DAYOFMONTH(t.transaction_date) - 1 DAY);
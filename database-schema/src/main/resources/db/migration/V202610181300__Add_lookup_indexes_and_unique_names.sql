@@ -0,0 +1,21 @@
+-- users are looked up by username on every authenticated request
+CREATE UNIQUE INDEX uk_users_username ON users (username);
+
+-- names are unique per owner, the DAO relies on these constraints instead of checking first
+CREATE UNIQUE INDEX uk_accounts_user_name ON accounts (user_id, name);
+-- main category names are unique per user, sub category names only within their parent, so the
+-- user's index covers main categories through a column which is null for sub categories
+ALTER TABLE categories
+  ADD COLUMN main_user_id bigint(20) AS (IF(parent_id IS NULL, user_id, NULL)) STORED;
+CREATE UNIQUE INDEX uk_categories_user_name ON categories (main_user_id, name);
+CREATE UNIQUE INDEX uk_categories_parent_name ON categories (parent_id, name);
+CREATE UNIQUE INDEX uk_tags_user_name ON tags (user_id, name);
+
+-- transactions_tags gets a primary key, duplicated rows are removed first
+CREATE TABLE transactions_tags_distinct AS
+  SELECT DISTINCT transaction_id, tag_id FROM transactions_tags;
+DELETE FROM transactions_tags;
+ALTER TABLE transactions_tags ADD PRIMARY KEY (transaction_id, tag_id);
+INSERT INTO transactions_tags (transaction_id, tag_id)
+  SELECT transaction_id, tag_id FROM transactions_tags_distinct;
+DROP TABLE transactions_tags_distinct;
@@ -0,0 +1,4 @@
+-- tags of a transaction are removed together with the transaction by a single delete
+ALTER TABLE transactions_tags DROP FOREIGN KEY fk_tags_transaction_id;
+ALTER TABLE transactions_tags ADD CONSTRAINT fk_tags_transaction_id
+  FOREIGN KEY (transaction_id) REFERENCES transactions (id) ON DELETE CASCADE;
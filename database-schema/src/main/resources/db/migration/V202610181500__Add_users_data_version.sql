@@ -0,0 +1,2 @@
+-- version of user data, the ETag of read resources, changed in the transaction which changes the data
+ALTER TABLE users ADD COLUMN data_version bigint(20) NOT NULL DEFAULT 0;
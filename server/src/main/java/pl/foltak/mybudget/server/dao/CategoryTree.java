@@ -0,0 +1,96 @@
+package pl.foltak.mybudget.server.dao;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import pl.foltak.mybudget.server.dto.CategoryNodeDTO;
+
+/**
+ * Assembles the two level category tree from rows of all categories of an user, read by a single
+ * query. Rows may come in any order, sub categories are attached to their main categories when
+ * the tree is returned.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+class CategoryTree {
+
+    private final boolean withTotals;
+    private final Map<Long, CategoryNodeDTO> nodes = new LinkedHashMap<>();
+    private final Map<Long, Long> parents = new HashMap<>();
+
+    /**
+     * Creates an empty tree.
+     *
+     * @param withTotals whether nodes have totals, zeros until {@link #addTotals} is called
+     */
+    CategoryTree(boolean withTotals) {
+        this.withTotals = withTotals;
+    }
+
+    /**
+     * Adds a category. A category which was already added is ignored, so rows of a main category
+     * joined with its sub categories can be added as they are.
+     *
+     * @param id the id of category
+     * @param parentId the id of main category or null if the category is a main one
+     * @param name the name of category
+     */
+    void addCategory(long id, Long parentId, String name) {
+        if (nodes.containsKey(id)) {
+            return;
+        }
+        final CategoryNodeDTO node = new CategoryNodeDTO(name);
+        if (withTotals) {
+            node.setTransactionCount(0L);
+            node.setAmountSum(0L);
+        }
+        nodes.put(id, node);
+        if (parentId != null) {
+            parents.put(id, parentId);
+        }
+    }
+
+    /**
+     * Adds totals to a category added before. Totals of unknown categories are ignored.
+     *
+     * @param id the id of category
+     * @param transactionCount the number of transactions
+     * @param amountSum the sum of amounts in minor units
+     */
+    void addTotals(long id, long transactionCount, long amountSum) {
+        final CategoryNodeDTO node = nodes.get(id);
+        if (node != null && withTotals) {
+            node.setTransactionCount(node.getTransactionCount() + transactionCount);
+            node.setAmountSum(node.getAmountSum() + amountSum);
+        }
+    }
+
+    /**
+     * Links sub categories to main categories and returns main categories, in order in which they
+     * were added. Totals of sub categories are added to totals of their main category. The method
+     * should be called once, after all categories and totals are added.
+     *
+     * @return list of main categories
+     */
+    List<CategoryNodeDTO> getMainCategories() {
+        final List<CategoryNodeDTO> mainCategories = new ArrayList<>();
+        nodes.forEach((id, node) -> {
+            final Long parentId = parents.get(id);
+            if (parentId == null) {
+                mainCategories.add(node);
+                return;
+            }
+            final CategoryNodeDTO parent = nodes.get(parentId);
+            if (parent != null) {
+                parent.getSubCategories().add(node);
+                if (withTotals) {
+                    parent.setTransactionCount(parent.getTransactionCount() + node.getTransactionCount());
+                    parent.setAmountSum(parent.getAmountSum() + node.getAmountSum());
+                }
+            }
+        });
+        return mainCategories;
+    }
+}
@@ -0,0 +1,69 @@
+package pl.foltak.mybudget.server.dao;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Ids of accounts, categories and tags of an user, read once for the whole import.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class ImportDictionary {
+
+    private final long userId;
+    private final Map<String, Long> accounts = new HashMap<>();
+    private final Map<String, Long> subCategories = new HashMap<>();
+    private final Map<String, Long> tags = new HashMap<>();
+
+    ImportDictionary(long userId) {
+        this.userId = userId;
+    }
+
+    long getUserId() {
+        return userId;
+    }
+
+    Long getAccountId(String accountName) {
+        return accounts.get(accountName);
+    }
+
+    Long getSubCategoryId(String mainCategoryName, String subCategoryName) {
+        return subCategories.get(key(mainCategoryName, subCategoryName));
+    }
+
+    Long getTagId(String tagName) {
+        return tags.get(tagKey(tagName));
+    }
+
+    void putAccount(String accountName, Long id) {
+        accounts.put(accountName, id);
+    }
+
+    void putSubCategory(String mainCategoryName, String subCategoryName, Long id) {
+        subCategories.put(key(mainCategoryName, subCategoryName), id);
+    }
+
+    void putTag(String tagName, Long id) {
+        tags.put(tagKey(tagName), id);
+    }
+
+    /**
+     * Returns the key under which a tag is known. The default collation of MySQL ignores case
+     * and trailing spaces, so names which differ only in them are one tag.
+     *
+     * @param tagName the name of tag
+     * @return the key of tag
+     */
+    static String tagKey(String tagName) {
+        int end = tagName.length();
+        while (end > 0 && tagName.charAt(end - 1) == ' ') {
+            end--;
+        }
+        return tagName.substring(0, end).toLowerCase(Locale.ROOT);
+    }
+
+    private static String key(String mainCategoryName, String subCategoryName) {
+        return mainCategoryName + '\n' + subCategoryName;
+    }
+}
@@ -0,0 +1,152 @@
+package pl.foltak.mybudget.server.dao;
+
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+import javax.ejb.LocalBean;
+import javax.ejb.Stateless;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import org.hibernate.Query;
+import org.hibernate.Session;
+import pl.foltak.mybudget.server.entity.Transaction;
+
+/**
+ * Maintains the monthly_totals table: sums and numbers of transactions per user, account, sub
+ * category and month. Totals are updated in the transaction which changes transactions, so
+ * reports can read them instead of scanning the whole history. Transactions without a date or a
+ * category don't belong to any total, reports skip them too.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+@Stateless
+@LocalBean
+public class MonthlyTotalsDao {
+
+    static final String TABLE = "monthly_totals";
+    static final String INSERT_TOTAL = "INSERT INTO monthly_totals "
+            + "(user_id, account_id, category_id, month_start, amount_sum, transaction_count) "
+            + "VALUES (?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE "
+            + "amount_sum = amount_sum + VALUES(amount_sum), "
+            + "transaction_count = transaction_count + VALUES(transaction_count)";
+
+    private static final String ADD_TO_TOTAL = "INSERT INTO monthly_totals "
+            + "(user_id, account_id, category_id, month_start, amount_sum, transaction_count) "
+            + "SELECT a.user_id, a.id, :categoryId, :monthStart, :amount, :count "
+            + "FROM accounts AS a WHERE a.id = :accountId ON DUPLICATE KEY UPDATE "
+            + "amount_sum = amount_sum + VALUES(amount_sum), "
+            + "transaction_count = transaction_count + VALUES(transaction_count)";
+    private static final String TOTAL_KEY
+            = "WHERE user_id = (SELECT a.user_id FROM accounts AS a WHERE a.id = :accountId) "
+            + "AND account_id = :accountId AND category_id = :categoryId "
+            + "AND month_start = :monthStart";
+    private static final String SUBTRACT_FROM_TOTAL = "UPDATE monthly_totals "
+            + "SET amount_sum = amount_sum - :amount, transaction_count = transaction_count - 1 "
+            + TOTAL_KEY;
+    private static final String DELETE_EMPTY_TOTAL
+            = "DELETE FROM monthly_totals " + TOTAL_KEY + " AND transaction_count = 0";
+    private static final String DELETE_USER_TOTALS
+            = "DELETE FROM monthly_totals WHERE user_id = :userId";
+    // built from year and month, so the rebuild runs on the embedded database of tests too
+    private static final String MONTH_START = "CAST(CONCAT(YEAR(t.transaction_date), '-', "
+            + "LPAD(MONTH(t.transaction_date), 2, '0'), '-01') AS DATE)";
+    private static final String INSERT_USER_TOTALS = "INSERT INTO monthly_totals "
+            + "(user_id, account_id, category_id, month_start, amount_sum, transaction_count) "
+            + "SELECT a.user_id, t.account_id, t.category_id, " + MONTH_START + ", "
+            + "SUM(t.amount), COUNT(*) FROM transactions AS t JOIN accounts AS a ON a.id = t.account_id "
+            + "WHERE a.user_id = :userId "
+            + "AND t.transaction_date IS NOT NULL AND t.category_id IS NOT NULL "
+            + "GROUP BY a.user_id, t.account_id, t.category_id, " + MONTH_START;
+    private static final String SELECT_USER_IDS = "SELECT u.id FROM users AS u";
+
+    @PersistenceContext(name = "pl.foltak.my-budget")
+    EntityManager em;
+
+    /**
+     * Adds given transaction to the total of its account, category and month.
+     *
+     * @param transaction the transaction with account and category
+     */
+    public void add(Transaction transaction) {
+        if (!isTotaled(transaction)) {
+            return;
+        }
+        createTotalQuery(ADD_TO_TOTAL, transaction)
+                .setParameter("amount", transaction.getAmount())
+                .setParameter("count", 1L)
+                .executeUpdate();
+    }
+
+    /**
+     * Subtracts given transaction from the total of its account, category and month. A total
+     * without transactions is deleted, otherwise it would keep its account and category from
+     * being removed.
+     *
+     * @param transaction the transaction with account and category
+     */
+    public void subtract(Transaction transaction) {
+        if (!isTotaled(transaction)) {
+            return;
+        }
+        // the total exists, the transaction was added to it
+        createTotalQuery(SUBTRACT_FROM_TOTAL, transaction)
+                .setParameter("amount", transaction.getAmount())
+                .executeUpdate();
+        createTotalQuery(DELETE_EMPTY_TOTAL, transaction).executeUpdate();
+    }
+
+    /**
+     * Computes totals of an user with given id again from all its transactions.
+     *
+     * @param userId the id of user
+     */
+    public void rebuild(long userId) {
+        final Session session = em.unwrap(Session.class);
+        session.createSQLQuery(DELETE_USER_TOTALS).addSynchronizedQuerySpace(TABLE)
+                .setParameter("userId", userId).executeUpdate();
+        session.createSQLQuery(INSERT_USER_TOTALS).addSynchronizedQuerySpace(TABLE)
+                .setParameter("userId", userId).executeUpdate();
+    }
+
+    /**
+     * Returns ids of all users.
+     *
+     * @return list of ids
+     */
+    public List<Long> getUserIds() {
+        return em.createQuery(SELECT_USER_IDS, Long.class).getResultList();
+    }
+
+    /**
+     * Returns the first day of month of given date.
+     *
+     * @param date the date
+     * @return the first day of month
+     */
+    static java.sql.Date monthStart(Date date) {
+        final LocalDate localDate = new java.sql.Date(date.getTime()).toLocalDate();
+        return java.sql.Date.valueOf(localDate.withDayOfMonth(1));
+    }
+
+    /**
+     * Checks if given transaction belongs to a total, it needs both a date and a category.
+     *
+     * @param transaction the transaction
+     * @return true if the transaction is counted in a total
+     */
+    static boolean isTotaled(Transaction transaction) {
+        return transaction.getTransactionDate() != null && transaction.getCategory() != null;
+    }
+
+    private Query createTotalQuery(String sql, Transaction transaction) {
+        // only affected space is given, otherwise Hibernate would evict whole second level cache
+        return em.unwrap(Session.class).createSQLQuery(sql).addSynchronizedQuerySpace(TABLE)
+                .setParameter("accountId", getIdentifier(transaction.getAccount()))
+                .setParameter("categoryId", getIdentifier(transaction.getCategory()))
+                .setParameter("monthStart", monthStart(transaction.getTransactionDate()));
+    }
+
+    Object getIdentifier(Object entity) {
+        return em.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(entity);
+    }
+}
@@ -0,0 +1,44 @@
+package pl.foltak.mybudget.server.dao;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.ejb.EJB;
+import javax.ejb.EJBException;
+import javax.ejb.Schedule;
+import javax.ejb.Singleton;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+
+/**
+ * Rebuilds monthly totals of all users every night, so totals changed outside of the application
+ * are corrected. Every user is rebuilt in its own transaction.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+@Singleton
+public class MonthlyTotalsRebuildJob {
+
+    private static final Logger LOGGER = Logger.getLogger(MonthlyTotalsRebuildJob.class.getName());
+
+    @EJB
+    private MonthlyTotalsDao monthlyTotalsDao;
+
+    /**
+     * Rebuilds monthly totals of all users. A failure of one user doesn't stop the others.
+     */
+    @Schedule(hour = "3", persistent = false)
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public void rebuild() {
+        for (Long userId : getMonthlyTotalsDao().getUserIds()) {
+            try {
+                getMonthlyTotalsDao().rebuild(userId);
+            } catch (EJBException ex) {
+                LOGGER.log(Level.WARNING, "Monthly totals of user " + userId + " weren't rebuilt", ex);
+            }
+        }
+    }
+
+    MonthlyTotalsDao getMonthlyTotalsDao() {
+        return monthlyTotalsDao;
+    }
+}
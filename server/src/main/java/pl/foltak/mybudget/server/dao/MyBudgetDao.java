@@ -1,10 +1,29 @@
 package pl.foltak.mybudget.server.dao;
 
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.ejb.EJB;
 import javax.ejb.Stateless;
+import javax.interceptor.Interceptors;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
-import javax.persistence.TypedQuery;
+import javax.persistence.PersistenceException;
+import javax.persistence.Query;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.exception.ConstraintViolationException;
 import pl.foltak.mybudget.server.dao.exception.AccountAlreadyExistsException;
 import pl.foltak.mybudget.server.dao.exception.AccountCantBeRemovedException;
 import pl.foltak.mybudget.server.dao.exception.AccountNotFoundException;
@@ -12,12 +31,21 @@ import pl.foltak.mybudget.server.dao.exception.CategoryAlreadyExistsException;
 import pl.foltak.mybudget.server.dao.exception.CategoryCantBeRemovedException;
 import pl.foltak.mybudget.server.dao.exception.CategoryNotFoundException;
 import pl.foltak.mybudget.server.dao.exception.TransactionNotFoundException;
+import pl.foltak.mybudget.server.dto.AccountDTO;
+import pl.foltak.mybudget.server.dto.CategoryDTO;
+import pl.foltak.mybudget.server.dto.CategoryNodeDTO;
+import pl.foltak.mybudget.server.dto.Money;
+import pl.foltak.mybudget.server.dto.ReportFilter;
+import pl.foltak.mybudget.server.dto.ReportRowDTO;
+import pl.foltak.mybudget.server.dto.TagDTO;
 import pl.foltak.mybudget.server.dto.TransactionDTO;
+import pl.foltak.mybudget.server.dto.TransactionFilter;
 import pl.foltak.mybudget.server.entity.Account;
 import pl.foltak.mybudget.server.entity.Category;
 import pl.foltak.mybudget.server.entity.Tag;
 import pl.foltak.mybudget.server.entity.Transaction;
 import pl.foltak.mybudget.server.entity.User;
+import pl.foltak.mybudget.server.metrics.DaoMetricsInterceptor;
 
 /**
  * DAO service for all entities.
@@ -25,255 +53,379 @@ import pl.foltak.mybudget.server.entity.User;
  * @author Mariusz Foltak <mariusz@foltak.pl>
  */
 @Stateless
+@Interceptors(DaoMetricsInterceptor.class)
 public class MyBudgetDao implements MyBudgetDaoLocal {
 
-    private static final String SELECT_USER = "SELECT u FROM users AS u WHERE u.username = :username";
+    private static final String SELECT_ACCOUNT_BY_NAME
+            = "SELECT a FROM accounts AS a WHERE a.user = :user AND a.name = :name";
+    private static final String SELECT_ACCOUNT_BY_ID
+            = "SELECT a FROM accounts AS a WHERE a.user = :user AND a.id = :id";
+    private static final String SELECT_MAIN_CATEGORY = "SELECT c FROM categories AS c "
+            + "WHERE c.user = :user AND c.parent IS NULL AND c.name = :name";
+    private static final String SELECT_SUB_CATEGORY
+            = "SELECT c FROM categories AS c WHERE c.parent = :parent AND c.name = :name";
+    private static final String SELECT_TRANSACTION
+            = "SELECT t FROM transactions AS t WHERE t.account.user = :user AND t.id = :id";
+    private static final String DELETE_TRANSACTION = "DELETE FROM transactions WHERE id = :id "
+            + "AND account_id IN (SELECT a.id FROM accounts AS a WHERE a.user_id = :userId)";
+    private static final String SELECT_TRANSACTION_TAGS
+            = "SELECT t.id, g.name FROM transactions AS t JOIN t.tags AS g WHERE t.id IN :ids";
+    private static final String SELECT_EXPORTED_TRANSACTIONS = "SELECT t.id, t.transactionDate, "
+            + "a.name, c.name, p.name, t.amount, t.description, g.name "
+            + "FROM transactions AS t JOIN t.account AS a JOIN t.category AS c "
+            + "LEFT JOIN c.parent AS p LEFT JOIN t.tags AS g "
+            + "WHERE a.user = :user ORDER BY t.transactionDate, t.id";
+    private static final String SELECT_ACCOUNTS = "SELECT NEW pl.foltak.mybudget.server.dto."
+            + "AccountDTO(a.id, a.name) FROM accounts AS a WHERE a.user = :user ORDER BY a.id";
+    private static final String SELECT_MAIN_CATEGORIES = "SELECT NEW pl.foltak.mybudget.server."
+            + "dto.CategoryDTO(c.name) FROM categories AS c "
+            + "WHERE c.user = :user AND c.parent IS NULL ORDER BY c.id";
+    private static final String SELECT_SUB_CATEGORIES = "SELECT NEW pl.foltak.mybudget.server."
+            + "dto.CategoryDTO(c.name) FROM categories AS c WHERE c.parent = :parent ORDER BY c.id";
+    private static final String SELECT_CATEGORY_TREE = "SELECT c.id, c.name, s.id, s.name "
+            + "FROM categories AS c LEFT JOIN c.subCategories AS s "
+            + "WHERE c.user = :user AND c.parent IS NULL ORDER BY c.id, s.id";
+    private static final String SELECT_CATEGORY_TOTALS = "SELECT m.id.categoryId, "
+            + "SUM(m.transactionCount), SUM(m.amountSum) FROM monthly_totals AS m "
+            + "WHERE m.id.userId = :userId GROUP BY m.id.categoryId";
+    private static final String SELECT_TAGS = "SELECT NEW pl.foltak.mybudget.server.dto."
+            + "TagDTO(g.name) FROM users AS u JOIN u.tags AS g WHERE u = :user ORDER BY g.id";
+    private static final String SELECT_ACCOUNT_TRANSACTION_ID
+            = "SELECT t.id FROM transactions AS t WHERE t.account = :account";
+    private static final String SELECT_CATEGORY_TRANSACTION_ID
+            = "SELECT t.id FROM transactions AS t WHERE t.category = :category";
+    private static final String SELECT_SUB_CATEGORY_ID
+            = "SELECT c.id FROM categories AS c WHERE c.parent = :parent";
+
+    static final String ACCOUNT_NAME_CONSTRAINT = "uk_accounts_user_name";
+    static final String MAIN_CATEGORY_NAME_CONSTRAINT = "uk_categories_user_name";
+    static final String SUB_CATEGORY_NAME_CONSTRAINT = "uk_categories_parent_name";
+    static final String INTEGRITY_VIOLATION_STATE = "23000";
+    static final int DUPLICATE_ENTRY_ERROR = 1062;
+    private static final Pattern DUPLICATE_KEY = Pattern.compile("for key '([^']*)'$");
 
     @PersistenceContext(name = "pl.foltak.my-budget")
-    private EntityManager em;
+    EntityManager em;
+
+    @EJB
+    private MonthlyTotalsDao monthlyTotalsDao;
+
+    @EJB
+    private TagDictionary tagDictionary;
+
+    @EJB
+    private UserVersions userVersions;
 
     /**
-     * Adds given account to an user with given username. If account with given name already exists,
-     * method throws exception.
+     * Adds given account to an user with given id. If account with given name already exists,
+     * method throws exception. The existence is detected by the unique constraint, so the
+     * transaction is rolled back in that case.
      *
-     * @param username the name of user to which an account should be added
+     * @param userId the id of user to which an account should be added
      * @param account an account that should be added
      * @throws AccountAlreadyExistsException when account with given name already exists
      */
     @Override
-    public void addAccount(String username, Account account) throws AccountAlreadyExistsException {
-        final User user = getUserByName(username);
-        if (user.findAccount(account.getName()).isPresent()) {
+    public void addAccount(long userId, Account account) throws AccountAlreadyExistsException {
+        final User user = getUser(userId);
+        user.addAccount(account);
+        if (!persistUnique(account, ACCOUNT_NAME_CONSTRAINT)) {
             throw AccountAlreadyExistsException.of(account.getName());
         }
-        user.addAccount(account);
+        getUserVersions().changed(userId);
     }
 
     /**
      * Updates account with given name using values in given account object.
      *
-     * @param username the name of user which is owner of an account
+     * @param userId the id of user which is owner of an account
      * @param accountName the name of account that should be modified
      * @param account the account object with values that should be used to update account
      * @throws AccountAlreadyExistsException when an account with new name already exists
      * @throws AccountNotFoundException when an account with given name doesn't exists
      */
     @Override
-    public void updateAccount(String username, String accountName, Account account)
+    public void updateAccount(long userId, String accountName, Account account)
             throws AccountAlreadyExistsException, AccountNotFoundException {
 
-        final User user = getUserByName(username);
-        Account get = user.findAccount(accountName)
-                .orElseThrow(() -> AccountNotFoundException.of(accountName));
+        final User user = getUser(userId);
+        Account get = getAccount(user, accountName);
 
-        if (user.findAccount(account.getName()).isPresent()) {
+        if (findAccount(user, account.getName()).isPresent()) {
             throw AccountAlreadyExistsException.of(account.getName());
         }
 
         setAccountFields(get, account);
+        getUserVersions().changed(userId);
     }
 
     /**
      * Removes account from user.
      *
-     * @param username the name of user from which an account should be deleted
+     * @param userId the id of user from which an account should be deleted
      * @param accountId the id of account that should be removed
      * @throws AccountNotFoundException when account with given name doesn't exist
      * @throws AccountCantBeRemovedException when the account has transactions
      */
     @Override
-    public void removeAccount(String username, Long accountId) throws AccountNotFoundException,
+    public void removeAccount(long userId, Long accountId) throws AccountNotFoundException,
             AccountCantBeRemovedException {
 
-        final User user = getUserByName(username);
-        Account account = user.findAccount(accountId)
+        final User user = getUser(userId);
+        Account account = findAccount(user, accountId)
                 .orElseThrow(() -> AccountNotFoundException.of(accountId));
 
-        if (account.hasTransactions()) {
+        if (hasTransactions(account)) {
             throw new AccountCantBeRemovedException();
         }
-        user.removeAccount(account);
+        em.remove(account);
+        getUserVersions().changed(userId);
     }
 
     /**
-     * Returns user accounts list.
+     * Returns user accounts list. Accounts are read by a single projection query, so no entity is
+     * marshalled.
      *
-     * @param username the name of user which accounts list should be returns
+     * @param userId the id of user which accounts list should be returns
      * @return accounts list
      */
     @Override
-    public List<Account> getAccounts(String username) {
-        return getUserByName(username).getAccounts();
+    public List<AccountDTO> getAccounts(long userId) {
+        return em.createQuery(SELECT_ACCOUNTS, AccountDTO.class)
+                .setParameter("user", getUser(userId))
+                .getResultList();
     }
 
     /**
      * Adds given category to user with given name. If category already exists, method throws
-     * exception.
+     * exception. The existence is detected by the unique constraint, so the transaction is rolled
+     * back in that case.
      *
-     * @param username name of user to which category should be added
+     * @param userId id of user to which category should be added
      * @param category category that should be added
      * @throws CategoryAlreadyExistsException if category already exists
      */
     @Override
-    public void addMainCategory(String username, Category category) throws
+    public void addMainCategory(long userId, Category category) throws
             CategoryAlreadyExistsException {
 
-        final User user = getUserByName(username);
-        if (user.findCategory(category.getName()).isPresent()) {
-            throw new CategoryAlreadyExistsException(
-                    "Category " + category.getName() + " already exists");
-        }
+        final User user = getUser(userId);
         user.addCategory(category);
+        if (!persistUnique(category, MAIN_CATEGORY_NAME_CONSTRAINT)) {
+            throw CategoryAlreadyExistsException.of(category.getName());
+        }
+        getUserVersions().changed(userId);
     }
 
     /**
      * Removes given category from an user. Throws an exception if a category doesn't exist or can't
      * be deleted.
      *
-     * @param username user which from category should be removed
+     * @param userId user which from category should be removed
      * @param categoryName category to be removed
      * @throws CategoryNotFoundException if a category doesn't exist
      * @throws CategoryCantBeRemovedException if a category has transactions or sub categories
      */
     @Override
-    public void removeMainCategory(String username, String categoryName) throws
+    public void removeMainCategory(long userId, String categoryName) throws
             CategoryNotFoundException, CategoryCantBeRemovedException {
 
-        final User user = getUserByName(username);
-        final Category category = user.findCategory(categoryName).orElseThrow(
-                () -> CategoryNotFoundException.of(categoryName));
+        final User user = getUser(userId);
+        final Category category = getMainCategory(user, categoryName);
 
-        if (category.hasSubCategories()) {
+        if (hasSubCategories(category)) {
             throw new CategoryCantBeRemovedException(
                     "Category " + categoryName + " has sub categories");
         }
-        if (category.hasTransactions()) {
+        if (hasTransactions(category)) {
             throw new CategoryCantBeRemovedException("Categor " + categoryName + "has transactions");
         }
-        user.removeCategory(category);
+        em.remove(category);
+        getUserVersions().changed(userId);
     }
 
-    // TODO: add comment
+    /**
+     * Updates main category of an user with given values. A category with the new name is
+     * detected by the unique constraint, so the transaction is rolled back in that case.
+     *
+     * @param userId the id of user which category should be updated
+     * @param categoryName the name of category to update
+     * @param categoryValues new values of category
+     * @throws CategoryNotFoundException if category doesn't exist
+     * @throws CategoryAlreadyExistsException if category with the new name already exists
+     */
     @Override
-    public void updateMainCategory(String username, String categoryName, Category categoryValues)
+    public void updateMainCategory(long userId, String categoryName, Category categoryValues)
             throws CategoryNotFoundException, CategoryAlreadyExistsException {
 
-        User user = getUserByName(username);
-        if (!categoryName.equals(categoryValues.getName())
-                && user.findCategory(categoryValues.getName()).isPresent()) {
+        User user = getUser(userId);
+        setCategoryFields(getMainCategory(user, categoryName), categoryValues);
+        if (!flushUnique(MAIN_CATEGORY_NAME_CONSTRAINT)) {
             throw CategoryAlreadyExistsException.of(categoryValues.getName());
         }
-        setCategoryFields(user.findCategory(categoryName).orElseThrow(
-                () -> CategoryNotFoundException.of(categoryName)), categoryValues);
+        getUserVersions().changed(userId);
     }
 
     /**
      * Adds sub category to parent category.
      *
-     * @param username user which to add new sub category
+     * @param userId user which to add new sub category
      * @param mainCategoryName main category which to add new sub category
      * @param houseCategory sub category to be added
      * @throws CategoryNotFoundException if main category doesn't exist
      * @throws CategoryAlreadyExistsException if sub category already exists
      */
     @Override
-    public void addSubCategory(String username, String mainCategoryName, Category houseCategory) throws
+    public void addSubCategory(long userId, String mainCategoryName, Category houseCategory) throws
             CategoryNotFoundException, CategoryAlreadyExistsException {
-        User user = getUserByName(username);
-        Category mainCategory = user.findCategory(mainCategoryName)
-                .orElseThrow(() -> CategoryNotFoundException.of(mainCategoryName));
-        if (mainCategory.findSubCategory(houseCategory.getName()).isPresent()) {
+        Category mainCategory = getMainCategory(getUser(userId), mainCategoryName);
+        mainCategory.addSubCategory(houseCategory);
+        if (!persistUnique(houseCategory, SUB_CATEGORY_NAME_CONSTRAINT)) {
             throw CategoryAlreadyExistsException.of(houseCategory.getName());
         }
-        mainCategory.addSubCategory(houseCategory);
+        getUserVersions().changed(userId);
     }
 
     // TODO: add comment
     @Override
-    public void removeSubCategory(String USERNAME, String FOOD, String CANDY) throws
+    public void removeSubCategory(long userId, String FOOD, String CANDY) throws
             CategoryNotFoundException, CategoryCantBeRemovedException {
 
-        Category mainCategory = getUserByName(USERNAME).findCategory(FOOD)
-                .orElseThrow(() -> CategoryNotFoundException.of(FOOD));
-
-        Category subCategory = mainCategory.findSubCategory(CANDY)
-                .orElseThrow(() -> CategoryNotFoundException.of(CANDY));
+        Category mainCategory = getMainCategory(getUser(userId), FOOD);
+        Category subCategory = getSubCategory(mainCategory, CANDY);
 
-        if (subCategory.hasTransactions()) {
+        if (hasTransactions(subCategory)) {
             // TODO: Write a better message that includes category name
             throw new CategoryCantBeRemovedException("Category has transactions");
         }
-        mainCategory.removeSubCategory(subCategory);
+        em.remove(subCategory);
+        getUserVersions().changed(userId);
     }
 
-    // TODO: add comment
+    /**
+     * Updates sub category with given values. A sub category with the new name is detected by
+     * the unique constraint, so the transaction is rolled back in that case.
+     *
+     * @param userId the id of user which category should be updated
+     * @param mainCategoryName the name of parent category
+     * @param subCategoryName the name of sub category to update
+     * @param houseCategory new values of sub category
+     * @throws CategoryNotFoundException if main or sub category doesn't exist
+     * @throws CategoryAlreadyExistsException if sub category with the new name already exists
+     */
     @Override
-    public void updateSubCategory(String username, String mainCategoryName, String subCategoryName,
+    public void updateSubCategory(long userId, String mainCategoryName, String subCategoryName,
             Category houseCategory) throws CategoryNotFoundException, CategoryAlreadyExistsException {
 
-        Category mainCategory = getUserByName(username).findCategory(mainCategoryName)
-                .orElseThrow(() -> CategoryNotFoundException.of(mainCategoryName));
+        Category mainCategory = getMainCategory(getUser(userId), mainCategoryName);
+        Category subCategory = getSubCategory(mainCategory, subCategoryName);
 
-        Category subCategory = mainCategory.findSubCategory(subCategoryName)
-                .orElseThrow(() -> CategoryNotFoundException.of(subCategoryName));
-
-        if (!subCategoryName.equals(houseCategory.getName())
-                && mainCategory.findSubCategory(houseCategory.getName()).isPresent()) {
+        setCategoryFields(subCategory, houseCategory);
+        if (!flushUnique(SUB_CATEGORY_NAME_CONSTRAINT)) {
             throw CategoryAlreadyExistsException.of(houseCategory.getName());
         }
-        setCategoryFields(subCategory, houseCategory);
+        getUserVersions().changed(userId);
     }
 
-    // TODO: add comment
+    /**
+     * Returns main categories of an user, read by a single projection query.
+     *
+     * @param userId the id of user
+     * @return list of main categories
+     */
     @Override
-    public List<Category> getAllCategories(String username) {
-        return getUserByName(username).getCategories();
+    public List<CategoryDTO> getAllCategories(long userId) {
+        return em.createQuery(SELECT_MAIN_CATEGORIES, CategoryDTO.class)
+                .setParameter("user", getUser(userId))
+                .getResultList();
     }
 
-    // TODO: add comment
+    /**
+     * Returns sub categories of a main category, read by a single projection query.
+     *
+     * @param userId the id of user
+     * @param mainCategory the name of main category
+     * @return list of sub categories
+     * @throws CategoryNotFoundException when the main category doesn't exist
+     */
     @Override
-    public List<Category> getSubCategories(String username, String mainCategory)
+    public List<CategoryDTO> getSubCategories(long userId, String mainCategory)
             throws CategoryNotFoundException {
 
-        return getUserByName(username).findCategory(mainCategory)
-                .orElseThrow(() -> CategoryNotFoundException.of(mainCategory)).getSubCategories();
+        return em.createQuery(SELECT_SUB_CATEGORIES, CategoryDTO.class)
+                .setParameter("parent", getMainCategory(getUser(userId), mainCategory))
+                .getResultList();
     }
 
-    // TODO: add comment
+    /**
+     * Returns main categories of an user with their sub categories. All categories are read by a
+     * single query; totals, if requested, are read from monthly totals by another one.
+     *
+     * @param userId the id of user
+     * @param withTotals whether numbers and sums of transactions should be set
+     * @return list of main categories
+     */
+    @Override
+    public List<CategoryNodeDTO> getCategoryTree(long userId, boolean withTotals) {
+        final User user = getUser(userId);
+        final CategoryTree tree = new CategoryTree(withTotals);
+        for (Object[] row : em.createQuery(SELECT_CATEGORY_TREE, Object[].class)
+                .setParameter("user", user).getResultList()) {
+            tree.addCategory((Long) row[0], null, (String) row[1]);
+            if (row[2] != null) {
+                tree.addCategory((Long) row[2], (Long) row[0], (String) row[3]);
+            }
+        }
+        if (withTotals) {
+            for (Object[] row : em.createQuery(SELECT_CATEGORY_TOTALS, Object[].class)
+                    .setParameter("userId", userId).getResultList()) {
+                tree.addTotals((Long) row[0], (Long) row[1], (Long) row[2]);
+            }
+        }
+        return tree.getMainCategories();
+    }
+
+    /**
+     * Returns tags of an user, read by a single projection query.
+     *
+     * @param userId the id of user
+     * @return list of tags
+     */
     @Override
-    public List<Tag> getTags(String username) {
-        return getUserByName(username).getTags();
+    public List<TagDTO> getTags(long userId) {
+        return em.createQuery(SELECT_TAGS, TagDTO.class)
+                .setParameter("user", getUser(userId))
+                .getResultList();
     }
 
     // TODO: add comment
     @Override
-    public void addTransaction(String USERNAME, TransactionDTO transactionDTO) throws
+    public void addTransaction(long userId, TransactionDTO transactionDTO) throws
             AccountNotFoundException, CategoryNotFoundException {
 
         String accountName = transactionDTO.getAccountName();
         String mainCategoryName = transactionDTO.getMainCategoryName();
         String subCategoryName = transactionDTO.getSubCategoryName();
 
-        User user = getUserByName(USERNAME);
+        User user = getUser(userId);
         Transaction transaction = convertTransaction(transactionDTO);
 
-        user.findAccount(accountName)
-                .orElseThrow(() -> AccountNotFoundException.of(accountName))
-                .addTransaction(transaction);
-
-        findSubCategory(user, mainCategoryName, subCategoryName)
-                .addTransaction(transaction);
+        getAccount(user, accountName).addTransaction(transaction);
+        getSubCategory(user, mainCategoryName, subCategoryName).addTransaction(transaction);
 
         for (String tagName : transactionDTO.getTags()) {
-            Tag tag = findOrCreateTag(tagName);
+            Tag tag = findOrCreateTag(user, tagName);
             transaction.addTag(tag);
         }
+        em.persist(transaction);
+        getMonthlyTotalsDao().add(transaction);
+        getUserVersions().changed(userId);
     }
 
     /**
      * Updates transaction using given TransactionDTO object.
      *
-     * @param username name of the user to which transactions belongs
+     * @param userId id of the user to which transactions belongs
      * @param transactionDTO a dto object representing new values of transaction
      *
      * @throws AccountNotFoundException when account doesn't exist
@@ -281,72 +433,381 @@ public class MyBudgetDao implements MyBudgetDaoLocal {
      * @throws CategoryNotFoundException when a category doesn't exist
      */
     @Override
-    public void updateTransaction(String username, TransactionDTO transactionDTO) throws
+    public void updateTransaction(long userId, TransactionDTO transactionDTO) throws
             AccountNotFoundException, TransactionNotFoundException, CategoryNotFoundException {
 
-        User user = getUserByName(username);
+        User user = getUser(userId);
         String mainCategoryName = transactionDTO.getMainCategoryName();
         String subCategoryName = transactionDTO.getSubCategoryName();
 
-        Account account = findAccount(user, transactionDTO.getAccountName());
-        Category subCategory = findSubCategory(user, mainCategoryName, subCategoryName);
-        Transaction transaction = findTransaction(user, transactionDTO.getId());
+        Account account = getAccount(user, transactionDTO.getAccountName());
+        Category subCategory = getSubCategory(user, mainCategoryName, subCategoryName);
+        Transaction transaction = getTransaction(user, transactionDTO.getId());
 
+        getMonthlyTotalsDao().subtract(transaction);
         updateTransaction(transaction, transactionDTO);
         account.addTransaction(transaction);
         subCategory.addTransaction(transaction);
-        updateTags(transaction, transactionDTO);
+        updateTags(user, transaction, transactionDTO);
+        getMonthlyTotalsDao().add(transaction);
+        getUserVersions().changed(userId);
     }
 
-    private Transaction findTransaction(User user, long id)
-            throws TransactionNotFoundException {
+    private Transaction getTransaction(User user, long id) throws TransactionNotFoundException {
+        return findTransaction(user, id).orElseThrow(() -> TransactionNotFoundException.of(id));
+    }
+
+    private Category getSubCategory(User user, String mainCategoryName, String subCategoryName)
+            throws CategoryNotFoundException {
 
-        return user.findTransaction(id)
-                .orElseThrow(() -> TransactionNotFoundException.of(id));
+        return getSubCategory(getMainCategory(user, mainCategoryName), subCategoryName);
     }
 
-    private static Category findSubCategory(User user, String mainCategoryName,
-            String subCategoryName) throws CategoryNotFoundException {
-        return user.findCategory(mainCategoryName)
-                .orElseThrow(() -> CategoryNotFoundException.of(mainCategoryName))
-                .findSubCategory(subCategoryName)
+    private Category getSubCategory(Category mainCategory, String subCategoryName)
+            throws CategoryNotFoundException {
+
+        return findSubCategory(mainCategory, subCategoryName)
                 .orElseThrow(() -> CategoryNotFoundException.of(subCategoryName));
     }
 
-    private Account findAccount(User user, String accountName)
-            throws AccountNotFoundException {
+    private Category getMainCategory(User user, String categoryName)
+            throws CategoryNotFoundException {
+
+        return findMainCategory(user, categoryName)
+                .orElseThrow(() -> CategoryNotFoundException.of(categoryName));
+    }
 
-        return user.findAccount(accountName)
+    private Account getAccount(User user, String accountName) throws AccountNotFoundException {
+        return findAccount(user, accountName)
                 .orElseThrow(() -> AccountNotFoundException.of(accountName));
     }
 
-    private void updateTags(Transaction transaction, TransactionDTO transactionDTO) {
+    private void updateTags(User user, Transaction transaction, TransactionDTO transactionDTO) {
         transaction.clearTags();
         for (String tag : transactionDTO.getTags()) {
-            transaction.addTag(findOrCreateTag(tag));
+            transaction.addTag(findOrCreateTag(user, tag));
+        }
+    }
+
+    @Override
+    public void removeTransaction(long userId, long transactionId)
+            throws TransactionNotFoundException {
+        User user = getUser(userId);
+        Transaction transaction = getTransaction(user, transactionId);
+        em.detach(transaction);
+        // a concurrent remove deleted it first, so it's subtracted only once
+        if (!deleteTransaction(user, transactionId)) {
+            throw TransactionNotFoundException.of(transactionId);
         }
+        getMonthlyTotalsDao().subtract(transaction);
+        getUserVersions().changed(userId);
     }
 
+    /**
+     * Returns a page of user transactions matching given filter, ordered from the newest one.
+     * Account, category and tag names are read with the page, so no lazy collections are touched.
+     *
+     * @param userId the id of user which transactions should be returned
+     * @param filter the filter with maximum number of transactions to return
+     * @return list of transactions
+     */
     @Override
-    public void removeTransaction(String USERNAME, long ID_47) throws TransactionNotFoundException {
-        User user = getUserByName(USERNAME);
-        Transaction transaction = user.findTransaction(ID_47)
-                .orElseThrow(() -> TransactionNotFoundException.of(ID_47));
-        user.removeTransaction(transaction);
+    public List<TransactionDTO> getTransactions(long userId, TransactionFilter filter) {
+        final TransactionFilterQuery filterQuery
+                = new TransactionFilterQuery(getUser(userId), filter);
+        final List<Object[]> rows = filterQuery.bind(
+                em.createQuery(filterQuery.getJpql(), Object[].class))
+                .setMaxResults(filter.getLimit())
+                .getResultList();
+
+        final List<TransactionDTO> transactions = new ArrayList<>(rows.size());
+        final Map<Long, TransactionDTO> byId = new HashMap<>();
+        for (Object[] row : rows) {
+            final TransactionDTO dto = convertTransaction((Transaction) row[0]);
+            dto.setAccountName((String) row[1]);
+            dto.setMainCategoryName(row[3] != null ? (String) row[3] : (String) row[2]);
+            dto.setSubCategoryName(row[3] != null ? (String) row[2] : null);
+            dto.setTags(new LinkedList<>());
+            transactions.add(dto);
+            byId.put(dto.getId(), dto);
+        }
+        if (!byId.isEmpty()) {
+            final List<Object[]> tags = em.createQuery(SELECT_TRANSACTION_TAGS, Object[].class)
+                    .setParameter("ids", byId.keySet())
+                    .getResultList();
+            for (Object[] tag : tags) {
+                byId.get((Long) tag[0]).getTags().add((String) tag[1]);
+            }
+        }
+        return transactions;
+    }
+
+    /**
+     * Returns sums and numbers of user transactions grouped by dimensions of given filter. Sums
+     * are computed by the database, so only one row per group is read.
+     *
+     * @param userId the id of user which transactions should be summed
+     * @param filter dimensions and criteria of the report
+     * @return rows of the report, ordered by dimensions
+     */
+    @Override
+    public List<ReportRowDTO> getReport(long userId, ReportFilter filter) {
+        final ReportQuery reportQuery = new ReportQuery(getUser(userId), filter);
+        final List<Object[]> rows = reportQuery.bind(
+                em.createQuery(reportQuery.getJpql(), Object[].class)).getResultList();
+        final List<ReportRowDTO> report = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            report.add(reportQuery.convert(row));
+        }
+        return report;
+    }
+
+    /**
+     * Passes all transactions of an user to given consumer, from the oldest one. Rows are read
+     * from a forward-only cursor as scalar values, which aren't kept by the persistence context,
+     * so memory usage doesn't depend on the number of transactions.
+     *
+     * @param userId the id of user which transactions should be exported
+     * @param consumer the consumer of transactions
+     */
+    @Override
+    public void exportTransactions(long userId, Consumer<TransactionDTO> consumer) {
+        final ScrollableResults results = scrollExportedTransactions(getUser(userId));
+        try {
+            TransactionDTO transaction = null;
+            while (results.next()) {
+                final Object[] row = results.get();
+                // rows of one transaction are adjacent, one per tag
+                if (transaction == null || !transaction.getId().equals(row[0])) {
+                    if (transaction != null) {
+                        consumer.accept(transaction);
+                    }
+                    transaction = convertExportedTransaction(row);
+                }
+                if (row[7] != null) {
+                    transaction.getTags().add((String) row[7]);
+                }
+            }
+            if (transaction != null) {
+                consumer.accept(transaction);
+            }
+        } finally {
+            results.close();
+        }
+    }
+
+    ScrollableResults scrollExportedTransactions(User user) {
+        return em.unwrap(Session.class).createQuery(SELECT_EXPORTED_TRANSACTIONS)
+                .setParameter("user", user)
+                .setReadOnly(true)
+                .setCacheMode(CacheMode.IGNORE)
+                // a hack of MySQL Connector/J, which streams rows only for this fetch size; other
+                // drivers may treat it as a hint or reject it
+                .setFetchSize(Integer.MIN_VALUE)
+                .scroll(ScrollMode.FORWARD_ONLY);
+    }
+
+    private static TransactionDTO convertExportedTransaction(Object[] row) {
+        final TransactionDTO transaction = new TransactionDTO();
+        transaction.setId((Long) row[0]);
+        transaction.setTransactionDate((Date) row[1]);
+        transaction.setAccountName((String) row[2]);
+        transaction.setMainCategoryName(row[4] != null ? (String) row[4] : (String) row[3]);
+        transaction.setSubCategoryName(row[4] != null ? (String) row[3] : null);
+        transaction.setAmount(Money.toDecimal((Long) row[5]));
+        transaction.setDescription((String) row[6]);
+        transaction.setTags(new LinkedList<>());
+        return transaction;
+    }
+
+    TransactionDTO convertTransaction(Transaction transaction) {
+        TransactionDTO transactionDTO = new TransactionDTO();
+        transactionDTO.setId(transaction.getId());
+        transactionDTO.setAmount(Money.toDecimal(transaction.getAmount()));
+        transactionDTO.setDescription(transaction.getDescription());
+        transactionDTO.setTransactionDate(transaction.getTransactionDate());
+        return transactionDTO;
     }
 
     Transaction convertTransaction(TransactionDTO transactionDTO) {
         Transaction transaction = new Transaction();
-        transaction.setAmount(transactionDTO.getAmount());
+        transaction.setAmount(Money.toMinorUnits(transactionDTO.getAmount()));
         transaction.setDescription(transactionDTO.getDescription());
         transaction.setTransactionDate(transactionDTO.getTransactionDate());
         return transaction;
     }
 
-    User getUserByName(String username) {
-        TypedQuery<User> query = em.createQuery(SELECT_USER, User.class);
-        query.setParameter("username", username);
-        return query.getSingleResult();
+    /**
+     * Returns the user authenticated for the request. The id is known already, so a reference is
+     * returned: queries bound to it don't read the user at all and navigating it reads the user by
+     * primary key, usually from the second level cache.
+     *
+     * @param userId the id of user
+     * @return the user
+     */
+    User getUser(long userId) {
+        return em.getReference(User.class, userId);
+    }
+
+    Optional<Account> findAccount(User user, String accountName) {
+        return em.createQuery(SELECT_ACCOUNT_BY_NAME, Account.class)
+                .setParameter("user", user)
+                .setParameter("name", accountName)
+                .getResultList().stream().findFirst();
+    }
+
+    Optional<Account> findAccount(User user, Long accountId) {
+        return em.createQuery(SELECT_ACCOUNT_BY_ID, Account.class)
+                .setParameter("user", user)
+                .setParameter("id", accountId)
+                .getResultList().stream().findFirst();
+    }
+
+    Optional<Category> findMainCategory(User user, String categoryName) {
+        return em.createQuery(SELECT_MAIN_CATEGORY, Category.class)
+                .setParameter("user", user)
+                .setParameter("name", categoryName)
+                .getResultList().stream().findFirst();
+    }
+
+    Optional<Category> findSubCategory(Category mainCategory, String subCategoryName) {
+        return em.createQuery(SELECT_SUB_CATEGORY, Category.class)
+                .setParameter("parent", mainCategory)
+                .setParameter("name", subCategoryName)
+                .getResultList().stream().findFirst();
+    }
+
+    Optional<Transaction> findTransaction(User user, long id) {
+        return em.createQuery(SELECT_TRANSACTION, Transaction.class)
+                .setParameter("user", user)
+                .setParameter("id", id)
+                .getResultList().stream().findFirst();
+    }
+
+    /**
+     * Deletes a transaction with given id, if it belongs to given user, by a single statement.
+     * Its tags are deleted by the database, the foreign key of transactions_tags cascades.
+     *
+     * @param user the owner of transaction
+     * @param id the id of transaction
+     * @return true if the transaction was deleted, false if it doesn't exist anymore
+     */
+    boolean deleteTransaction(User user, long id) {
+        return em.unwrap(Session.class).createSQLQuery(DELETE_TRANSACTION)
+                .addSynchronizedQuerySpace("transactions")
+                .setParameter("id", id)
+                .setParameter("userId", user.getId())
+                .executeUpdate() > 0;
+    }
+
+    /**
+     * Checks if the account has any transaction. Unlike {@link Account#hasTransactions()}, it
+     * probes the index for a single row instead of loading the transaction list.
+     *
+     * @param account the account
+     * @return true if the account has transactions, otherwise false
+     */
+    boolean hasTransactions(Account account) {
+        return exists(em.createQuery(SELECT_ACCOUNT_TRANSACTION_ID)
+                .setParameter("account", account));
+    }
+
+    /**
+     * Checks if the category has any transaction without loading the transaction list.
+     *
+     * @param category the category
+     * @return true if the category has transactions, otherwise false
+     */
+    boolean hasTransactions(Category category) {
+        return exists(em.createQuery(SELECT_CATEGORY_TRANSACTION_ID)
+                .setParameter("category", category));
+    }
+
+    /**
+     * Checks if the category has any sub category without loading the sub categories list.
+     *
+     * @param category the main category
+     * @return true if the category has sub categories, otherwise false
+     */
+    boolean hasSubCategories(Category category) {
+        return exists(em.createQuery(SELECT_SUB_CATEGORY_ID).setParameter("parent", category));
+    }
+
+    private static boolean exists(Query query) {
+        return !query.setMaxResults(1).getResultList().isEmpty();
+    }
+
+    /**
+     * Persists given entity and flushes it, so a violation of given unique constraint is detected
+     * here instead of by a query before the insert.
+     *
+     * @param entity the entity to persist
+     * @param constraintName the name of unique constraint
+     * @return true if the entity was persisted, false if the constraint was violated
+     */
+    boolean persistUnique(Object entity, String constraintName) {
+        try {
+            em.persist(entity);
+            em.flush();
+            return true;
+        } catch (PersistenceException ex) {
+            if (isViolationOf(ex, constraintName)) {
+                return false;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Flushes changes of managed entities, so a violation of given unique constraint by an
+     * updated name is detected here instead of by a query before the update.
+     *
+     * @param constraintName the name of unique constraint
+     * @return true if changes were flushed, false if the constraint was violated
+     */
+    boolean flushUnique(String constraintName) {
+        try {
+            em.flush();
+            return true;
+        } catch (PersistenceException ex) {
+            if (isViolationOf(ex, constraintName)) {
+                return false;
+            }
+            throw ex;
+        }
+    }
+
+    static boolean isViolationOf(Throwable exception, String constraintName) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException) {
+                final ConstraintViolationException violation = (ConstraintViolationException) cause;
+                final String name = violation.getConstraintName() != null
+                        ? violation.getConstraintName()
+                        : getDuplicateKeyName(violation.getSQLException());
+                // MySQL 8 prefixes the name with the table name
+                return name != null && name.toLowerCase(Locale.ROOT).endsWith(constraintName);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads the name of violated unique key from the message of MySQL error 1062, like "Duplicate
+     * entry '7-wallet' for key 'uk_accounts_user_name'". MySQLDialect doesn't extract constraint
+     * names, so it's the only place where the name is given.
+     *
+     * @param exception the exception thrown by the driver
+     * @return the name of key or null when the exception isn't a duplicate entry error
+     */
+    static String getDuplicateKeyName(SQLException exception) {
+        if (exception == null || exception.getMessage() == null
+                || !INTEGRITY_VIOLATION_STATE.equals(exception.getSQLState())
+                || exception.getErrorCode() != DUPLICATE_ENTRY_ERROR) {
+            return null;
+        }
+        // the entry is given by the user, so only the key at the end of message is trusted
+        final Matcher matcher = DUPLICATE_KEY.matcher(exception.getMessage());
+        return matcher.find() ? matcher.group(1) : null;
     }
 
     void setAccountFields(Account account, final Account withValues) {
@@ -354,14 +815,36 @@ public class MyBudgetDao implements MyBudgetDaoLocal {
     }
 
     void setCategoryFields(Category category, Category withValues) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        category.setName(withValues.getName());
     }
 
-    Tag findOrCreateTag(String FIRST_TAG) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+    /**
+     * Returns the tag of given user with given name, creating it when it doesn't exist. The id is
+     * taken from {@link TagDictionary}, so no query is run for known tags.
+     *
+     * @param user the owner of tag
+     * @param tagName the name of tag
+     * @return the tag
+     */
+    Tag findOrCreateTag(User user, String tagName) {
+        return em.getReference(Tag.class, getTagDictionary().getTagId(user.getId(), tagName));
     }
 
     void updateTransaction(Transaction transaction, TransactionDTO transactionDTO) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        transaction.setAmount(Money.toMinorUnits(transactionDTO.getAmount()));
+        transaction.setDescription(transactionDTO.getDescription());
+        transaction.setTransactionDate(transactionDTO.getTransactionDate());
+    }
+
+    MonthlyTotalsDao getMonthlyTotalsDao() {
+        return monthlyTotalsDao;
+    }
+
+    TagDictionary getTagDictionary() {
+        return tagDictionary;
+    }
+
+    UserVersions getUserVersions() {
+        return userVersions;
     }
 }
@@ -1,6 +1,7 @@
 package pl.foltak.mybudget.server.dao;
 
 import java.util.List;
+import java.util.function.Consumer;
 import javax.ejb.Local;
 import pl.foltak.mybudget.server.dao.exception.AccountAlreadyExistsException;
 import pl.foltak.mybudget.server.dao.exception.AccountCantBeRemovedException;
@@ -9,10 +10,16 @@ import pl.foltak.mybudget.server.dao.exception.CategoryAlreadyExistsException;
 import pl.foltak.mybudget.server.dao.exception.CategoryCantBeRemovedException;
 import pl.foltak.mybudget.server.dao.exception.CategoryNotFoundException;
 import pl.foltak.mybudget.server.dao.exception.TransactionNotFoundException;
+import pl.foltak.mybudget.server.dto.AccountDTO;
+import pl.foltak.mybudget.server.dto.CategoryDTO;
+import pl.foltak.mybudget.server.dto.CategoryNodeDTO;
+import pl.foltak.mybudget.server.dto.ReportFilter;
+import pl.foltak.mybudget.server.dto.ReportRowDTO;
+import pl.foltak.mybudget.server.dto.TagDTO;
 import pl.foltak.mybudget.server.dto.TransactionDTO;
+import pl.foltak.mybudget.server.dto.TransactionFilter;
 import pl.foltak.mybudget.server.entity.Account;
 import pl.foltak.mybudget.server.entity.Category;
-import pl.foltak.mybudget.server.entity.Tag;
 
 /**
  *
@@ -21,47 +28,56 @@ import pl.foltak.mybudget.server.entity.Tag;
 @Local
 public interface MyBudgetDaoLocal {
 
-    public void addAccount(String username, Account account)
+    public void addAccount(long userId, Account account)
             throws AccountAlreadyExistsException;
 
-    public void updateAccount(String username, String accountName, Account account)
+    public void updateAccount(long userId, String accountName, Account account)
             throws AccountAlreadyExistsException, AccountNotFoundException;
 
-    public void removeAccount(String username, Long accountId)
+    public void removeAccount(long userId, Long accountId)
             throws AccountNotFoundException, AccountCantBeRemovedException;
 
-    public List<Account> getAccounts(String username);
+    public List<AccountDTO> getAccounts(long userId);
 
-    public void addMainCategory(String username, Category category) throws CategoryAlreadyExistsException;
+    public void addMainCategory(long userId, Category category) throws CategoryAlreadyExistsException;
 
-    public void updateMainCategory(String username, String categoryName, Category categoryValues)
+    public void updateMainCategory(long userId, String categoryName, Category categoryValues)
             throws CategoryNotFoundException, CategoryAlreadyExistsException;
 
-    public void removeMainCategory(String username, String categoryName) 
+    public void removeMainCategory(long userId, String categoryName) 
             throws CategoryNotFoundException, CategoryCantBeRemovedException;
 
-    public void addSubCategory(String USERNAME, String mainCategoryName, Category houseCategory)
+    public void addSubCategory(long userId, String mainCategoryName, Category houseCategory)
             throws CategoryNotFoundException, CategoryAlreadyExistsException;
 
-    public void updateSubCategory(String USERNAME, String FOOD, String CANDY, Category houseCategory)
+    public void updateSubCategory(long userId, String FOOD, String CANDY, Category houseCategory)
             throws CategoryNotFoundException, CategoryAlreadyExistsException;
 
-    public void removeSubCategory(String USERNAME, String FOOD, String CANDY)
+    public void removeSubCategory(long userId, String FOOD, String CANDY)
             throws CategoryNotFoundException, CategoryCantBeRemovedException;
 
-    public List<Category> getAllCategories(String username);
+    public List<CategoryDTO> getAllCategories(long userId);
     
-    public List<Category> getSubCategories(String username, String mainCategory)
+    public List<CategoryDTO> getSubCategories(long userId, String mainCategory)
             throws CategoryNotFoundException;
 
-    public List<Tag> getTags(String username);
+    public List<CategoryNodeDTO> getCategoryTree(long userId, boolean withTotals);
 
-    public void addTransaction(String USERNAME, TransactionDTO transactionDTO)
+    public List<TagDTO> getTags(long userId);
+
+    public void addTransaction(long userId, TransactionDTO transactionDTO)
             throws AccountNotFoundException, CategoryNotFoundException;
 
-    public void updateTransaction(String USERNAME, TransactionDTO transactionDTO)
+    public void updateTransaction(long userId, TransactionDTO transactionDTO)
             throws AccountNotFoundException, TransactionNotFoundException, CategoryNotFoundException;
 
-    public void removeTransaction(String USERNAME, long ID_47) throws TransactionNotFoundException;
+    public void removeTransaction(long userId, long transactionId)
+            throws TransactionNotFoundException;
+
+    public List<TransactionDTO> getTransactions(long userId, TransactionFilter filter);
+
+    public void exportTransactions(long userId, Consumer<TransactionDTO> consumer);
+
+    public List<ReportRowDTO> getReport(long userId, ReportFilter filter);
 
 }
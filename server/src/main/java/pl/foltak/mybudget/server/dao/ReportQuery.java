@@ -0,0 +1,176 @@
+package pl.foltak.mybudget.server.dao;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.persistence.TemporalType;
+import javax.persistence.TypedQuery;
+import pl.foltak.mybudget.server.dto.ReportDimension;
+import pl.foltak.mybudget.server.dto.ReportFilter;
+import pl.foltak.mybudget.server.dto.ReportRowDTO;
+
+/**
+ * Builds JPQL query which sums transactions of an user grouped by dimensions of given filter, so
+ * the database returns one row per group instead of all transactions. Grouping by sub category
+ * implies grouping by main category, because names of sub categories are unique only within
+ * their main category.
+ * <p>
+ * When the report isn't grouped by tag and its period consists of whole months, the query reads
+ * monthly totals instead of transactions, so it costs O(months * categories) instead of
+ * O(transactions).
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+class ReportQuery {
+
+    private static final String FROM_TRANSACTIONS = " FROM transactions AS t "
+            + "JOIN t.account AS a JOIN t.category AS c LEFT JOIN c.parent AS p";
+    private static final String FROM_MONTHLY_TOTALS = " FROM monthly_totals AS m "
+            + "JOIN m.account AS a JOIN m.category AS c LEFT JOIN c.parent AS p";
+
+    private final List<String> columns = new ArrayList<>();
+    private final StringBuilder where = new StringBuilder(" WHERE a.user = :user");
+    private final Map<String, Object> parameters = new LinkedHashMap<>();
+    private final Set<ReportDimension> dimensions;
+    private final boolean monthlyTotals;
+    private final String jpql;
+
+    ReportQuery(Object user, ReportFilter filter) {
+        dimensions = filter.getDimensions();
+        monthlyTotals = canUseMonthlyTotals(filter);
+        final String date = monthlyTotals ? "m.id.monthStart" : "t.transactionDate";
+        parameters.put("user", user);
+        if (dimensions.contains(ReportDimension.ACCOUNT)) {
+            columns.add("a.name");
+        }
+        if (dimensions.contains(ReportDimension.SUB_CATEGORY)) {
+            columns.add("p.name");
+            columns.add("c.name");
+        } else if (dimensions.contains(ReportDimension.MAIN_CATEGORY)) {
+            columns.add("COALESCE(p.name, c.name)");
+        }
+        String joins = "";
+        if (dimensions.contains(ReportDimension.TAG)) {
+            joins = " LEFT JOIN t.tags AS g";
+            columns.add("g.name");
+        }
+        if (dimensions.contains(ReportDimension.MONTH)) {
+            columns.add("YEAR(" + date + ")");
+            columns.add("MONTH(" + date + ")");
+        }
+        if (monthlyTotals) {
+            where.append(" AND m.transactionCount > 0");
+        }
+        and("a.name = :accountName", "accountName", filter.getAccountName());
+        and(date + " >= :dateFrom", "dateFrom", filter.getDateFrom());
+        and(date + " <= :dateTo", "dateTo", filter.getDateTo());
+
+        final StringBuilder query = new StringBuilder(monthlyTotals
+                ? "SELECT SUM(m.amountSum), SUM(m.transactionCount)"
+                : "SELECT SUM(t.amount), COUNT(t.id)");
+        for (String column : columns) {
+            query.append(", ").append(column);
+        }
+        query.append(monthlyTotals ? FROM_MONTHLY_TOTALS : FROM_TRANSACTIONS)
+                .append(joins).append(where);
+        if (!columns.isEmpty()) {
+            final String groupBy = String.join(", ", columns);
+            query.append(" GROUP BY ").append(groupBy).append(" ORDER BY ").append(groupBy);
+        }
+        jpql = query.toString();
+    }
+
+    boolean isMonthlyTotals() {
+        return monthlyTotals;
+    }
+
+    String getJpql() {
+        return jpql;
+    }
+
+    Map<String, Object> getParameters() {
+        return parameters;
+    }
+
+    /**
+     * Sets parameters of given query created from {@link #getJpql()}.
+     *
+     * @param <T> the type of query result
+     * @param query the query
+     * @return the same query
+     */
+    <T> TypedQuery<T> bind(TypedQuery<T> query) {
+        for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
+            if (parameter.getValue() instanceof Date) {
+                query.setParameter(parameter.getKey(), (Date) parameter.getValue(),
+                        TemporalType.DATE);
+            } else {
+                query.setParameter(parameter.getKey(), parameter.getValue());
+            }
+        }
+        return query;
+    }
+
+    /**
+     * Converts a row returned by the query to the report row.
+     *
+     * @param row the row returned by the query
+     * @return the report row
+     */
+    ReportRowDTO convert(Object[] row) {
+        final ReportRowDTO reportRow = new ReportRowDTO();
+        // sums are null when there are no transactions
+        reportRow.setSum(row[0] != null ? ((Number) row[0]).longValue() : 0);
+        reportRow.setCount(row[1] != null ? ((Number) row[1]).longValue() : 0);
+        int column = 2;
+        if (dimensions.contains(ReportDimension.ACCOUNT)) {
+            reportRow.setAccountName((String) row[column++]);
+        }
+        if (dimensions.contains(ReportDimension.SUB_CATEGORY)) {
+            final String parentName = (String) row[column++];
+            final String name = (String) row[column++];
+            reportRow.setMainCategoryName(parentName != null ? parentName : name);
+            reportRow.setSubCategoryName(parentName != null ? name : null);
+        } else if (dimensions.contains(ReportDimension.MAIN_CATEGORY)) {
+            reportRow.setMainCategoryName((String) row[column++]);
+        }
+        if (dimensions.contains(ReportDimension.TAG)) {
+            reportRow.setTagName((String) row[column++]);
+        }
+        if (dimensions.contains(ReportDimension.MONTH)) {
+            final int year = ((Number) row[column++]).intValue();
+            final int month = ((Number) row[column++]).intValue();
+            reportRow.setMonth(String.format("%04d-%02d", year, month));
+        }
+        return reportRow;
+    }
+
+    private static boolean canUseMonthlyTotals(ReportFilter filter) {
+        if (filter.getDimensions().contains(ReportDimension.TAG)) {
+            return false;
+        }
+        if (filter.getDateFrom() != null && toLocalDate(filter.getDateFrom()).getDayOfMonth() != 1) {
+            return false;
+        }
+        if (filter.getDateTo() != null) {
+            final LocalDate dateTo = toLocalDate(filter.getDateTo());
+            return dateTo.getDayOfMonth() == dateTo.lengthOfMonth();
+        }
+        return true;
+    }
+
+    private static LocalDate toLocalDate(Date date) {
+        return new java.sql.Date(date.getTime()).toLocalDate();
+    }
+
+    private void and(String condition, String name, Object value) {
+        if (value != null) {
+            where.append(" AND ").append(condition);
+            parameters.put(name, value);
+        }
+    }
+}
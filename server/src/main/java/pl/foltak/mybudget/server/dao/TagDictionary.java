@@ -0,0 +1,200 @@
+package pl.foltak.mybudget.server.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.Resource;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.LocalBean;
+import javax.ejb.Singleton;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+import org.hibernate.Session;
+import pl.foltak.mybudget.server.entity.User;
+
+/**
+ * Ids of tags by their names, kept in memory per user. Tags of an user are read once, when they
+ * are needed for the first time, so tagging a transaction doesn't run any query in the common
+ * case. A missing tag is inserted and relies on the unique (user_id, name) constraint, so
+ * concurrent creation of the same tag gives the same id. Inserted tags are remembered only when
+ * the transaction is committed. Tags of at most {@value #MAX_USERS_PROPERTY} users (1000 by
+ * default) are kept, for at most {@value #TTL_PROPERTY} seconds (600 by default), when the
+ * dictionary is full the user loaded first is dropped.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+@Singleton
+@LocalBean
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class TagDictionary {
+
+    static final String MAX_USERS_PROPERTY = "mybudget.tags.cache.maxUsers";
+    static final String TTL_PROPERTY = "mybudget.tags.cache.ttlSeconds";
+
+    private static final String SELECT_TAGS
+            = "SELECT g.name, g.id FROM users AS u JOIN u.tags AS g WHERE u.id = :userId";
+    // LAST_INSERT_ID(id) makes the id of existing tag the generated key of duplicate insert
+    private static final String INSERT_TAG = "INSERT INTO tags (name, user_id) VALUES (?, ?) "
+            + "ON DUPLICATE KEY UPDATE id = LAST_INSERT_ID(id)";
+
+    private final ConcurrentMap<Long, Entry> users = new ConcurrentHashMap<>();
+    private final int maxUsers;
+    private final long ttlMillis;
+
+    @PersistenceContext(name = "pl.foltak.my-budget")
+    EntityManager em;
+
+    @Resource
+    TransactionSynchronizationRegistry transactionRegistry;
+
+    public TagDictionary() {
+        this(Integer.getInteger(MAX_USERS_PROPERTY, 1000), Long.getLong(TTL_PROPERTY, 600) * 1000);
+    }
+
+    TagDictionary(int maxUsers, long ttlMillis) {
+        this.maxUsers = maxUsers;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Returns the id of tag with given name of an user with given id. The tag is created if it
+     * doesn't exist yet.
+     *
+     * @param userId the id of user
+     * @param tagName the name of tag
+     * @return the id of tag
+     */
+    public long getTagId(long userId, String tagName) {
+        final Map<String, Long> tags = getTags(userId);
+        final Long id = tags.get(tagName);
+        if (id != null) {
+            return id;
+        }
+        final long insertedId = insertTag(userId, tagName);
+        transactionRegistry.registerInterposedSynchronization(new Synchronization() {
+
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == Status.STATUS_COMMITTED) {
+                    tags.put(tagName, insertedId);
+                }
+            }
+        });
+        return insertedId;
+    }
+
+    /**
+     * Returns the number of users which tags are kept.
+     *
+     * @return the number of users
+     */
+    public int size() {
+        return users.size();
+    }
+
+    private Map<String, Long> getTags(long userId) {
+        final Entry entry = users.get(userId);
+        if (entry != null && entry.expiresAt > currentTimeMillis()) {
+            return entry.tags;
+        }
+        if (entry != null) {
+            users.remove(userId, entry);
+        }
+        // the query runs outside of the map, concurrent loads of one user are harmless
+        final Entry loaded = new Entry(new ConcurrentHashMap<>(loadTags(userId)),
+                currentTimeMillis() + ttlMillis);
+        if (maxUsers <= 0) {
+            return loaded.tags;
+        }
+        if (users.size() >= maxUsers) {
+            makeRoom();
+        }
+        final Entry previous = users.putIfAbsent(userId, loaded);
+        return previous == null ? loaded.tags : previous.tags;
+    }
+
+    private void makeRoom() {
+        final long now = currentTimeMillis();
+        Map.Entry<Long, Entry> oldest = null;
+        for (Map.Entry<Long, Entry> e : users.entrySet()) {
+            if (e.getValue().expiresAt <= now) {
+                users.remove(e.getKey(), e.getValue());
+            } else if (oldest == null || e.getValue().expiresAt < oldest.getValue().expiresAt) {
+                oldest = e;
+            }
+        }
+        if (users.size() >= maxUsers && oldest != null) {
+            users.remove(oldest.getKey(), oldest.getValue());
+        }
+    }
+
+    long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    Map<String, Long> loadTags(long userId) {
+        final Map<String, Long> tags = new HashMap<>();
+        em.createQuery(SELECT_TAGS, Object[].class).setParameter("userId", userId)
+                .getResultList().forEach(row -> tags.put((String) row[0], (Long) row[1]));
+        return tags;
+    }
+
+    long insertTag(long userId, String tagName) {
+        final Session session = em.unwrap(Session.class);
+        final long id
+                = session.doReturningWork(connection -> insertTag(connection, userId, tagName));
+        // the tag was inserted behind Hibernate's back
+        session.getSessionFactory().getCache()
+                .evictCollection(User.class.getName() + ".tags", userId);
+        return id;
+    }
+
+    /**
+     * Inserts a tag with given name unless the user already has it, the unique constraint
+     * decides, so names which differ only in case are one tag like in the database.
+     *
+     * @param connection the connection of current transaction
+     * @param userId the id of user
+     * @param tagName the name of tag
+     * @return the id of inserted or existing tag
+     * @throws SQLException when the insert fails
+     */
+    static long insertTag(Connection connection, long userId, String tagName)
+            throws SQLException {
+        try (PreparedStatement statement
+                = connection.prepareStatement(INSERT_TAG, Statement.RETURN_GENERATED_KEYS)) {
+            statement.setString(1, tagName);
+            statement.setLong(2, userId);
+            statement.executeUpdate();
+            try (ResultSet keys = statement.getGeneratedKeys()) {
+                keys.next();
+                return keys.getLong(1);
+            }
+        }
+    }
+
+    private static final class Entry {
+
+        private final Map<String, Long> tags;
+        private final long expiresAt;
+
+        private Entry(Map<String, Long> tags, long expiresAt) {
+            this.tags = tags;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package pl.foltak.mybudget.server.dao;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.persistence.TemporalType;
+import javax.persistence.TypedQuery;
+import pl.foltak.mybudget.server.dto.TransactionFilter;
+
+/**
+ * Builds JPQL query listing transactions of an user that match given filter. Rows are ordered by
+ * transaction date and id descending, and the next page starts after given date and id (keyset
+ * pagination). Transactions are selected by accounts of the user, so each page is read from the
+ * (account_id, transaction_date, id) index regardless of its depth.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+class TransactionFilterQuery {
+
+    private static final String SELECT = "SELECT t, a.name, c.name, p.name "
+            + "FROM transactions AS t JOIN t.account AS a JOIN t.category AS c "
+            + "LEFT JOIN c.parent AS p";
+    private static final String ORDER_BY = " ORDER BY t.transactionDate DESC, t.id DESC";
+
+    private final StringBuilder where = new StringBuilder(
+            " WHERE t.account IN (SELECT ua FROM accounts AS ua WHERE ua.user = :user)");
+    private final Map<String, Object> parameters = new LinkedHashMap<>();
+    private final String jpql;
+
+    TransactionFilterQuery(Object user, TransactionFilter filter) {
+        parameters.put("user", user);
+        String joins = "";
+        if (filter.getTagName() != null) {
+            joins = " JOIN t.tags AS g";
+            and("g.name = :tagName", "tagName", filter.getTagName());
+        }
+        and("a.name = :accountName", "accountName", filter.getAccountName());
+        and("p.name = :mainCategoryName", "mainCategoryName", filter.getMainCategoryName());
+        and("c.name = :subCategoryName", "subCategoryName", filter.getSubCategoryName());
+        and("t.transactionDate >= :dateFrom", "dateFrom", filter.getDateFrom());
+        and("t.transactionDate <= :dateTo", "dateTo", filter.getDateTo());
+        and("t.amount >= :amountFrom", "amountFrom", filter.getAmountFrom());
+        and("t.amount <= :amountTo", "amountTo", filter.getAmountTo());
+        if (filter.getAfterDate() != null && filter.getAfterId() != null) {
+            where.append(" AND (t.transactionDate < :afterDate")
+                    .append(" OR (t.transactionDate = :afterDate AND t.id < :afterId))");
+            parameters.put("afterDate", filter.getAfterDate());
+            parameters.put("afterId", filter.getAfterId());
+        }
+        jpql = SELECT + joins + where + ORDER_BY;
+    }
+
+    String getJpql() {
+        return jpql;
+    }
+
+    Map<String, Object> getParameters() {
+        return parameters;
+    }
+
+    /**
+     * Sets parameters of given query created from {@link #getJpql()}.
+     *
+     * @param <T> the type of query result
+     * @param query the query
+     * @return the same query
+     */
+    <T> TypedQuery<T> bind(TypedQuery<T> query) {
+        for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
+            if (parameter.getValue() instanceof Date) {
+                query.setParameter(parameter.getKey(), (Date) parameter.getValue(),
+                        TemporalType.DATE);
+            } else {
+                query.setParameter(parameter.getKey(), parameter.getValue());
+            }
+        }
+        return query;
+    }
+
+    private void and(String condition, String name, Object value) {
+        if (value != null) {
+            where.append(" AND ").append(condition);
+            parameters.put(name, value);
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package pl.foltak.mybudget.server.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Resource;
+import javax.ejb.EJB;
+import javax.ejb.EJBException;
+import javax.ejb.LocalBean;
+import javax.ejb.SessionContext;
+import javax.ejb.Stateless;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import org.hibernate.Session;
+import pl.foltak.mybudget.server.dao.exception.AccountNotFoundException;
+import pl.foltak.mybudget.server.dao.exception.CategoryNotFoundException;
+import pl.foltak.mybudget.server.dto.ImportErrorDTO;
+import pl.foltak.mybudget.server.dto.ImportResultDTO;
+import pl.foltak.mybudget.server.dto.Money;
+import pl.foltak.mybudget.server.dto.TransactionDTO;
+import pl.foltak.mybudget.server.entity.User;
+
+/**
+ * Imports many transactions at once. Accounts, categories and tags of the user are read once for
+ * the whole import, rows are inserted with JDBC batches and every chunk of rows is committed in
+ * its own transaction, so an invalid row or a failed chunk doesn't abort the rest of the import.
+ * Monthly totals are updated together with each chunk.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+@Stateless
+@LocalBean
+public class TransactionImporter {
+
+    static final String CHUNK_SIZE_PROPERTY = "mybudget.import.chunkSize";
+
+    private static final String SELECT_ACCOUNTS
+            = "SELECT a.name, a.id FROM accounts AS a WHERE a.user.id = :userId";
+    private static final String SELECT_SUB_CATEGORIES = "SELECT p.name, c.name, c.id "
+            + "FROM categories AS c JOIN c.parent AS p WHERE p.user.id = :userId";
+    private static final String SELECT_TAGS
+            = "SELECT g.name, g.id FROM users AS u JOIN u.tags AS g WHERE u.id = :userId";
+    private static final String INSERT_TRANSACTION = "INSERT INTO transactions "
+            + "(amount, description, transaction_date, account_id, category_id) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_TRANSACTION_TAG
+            = "INSERT INTO transactions_tags (transaction_id, tag_id) VALUES (?, ?)";
+
+    @PersistenceContext(name = "pl.foltak.my-budget")
+    EntityManager em;
+
+    @Resource
+    SessionContext sessionContext;
+
+    @EJB
+    private UserVersions userVersions;
+
+    /**
+     * Imports given transactions to accounts of an user with given id. Null elements are
+     * skipped, they stand for rows which were already rejected while parsing. Rows are numbered
+     * from 1.
+     *
+     * @param userId the id of user
+     * @param transactions transactions to import
+     * @return the number of imported transactions and errors of rejected ones
+     */
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public ImportResultDTO importTransactions(long userId, List<TransactionDTO> transactions) {
+        final TransactionImporter self = getSelf();
+        final int chunkSize = getChunkSize();
+        final ImportResultDTO result = new ImportResultDTO();
+        ImportDictionary dictionary = self.loadDictionary(userId);
+        for (int from = 0; from < transactions.size(); from += chunkSize) {
+            final List<TransactionDTO> chunk
+                    = transactions.subList(from, Math.min(from + chunkSize, transactions.size()));
+            try {
+                result.add(self.importChunk(dictionary, chunk, from + 1));
+            } catch (EJBException ex) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    if (chunk.get(i) != null) {
+                        result.getErrors().add(new ImportErrorDTO(from + i + 1,
+                                "Chunk rolled back: " + ex.getMessage()));
+                    }
+                }
+                // tags created by the rolled back chunk don't exist anymore
+                dictionary = self.loadDictionary(userId);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reads ids of accounts, sub categories and tags of an user with given id.
+     *
+     * @param userId the id of user
+     * @return the dictionary of ids
+     */
+    public ImportDictionary loadDictionary(long userId) {
+        final ImportDictionary dictionary = new ImportDictionary(userId);
+        em.createQuery(SELECT_ACCOUNTS, Object[].class).setParameter("userId", userId)
+                .getResultList().forEach(row -> dictionary.putAccount((String) row[0], (Long) row[1]));
+        em.createQuery(SELECT_SUB_CATEGORIES, Object[].class).setParameter("userId", userId)
+                .getResultList().forEach(row
+                        -> dictionary.putSubCategory((String) row[0], (String) row[1], (Long) row[2]));
+        em.createQuery(SELECT_TAGS, Object[].class).setParameter("userId", userId)
+                .getResultList().forEach(row -> dictionary.putTag((String) row[0], (Long) row[1]));
+        return dictionary;
+    }
+
+    /**
+     * Inserts valid transactions of given chunk in a new transaction. Tags which don't exist yet
+     * are created and added to the dictionary, the version of user data is changed in the same
+     * transaction.
+     *
+     * @param dictionary ids of accounts, sub categories and tags of the user
+     * @param chunk transactions to insert
+     * @param firstRow the number of the first row of the chunk
+     * @return the number of inserted transactions and errors of rejected ones
+     */
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public ImportResultDTO importChunk(ImportDictionary dictionary, List<TransactionDTO> chunk,
+            int firstRow) {
+        final ImportResultDTO result = new ImportResultDTO();
+        final List<ImportRow> rows = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            if (chunk.get(i) == null) {
+                continue;
+            }
+            try {
+                rows.add(resolve(dictionary, chunk.get(i)));
+            } catch (AccountNotFoundException | CategoryNotFoundException | IllegalArgumentException ex) {
+                result.getErrors().add(new ImportErrorDTO(firstRow + i, ex.getMessage()));
+            }
+        }
+        if (!rows.isEmpty()) {
+            insert(dictionary, rows);
+            getUserVersions().changed(dictionary.getUserId());
+            result.setImported(rows.size());
+        }
+        return result;
+    }
+
+    ImportRow resolve(ImportDictionary dictionary, TransactionDTO transaction)
+            throws AccountNotFoundException, CategoryNotFoundException {
+        if (transaction.getTransactionDate() == null) {
+            throw new IllegalArgumentException("Transaction date is required");
+        }
+        final Long accountId = dictionary.getAccountId(transaction.getAccountName());
+        if (accountId == null) {
+            throw AccountNotFoundException.of(transaction.getAccountName());
+        }
+        final Long categoryId = dictionary.getSubCategoryId(transaction.getMainCategoryName(),
+                transaction.getSubCategoryName());
+        if (categoryId == null) {
+            throw CategoryNotFoundException.of(
+                    transaction.getMainCategoryName() + "/" + transaction.getSubCategoryName());
+        }
+        return new ImportRow(transaction, Money.toMinorUnits(transaction.getAmount()), accountId,
+                categoryId);
+    }
+
+    void insert(ImportDictionary dictionary, List<ImportRow> rows) {
+        final Collection<String> newTags = newTags(dictionary, rows);
+        final Session session = em.unwrap(Session.class);
+        session.doWork(connection -> {
+            if (!newTags.isEmpty()) {
+                insertTags(connection, dictionary, newTags);
+            }
+            insertTransactions(connection, rows);
+            insertTransactionTags(connection, dictionary, rows);
+            insertMonthlyTotals(connection, dictionary, rows);
+        });
+        if (!newTags.isEmpty()) {
+            // tags were inserted behind Hibernate's back
+            session.getSessionFactory().getCache()
+                    .evictCollection(User.class.getName() + ".tags", dictionary.getUserId());
+        }
+    }
+
+    UserVersions getUserVersions() {
+        return userVersions;
+    }
+
+    TransactionImporter getSelf() {
+        return sessionContext.getBusinessObject(TransactionImporter.class);
+    }
+
+    int getChunkSize() {
+        return Math.max(1, Integer.getInteger(CHUNK_SIZE_PROPERTY, 500));
+    }
+
+    /**
+     * Returns names of tags of given rows which aren't in the dictionary, one spelling of every
+     * tag, see {@link ImportDictionary#tagKey(String)}.
+     *
+     * @param dictionary ids of tags of the user
+     * @param rows rows to insert
+     * @return names of new tags
+     */
+    static Collection<String> newTags(ImportDictionary dictionary, List<ImportRow> rows) {
+        final Map<String, String> tags = new LinkedHashMap<>();
+        for (ImportRow row : rows) {
+            for (String tag : row.getTags()) {
+                if (dictionary.getTagId(tag) == null) {
+                    tags.putIfAbsent(ImportDictionary.tagKey(tag), tag);
+                }
+            }
+        }
+        return tags.values();
+    }
+
+    private static void insertTags(Connection connection, ImportDictionary dictionary,
+            Collection<String> tags) throws SQLException {
+        // one upsert per tag, the generated keys of a batch of upserts don't match its rows
+        for (String tag : tags) {
+            final long id = TagDictionary.insertTag(connection, dictionary.getUserId(), tag);
+            dictionary.putTag(tag, id);
+        }
+    }
+
+    private static void insertTransactions(Connection connection, List<ImportRow> rows)
+            throws SQLException {
+        try (PreparedStatement statement
+                = connection.prepareStatement(INSERT_TRANSACTION, Statement.RETURN_GENERATED_KEYS)) {
+            for (ImportRow row : rows) {
+                final TransactionDTO transaction = row.getTransaction();
+                statement.setLong(1, row.getAmount());
+                if (transaction.getDescription() == null) {
+                    statement.setNull(2, Types.VARCHAR);
+                } else {
+                    statement.setString(2, transaction.getDescription());
+                }
+                statement.setDate(3, new java.sql.Date(transaction.getTransactionDate().getTime()));
+                statement.setLong(4, row.getAccountId());
+                statement.setLong(5, row.getCategoryId());
+                statement.addBatch();
+            }
+            statement.executeBatch();
+            try (ResultSet keys = statement.getGeneratedKeys()) {
+                for (ImportRow row : rows) {
+                    keys.next();
+                    row.getTransaction().setId(keys.getLong(1));
+                }
+            }
+        }
+    }
+
+    private static void insertTransactionTags(Connection connection, ImportDictionary dictionary,
+            List<ImportRow> rows) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(INSERT_TRANSACTION_TAG)) {
+            boolean empty = true;
+            for (ImportRow row : rows) {
+                for (String tag : row.getTags()) {
+                    statement.setLong(1, row.getTransaction().getId());
+                    statement.setLong(2, dictionary.getTagId(tag));
+                    statement.addBatch();
+                    empty = false;
+                }
+            }
+            if (!empty) {
+                statement.executeBatch();
+            }
+        }
+    }
+
+    private static void insertMonthlyTotals(Connection connection, ImportDictionary dictionary,
+            List<ImportRow> rows) throws SQLException {
+        final Map<List<Object>, long[]> totals = new LinkedHashMap<>();
+        for (ImportRow row : rows) {
+            final List<Object> key = Arrays.asList(row.getAccountId(), row.getCategoryId(),
+                    MonthlyTotalsDao.monthStart(row.getTransaction().getTransactionDate()));
+            final long[] total = totals.computeIfAbsent(key, k -> new long[2]);
+            total[0] = Money.add(total[0], row.getAmount());
+            total[1]++;
+        }
+        try (PreparedStatement statement = connection.prepareStatement(MonthlyTotalsDao.INSERT_TOTAL)) {
+            for (Map.Entry<List<Object>, long[]> total : totals.entrySet()) {
+                statement.setLong(1, dictionary.getUserId());
+                statement.setLong(2, (Long) total.getKey().get(0));
+                statement.setLong(3, (Long) total.getKey().get(1));
+                statement.setDate(4, (java.sql.Date) total.getKey().get(2));
+                statement.setLong(5, total.getValue()[0]);
+                statement.setLong(6, total.getValue()[1]);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    /**
+     * A transaction with resolved ids of its account and category.
+     */
+    static final class ImportRow {
+
+        private final TransactionDTO transaction;
+        private final long amount;
+        private final long accountId;
+        private final long categoryId;
+
+        ImportRow(TransactionDTO transaction, long amount, long accountId, long categoryId) {
+            this.transaction = transaction;
+            this.amount = amount;
+            this.accountId = accountId;
+            this.categoryId = categoryId;
+        }
+
+        TransactionDTO getTransaction() {
+            return transaction;
+        }
+
+        long getAmount() {
+            return amount;
+        }
+
+        long getAccountId() {
+            return accountId;
+        }
+
+        long getCategoryId() {
+            return categoryId;
+        }
+
+        Collection<String> getTags() {
+            final Map<String, String> tags = new LinkedHashMap<>();
+            if (transaction.getTags() != null) {
+                transaction.getTags()
+                        .forEach(tag -> tags.putIfAbsent(ImportDictionary.tagKey(tag), tag));
+            }
+            return tags.values();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package pl.foltak.mybudget.server.dao;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import javax.ejb.LocalBean;
+import javax.ejb.Stateless;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import org.hibernate.Session;
+
+/**
+ * Versions of users data, changed whenever accounts, categories, tags or transactions of an user
+ * change. The version is used as an ETag of read resources, so clients polling unchanged data get
+ * 304 Not Modified without reading the data. Versions are kept in the data_version column of
+ * users and changed in the transaction which changes the data, so every node of the cluster sees
+ * the new version exactly when it sees the new data. The column isn't mapped and is accessed
+ * through JDBC, so changing it doesn't evict cached users.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+@Stateless
+@LocalBean
+public class UserVersions {
+
+    private static final String SELECT_VERSION = "SELECT data_version FROM users WHERE id = ?";
+    private static final String INCREMENT_VERSION
+            = "UPDATE users SET data_version = data_version + 1 WHERE id = ?";
+
+    @PersistenceContext(name = "pl.foltak.my-budget")
+    EntityManager em;
+
+    /**
+     * Returns the current version of data of an user with given id.
+     *
+     * @param userId the id of user
+     * @return the version
+     */
+    public String getVersion(long userId) {
+        return Long.toString(readVersion(userId));
+    }
+
+    /**
+     * Changes the version of data of an user with given id in current transaction, so the new
+     * version is seen after the commit and it's not changed by a rollback.
+     *
+     * @param userId the id of user
+     */
+    public void changed(long userId) {
+        incrementVersion(userId);
+    }
+
+    long readVersion(long userId) {
+        return em.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(SELECT_VERSION)) {
+                statement.setLong(1, userId);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    return resultSet.next() ? resultSet.getLong(1) : 0L;
+                }
+            }
+        });
+    }
+
+    void incrementVersion(long userId) {
+        em.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INCREMENT_VERSION)) {
+                statement.setLong(1, userId);
+                statement.executeUpdate();
+            }
+        });
+    }
+}
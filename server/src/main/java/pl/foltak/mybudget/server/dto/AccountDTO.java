@@ -0,0 +1,23 @@
+package pl.foltak.mybudget.server.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * An account returned by the list of accounts.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class AccountDTO {
+
+    @Getter @Setter private Long id;
+    @Getter @Setter private String name;
+
+    public AccountDTO() {
+    }
+
+    public AccountDTO(Long id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+}
@@ -0,0 +1,19 @@
+package pl.foltak.mybudget.server.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Statistics of a group of endpoints with a concurrency limit.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class BulkheadStatisticsDTO {
+
+    @Getter @Setter private String group;
+    @Getter @Setter private int limit;
+    @Getter @Setter private int activeCount;
+    @Getter @Setter private int waitingCount;
+    @Getter @Setter private int queueSize;
+    @Getter @Setter private long shedCount;
+}
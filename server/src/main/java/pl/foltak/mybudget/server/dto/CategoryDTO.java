@@ -0,0 +1,21 @@
+package pl.foltak.mybudget.server.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A category returned by the lists of main categories and sub categories.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class CategoryDTO {
+
+    @Getter @Setter private String name;
+
+    public CategoryDTO() {
+    }
+
+    public CategoryDTO(String name) {
+        this.name = name;
+    }
+}
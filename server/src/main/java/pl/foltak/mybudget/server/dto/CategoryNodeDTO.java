@@ -0,0 +1,29 @@
+package pl.foltak.mybudget.server.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A node of the category tree: a main category with its sub categories or a sub category.
+ * Totals are set only when they are requested; the amount is in minor units and totals of a main
+ * category include its sub categories.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class CategoryNodeDTO {
+
+    @Getter @Setter private String name;
+    @Getter @Setter private List<CategoryNodeDTO> subCategories = new ArrayList<>();
+
+    @Getter @Setter private Long transactionCount;
+    @Getter @Setter private Long amountSum;
+
+    public CategoryNodeDTO() {
+    }
+
+    public CategoryNodeDTO(String name) {
+        this.name = name;
+    }
+}
@@ -0,0 +1,18 @@
+package pl.foltak.mybudget.server.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Statistics of the executor running long operations.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class ExecutorStatisticsDTO {
+
+    @Getter @Setter private int activeCount;
+    @Getter @Setter private int queueDepth;
+    @Getter @Setter private long completedCount;
+    @Getter @Setter private long rejectedCount;
+    @Getter @Setter private long expiredCount;
+}
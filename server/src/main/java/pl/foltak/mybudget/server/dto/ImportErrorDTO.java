@@ -0,0 +1,23 @@
+package pl.foltak.mybudget.server.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * An error of a single imported row.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class ImportErrorDTO {
+
+    @Getter @Setter private int row;
+    @Getter @Setter private String message;
+
+    public ImportErrorDTO() {
+    }
+
+    public ImportErrorDTO(int row, String message) {
+        this.row = row;
+        this.message = message;
+    }
+}
@@ -0,0 +1,27 @@
+package pl.foltak.mybudget.server.dto;
+
+import java.util.LinkedList;
+import java.util.List;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * The result of transactions import: the number of imported rows and errors of rejected rows.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class ImportResultDTO {
+
+    @Getter @Setter private int imported;
+    @Getter @Setter private List<ImportErrorDTO> errors = new LinkedList<>();
+
+    /**
+     * Adds imported rows and errors of given result to this one.
+     *
+     * @param result the result of a part of the import
+     */
+    public void add(ImportResultDTO result) {
+        imported += result.getImported();
+        errors.addAll(result.getErrors());
+    }
+}
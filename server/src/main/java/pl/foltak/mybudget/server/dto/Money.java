@@ -0,0 +1,89 @@
+package pl.foltak.mybudget.server.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Operations on money amounts. Amounts are kept as primitive longs in minor units (1/100 of the
+ * currency unit) in entities and the database, so they are exact and summing them doesn't
+ * allocate. Amounts of transactions are exchanged with clients in decimal form, in JSON like in
+ * CSV, and converted at the boundary, so a fraction is never truncated silently.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public final class Money {
+
+    /**
+     * The number of decimal places of minor units.
+     */
+    public static final int SCALE = 2;
+
+    private Money() {
+    }
+
+    /**
+     * Parses decimal amount, e.g. 12.5 or -0.05, into minor units.
+     *
+     * @param amount the decimal amount
+     * @return the amount in minor units
+     * @throws IllegalArgumentException when the amount isn't a number, has more than two decimal
+     * places or is too large
+     */
+    public static long parse(String amount) {
+        try {
+            return toMinorUnits(new BigDecimal(amount.trim()));
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Incorrect amount " + amount, ex);
+        }
+    }
+
+    /**
+     * Converts decimal amount, e.g. 12.5 or -0.05, into minor units.
+     *
+     * @param amount the decimal amount
+     * @return the amount in minor units
+     * @throws IllegalArgumentException when the amount is missing, has more than two decimal
+     * places or is too large
+     */
+    public static long toMinorUnits(BigDecimal amount) {
+        if (amount == null) {
+            throw new IllegalArgumentException("Amount is required");
+        }
+        try {
+            return amount.movePointRight(SCALE).longValueExact();
+        } catch (ArithmeticException ex) {
+            throw new IllegalArgumentException("Incorrect amount " + amount.toPlainString(), ex);
+        }
+    }
+
+    /**
+     * Converts given amount in minor units to decimal with two decimal places, e.g. 12.50.
+     *
+     * @param amount the amount in minor units
+     * @return the decimal amount
+     */
+    public static BigDecimal toDecimal(long amount) {
+        return BigDecimal.valueOf(amount, SCALE);
+    }
+
+    /**
+     * Formats given amount in minor units as decimal with two decimal places, e.g. 12.50.
+     *
+     * @param amount the amount in minor units
+     * @return the decimal amount
+     */
+    public static String format(long amount) {
+        return toDecimal(amount).toPlainString();
+    }
+
+    /**
+     * Adds given amounts.
+     *
+     * @param amount the first amount in minor units
+     * @param other the second amount in minor units
+     * @return the sum in minor units
+     * @throws ArithmeticException when the sum overflows
+     */
+    public static long add(long amount, long other) {
+        return Math.addExact(amount, other);
+    }
+}
@@ -0,0 +1,41 @@
+package pl.foltak.mybudget.server.dto;
+
+/**
+ * A dimension by which transactions can be grouped in a report.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public enum ReportDimension {
+
+    ACCOUNT("account"),
+    MAIN_CATEGORY("mainCategory"),
+    SUB_CATEGORY("subCategory"),
+    TAG("tag"),
+    MONTH("month");
+
+    private final String parameterName;
+
+    private ReportDimension(String parameterName) {
+        this.parameterName = parameterName;
+    }
+
+    /**
+     * Returns the dimension with given name as used in query parameters.
+     *
+     * @param parameterName the name of dimension, e.g. mainCategory
+     * @return the dimension
+     * @throws IllegalArgumentException when there is no dimension with given name
+     */
+    public static ReportDimension of(String parameterName) {
+        for (ReportDimension dimension : values()) {
+            if (dimension.parameterName.equals(parameterName)) {
+                return dimension;
+            }
+        }
+        throw new IllegalArgumentException("Unknown dimension " + parameterName);
+    }
+
+    public String getParameterName() {
+        return parameterName;
+    }
+}
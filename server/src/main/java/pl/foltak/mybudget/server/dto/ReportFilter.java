@@ -0,0 +1,23 @@
+package pl.foltak.mybudget.server.dto;
+
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.Set;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Dimensions by which transactions are grouped in a report and criteria of summed transactions.
+ * Null criteria are ignored.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class ReportFilter {
+
+    @Getter @Setter private Set<ReportDimension> dimensions = EnumSet.noneOf(ReportDimension.class);
+
+    @Getter @Setter private String accountName;
+    @Getter @Setter private Date dateFrom;
+    @Getter @Setter private Date dateTo;
+
+}
@@ -0,0 +1,24 @@
+package pl.foltak.mybudget.server.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * The sum and the number of transactions in one group of a report. Only fields of dimensions by
+ * which the report is grouped are set, the month is in yyyy-MM format and the sum is in minor
+ * units.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class ReportRowDTO {
+
+    @Getter @Setter private String accountName;
+    @Getter @Setter private String mainCategoryName;
+    @Getter @Setter private String subCategoryName;
+    @Getter @Setter private String tagName;
+    @Getter @Setter private String month;
+
+    @Getter @Setter private long sum;
+    @Getter @Setter private long count;
+
+}
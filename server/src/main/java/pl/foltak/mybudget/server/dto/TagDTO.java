@@ -0,0 +1,21 @@
+package pl.foltak.mybudget.server.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A tag returned by the list of tags.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class TagDTO {
+
+    @Getter @Setter private String name;
+
+    public TagDTO() {
+    }
+
+    public TagDTO(String name) {
+        this.name = name;
+    }
+}
@@ -0,0 +1,16 @@
+package pl.foltak.mybudget.server.dto;
+
+import java.util.Date;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class TokenDTO {
+
+    @Getter @Setter private String token;
+    @Getter @Setter private Date expiresAt;
+
+}
@@ -1,5 +1,6 @@
 package pl.foltak.mybudget.server.dto;
 
+import java.math.BigDecimal;
 import java.util.Date;
 import java.util.List;
 import lombok.Getter;
@@ -17,7 +18,10 @@ public class TransactionDTO {
     @Setter @Getter private String subCategoryName;
 
     @Getter @Setter private String description;
-    @Getter @Setter private Double amount;
+    /**
+     * The decimal amount, e.g. 12.50, see {@link Money}.
+     */
+    @Getter @Setter private BigDecimal amount;
     @Getter @Setter private Date transactionDate;
     
     @Setter @Getter private List<String> tags;
@@ -0,0 +1,30 @@
+package pl.foltak.mybudget.server.dto;
+
+import java.util.Date;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Criteria used to list transactions. Null fields are ignored. Transactions are ordered from the
+ * newest one, and {@code afterDate} with {@code afterId} point at the last transaction of the
+ * previous page. Amounts are in minor units.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class TransactionFilter {
+
+    @Getter @Setter private String accountName;
+    @Getter @Setter private String mainCategoryName;
+    @Getter @Setter private String subCategoryName;
+    @Getter @Setter private String tagName;
+
+    @Getter @Setter private Date dateFrom;
+    @Getter @Setter private Date dateTo;
+    @Getter @Setter private Long amountFrom;
+    @Getter @Setter private Long amountTo;
+
+    @Getter @Setter private Date afterDate;
+    @Getter @Setter private Long afterId;
+    @Getter @Setter private int limit;
+
+}
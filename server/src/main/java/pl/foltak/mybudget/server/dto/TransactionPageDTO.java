@@ -0,0 +1,20 @@
+package pl.foltak.mybudget.server.dto;
+
+import java.util.List;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A page of transactions. When there are more transactions, {@code nextAfterDate} and
+ * {@code nextAfterId} should be sent as {@code afterDate} and {@code afterId} to get the next page.
+ * The date is in yyyy-MM-dd format, like the one of {@code afterDate}.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class TransactionPageDTO {
+
+    @Getter @Setter private List<TransactionDTO> transactions;
+    @Getter @Setter private String nextAfterDate;
+    @Getter @Setter private Long nextAfterId;
+
+}
@@ -3,15 +3,22 @@ package pl.foltak.mybudget.server.entity;
 import java.io.Serializable;
 import java.util.List;
 import java.util.Optional;
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.LazyCollection;
+import org.hibernate.annotations.LazyCollectionOption;
 
 /**
  * The account entity.
@@ -19,13 +26,18 @@ import lombok.Setter;
  * @author Mariusz Foltak <mariusz@foltak.pl>
  */
 @Entity(name = "accounts")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.TRANSACTIONAL)
 public class Account implements Serializable {
 
     @Id @GeneratedValue(strategy = GenerationType.IDENTITY) 
     @Setter @Getter private Long id;
     @Setter @Getter private String name;
     
-    @OneToMany @JoinColumn(name = "account_id") List<Transaction> transactions;
+    @ManyToOne(fetch = FetchType.LAZY) @JoinColumn(name = "user_id") User user;
+
+    @OneToMany(mappedBy = "account") @LazyCollection(LazyCollectionOption.EXTRA)
+    List<Transaction> transactions;
 
     /**
      * Return true if this account has transactions, otherwise return false.
@@ -42,6 +54,7 @@ public class Account implements Serializable {
      * @param transaction the transaction to be added to the list.
      */
     public void addTransaction(@NonNull Transaction transaction) {
+        transaction.setAccount(this);
         transactions.add(transaction);
     }
 
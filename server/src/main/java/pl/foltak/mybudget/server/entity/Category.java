@@ -1,20 +1,27 @@
 package pl.foltak.mybudget.server.entity;
 
 import java.io.Serializable;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
-import javax.persistence.Transient;
 import javax.xml.bind.annotation.XmlTransient;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.LazyCollection;
+import org.hibernate.annotations.LazyCollectionOption;
 
 /**
  * Category entity.
@@ -22,22 +29,31 @@ import lombok.Setter;
  * @author Mariusz Foltak <mariusz@foltak.pl>
  */
 @Entity(name = "categories")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.TRANSACTIONAL)
 public class Category implements Serializable {
 
     @Id @GeneratedValue(strategy = GenerationType.IDENTITY) long id;
 
     @Getter @Setter private String name;
 
-    @OneToMany
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id")
+    User user;
+
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "parent_id")
+    Category parent;
+
+    @OneToMany(mappedBy = "parent")
     List<Category> subCategories;
 
-    @OneToMany
-    @JoinColumn(name = "category_id")
+    @OneToMany(mappedBy = "category")
+    @LazyCollection(LazyCollectionOption.EXTRA)
     List<Transaction> transactions;
 
     public Category() {
-        this.subCategories = new LinkedList<>();
+        this.subCategories = new ArrayList<>();
     }
 
     /**
@@ -47,6 +63,7 @@ public class Category implements Serializable {
      * @param subCategory the category object
      */
     public void addSubCategory(@NonNull Category subCategory) {
+        subCategory.parent = this;
         subCategories.add(subCategory);
     }
 
@@ -85,6 +102,7 @@ public class Category implements Serializable {
      * @param transaction transaction to be added.
      */
     public void addTransaction(@NonNull Transaction transaction) {
+        transaction.setCategory(this);
         transactions.add(transaction);
     }
 
@@ -100,10 +118,10 @@ public class Category implements Serializable {
     /**
      * Returns a list of subcategories.
      *
-     * @return list of subcategories.
+     * @return read-only list of subcategories.
      */
     @XmlTransient
     public List<Category> getSubCategories() {
-        return new LinkedList<>(subCategories);
+        return Collections.unmodifiableList(new ArrayList<>(subCategories));
     }
 }
@@ -0,0 +1,35 @@
+package pl.foltak.mybudget.server.entity;
+
+import java.io.Serializable;
+import javax.persistence.Column;
+import javax.persistence.EmbeddedId;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import lombok.Getter;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * The sum and the number of transactions of an account and a category in one month. Rows are
+ * maintained with SQL together with transactions, so the entity is read only and is used by
+ * reports only.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+@Entity(name = "monthly_totals")
+@Immutable
+public class MonthlyTotal implements Serializable {
+
+    @EmbeddedId @Getter private MonthlyTotalId id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "account_id", insertable = false, updatable = false)
+    @Getter private Account account;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "category_id", insertable = false, updatable = false)
+    @Getter private Category category;
+
+    @Getter @Column(name = "amount_sum") private long amountSum;
+    @Getter @Column(name = "transaction_count") private long transactionCount;
+}
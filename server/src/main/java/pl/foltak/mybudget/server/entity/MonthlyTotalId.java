@@ -0,0 +1,26 @@
+package pl.foltak.mybudget.server.entity;
+
+import java.io.Serializable;
+import java.util.Date;
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * The key of monthly total: user, account, sub category and the first day of month.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+@Embeddable
+@EqualsAndHashCode
+public class MonthlyTotalId implements Serializable {
+
+    @Getter @Column(name = "user_id") private long userId;
+    @Getter @Column(name = "account_id") private long accountId;
+    @Getter @Column(name = "category_id") private long categoryId;
+    @Temporal(TemporalType.DATE)
+    @Getter @Column(name = "month_start") private Date monthStart;
+}
@@ -1,15 +1,20 @@
 package pl.foltak.mybudget.server.entity;
 
 import java.io.Serializable;
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
 import javax.persistence.Id;
 import lombok.Getter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  *
  * @author Mariusz Foltak <mariusz.foltak@coi.gov.pl>
  */
 @Entity(name = "tags")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.TRANSACTIONAL)
 public class Tag implements Serializable {
 
     @Id
@@ -1,16 +1,20 @@
 package pl.foltak.mybudget.server.entity;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
-import java.util.LinkedList;
 import java.util.List;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.JoinTable;
 import javax.persistence.ManyToMany;
+import javax.persistence.ManyToOne;
 import javax.persistence.Temporal;
 import lombok.Getter;
 import lombok.NonNull;
@@ -26,14 +30,25 @@ public class Transaction implements Serializable {
 
     @Id @Getter @GeneratedValue(strategy = GenerationType.IDENTITY) private Long id;
     @Getter @Setter private String description;
-    @Getter @Setter private Double amount;
+    /**
+     * The amount in minor units, see {@link pl.foltak.mybudget.server.dto.Money}.
+     */
+    @Getter @Setter private long amount;
     @Temporal(javax.persistence.TemporalType.DATE)
     @Getter @Setter @Column(name = "transaction_date") private Date transactionDate;
 
-    @ManyToMany List<Tag> tags;
+    @ManyToOne(fetch = FetchType.LAZY) @JoinColumn(name = "account_id")
+    @Getter @Setter private Account account;
+    @ManyToOne(fetch = FetchType.LAZY) @JoinColumn(name = "category_id")
+    @Getter @Setter private Category category;
+
+    @ManyToMany
+    @JoinTable(name = "transactions_tags", joinColumns = @JoinColumn(name = "transaction_id"),
+            inverseJoinColumns = @JoinColumn(name = "tag_id"))
+    List<Tag> tags;
 
     public Transaction() {
-        tags = new LinkedList<>();
+        tags = new ArrayList<>();
     }
 
     /**
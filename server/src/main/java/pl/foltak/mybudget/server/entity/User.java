@@ -1,12 +1,15 @@
 package pl.foltak.mybudget.server.entity;
 
 import java.io.Serializable;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
@@ -14,7 +17,10 @@ import javax.persistence.JoinColumn;
 import javax.persistence.OneToMany;
 import lombok.Getter;
 import lombok.NonNull;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.Where;
+import pl.foltak.mybudget.server.security.CredentialCacheInvalidator;
 
 /**
  * The account entity.
@@ -22,32 +28,42 @@ import org.hibernate.annotations.Where;
  * @author Mariusz Foltak <mariusz@foltak.pl>
  */
 @Entity(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.TRANSACTIONAL)
+@EntityListeners(CredentialCacheInvalidator.class)
 public class User implements Serializable {
 
-    @Id @Column @GeneratedValue(strategy = GenerationType.IDENTITY) private long id;
+    @Id @Getter @Column @GeneratedValue(strategy = GenerationType.IDENTITY) private long id;
 
-    @Column private String username;
+    @Getter @Column private String username;
     @Getter @Column private String passwordHash;
 
-    @OneToMany(cascade = CascadeType.ALL)
-    @JoinColumn(name = "user_id")
+    // inverse collections aren't cached, changes of the owning side wouldn't evict them
+    @OneToMany(mappedBy = "user", cascade = CascadeType.ALL)
     @Where(clause = "parent_id is null")
     List<Category> categories;
 
-    @OneToMany(cascade = CascadeType.ALL)
-    @JoinColumn(name = "user_id")
+    @OneToMany(mappedBy = "user", cascade = CascadeType.ALL)
     List<Account> accounts;
 
     @OneToMany(cascade = CascadeType.ALL)
     @JoinColumn(name = "user_id")
+    @Cache(usage = CacheConcurrencyStrategy.TRANSACTIONAL)
     List<Tag> tags;
 
+    public User() {
+        this.categories = new ArrayList<>();
+        this.accounts = new ArrayList<>();
+        this.tags = new ArrayList<>();
+    }
+
     /**
      * Adds a category to the User.
      *
      * @param category the category to be added.
      */
     public void addCategory(@NonNull Category category) {
+        category.user = this;
         categories.add(category);
     }
 
@@ -71,12 +87,13 @@ public class User implements Serializable {
     }
 
     /**
-     * Returns all categories from the user.
+     * Returns all categories from the user. The list is a read-only snapshot of exact size, taken
+     * here, so lazy collection isn't touched after the transaction ends.
      *
      * @return categories list
      */
     public List<Category> getCategories() {
-        return new LinkedList<>(categories);
+        return Collections.unmodifiableList(new ArrayList<>(categories));
     }
 
     /**
@@ -85,6 +102,7 @@ public class User implements Serializable {
      * @param account the account to be added
      */
     public void addAccount(@NonNull Account account) {
+        account.user = this;
         accounts.add(account);
     }
 
@@ -120,10 +138,10 @@ public class User implements Serializable {
     /**
      * Returns all accounts belongs to the user.
      *
-     * @return list of accounts
+     * @return read-only list of accounts
      */
     public List<Account> getAccounts() {
-        return new LinkedList<>(accounts);
+        return Collections.unmodifiableList(new ArrayList<>(accounts));
     }
 
     /**
@@ -148,17 +166,9 @@ public class User implements Serializable {
     /**
      * Returns all tags belongs to the user.
      *
-     * @return list of tags
+     * @return read-only list of tags
      */
     public List<Tag> getTags() {
-        return new LinkedList<>(tags);
-    }
-
-    public Optional<Transaction> findTransaction(long id) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
-    }
-
-    public void removeTransaction(Transaction transaction) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        return Collections.unmodifiableList(new ArrayList<>(tags));
     }
 }
@@ -0,0 +1,47 @@
+package pl.foltak.mybudget.server.metrics;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.ejb.EJB;
+import javax.interceptor.AroundInvoke;
+import javax.interceptor.InvocationContext;
+
+/**
+ * Records the time of every business method of intercepted DAO in
+ * {@link LatencyMetric#DAO_CALL}, labeled with the name of DAO and method.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class DaoMetricsInterceptor {
+
+    private final ConcurrentMap<Method, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    @EJB
+    private Metrics metrics;
+
+    @AroundInvoke
+    public Object measure(InvocationContext context) throws Exception {
+        final long start = System.nanoTime();
+        try {
+            return context.proceed();
+        } finally {
+            getHistogram(context).record(System.nanoTime() - start);
+        }
+    }
+
+    private LatencyHistogram getHistogram(InvocationContext context) {
+        final Method method = context.getMethod();
+        final LatencyHistogram histogram = histograms.get(method);
+        if (histogram != null) {
+            return histogram;
+        }
+        return histograms.computeIfAbsent(method, key -> getMetrics().getHistogram(
+                LatencyMetric.DAO_CALL, "dao", context.getTarget().getClass().getSimpleName(),
+                "method", method.getName()));
+    }
+
+    Metrics getMetrics() {
+        return metrics;
+    }
+}
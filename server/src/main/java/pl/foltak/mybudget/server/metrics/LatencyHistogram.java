@@ -0,0 +1,73 @@
+package pl.foltak.mybudget.server.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A latency histogram with fixed buckets from 100 microseconds to 10 seconds. Recording is lock
+ * free and doesn't allocate: a value is counted in one {@link LongAdder} found by binary search,
+ * so concurrent requests don't contend for a single counter.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class LatencyHistogram {
+
+    private static final double[] BOUNDS = {0.0001, 0.00025, 0.0005, 0.001, 0.0025, 0.005, 0.01,
+        0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+    private static final long[] BOUNDS_NANOS = new long[BOUNDS.length];
+    private static final String[] LABELS = new String[BOUNDS.length + 1];
+
+    static {
+        for (int i = 0; i < BOUNDS.length; i++) {
+            BOUNDS_NANOS[i] = Math.round(BOUNDS[i] * TimeUnit.SECONDS.toNanos(1));
+            LABELS[i] = BigDecimal.valueOf(BOUNDS[i]).stripTrailingZeros().toPlainString();
+        }
+        LABELS[BOUNDS.length] = "+Inf";
+    }
+
+    private final LongAdder[] buckets = new LongAdder[BOUNDS.length + 1];
+    private final LongAdder sumNanos = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records a measured time.
+     *
+     * @param nanos the time in nanoseconds
+     */
+    public void record(long nanos) {
+        final int index = Arrays.binarySearch(BOUNDS_NANOS, nanos);
+        buckets[index < 0 ? -index - 1 : index].increment();
+        sumNanos.add(nanos);
+    }
+
+    /**
+     * Writes cumulative buckets, the sum and the count in Prometheus text format. The count is the
+     * sum of buckets read, so it always equals the +Inf bucket.
+     *
+     * @param writer the writer
+     * @param name the name of metric
+     * @param labels formatted labels without braces, may be empty
+     * @throws IOException when the writer fails
+     */
+    void write(Writer writer, String name, String labels) throws IOException {
+        final String separator = labels.isEmpty() ? "" : ",";
+        long count = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            count += buckets[i].sum();
+            writer.write(name + "_bucket{" + labels + separator + "le=\"" + LABELS[i] + "\"} "
+                    + count + "\n");
+        }
+        final String braces = labels.isEmpty() ? "" : "{" + labels + "}";
+        writer.write(name + "_sum" + braces + " " + sumNanos.sum() / 1e9 + "\n");
+        writer.write(name + "_count" + braces + " " + count + "\n");
+    }
+}
@@ -0,0 +1,31 @@
+package pl.foltak.mybudget.server.metrics;
+
+/**
+ * Latencies measured by the server, exported as Prometheus histograms by {@link Metrics}.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public enum LatencyMetric {
+
+    HTTP_REQUEST("mybudget_http_request_duration_seconds",
+            "Time of requests from the start to the end, by resource method."),
+    DAO_CALL("mybudget_dao_call_duration_seconds", "Time of DAO calls, by method."),
+    PASSWORD_CHECK("mybudget_password_check_duration_seconds",
+            "Time of BCrypt verification of passwords not found in the credential cache.");
+
+    private final String name;
+    private final String help;
+
+    private LatencyMetric(String name, String help) {
+        this.name = name;
+        this.help = help;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getHelp() {
+        return help;
+    }
+}
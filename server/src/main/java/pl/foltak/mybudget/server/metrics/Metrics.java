@@ -0,0 +1,142 @@
+package pl.foltak.mybudget.server.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.LocalBean;
+import javax.ejb.Singleton;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Histograms of latencies, kept in memory and written in Prometheus text format. Histograms are
+ * created once for every metric and set of labels, callers keep them to record without lookups.
+ * Statistics of the connection pool are read from the datasource subsystem when metrics are
+ * written; they're available when statistics are enabled on the datasource, whose name is
+ * configured with system property {@value #DATA_SOURCE_PROPERTY} (mybudgetDS by default).
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+@Singleton
+@LocalBean
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class Metrics {
+
+    static final String DATA_SOURCE_PROPERTY = "mybudget.metrics.dataSource";
+    static final String POOL_STATISTICS
+            = "jboss.as:subsystem=datasources,data-source=%s,statistics=pool";
+    static final String[] POOL_ATTRIBUTES
+            = {"ActiveCount", "AvailableCount", "WaitCount", "TotalBlockingTime", "MaxWaitTime"};
+
+    private final Map<LatencyMetric, ConcurrentMap<String, LatencyHistogram>> histograms
+            = new EnumMap<>(LatencyMetric.class);
+    private final String dataSource = System.getProperty(DATA_SOURCE_PROPERTY, "mybudgetDS");
+
+    public Metrics() {
+        for (LatencyMetric metric : LatencyMetric.values()) {
+            histograms.put(metric, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * Returns the histogram of given metric with given labels, creating it when needed.
+     *
+     * @param metric the metric
+     * @param labels names and values of labels, one after another
+     * @return the histogram
+     */
+    public LatencyHistogram getHistogram(LatencyMetric metric, String... labels) {
+        final StringBuilder formatted = new StringBuilder();
+        for (int i = 0; i + 1 < labels.length; i += 2) {
+            if (formatted.length() > 0) {
+                formatted.append(',');
+            }
+            formatted.append(labels[i]).append("=\"").append(escape(labels[i + 1])).append('"');
+        }
+        return histograms.get(metric)
+                .computeIfAbsent(formatted.toString(), key -> new LatencyHistogram());
+    }
+
+    /**
+     * Writes all metrics in Prometheus text format, version 0.0.4.
+     *
+     * @param writer the writer
+     * @throws IOException when the writer fails
+     */
+    public void write(Writer writer) throws IOException {
+        for (LatencyMetric metric : LatencyMetric.values()) {
+            final Map<String, LatencyHistogram> sorted = new TreeMap<>(histograms.get(metric));
+            if (sorted.isEmpty()) {
+                continue;
+            }
+            writeHeader(writer, metric.getName(), "histogram", metric.getHelp());
+            for (Map.Entry<String, LatencyHistogram> histogram : sorted.entrySet()) {
+                histogram.getValue().write(writer, metric.getName(), histogram.getKey());
+            }
+        }
+        writePoolStatistics(writer);
+    }
+
+    private void writePoolStatistics(Writer writer) throws IOException {
+        final Map<String, Object> values = new HashMap<>();
+        try {
+            final ObjectName pool = new ObjectName(String.format(POOL_STATISTICS, dataSource));
+            getMBeanServer().getAttributes(pool, POOL_ATTRIBUTES).asList()
+                    .forEach(attribute -> values.put(attribute.getName(), attribute.getValue()));
+        } catch (JMException ex) {
+            // the datasource or its statistics aren't available
+            return;
+        }
+        final String labels = "{data_source=\"" + escape(dataSource) + "\"}";
+        writePoolStatistic(writer, "mybudget_datasource_active_connections", "gauge",
+                "Connections of the pool in use.", labels, values.get("ActiveCount"), 1);
+        writePoolStatistic(writer, "mybudget_datasource_available_connections", "gauge",
+                "Connections of the pool which can be taken without waiting.", labels,
+                values.get("AvailableCount"), 1);
+        writePoolStatistic(writer, "mybudget_datasource_waits_total", "counter",
+                "Requests for a connection which had to wait.", labels, values.get("WaitCount"), 1);
+        writePoolStatistic(writer, "mybudget_datasource_wait_seconds_total", "counter",
+                "Total time spent waiting for a connection.", labels,
+                values.get("TotalBlockingTime"), 1000);
+        writePoolStatistic(writer, "mybudget_datasource_max_wait_seconds", "gauge",
+                "The longest wait for a connection.", labels, values.get("MaxWaitTime"), 1000);
+    }
+
+    private static void writePoolStatistic(Writer writer, String name, String type, String help,
+            String labels, Object value, int divisor) throws IOException {
+        if (value == null) {
+            return;
+        }
+        final double number;
+        try {
+            number = Double.parseDouble(value.toString()) / divisor;
+        } catch (NumberFormatException ex) {
+            return;
+        }
+        writeHeader(writer, name, type, help);
+        writer.write(name + labels + " " + number + "\n");
+    }
+
+    MBeanServer getMBeanServer() {
+        return ManagementFactory.getPlatformMBeanServer();
+    }
+
+    private static void writeHeader(Writer writer, String name, String type, String help)
+            throws IOException {
+        writer.write("# HELP " + name + " " + help + "\n");
+        writer.write("# TYPE " + name + " " + type + "\n");
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
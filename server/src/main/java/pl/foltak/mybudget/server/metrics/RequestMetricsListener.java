@@ -0,0 +1,35 @@
+package pl.foltak.mybudget.server.metrics;
+
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletRequestEvent;
+import javax.servlet.ServletRequestListener;
+
+/**
+ * Measures requests from the start to the end, so the time of writing the body and of running
+ * suspended requests is included. The histogram of request is chosen later, when its resource
+ * method is known, and kept in attribute {@link #HISTOGRAM_ATTRIBUTE}; requests without it, like
+ * ones not matching any resource, aren't recorded.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class RequestMetricsListener implements ServletRequestListener {
+
+    public static final String HISTOGRAM_ATTRIBUTE
+            = RequestMetricsListener.class.getName() + ".histogram";
+    static final String START_ATTRIBUTE = RequestMetricsListener.class.getName() + ".start";
+
+    @Override
+    public void requestInitialized(ServletRequestEvent event) {
+        event.getServletRequest().setAttribute(START_ATTRIBUTE, System.nanoTime());
+    }
+
+    @Override
+    public void requestDestroyed(ServletRequestEvent event) {
+        final ServletRequest request = event.getServletRequest();
+        final Object histogram = request.getAttribute(HISTOGRAM_ATTRIBUTE);
+        final Object start = request.getAttribute(START_ATTRIBUTE);
+        if (histogram instanceof LatencyHistogram && start instanceof Long) {
+            ((LatencyHistogram) histogram).record(System.nanoTime() - (Long) start);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package pl.foltak.mybudget.server.metrics;
+
+import java.io.IOException;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Records SQL statements of every request, see {@link SqlStatementRecording}. The recording of a
+ * suspended request is detached from the thread which handled it and closed when the response is
+ * complete, the operation which resumes the request is recorded by continuing the recording. The
+ * listener is added after the request is suspended, so it misses a response completed before,
+ * that recording is closed by the operation which resumed the request.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class SqlStatementBudgetFilter implements Filter {
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        final HttpServletRequest httpRequest = (HttpServletRequest) request;
+        final SqlStatementRecording recording = SqlStatementRecording.start(
+                httpRequest.getMethod() + " " + httpRequest.getRequestURI());
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                recording.detach();
+                request.getAsyncContext().addListener(new RecordingListener(recording));
+            } else {
+                recording.close();
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+    }
+
+    private static class RecordingListener implements AsyncListener {
+
+        private final SqlStatementRecording recording;
+
+        RecordingListener(SqlStatementRecording recording) {
+            this.recording = recording;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            recording.close();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            recording.close();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
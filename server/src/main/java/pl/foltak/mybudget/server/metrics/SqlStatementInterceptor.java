@@ -0,0 +1,21 @@
+package pl.foltak.mybudget.server.metrics;
+
+import org.hibernate.EmptyInterceptor;
+
+/**
+ * Reports every SQL statement prepared by Hibernate to {@link SqlStatementRecording} of the
+ * current thread. The interceptor is registered for the whole persistence unit with property
+ * hibernate.ejb.interceptor, so it's shared by all sessions and keeps no state.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class SqlStatementInterceptor extends EmptyInterceptor {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public String onPrepareStatement(String sql) {
+        SqlStatementRecording.record(sql);
+        return sql;
+    }
+}
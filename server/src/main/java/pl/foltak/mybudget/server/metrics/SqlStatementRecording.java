@@ -0,0 +1,233 @@
+package pl.foltak.mybudget.server.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Counts SQL statements prepared by Hibernate in the current thread, between {@link #start} and
+ * {@link #close()}. Statements are reported by {@link SqlStatementInterceptor}. A recording with
+ * more statements than the budget is logged with its statements, the ones prepared more than once
+ * with their call sites, which shows N+1 queries caused by navigation of lazy associations. The
+ * budget is configured with system property {@value #BUDGET_PROPERTY} (25 by default).
+ *
+ * <p>
+ * A recording started while another one is active hides it until it's closed. A recording can
+ * be continued by other threads with {@link #wrap(Runnable)}, e.g. by the thread which resumes a
+ * suspended request, and detached from the thread which started it with {@link #detach()}, so it
+ * can be closed when the request completes.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class SqlStatementRecording implements AutoCloseable {
+
+    static final String BUDGET_PROPERTY = "mybudget.sql.budget";
+    private static final int CALL_SITE_FRAMES = 3;
+    private static final String PACKAGE = "pl.foltak.mybudget.";
+    private static final String METRICS_PACKAGE
+            = SqlStatementRecording.class.getPackage().getName();
+    private static final Logger LOGGER = Logger.getLogger(SqlStatementRecording.class.getName());
+    private static final ThreadLocal<SqlStatementRecording> CURRENT = new ThreadLocal<>();
+
+    private final String name;
+    private final int budget;
+    private final SqlStatementRecording previous;
+    private final Map<String, Statement> statements = new LinkedHashMap<>();
+    private int count;
+    private boolean closed;
+
+    private SqlStatementRecording(String name, int budget, SqlStatementRecording previous) {
+        this.name = name;
+        this.budget = budget;
+        this.previous = previous;
+    }
+
+    /**
+     * Starts a recording in the current thread with the configured budget.
+     *
+     * @param name the name of recorded operation, used in the log
+     * @return the recording
+     */
+    public static SqlStatementRecording start(String name) {
+        return start(name, Integer.getInteger(BUDGET_PROPERTY, 25));
+    }
+
+    /**
+     * Starts a recording in the current thread.
+     *
+     * @param name the name of recorded operation, used in the log
+     * @param budget the number of statements which isn't logged
+     * @return the recording
+     */
+    public static SqlStatementRecording start(String name, int budget) {
+        final SqlStatementRecording recording
+                = new SqlStatementRecording(name, budget, CURRENT.get());
+        CURRENT.set(recording);
+        return recording;
+    }
+
+    /**
+     * Returns the recording active in the current thread.
+     *
+     * @return the recording or null when nothing is recorded
+     */
+    public static SqlStatementRecording current() {
+        return CURRENT.get();
+    }
+
+    static void record(String sql) {
+        final SqlStatementRecording recording = CURRENT.get();
+        if (recording != null) {
+            recording.add(sql);
+        }
+    }
+
+    private synchronized void add(String sql) {
+        count++;
+        final Statement statement = statements.computeIfAbsent(sql, Statement::new);
+        statement.count++;
+        // the first repetition is the sign of N+1, walking the stack for every statement would cost
+        if (statement.count == 2) {
+            statement.callSite = findCallSite(new Throwable().getStackTrace());
+        }
+    }
+
+    static String findCallSite(StackTraceElement[] stackTrace) {
+        final List<String> frames = new ArrayList<>(CALL_SITE_FRAMES);
+        for (StackTraceElement frame : stackTrace) {
+            if (frame.getClassName().startsWith(PACKAGE)
+                    && !frame.getClassName().startsWith(METRICS_PACKAGE)) {
+                frames.add(frame.toString());
+                if (frames.size() == CALL_SITE_FRAMES) {
+                    break;
+                }
+            }
+        }
+        return frames.isEmpty() ? "unknown" : String.join(" < ", frames);
+    }
+
+    /**
+     * Returns the number of statements prepared since the start.
+     *
+     * @return the number of statements
+     */
+    public synchronized int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns numbers of preparations of every statement, in order of the first one.
+     *
+     * @return numbers of statements by their SQL
+     */
+    public synchronized Map<String, Integer> getStatements() {
+        final Map<String, Integer> counts = new LinkedHashMap<>();
+        statements.forEach((sql, statement) -> counts.put(sql, statement.count));
+        return counts;
+    }
+
+    /**
+     * Forgets statements recorded so far.
+     */
+    public synchronized void reset() {
+        statements.clear();
+        count = 0;
+    }
+
+    /**
+     * Returns a task which runs given task with this recording active in its thread. The recording
+     * active in that thread before is hidden until the task ends.
+     *
+     * @param task the task to record
+     * @return the recorded task
+     */
+    public Runnable wrap(Runnable task) {
+        return () -> {
+            final SqlStatementRecording hidden = CURRENT.get();
+            CURRENT.set(this);
+            try {
+                task.run();
+            } finally {
+                activate(hidden);
+            }
+        };
+    }
+
+    /**
+     * Stops the recording in the thread which started it, without closing it. Statements of
+     * other threads, which run tasks wrapped by {@link #wrap(Runnable)}, are still recorded.
+     */
+    public void detach() {
+        if (CURRENT.get() == this) {
+            activate(previous);
+        }
+    }
+
+    private static void activate(SqlStatementRecording recording) {
+        if (recording == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(recording);
+        }
+    }
+
+    /**
+     * Stops the recording and logs it when the budget is exceeded. Only the first call has any
+     * effect, so a recording can be closed by whichever thread finishes the operation.
+     */
+    @Override
+    public void close() {
+        detach();
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (count > budget && LOGGER.isLoggable(Level.WARNING)) {
+                LOGGER.warning(describe());
+            }
+        }
+    }
+
+    /**
+     * Tells whether the recording was closed.
+     *
+     * @return true if {@link #close()} was called
+     */
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    synchronized String describe() {
+        return name + " prepared " + count + " SQL statements, the budget is " + budget + ":\n"
+                + statements.values().stream()
+                .sorted(Comparator.comparingInt(Statement::getCount).reversed())
+                .map(Statement::toString)
+                .collect(Collectors.joining("\n"));
+    }
+
+    private static class Statement {
+
+        private final String sql;
+        private int count;
+        private String callSite;
+
+        Statement(String sql) {
+            this.sql = sql;
+        }
+
+        int getCount() {
+            return count;
+        }
+
+        @Override
+        public String toString() {
+            return "  " + count + " x " + sql + (callSite == null ? "" : "\n    at " + callSite);
+        }
+    }
+}
@@ -1,10 +1,18 @@
 package pl.foltak.mybudget.server.rest;
 
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
 import javax.ejb.EJB;
-import javax.ws.rs.HeaderParam;
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.SecurityContext;
 import lombok.Getter;
 import pl.foltak.mybudget.server.dao.MyBudgetDaoLocal;
+import pl.foltak.mybudget.server.dto.Money;
 import pl.foltak.mybudget.server.security.AuthenticationFilter;
+import pl.foltak.mybudget.server.security.UserPrincipal;
 
 /**
  *
@@ -12,10 +20,73 @@ import pl.foltak.mybudget.server.security.AuthenticationFilter;
  */
 public abstract class AbstractService {
 
-//    TODO: Move AUTHORIZATION_USERNAME to more specific class
-    @HeaderParam(value = AuthenticationFilter.AUTHORIZATION_USERNAME)
-    @Getter private String username;
+    @Context
+    @Getter private SecurityContext securityContext;
 
     @EJB
     @Getter private MyBudgetDaoLocal dao;
+
+    /**
+     * Returns the principal of user authenticated by {@link AuthenticationFilter}.
+     *
+     * @return the principal of user
+     */
+    public UserPrincipal getUserPrincipal() {
+        return (UserPrincipal) getSecurityContext().getUserPrincipal();
+    }
+
+    /**
+     * Returns the id of user authenticated by {@link AuthenticationFilter}.
+     *
+     * @return the id of user
+     */
+    public long getUserId() {
+        return getUserPrincipal().getId();
+    }
+
+    /**
+     * Parses date in yyyy-MM-dd format.
+     *
+     * @param date the date or null
+     * @return parsed date or null when given date is null
+     * @throws BadRequestException when the date is incorrect
+     */
+    static Date parseDate(String date) {
+        if (date == null) {
+            return null;
+        }
+        try {
+            return java.sql.Date.valueOf(LocalDate.parse(date));
+        } catch (DateTimeParseException ex) {
+            throw new BadRequestException("Incorrect date " + date, ex);
+        }
+    }
+
+    /**
+     * Formats date in yyyy-MM-dd format, the one read by {@link #parseDate(String)}.
+     *
+     * @param date the date or null
+     * @return formatted date or null when given date is null
+     */
+    static String formatDate(Date date) {
+        return date != null ? new SimpleDateFormat("yyyy-MM-dd").format(date) : null;
+    }
+
+    /**
+     * Parses decimal amount, e.g. 12.50, into minor units.
+     *
+     * @param amount the amount or null
+     * @return the amount in minor units or null when given amount is null
+     * @throws BadRequestException when the amount is incorrect
+     */
+    static Long parseAmount(String amount) {
+        if (amount == null) {
+            return null;
+        }
+        try {
+            return Money.parse(amount);
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException(ex.getMessage(), ex);
+        }
+    }
 }
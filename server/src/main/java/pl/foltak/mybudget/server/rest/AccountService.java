@@ -18,6 +18,7 @@ import pl.foltak.mybudget.server.dao.exception.AccountCantBeRemovedException;
 import pl.foltak.mybudget.server.dao.exception.AccountNotFoundException;
 import pl.foltak.mybudget.server.dao.exception.CategoryNotFoundException;
 import pl.foltak.mybudget.server.dao.exception.TransactionNotFoundException;
+import pl.foltak.mybudget.server.dto.AccountDTO;
 import pl.foltak.mybudget.server.dto.TransactionDTO;
 import pl.foltak.mybudget.server.entity.Account;
 import pl.foltak.mybudget.server.rest.exception.ConflictException;
@@ -28,7 +29,8 @@ import pl.foltak.mybudget.server.rest.exception.ConflictException;
  * @author Mariusz Foltak <mariusz@foltak.pl>
  */
 @Path("/accounts")
-@Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML})
+@Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, CborWriter.APPLICATION_CBOR})
+@UserVersioned
 public class AccountService extends AbstractService {
 
     private final URICreator uriCreator = new URICreator("accounts");
@@ -44,7 +46,7 @@ public class AccountService extends AbstractService {
     @Path("/")
     public Response createAccount(Account account) {
         try {
-            getDao().addAccount(getUsername(), account);
+            getDao().addAccount(getUserId(), account);
         } catch (AccountAlreadyExistsException ex) {
             throw new ConflictException(ex.getMessage(), ex);
         }
@@ -63,7 +65,7 @@ public class AccountService extends AbstractService {
     @Path("/{account}")
     public Response modifyAccount(@PathParam("account") String accountName, Account account) {
         try {
-            getDao().updateAccount(getUsername(), accountName, account);
+            getDao().updateAccount(getUserId(), accountName, account);
         } catch (AccountAlreadyExistsException ex) {
             throw new ConflictException(ex.getMessage(), ex);
         } catch (AccountNotFoundException ex) {
@@ -82,7 +84,7 @@ public class AccountService extends AbstractService {
     @Path("/{id}")
     public Response removeAccount(@PathParam("id") Long id) {
         try {
-            getDao().removeAccount(getUsername(), id);
+            getDao().removeAccount(getUserId(), id);
         } catch (AccountNotFoundException ex) {
             throw new NotFoundException(ex.getMessage(), ex);
         } catch (AccountCantBeRemovedException ex) {
@@ -99,7 +101,7 @@ public class AccountService extends AbstractService {
     @GET
     @Path("/")
     public Response getAccounts() {
-        final List<Account> accounts = getDao().getAccounts(getUsername());
+        final List<AccountDTO> accounts = getDao().getAccounts(getUserId());
         return Response.ok(accounts).build();
     }
 }
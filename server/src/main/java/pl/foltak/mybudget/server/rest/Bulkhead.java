@@ -0,0 +1,20 @@
+package pl.foltak.mybudget.server.rest;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Assigns resources to a group of endpoints limited by {@link BulkheadFilter}. Resources without
+ * this annotation belong to {@link BulkheadGroup#INTERACTIVE}, an annotation of method overrides
+ * the one of class.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface Bulkhead {
+
+    BulkheadGroup value();
+}
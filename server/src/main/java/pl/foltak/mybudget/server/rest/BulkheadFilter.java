@@ -0,0 +1,80 @@
+package pl.foltak.mybudget.server.rest;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.Optional;
+import javax.annotation.Priority;
+import javax.ejb.EJB;
+import javax.servlet.ServletRequest;
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Limits concurrent requests of every {@link BulkheadGroup} with {@link Bulkheads}. A request which
+ * doesn't get a permit is answered with 503 Service Unavailable and Retry-After before the
+ * resource is called. The permit is kept until the end of request, after the response body is
+ * written and after a suspended request is resumed, and released by
+ * {@link BulkheadReleaseListener}. The filter runs after authentication, so rejected credentials
+ * don't take permits.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+@Provider
+@Priority(Priorities.AUTHORIZATION)
+public class BulkheadFilter implements ContainerRequestFilter {
+
+    static final String PERMIT_ATTRIBUTE = BulkheadFilter.class.getName() + ".permit";
+    static final long RETRY_AFTER_SECONDS = 1;
+
+    @EJB
+    private Bulkheads bulkheads;
+
+    @Context
+    private ResourceInfo resourceInfo;
+
+    @Context
+    private HttpServletRequest servletRequest;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) throws IOException {
+        final Optional<Bulkheads.Permit> permit
+                = getBulkheads().acquire(getGroup(getResourceInfo()));
+        if (!permit.isPresent()) {
+            requestContext.abortWith(Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS).build());
+            return;
+        }
+        getServletRequest().setAttribute(PERMIT_ATTRIBUTE, permit.get());
+    }
+
+    static BulkheadGroup getGroup(ResourceInfo resourceInfo) {
+        final Method method = resourceInfo.getResourceMethod();
+        if (method != null && method.isAnnotationPresent(Bulkhead.class)) {
+            return method.getAnnotation(Bulkhead.class).value();
+        }
+        final Class<?> resource = resourceInfo.getResourceClass();
+        if (resource != null && resource.isAnnotationPresent(Bulkhead.class)) {
+            return resource.getAnnotation(Bulkhead.class).value();
+        }
+        return BulkheadGroup.INTERACTIVE;
+    }
+
+    Bulkheads getBulkheads() {
+        return bulkheads;
+    }
+
+    ResourceInfo getResourceInfo() {
+        return resourceInfo;
+    }
+
+    ServletRequest getServletRequest() {
+        return servletRequest;
+    }
+}
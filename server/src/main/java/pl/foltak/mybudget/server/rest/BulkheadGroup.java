@@ -0,0 +1,65 @@
+package pl.foltak.mybudget.server.rest;
+
+import java.util.Locale;
+
+/**
+ * Groups of endpoints with separate concurrency limits, see {@link Bulkheads}. Limits are
+ * configured with system properties mybudget.bulkhead.&lt;group&gt;.limit, .queueSize and
+ * .waitMillis, for example mybudget.bulkhead.analytical.limit. Every request of a group holds at
+ * most one database connection, so the limit of a group is also its budget of connections; the
+ * sum of limits other than the interactive one should stay below the size of the datasource pool.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public enum BulkheadGroup {
+
+    /**
+     * Short CRUD requests of clients, the default group.
+     */
+    INTERACTIVE(50, 50, 2000),
+    /**
+     * Reports, exports and imports.
+     */
+    ANALYTICAL(8, 8, 500);
+
+    private final int defaultLimit;
+    private final int defaultQueueSize;
+    private final long defaultWaitMillis;
+
+    private BulkheadGroup(int defaultLimit, int defaultQueueSize, long defaultWaitMillis) {
+        this.defaultLimit = defaultLimit;
+        this.defaultQueueSize = defaultQueueSize;
+        this.defaultWaitMillis = defaultWaitMillis;
+    }
+
+    /**
+     * Returns the number of requests of the group which may run at once.
+     *
+     * @return the limit
+     */
+    public int getLimit() {
+        return Integer.getInteger(getProperty("limit"), defaultLimit);
+    }
+
+    /**
+     * Returns the number of requests of the group which may wait when the limit is reached.
+     *
+     * @return the size of queue
+     */
+    public int getQueueSize() {
+        return Integer.getInteger(getProperty("queueSize"), defaultQueueSize);
+    }
+
+    /**
+     * Returns the time a request of the group may wait when the limit is reached.
+     *
+     * @return the time in milliseconds
+     */
+    public long getWaitMillis() {
+        return Long.getLong(getProperty("waitMillis"), defaultWaitMillis);
+    }
+
+    private String getProperty(String name) {
+        return "mybudget.bulkhead." + name().toLowerCase(Locale.ROOT) + "." + name;
+    }
+}
@@ -0,0 +1,26 @@
+package pl.foltak.mybudget.server.rest;
+
+import javax.servlet.ServletRequestEvent;
+import javax.servlet.ServletRequestListener;
+
+/**
+ * Releases the permit taken by {@link BulkheadFilter} when the request ends. The end of request
+ * is the only point reached by every request: after a streamed body is written, after a suspended
+ * request is resumed and also after an exception which isn't mapped to a response.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class BulkheadReleaseListener implements ServletRequestListener {
+
+    @Override
+    public void requestInitialized(ServletRequestEvent event) {
+    }
+
+    @Override
+    public void requestDestroyed(ServletRequestEvent event) {
+        final Object permit = event.getServletRequest().getAttribute(BulkheadFilter.PERMIT_ATTRIBUTE);
+        if (permit instanceof Bulkheads.Permit) {
+            ((Bulkheads.Permit) permit).release();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package pl.foltak.mybudget.server.rest;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.LocalBean;
+import javax.ejb.Singleton;
+import pl.foltak.mybudget.server.dto.BulkheadStatisticsDTO;
+
+/**
+ * Concurrency limits of groups of endpoints. A request takes a permit of its group; when all
+ * permits are taken it waits for a bounded time, but only when there are fewer waiting requests
+ * than the size of queue. A request which doesn't get a permit is shed, so a spike of one group
+ * can't take threads and connections needed by the others.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+@Singleton
+@LocalBean
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class Bulkheads {
+
+    private final Map<BulkheadGroup, Compartment> compartments = new EnumMap<>(BulkheadGroup.class);
+
+    public Bulkheads() {
+        for (BulkheadGroup group : BulkheadGroup.values()) {
+            compartments.put(group, new Compartment(group.getLimit(), group.getQueueSize(),
+                    group.getWaitMillis()));
+        }
+    }
+
+    Bulkheads(int limit, int queueSize, long waitMillis) {
+        for (BulkheadGroup group : BulkheadGroup.values()) {
+            compartments.put(group, new Compartment(limit, queueSize, waitMillis));
+        }
+    }
+
+    /**
+     * Takes a permit of given group, waiting for it when the group is full and its queue isn't.
+     *
+     * @param group the group of endpoint
+     * @return the permit or empty when the request should be shed
+     */
+    public Optional<Permit> acquire(BulkheadGroup group) {
+        return compartments.get(group).acquire();
+    }
+
+    /**
+     * Returns the state of all groups.
+     *
+     * @return statistics of groups
+     */
+    public List<BulkheadStatisticsDTO> getStatistics() {
+        final List<BulkheadStatisticsDTO> statistics = new ArrayList<>(compartments.size());
+        compartments.forEach((group, compartment) -> {
+            final BulkheadStatisticsDTO dto = new BulkheadStatisticsDTO();
+            dto.setGroup(group.name());
+            dto.setLimit(compartment.limit);
+            dto.setActiveCount(compartment.limit - compartment.permits.availablePermits());
+            dto.setWaitingCount(compartment.waiting.get());
+            dto.setQueueSize(compartment.queueSize);
+            dto.setShedCount(compartment.shed.get());
+            statistics.add(dto);
+        });
+        return statistics;
+    }
+
+    /**
+     * A taken permit. It's released once, further calls of {@link #release()} do nothing.
+     */
+    public static class Permit {
+
+        private final Semaphore permits;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Permit(Semaphore permits) {
+            this.permits = permits;
+        }
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
+
+    private static class Compartment {
+
+        private final int limit;
+        private final int queueSize;
+        private final long waitMillis;
+        private final Semaphore permits;
+        private final AtomicInteger waiting = new AtomicInteger();
+        private final AtomicLong shed = new AtomicLong();
+
+        Compartment(int limit, int queueSize, long waitMillis) {
+            this.limit = limit;
+            this.queueSize = queueSize;
+            this.waitMillis = waitMillis;
+            this.permits = new Semaphore(limit, true);
+        }
+
+        Optional<Permit> acquire() {
+            if (permits.tryAcquire()) {
+                return Optional.of(new Permit(permits));
+            }
+            if (waiting.incrementAndGet() > queueSize) {
+                waiting.decrementAndGet();
+                shed.incrementAndGet();
+                return Optional.empty();
+            }
+            try {
+                if (permits.tryAcquire(waitMillis, TimeUnit.MILLISECONDS)) {
+                    return Optional.of(new Permit(permits));
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } finally {
+                waiting.decrementAndGet();
+            }
+            shed.incrementAndGet();
+            return Optional.empty();
+        }
+    }
+}
@@ -18,6 +18,7 @@ import javax.ws.rs.core.Response;
 import pl.foltak.mybudget.server.dao.exception.CategoryAlreadyExistsException;
 import pl.foltak.mybudget.server.dao.exception.CategoryCantBeRemovedException;
 import pl.foltak.mybudget.server.dao.exception.CategoryNotFoundException;
+import pl.foltak.mybudget.server.dto.CategoryDTO;
 import pl.foltak.mybudget.server.entity.Category;
 import pl.foltak.mybudget.server.rest.exception.ConflictException;
 
@@ -26,7 +27,8 @@ import pl.foltak.mybudget.server.rest.exception.ConflictException;
  * @author Mariusz Foltak <mariusz@foltak.pl>
  */
 @Path("/categories")
-@Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML})
+@Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, CborWriter.APPLICATION_CBOR})
+@UserVersioned
 public class CategoryService extends AbstractService {
 
     private final URICreator uriCreator = new URICreator("categories");
@@ -35,7 +37,7 @@ public class CategoryService extends AbstractService {
     @Path("/")
     public Response addMainCategory(Category category) {
         try {
-            getDao().addMainCategory(getUsername(), category);
+            getDao().addMainCategory(getUserId(), category);
         } catch (CategoryAlreadyExistsException ex) {
             throw new ConflictException(ex.getMessage(), ex);
         }
@@ -47,7 +49,7 @@ public class CategoryService extends AbstractService {
     public Response editMainCategory(@PathParam("mainCategory") String categoryName,
             Category category) {
         try {
-            getDao().updateMainCategory(getUsername(), categoryName, category);
+            getDao().updateMainCategory(getUserId(), categoryName, category);
         } catch (CategoryNotFoundException ex) {
             throw new NotFoundException(ex.getMessage(), ex);
         } catch (CategoryAlreadyExistsException ex) {
@@ -60,7 +62,7 @@ public class CategoryService extends AbstractService {
     @Path("/{mainCategory}")
     public Response removeMainCategory(@PathParam("mainCategory") String categoryName) {
         try {
-            getDao().removeMainCategory(getUsername(), categoryName);
+            getDao().removeMainCategory(getUserId(), categoryName);
         } catch (CategoryNotFoundException ex) {
             throw new NotFoundException(ex.getMessage(), ex);
         } catch (CategoryCantBeRemovedException ex) {
@@ -74,7 +76,7 @@ public class CategoryService extends AbstractService {
     public Response addSubCategory(@PathParam("mainCategory") String mainCategoryName,
             Category category) {
         try {
-            getDao().addSubCategory(getUsername(), mainCategoryName, category);
+            getDao().addSubCategory(getUserId(), mainCategoryName, category);
         } catch (CategoryNotFoundException ex) {
             throw new NotFoundException(ex.getMessage(), ex);
         } catch (CategoryAlreadyExistsException ex) {
@@ -89,7 +91,7 @@ public class CategoryService extends AbstractService {
             @PathParam("subCategory") String subCategoryName, Category category) {
 
         try {
-            getDao().updateSubCategory(getUsername(), mainCategoryName, subCategoryName, category);
+            getDao().updateSubCategory(getUserId(), mainCategoryName, subCategoryName, category);
         } catch (CategoryNotFoundException ex) {
             throw new NotFoundException(ex.getMessage(), ex);
         } catch (CategoryAlreadyExistsException ex) {
@@ -103,7 +105,7 @@ public class CategoryService extends AbstractService {
     public Response removeSubCategory(@PathParam("mainCategory") String mainCategoryName,
             @PathParam("subCategory") String subCategoryName) {
         try {
-            getDao().removeSubCategory(getUsername(), mainCategoryName, subCategoryName);
+            getDao().removeSubCategory(getUserId(), mainCategoryName, subCategoryName);
         } catch (CategoryNotFoundException ex) {
             throw new NotFoundException(ex.getMessage(), ex);
         } catch (CategoryCantBeRemovedException ex) {
@@ -115,16 +117,16 @@ public class CategoryService extends AbstractService {
     @GET
     @Path("/")
     public Response getAllCategories() {
-        final List<Category> categories = getDao().getAllCategories(getUsername());
+        final List<CategoryDTO> categories = getDao().getAllCategories(getUserId());
         return Response.ok(categories).build();
     }
 
     @GET
     @Path("{mainCategory}")
     public Response getSubcategories(@PathParam(value = "mainCategory") String mainCategoryName) {
-        final List<Category> subCategories;
+        final List<CategoryDTO> subCategories;
         try {
-            subCategories = getDao().getSubCategories(getUsername(), mainCategoryName);
+            subCategories = getDao().getSubCategories(getUserId(), mainCategoryName);
         } catch (CategoryNotFoundException ex) {
             throw new NotFoundException(ex.getMessage(), ex);
         }
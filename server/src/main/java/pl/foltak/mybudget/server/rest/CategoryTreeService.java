@@ -0,0 +1,36 @@
+package pl.foltak.mybudget.server.rest;
+
+import java.util.List;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import pl.foltak.mybudget.server.dto.CategoryNodeDTO;
+
+/**
+ * The category tree service. Returns all main categories with their sub categories in one
+ * response. The response is tagged by {@link UserVersionFilter}, so an unchanged tree is answered
+ * with 304 Not Modified without reading categories.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+@Path("/category-tree")
+@Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, CborWriter.APPLICATION_CBOR})
+@UserVersioned
+public class CategoryTreeService extends AbstractService {
+
+    /**
+     * Returns the category tree of the user.
+     *
+     * @param totals whether numbers and sums of transactions should be returned for every node
+     * @return 200 OK with the tree
+     */
+    @GET
+    @Path("/")
+    public Response getCategoryTree(@QueryParam("totals") boolean totals) {
+        final List<CategoryNodeDTO> tree = getDao().getCategoryTree(getUserId(), totals);
+        return Response.ok(tree).build();
+    }
+}
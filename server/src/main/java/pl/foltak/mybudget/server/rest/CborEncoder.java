@@ -0,0 +1,165 @@
+package pl.foltak.mybudget.server.rest;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.xml.bind.annotation.XmlTransient;
+
+/**
+ * Encodes objects in CBOR (RFC 7049), the same way they are written as JSON: beans as maps of
+ * their readable properties, collections and arrays as arrays, dates as milliseconds and enums
+ * as names. Properties marked with {@link XmlTransient} are skipped.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+class CborEncoder {
+
+    private static final int UNSIGNED = 0;
+    private static final int NEGATIVE = 1;
+    private static final int BYTES = 2;
+    private static final int TEXT = 3;
+    private static final int ARRAY = 4;
+    private static final int MAP = 5;
+    private static final int FALSE = 0xf4;
+    private static final int TRUE = 0xf5;
+    private static final int NULL = 0xf6;
+    private static final int DOUBLE = 0xfb;
+
+    private static final ConcurrentMap<Class<?>, List<Method>> GETTERS = new ConcurrentHashMap<>();
+
+    private final OutputStream out;
+
+    CborEncoder(OutputStream out) {
+        this.out = out;
+    }
+
+    void write(Object value) throws IOException {
+        if (value == null) {
+            out.write(NULL);
+        } else if (value instanceof Boolean) {
+            out.write((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short
+                || value instanceof Byte) {
+            writeLong(((Number) value).longValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            out.write(DOUBLE);
+            writeBits(Double.doubleToLongBits(((Number) value).doubleValue()), 8);
+        } else if (value instanceof Date) {
+            writeLong(((Date) value).getTime());
+        } else if (value instanceof CharSequence || value instanceof Number
+                || value instanceof Character) {
+            writeText(value.toString());
+        } else if (value instanceof Enum) {
+            writeText(((Enum<?>) value).name());
+        } else if (value instanceof byte[]) {
+            writeHeader(BYTES, ((byte[]) value).length);
+            out.write((byte[]) value);
+        } else if (value instanceof Collection) {
+            writeHeader(ARRAY, ((Collection<?>) value).size());
+            for (Object element : (Collection<?>) value) {
+                write(element);
+            }
+        } else if (value.getClass().isArray()) {
+            final int length = Array.getLength(value);
+            writeHeader(ARRAY, length);
+            for (int i = 0; i < length; i++) {
+                write(Array.get(value, i));
+            }
+        } else if (value instanceof Map) {
+            writeHeader(MAP, ((Map<?, ?>) value).size());
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                writeText(String.valueOf(entry.getKey()));
+                write(entry.getValue());
+            }
+        } else {
+            writeBean(value);
+        }
+    }
+
+    private void writeBean(Object bean) throws IOException {
+        final List<Method> getters = getGetters(bean.getClass());
+        writeHeader(MAP, getters.size());
+        for (Method getter : getters) {
+            writeText(Introspector.decapitalize(getter.getName()
+                    .substring(getter.getName().startsWith("is") ? 2 : 3)));
+            try {
+                write(getter.invoke(bean));
+            } catch (IllegalAccessException | InvocationTargetException ex) {
+                throw new IOException("Property can't be read: " + getter, ex);
+            }
+        }
+    }
+
+    private static List<Method> getGetters(Class<?> type) throws IOException {
+        final List<Method> cached = GETTERS.get(type);
+        if (cached != null) {
+            return cached;
+        }
+        final List<Method> getters = new ArrayList<>();
+        try {
+            for (PropertyDescriptor property : Introspector.getBeanInfo(type, Object.class)
+                    .getPropertyDescriptors()) {
+                final Method getter = property.getReadMethod();
+                if (getter != null && !getter.isAnnotationPresent(XmlTransient.class)) {
+                    getters.add(getter);
+                }
+            }
+        } catch (IntrospectionException ex) {
+            throw new IOException("Class can't be encoded: " + type, ex);
+        }
+        GETTERS.putIfAbsent(type, getters);
+        return getters;
+    }
+
+    private void writeLong(long value) throws IOException {
+        if (value >= 0) {
+            writeHeader(UNSIGNED, value);
+        } else {
+            writeHeader(NEGATIVE, -1 - value);
+        }
+    }
+
+    private void writeText(String value) throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeHeader(TEXT, bytes.length);
+        out.write(bytes);
+    }
+
+    private void writeHeader(int majorType, long length) throws IOException {
+        final int type = majorType << 5;
+        if (length < 24) {
+            out.write(type | (int) length);
+        } else if (length <= 0xffL) {
+            out.write(type | 24);
+            writeBits(length, 1);
+        } else if (length <= 0xffffL) {
+            out.write(type | 25);
+            writeBits(length, 2);
+        } else if (length <= 0xffffffffL) {
+            out.write(type | 26);
+            writeBits(length, 4);
+        } else {
+            out.write(type | 27);
+            writeBits(length, 8);
+        }
+    }
+
+    private void writeBits(long bits, int bytes) throws IOException {
+        for (int i = bytes - 1; i >= 0; i--) {
+            out.write((int) (bits >>> (i * 8)));
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package pl.foltak.mybudget.server.rest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import javax.annotation.Priority;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+/**
+ * Compresses responses with gzip or deflate, as accepted by the client in Accept-Encoding. Small
+ * responses are sent as they are, because compressing them costs more than it saves; the body is
+ * buffered until it reaches the threshold, which can be set with the
+ * {@value #THRESHOLD_PROPERTY} system property.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+@Provider
+@Priority(Priorities.ENTITY_CODER)
+public class CompressionInterceptor implements WriterInterceptor {
+
+    static final String THRESHOLD_PROPERTY = "mybudget.compression.threshold";
+    static final String GZIP = "gzip";
+    static final String DEFLATE = "deflate";
+    private static final int THRESHOLD = Integer.getInteger(THRESHOLD_PROPERTY, 1024);
+
+    @Context
+    private HttpHeaders requestHeaders;
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        final MultivaluedMap<String, Object> headers = context.getHeaders();
+        if (headers.containsKey(HttpHeaders.CONTENT_ENCODING)) {
+            context.proceed();
+            return;
+        }
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        final String encoding
+                = negotiate(getRequestHeaders().getHeaderString(HttpHeaders.ACCEPT_ENCODING));
+        if (encoding == null) {
+            context.proceed();
+            return;
+        }
+        final ThresholdOutputStream output = new ThresholdOutputStream(
+                context.getOutputStream(), headers, encoding, getThreshold());
+        context.setOutputStream(output);
+        context.proceed();
+        output.finish();
+    }
+
+    /**
+     * Chooses the encoding of response from the value of Accept-Encoding header. Gzip is preferred
+     * over deflate when both have the same quality.
+     *
+     * @param acceptEncoding the value of header, may be null
+     * @return gzip, deflate or null if none of them is accepted
+     */
+    static String negotiate(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        float gzip = -1;
+        float deflate = -1;
+        float any = -1;
+        for (String element : acceptEncoding.split(",")) {
+            final String[] parameters = element.split(";");
+            final String coding = parameters[0].trim().toLowerCase(Locale.ROOT);
+            final float quality = getQuality(parameters);
+            if (GZIP.equals(coding) || "x-gzip".equals(coding)) {
+                gzip = Math.max(gzip, quality);
+            } else if (DEFLATE.equals(coding)) {
+                deflate = Math.max(deflate, quality);
+            } else if ("*".equals(coding)) {
+                any = quality;
+            }
+        }
+        gzip = gzip < 0 ? any : gzip;
+        deflate = deflate < 0 ? any : deflate;
+        if (gzip > 0 && gzip >= deflate) {
+            return GZIP;
+        }
+        return deflate > 0 ? DEFLATE : null;
+    }
+
+    private static float getQuality(String[] parameters) {
+        for (int i = 1; i < parameters.length; i++) {
+            final String parameter = parameters[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Float.parseFloat(parameter.substring(2));
+                } catch (NumberFormatException ex) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    HttpHeaders getRequestHeaders() {
+        return requestHeaders;
+    }
+
+    int getThreshold() {
+        return THRESHOLD;
+    }
+
+    /**
+     * Keeps the body in memory until it reaches the threshold. Then the Content-Encoding header is
+     * set, because headers are written with the first byte, and the rest of body is compressed.
+     */
+    static class ThresholdOutputStream extends OutputStream {
+
+        private static final int BUFFER_SIZE = 8192;
+
+        private final OutputStream target;
+        private final MultivaluedMap<String, Object> headers;
+        private final String encoding;
+        private final int threshold;
+        private ByteArrayOutputStream buffer;
+        private OutputStream output;
+
+        ThresholdOutputStream(OutputStream target, MultivaluedMap<String, Object> headers,
+                String encoding, int threshold) {
+            this.target = target;
+            this.headers = headers;
+            this.encoding = encoding;
+            this.threshold = threshold;
+            this.buffer = new ByteArrayOutputStream(Math.min(threshold, BUFFER_SIZE) + 1);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (output != null) {
+                output.write(bytes, offset, length);
+                return;
+            }
+            buffer.write(bytes, offset, length);
+            if (buffer.size() > threshold) {
+                headers.putSingle(HttpHeaders.CONTENT_ENCODING, encoding);
+                headers.remove(HttpHeaders.CONTENT_LENGTH);
+                // the compressor is closed to release its native memory, but the target isn't
+                final OutputStream unclosed = new FilterOutputStream(target) {
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        out.write(b, off, len);
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        flush();
+                    }
+                };
+                output = GZIP.equals(encoding)
+                        ? new GZIPOutputStream(unclosed, BUFFER_SIZE)
+                        : new DeflaterOutputStream(unclosed);
+                buffer.writeTo(output);
+                buffer = null;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            // flushing before the decision would send headers without Content-Encoding
+            if (output != null) {
+                output.flush();
+            }
+        }
+
+        /**
+         * Writes the body kept in memory or the end of compressed body. The target stream stays
+         * open.
+         *
+         * @throws IOException if the body can't be written
+         */
+        void finish() throws IOException {
+            if (buffer != null) {
+                buffer.writeTo(target);
+                buffer = null;
+                output = target;
+            } else if (output != target) {
+                output.close();
+                output = target;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            finish();
+            target.close();
+        }
+    }
+}
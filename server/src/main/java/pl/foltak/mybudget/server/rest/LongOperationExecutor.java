@@ -0,0 +1,139 @@
+package pl.foltak.mybudget.server.rest;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Resource;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.LocalBean;
+import javax.ejb.Singleton;
+import javax.enterprise.concurrent.ManagedExecutorService;
+import javax.ws.rs.ServiceUnavailableException;
+import javax.ws.rs.container.AsyncResponse;
+import pl.foltak.mybudget.server.dto.ExecutorStatisticsDTO;
+import pl.foltak.mybudget.server.metrics.SqlStatementRecording;
+
+/**
+ * Runs long operations, like reports, exports and imports, of suspended requests in the managed
+ * executor of the container, so CRUD requests are still served by worker threads of the server
+ * while they run. Threads of the executor are configured in the container and the number of
+ * operations is bounded by the {@link BulkheadGroup#ANALYTICAL} bulkhead of their resources. A
+ * request rejected by the executor gets 503 Service Unavailable at once and a request which waits
+ * longer than the timeout gets 503 from the container, its operation is skipped when it wasn't
+ * started yet. The timeout is configured with system property {@value #TIMEOUT_PROPERTY} (60
+ * seconds by default).
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+@Singleton
+@LocalBean
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class LongOperationExecutor {
+
+    static final String TIMEOUT_PROPERTY = "mybudget.async.timeoutSeconds";
+    static final long RETRY_AFTER_SECONDS = 5;
+
+    private final long timeoutSeconds;
+    private final AtomicInteger activeCount = new AtomicInteger();
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicLong completedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong expiredCount = new AtomicLong();
+
+    @Resource
+    private ManagedExecutorService executorService;
+
+    public LongOperationExecutor() {
+        this(Integer.getInteger(TIMEOUT_PROPERTY, 60));
+    }
+
+    LongOperationExecutor(long timeoutSeconds) {
+        this.timeoutSeconds = timeoutSeconds;
+    }
+
+    /**
+     * Runs given operation in the executor and resumes the request with its result. The result
+     * may be a response or an entity, an exception thrown by the operation is mapped like an
+     * exception thrown by a resource method. The operation can't use request scoped objects, like
+     * the security context, read everything it needs before it's submitted.
+     *
+     * @param asyncResponse the suspended request
+     * @param operation the operation to run
+     */
+    public void execute(AsyncResponse asyncResponse, Callable<?> operation) {
+        asyncResponse.setTimeout(timeoutSeconds, TimeUnit.SECONDS);
+        final Runnable task = () -> {
+            queueDepth.decrementAndGet();
+            activeCount.incrementAndGet();
+            try {
+                run(asyncResponse, operation);
+            } finally {
+                activeCount.decrementAndGet();
+                completedCount.incrementAndGet();
+            }
+        };
+        final SqlStatementRecording recording = SqlStatementRecording.current();
+        queueDepth.incrementAndGet();
+        try {
+            getExecutorService().execute(recording == null ? task : record(recording, task,
+                    asyncResponse));
+        } catch (RejectedExecutionException ex) {
+            queueDepth.decrementAndGet();
+            rejectedCount.incrementAndGet();
+            asyncResponse.resume(new ServiceUnavailableException(RETRY_AFTER_SECONDS));
+        }
+    }
+
+    /**
+     * Continues the recording of request in given task. The filter closes the recording when the
+     * response is complete, but it may miss the completion when the task resumes the request
+     * before the filter returns, so the task closes the recording of a resumed request itself.
+     */
+    private static Runnable record(SqlStatementRecording recording, Runnable task,
+            AsyncResponse asyncResponse) {
+        return recording.wrap(() -> {
+            try {
+                task.run();
+            } finally {
+                if (asyncResponse.isDone()) {
+                    recording.close();
+                }
+            }
+        });
+    }
+
+    private void run(AsyncResponse asyncResponse, Callable<?> operation) {
+        if (asyncResponse.isDone()) {
+            expiredCount.incrementAndGet();
+            return;
+        }
+        try {
+            asyncResponse.resume(operation.call());
+        } catch (Exception ex) {
+            asyncResponse.resume(ex);
+        }
+    }
+
+    /**
+     * Returns numbers of running, waiting and finished operations.
+     *
+     * @return statistics of the executor
+     */
+    public ExecutorStatisticsDTO getStatistics() {
+        final ExecutorStatisticsDTO statistics = new ExecutorStatisticsDTO();
+        statistics.setActiveCount(activeCount.get());
+        statistics.setQueueDepth(queueDepth.get());
+        statistics.setCompletedCount(completedCount.get());
+        statistics.setRejectedCount(rejectedCount.get());
+        statistics.setExpiredCount(expiredCount.get());
+        return statistics;
+    }
+
+    ExecutorService getExecutorService() {
+        return executorService;
+    }
+}
@@ -0,0 +1,50 @@
+package pl.foltak.mybudget.server.rest;
+
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import javax.ejb.EJB;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import pl.foltak.mybudget.server.metrics.Metrics;
+
+/**
+ * The metrics service, scraped by Prometheus.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+@Path("/metrics")
+public class MetricsService {
+
+    static final String PROMETHEUS_TEXT = "text/plain; version=0.0.4; charset=utf-8";
+
+    @EJB
+    private Metrics metrics;
+
+    /**
+     * Returns latency histograms and statistics of the connection pool in Prometheus text format.
+     *
+     * @return 200 OK with metrics
+     */
+    @GET
+    @Path("/")
+    @Produces(PROMETHEUS_TEXT)
+    public Response getMetrics() {
+        final Metrics source = getMetricsSource();
+        final StreamingOutput output = stream -> {
+            final Writer writer
+                    = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+            source.write(writer);
+            writer.flush();
+        };
+        return Response.ok(output).build();
+    }
+
+    Metrics getMetricsSource() {
+        return metrics;
+    }
+}
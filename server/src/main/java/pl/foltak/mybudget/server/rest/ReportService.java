@@ -0,0 +1,82 @@
+package pl.foltak.mybudget.server.rest;
+
+import javax.ejb.EJB;
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import pl.foltak.mybudget.server.dao.MyBudgetDaoLocal;
+import pl.foltak.mybudget.server.dto.ReportDimension;
+import pl.foltak.mybudget.server.dto.ReportFilter;
+
+/**
+ * The report service. Sums transactions in the database, so clients don't have to download them
+ * to build a budget summary.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+@Path("/reports")
+@Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, CborWriter.APPLICATION_CBOR})
+@UserVersioned
+@Bulkhead(BulkheadGroup.ANALYTICAL)
+public class ReportService extends AbstractService {
+
+    @EJB
+    private LongOperationExecutor executor;
+
+    /**
+     * Returns sums and numbers of transactions grouped by given dimensions. Dates are in
+     * yyyy-MM-dd format. The report is built by {@link LongOperationExecutor}, so it doesn't hold
+     * a worker thread of the server.
+     *
+     * @param groupBy comma separated dimensions: account, mainCategory, subCategory, tag, month
+     * @param accountName the name of account
+     * @param dateFrom the first day of period
+     * @param dateTo the last day of period
+     * @param asyncResponse the suspended request, resumed with 200 OK with rows of the report,
+     * 400 Bad Request when parameters are invalid or 503 Service Unavailable when too many long
+     * operations wait
+     */
+    @GET
+    @Path("/")
+    public void getReport(@QueryParam("groupBy") String groupBy,
+            @QueryParam("account") String accountName,
+            @QueryParam("dateFrom") String dateFrom,
+            @QueryParam("dateTo") String dateTo,
+            @Suspended AsyncResponse asyncResponse) {
+
+        final ReportFilter filter = new ReportFilter();
+        if (groupBy != null) {
+            for (String dimension : groupBy.split(",")) {
+                if (!dimension.trim().isEmpty()) {
+                    filter.getDimensions().add(parseDimension(dimension.trim()));
+                }
+            }
+        }
+        filter.setAccountName(accountName);
+        filter.setDateFrom(parseDate(dateFrom));
+        filter.setDateTo(parseDate(dateTo));
+
+        final MyBudgetDaoLocal dao = getDao();
+        final long userId = getUserId();
+        getExecutor().execute(asyncResponse,
+                () -> Response.ok(dao.getReport(userId, filter)).build());
+    }
+
+    private static ReportDimension parseDimension(String dimension) {
+        try {
+            return ReportDimension.of(dimension);
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException(ex.getMessage(), ex);
+        }
+    }
+
+    LongOperationExecutor getExecutor() {
+        return executor;
+    }
+}
@@ -0,0 +1,71 @@
+package pl.foltak.mybudget.server.rest;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.Priority;
+import javax.ejb.EJB;
+import javax.servlet.ServletRequest;
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.ext.Provider;
+import pl.foltak.mybudget.server.metrics.LatencyHistogram;
+import pl.foltak.mybudget.server.metrics.LatencyMetric;
+import pl.foltak.mybudget.server.metrics.Metrics;
+import pl.foltak.mybudget.server.metrics.RequestMetricsListener;
+
+/**
+ * Chooses the histogram of request by its resource method, the time is recorded by
+ * {@link RequestMetricsListener} when the request ends. The filter runs before authentication, so
+ * rejected requests are measured too.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+@Provider
+@Priority(Priorities.AUTHENTICATION - 1)
+public class RequestMetricsFilter implements ContainerRequestFilter {
+
+    private final ConcurrentMap<Method, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    @EJB
+    private Metrics metrics;
+
+    @Context
+    private ResourceInfo resourceInfo;
+
+    @Context
+    private HttpServletRequest servletRequest;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) throws IOException {
+        final Method method = getResourceInfo().getResourceMethod();
+        if (method == null) {
+            return;
+        }
+        LatencyHistogram histogram = histograms.get(method);
+        if (histogram == null) {
+            final Class<?> resource = getResourceInfo().getResourceClass();
+            histogram = histograms.computeIfAbsent(method, key -> getMetrics().getHistogram(
+                    LatencyMetric.HTTP_REQUEST, "resource", resource.getSimpleName(),
+                    "method", method.getName()));
+        }
+        getServletRequest().setAttribute(RequestMetricsListener.HISTOGRAM_ATTRIBUTE, histogram);
+    }
+
+    Metrics getMetrics() {
+        return metrics;
+    }
+
+    ResourceInfo getResourceInfo() {
+        return resourceInfo;
+    }
+
+    ServletRequest getServletRequest() {
+        return servletRequest;
+    }
+}
@@ -0,0 +1,51 @@
+package pl.foltak.mybudget.server.rest;
+
+import java.util.Date;
+import javax.ejb.EJB;
+import javax.ws.rs.ForbiddenException;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import pl.foltak.mybudget.server.dto.TokenDTO;
+import pl.foltak.mybudget.server.security.AuthenticationFilter;
+import pl.foltak.mybudget.server.security.TokenManager;
+
+/**
+ * The session service. Issues tokens which can be sent in the Authorization header instead of
+ * username and password.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+@Path("/sessions")
+@Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML})
+public class SessionService extends AbstractService {
+
+    @EJB
+    private TokenManager tokenManager;
+
+    /**
+     * Creates new session token for user authenticated with username and password.
+     *
+     * @return 201 Created with the token or 403 Forbidden when the request was authenticated with
+     * a token
+     */
+    @POST
+    @Path("/")
+    public Response createSession() {
+        if (!AuthenticationFilter.PASSWORD_SCHEME.equals(
+                getSecurityContext().getAuthenticationScheme())) {
+            throw new ForbiddenException("Session can be created only with username and password");
+        }
+        final long expiresAt = getTokenManager().getExpirationTime();
+        final TokenDTO token = new TokenDTO();
+        token.setToken(getTokenManager().issue(getUserPrincipal(), expiresAt));
+        token.setExpiresAt(new Date(expiresAt));
+        return Response.status(Response.Status.CREATED).entity(token).build();
+    }
+
+    TokenManager getTokenManager() {
+        return tokenManager;
+    }
+}
@@ -0,0 +1,60 @@
+package pl.foltak.mybudget.server.rest;
+
+import java.util.List;
+import javax.ejb.EJB;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import pl.foltak.mybudget.server.dto.BulkheadStatisticsDTO;
+import pl.foltak.mybudget.server.dto.ExecutorStatisticsDTO;
+
+/**
+ * The statistics service.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+@Path("/statistics")
+@Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, CborWriter.APPLICATION_CBOR})
+public class StatisticsService {
+
+    @EJB
+    private LongOperationExecutor executor;
+
+    @EJB
+    private Bulkheads bulkheads;
+
+    /**
+     * Returns numbers of running and waiting long operations, with numbers of completed, rejected
+     * and expired ones.
+     *
+     * @return statistics of the executor
+     */
+    @GET
+    @Path("/executor")
+    public Response getExecutorStatistics() {
+        final ExecutorStatisticsDTO statistics = getExecutor().getStatistics();
+        return Response.ok(statistics).build();
+    }
+
+    /**
+     * Returns limits of groups of endpoints with numbers of running, waiting and shed requests.
+     *
+     * @return list of group statistics
+     */
+    @GET
+    @Path("/bulkheads")
+    public Response getBulkheadStatistics() {
+        final List<BulkheadStatisticsDTO> statistics = getBulkheads().getStatistics();
+        return Response.ok(statistics).build();
+    }
+
+    LongOperationExecutor getExecutor() {
+        return executor;
+    }
+
+    Bulkheads getBulkheads() {
+        return bulkheads;
+    }
+}
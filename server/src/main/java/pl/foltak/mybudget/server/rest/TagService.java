@@ -6,20 +6,21 @@ import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
-import pl.foltak.mybudget.server.entity.Tag;
+import pl.foltak.mybudget.server.dto.TagDTO;
 
 /**
  *
  * @author Mariusz Foltak <mariusz@foltak.pl>
  */
 @Path("/tags")
-@Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML})
+@Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, CborWriter.APPLICATION_CBOR})
+@UserVersioned
 public class TagService extends AbstractService {
 
     @GET
     @Path("/")
     public Response getTags() {
-        List<Tag> tags = getDao().getTags(getUsername());
+        List<TagDTO> tags = getDao().getTags(getUserId());
         return Response.ok(tags).build();
     }
 
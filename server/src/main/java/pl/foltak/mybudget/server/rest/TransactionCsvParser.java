@@ -0,0 +1,173 @@
+package pl.foltak.mybudget.server.rest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import pl.foltak.mybudget.server.dto.ImportErrorDTO;
+import pl.foltak.mybudget.server.dto.Money;
+import pl.foltak.mybudget.server.dto.TransactionDTO;
+
+/**
+ * Parser of transactions in CSV format. The first line is a header with column names: date,
+ * account, mainCategory, subCategory, amount, description and tags (the last two are optional).
+ * Dates are in yyyy-MM-dd format, amounts are decimal (converted to minor units), tags are
+ * separated with semicolons and values containing commas, quotes or line breaks may be quoted.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+class TransactionCsvParser {
+
+    static final String DATE = "date";
+    static final String ACCOUNT = "account";
+    static final String MAIN_CATEGORY = "mainCategory";
+    static final String SUB_CATEGORY = "subCategory";
+    static final String AMOUNT = "amount";
+    static final String DESCRIPTION = "description";
+    static final String TAGS = "tags";
+
+    private static final List<String> REQUIRED_COLUMNS
+            = Arrays.asList(DATE, ACCOUNT, MAIN_CATEGORY, SUB_CATEGORY, AMOUNT);
+
+    /**
+     * Parses transactions from given reader. Every data record gives one element of the returned
+     * list, so its position is the row number used in errors. Records which can't be parsed give
+     * null elements and an error in given list. A record spans several lines when a quoted value
+     * contains line breaks.
+     *
+     * @param reader the source of CSV data
+     * @param errors the list to which errors of malformed lines are added
+     * @return parsed transactions
+     * @throws IOException when reading fails
+     * @throws IllegalArgumentException when the header is missing or incomplete
+     */
+    List<TransactionDTO> parse(Reader reader, List<ImportErrorDTO> errors) throws IOException {
+        final BufferedReader lines = new BufferedReader(reader);
+        final String header = readRecord(lines);
+        if (header == null) {
+            throw new IllegalArgumentException("CSV header is missing");
+        }
+        final Map<String, Integer> columns = new HashMap<>();
+        final List<String> names = split(header);
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim(), i);
+        }
+        for (String column : REQUIRED_COLUMNS) {
+            if (!columns.containsKey(column)) {
+                throw new IllegalArgumentException("CSV column " + column + " is missing");
+            }
+        }
+
+        final List<TransactionDTO> transactions = new ArrayList<>();
+        String line;
+        while ((line = readRecord(lines)) != null) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            try {
+                transactions.add(toTransaction(split(line), columns));
+            } catch (IllegalArgumentException | DateTimeParseException ex) {
+                transactions.add(null);
+                errors.add(new ImportErrorDTO(transactions.size(), ex.getMessage()));
+            }
+        }
+        return transactions;
+    }
+
+    private static TransactionDTO toTransaction(List<String> values, Map<String, Integer> columns) {
+        final TransactionDTO transaction = new TransactionDTO();
+        transaction.setTransactionDate(java.sql.Date.valueOf(LocalDate.parse(get(values, columns, DATE))));
+        transaction.setAccountName(get(values, columns, ACCOUNT));
+        transaction.setMainCategoryName(get(values, columns, MAIN_CATEGORY));
+        transaction.setSubCategoryName(get(values, columns, SUB_CATEGORY));
+        transaction.setAmount(Money.toDecimal(Money.parse(get(values, columns, AMOUNT))));
+        final String description = get(values, columns, DESCRIPTION);
+        transaction.setDescription(description.isEmpty() ? null : description);
+        final String tags = get(values, columns, TAGS);
+        transaction.setTags(Arrays.stream(tags.split(";")).map(String::trim)
+                .filter(tag -> !tag.isEmpty()).collect(Collectors.toList()));
+        return transaction;
+    }
+
+    private static String get(List<String> values, Map<String, Integer> columns, String column) {
+        final Integer index = columns.get(column);
+        if (index == null) {
+            return "";
+        }
+        if (index >= values.size()) {
+            throw new IllegalArgumentException("Value of column " + column + " is missing");
+        }
+        return values.get(index).trim();
+    }
+
+    /**
+     * Reads the next record, joining lines while a quoted value is open. The record is returned
+     * unterminated at the end of data, so {@link #split(String)} reports it.
+     *
+     * @param lines the reader of CSV data
+     * @return the record or null at the end of data
+     * @throws IOException when reading fails
+     */
+    static String readRecord(BufferedReader lines) throws IOException {
+        String record = lines.readLine();
+        if (record == null) {
+            return null;
+        }
+        // escaped quotes come in pairs, so an odd number of quotes leaves a value open
+        int quotes = countQuotes(record);
+        String line;
+        while (quotes % 2 != 0 && (line = lines.readLine()) != null) {
+            record += '\n' + line;
+            quotes += countQuotes(line);
+        }
+        return record;
+    }
+
+    private static int countQuotes(String line) {
+        int quotes = 0;
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) == '"') {
+                quotes++;
+            }
+        }
+        return quotes;
+    }
+
+    static List<String> split(String line) {
+        final List<String> values = new ArrayList<>();
+        final StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            final char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted value");
+        }
+        values.add(value.toString());
+        return values;
+    }
+}
@@ -0,0 +1,153 @@
+package pl.foltak.mybudget.server.rest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.function.Consumer;
+import javax.json.Json;
+import javax.json.stream.JsonGenerator;
+import javax.json.stream.JsonGeneratorFactory;
+import pl.foltak.mybudget.server.dto.TransactionDTO;
+
+/**
+ * Formats of exported transactions. Each format writes transactions one by one, so nothing but
+ * the current transaction is kept in memory.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+enum TransactionExportFormat {
+
+    /**
+     * CSV with the same columns as accepted by {@link TransactionCsvParser}, so exported file can
+     * be imported again. Missing values are written as empty fields.
+     */
+    CSV("csv", TransactionService.TEXT_CSV) {
+
+        @Override
+        Consumer<TransactionDTO> createWriter(Writer writer) throws IOException {
+            writer.write(String.join(",", TransactionCsvParser.DATE, TransactionCsvParser.ACCOUNT,
+                    TransactionCsvParser.MAIN_CATEGORY, TransactionCsvParser.SUB_CATEGORY,
+                    TransactionCsvParser.AMOUNT, TransactionCsvParser.DESCRIPTION,
+                    TransactionCsvParser.TAGS));
+            writer.write('\n');
+            final DateFormat dateFormat = new SimpleDateFormat(DATE_PATTERN);
+            return transaction -> {
+                try {
+                    if (transaction.getTransactionDate() != null) {
+                        writer.write(dateFormat.format(transaction.getTransactionDate()));
+                    }
+                    writer.write(',');
+                    writer.write(quote(transaction.getAccountName()));
+                    writer.write(',');
+                    writer.write(quote(transaction.getMainCategoryName()));
+                    writer.write(',');
+                    writer.write(quote(transaction.getSubCategoryName()));
+                    writer.write(',');
+                    writer.write(transaction.getAmount().toPlainString());
+                    writer.write(',');
+                    writer.write(quote(transaction.getDescription()));
+                    writer.write(',');
+                    writer.write(quote(String.join(";", transaction.getTags())));
+                    writer.write('\n');
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            };
+        }
+    },
+    /**
+     * JSON lines, one JSON object with {@link TransactionDTO} properties per line. Properties
+     * without value are left out.
+     */
+    JSON_LINES("jsonl", "application/x-ndjson") {
+
+        @Override
+        Consumer<TransactionDTO> createWriter(Writer writer) {
+            final JsonGeneratorFactory factory = Json.createGeneratorFactory(null);
+            final DateFormat dateFormat = new SimpleDateFormat(DATE_PATTERN);
+            return transaction -> {
+                final JsonGenerator generator = factory.createGenerator(writer);
+                generator.writeStartObject().write("id", transaction.getId());
+                if (transaction.getTransactionDate() != null) {
+                    generator.write("transactionDate",
+                            dateFormat.format(transaction.getTransactionDate()));
+                }
+                generator.write("accountName", transaction.getAccountName())
+                        .write("mainCategoryName", transaction.getMainCategoryName());
+                if (transaction.getSubCategoryName() != null) {
+                    generator.write("subCategoryName", transaction.getSubCategoryName());
+                }
+                generator.write("amount", transaction.getAmount());
+                if (transaction.getDescription() != null) {
+                    generator.write("description", transaction.getDescription());
+                }
+                generator.writeStartArray("tags");
+                transaction.getTags().forEach(generator::write);
+                // the generator isn't closed, it would close the writer
+                generator.writeEnd().writeEnd().flush();
+                try {
+                    writer.write('\n');
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            };
+        }
+    };
+
+    private static final String DATE_PATTERN = "yyyy-MM-dd";
+
+    private final String extension;
+    private final String mediaType;
+
+    private TransactionExportFormat(String extension, String mediaType) {
+        this.extension = extension;
+        this.mediaType = mediaType;
+    }
+
+    /**
+     * Returns the format with given name.
+     *
+     * @param name the name of format, csv or jsonl
+     * @return the format
+     * @throws IllegalArgumentException when there is no format with given name
+     */
+    static TransactionExportFormat of(String name) {
+        for (TransactionExportFormat format : values()) {
+            if (format.extension.equals(name)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown format " + name);
+    }
+
+    String getFileName() {
+        return "transactions." + extension;
+    }
+
+    String getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Writes the header, if the format has one, and returns consumer writing given transactions
+     * to given writer. The consumer throws {@link UncheckedIOException} when writing fails.
+     *
+     * @param writer the writer
+     * @return the consumer of transactions
+     * @throws IOException when writing the header fails
+     */
+    abstract Consumer<TransactionDTO> createWriter(Writer writer) throws IOException;
+
+    private static String quote(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+                && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
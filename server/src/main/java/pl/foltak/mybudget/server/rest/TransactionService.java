@@ -1,30 +1,235 @@
 package pl.foltak.mybudget.server.rest;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import javax.ejb.EJB;
+import javax.ejb.EJBException;
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
 import javax.ws.rs.NotFoundException;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import pl.foltak.mybudget.server.dao.MyBudgetDaoLocal;
+import pl.foltak.mybudget.server.dao.TransactionImporter;
 import pl.foltak.mybudget.server.dao.exception.AccountNotFoundException;
 import pl.foltak.mybudget.server.dao.exception.CategoryNotFoundException;
 import pl.foltak.mybudget.server.dao.exception.TransactionNotFoundException;
+import pl.foltak.mybudget.server.dto.ImportErrorDTO;
+import pl.foltak.mybudget.server.dto.ImportResultDTO;
+import pl.foltak.mybudget.server.dto.Money;
 import pl.foltak.mybudget.server.dto.TransactionDTO;
+import pl.foltak.mybudget.server.dto.TransactionFilter;
+import pl.foltak.mybudget.server.dto.TransactionPageDTO;
 
 @Path("/transactions")
-@Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML})
+@Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, CborWriter.APPLICATION_CBOR})
+@UserVersioned
 public class TransactionService extends AbstractService {
+
+    static final int DEFAULT_LIMIT = 50;
+    static final int MAX_LIMIT = 500;
+    static final String TEXT_CSV = "text/csv";
+
+    @EJB
+    private TransactionImporter transactionImporter;
+
+    @EJB
+    private LongOperationExecutor executor;
+
+    /**
+     * Returns a page of transactions matching given criteria, ordered from the newest one. Dates
+     * are in yyyy-MM-dd format. To get the next page, send nextAfterDate and nextAfterId from the
+     * previous page as afterDate and afterId.
+     *
+     * @param accountName the name of account
+     * @param mainCategoryName the name of main category
+     * @param subCategoryName the name of sub category
+     * @param tagName the name of tag
+     * @param dateFrom the first day of period
+     * @param dateTo the last day of period
+     * @param amountFrom minimal decimal amount
+     * @param amountTo maximal decimal amount
+     * @param afterDate the date of the last transaction from previous page
+     * @param afterId the id of the last transaction from previous page
+     * @param limit maximal number of transactions on the page
+     * @return 200 OK with the page of transactions or 400 Bad Request when parameters are invalid
+     */
+    @GET
+    @Path("/")
+    public Response getTransactions(@QueryParam("account") String accountName,
+            @QueryParam("mainCategory") String mainCategoryName,
+            @QueryParam("subCategory") String subCategoryName,
+            @QueryParam("tag") String tagName,
+            @QueryParam("dateFrom") String dateFrom,
+            @QueryParam("dateTo") String dateTo,
+            @QueryParam("amountFrom") String amountFrom,
+            @QueryParam("amountTo") String amountTo,
+            @QueryParam("afterDate") String afterDate,
+            @QueryParam("afterId") Long afterId,
+            @QueryParam("limit") @DefaultValue("" + DEFAULT_LIMIT) int limit) {
+
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new BadRequestException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+        if ((afterDate == null) != (afterId == null)) {
+            throw new BadRequestException("Both afterDate and afterId must be given");
+        }
+        final TransactionFilter filter = new TransactionFilter();
+        filter.setAccountName(accountName);
+        filter.setMainCategoryName(mainCategoryName);
+        filter.setSubCategoryName(subCategoryName);
+        filter.setTagName(tagName);
+        filter.setDateFrom(parseDate(dateFrom));
+        filter.setDateTo(parseDate(dateTo));
+        filter.setAmountFrom(parseAmount(amountFrom));
+        filter.setAmountTo(parseAmount(amountTo));
+        filter.setAfterDate(parseDate(afterDate));
+        filter.setAfterId(afterId);
+        filter.setLimit(limit + 1);
+
+        final List<TransactionDTO> transactions = getDao().getTransactions(getUserId(), filter);
+        final TransactionPageDTO page = new TransactionPageDTO();
+        if (transactions.size() > limit) {
+            final TransactionDTO last = transactions.get(limit - 1);
+            page.setNextAfterDate(formatDate(last.getTransactionDate()));
+            page.setNextAfterId(last.getId());
+            page.setTransactions(transactions.subList(0, limit));
+        } else {
+            page.setTransactions(transactions);
+        }
+        return Response.ok(page).build();
+    }
+
+    /**
+     * Exports all transactions of the user, from the oldest one. Transactions are streamed to the
+     * client while they are read from the database, by {@link LongOperationExecutor}.
+     *
+     * @param format csv (default) or jsonl
+     * @param asyncResponse the suspended request, resumed with 200 OK with transactions in given
+     * format, 400 Bad Request when the format is unknown or 503 Service Unavailable when too many
+     * long operations wait
+     */
+    @GET
+    @Path("/export")
+    @Bulkhead(BulkheadGroup.ANALYTICAL)
+    public void exportTransactions(@QueryParam("format") @DefaultValue("csv") String format,
+            @Suspended AsyncResponse asyncResponse) {
+        final TransactionExportFormat exportFormat;
+        try {
+            exportFormat = TransactionExportFormat.of(format);
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException(ex.getMessage(), ex);
+        }
+        final MyBudgetDaoLocal dao = getDao();
+        final long userId = getUserId();
+        final StreamingOutput output = stream -> {
+            final Writer writer
+                    = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+            try {
+                dao.exportTransactions(userId, exportFormat.createWriter(writer));
+            } catch (EJBException ex) {
+                if (ex.getCause() instanceof UncheckedIOException) {
+                    throw ((UncheckedIOException) ex.getCause()).getCause();
+                }
+                throw ex;
+            }
+            writer.flush();
+        };
+        // the output is written by the thread which resumes the request
+        getExecutor().execute(asyncResponse, () -> Response.ok(output, exportFormat.getMediaType())
+                .header("Content-Disposition",
+                        "attachment; filename=\"" + exportFormat.getFileName() + "\"")
+                .build());
+    }
+
+    /**
+     * Imports many transactions at once. Rows which can't be imported are reported in the result,
+     * they don't stop the import of other rows. Transactions are imported by
+     * {@link LongOperationExecutor}.
+     *
+     * @param transactions transactions to import
+     * @param asyncResponse the suspended request, resumed with 200 OK with the number of imported
+     * transactions and errors of rejected ones or 503 Service Unavailable when too many long
+     * operations wait
+     */
+    @POST
+    @Path("/import")
+    @Consumes({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML})
+    @Bulkhead(BulkheadGroup.ANALYTICAL)
+    public void importTransactions(List<TransactionDTO> transactions,
+            @Suspended AsyncResponse asyncResponse) {
+        if (transactions == null) {
+            throw new BadRequestException("Transactions are required");
+        }
+        final TransactionImporter importer = getTransactionImporter();
+        final long userId = getUserId();
+        getExecutor().execute(asyncResponse,
+                () -> Response.ok(importer.importTransactions(userId, transactions)).build());
+    }
+
+    /**
+     * Imports many transactions in CSV format, see {@link TransactionCsvParser} for columns.
+     * Malformed lines are reported in the result together with rows which can't be imported. The
+     * body is parsed while the request is read, transactions are imported by
+     * {@link LongOperationExecutor}.
+     *
+     * @param csv transactions to import
+     * @param asyncResponse the suspended request, resumed with 200 OK with the number of imported
+     * transactions and errors of rejected ones, 400 Bad Request when the header is incorrect or
+     * 503 Service Unavailable when too many long operations wait
+     */
+    @POST
+    @Path("/import")
+    @Consumes(TEXT_CSV)
+    @Bulkhead(BulkheadGroup.ANALYTICAL)
+    public void importTransactionsCsv(Reader csv, @Suspended AsyncResponse asyncResponse) {
+        final List<ImportErrorDTO> errors = new LinkedList<>();
+        final List<TransactionDTO> transactions;
+        try {
+            transactions = new TransactionCsvParser().parse(csv, errors);
+        } catch (IllegalArgumentException | IOException ex) {
+            throw new BadRequestException(ex.getMessage(), ex);
+        }
+        final TransactionImporter importer = getTransactionImporter();
+        final long userId = getUserId();
+        getExecutor().execute(asyncResponse, () -> {
+            final ImportResultDTO result = importer.importTransactions(userId, transactions);
+            errors.addAll(result.getErrors());
+            errors.sort(Comparator.comparingInt(ImportErrorDTO::getRow));
+            result.setErrors(errors);
+            return Response.ok(result).build();
+        });
+    }
+
     @PUT
     @Path("/{account}")
     public Response createTransaction(@PathParam("account") String accountName,
             TransactionDTO transactionDTO) {
 
+        validateAmount(transactionDTO);
         try {
-            getDao().addTransaction(getUsername(), transactionDTO);
+            getDao().addTransaction(getUserId(), transactionDTO);
         } catch (AccountNotFoundException | CategoryNotFoundException ex) {
             throw new NotFoundException(ex.getMessage(), ex);
         }
@@ -37,8 +242,9 @@ public class TransactionService extends AbstractService {
     public Response modifyTransaction(@PathParam("account") String accountName,
             TransactionDTO transactionDTO) {
 
+        validateAmount(transactionDTO);
         try {
-            getDao().updateTransaction(getUsername(), transactionDTO);
+            getDao().updateTransaction(getUserId(), transactionDTO);
         } catch (AccountNotFoundException | TransactionNotFoundException | CategoryNotFoundException ex) {
             throw new NotFoundException(ex.getMessage(), ex);
         }
@@ -49,10 +255,26 @@ public class TransactionService extends AbstractService {
     @Path("/")
     public Response removeTransaction(@PathParam("account") String accountName, long transactionId) {
         try {
-            getDao().removeTransaction(getUsername(), transactionId);
+            getDao().removeTransaction(getUserId(), transactionId);
         } catch (TransactionNotFoundException ex) {
             throw new NotFoundException(ex.getMessage(), ex);
         }
         return Response.ok().build();
     }
+
+    private static void validateAmount(TransactionDTO transactionDTO) {
+        try {
+            Money.toMinorUnits(transactionDTO.getAmount());
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException(ex.getMessage(), ex);
+        }
+    }
+
+    TransactionImporter getTransactionImporter() {
+        return transactionImporter;
+    }
+
+    LongOperationExecutor getExecutor() {
+        return executor;
+    }
 }
@@ -0,0 +1,70 @@
+package pl.foltak.mybudget.server.rest;
+
+import java.io.IOException;
+import java.security.Principal;
+import javax.annotation.Priority;
+import javax.ejb.EJB;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.Provider;
+import pl.foltak.mybudget.server.dao.UserVersions;
+import pl.foltak.mybudget.server.security.UserPrincipal;
+
+/**
+ * Conditional GET for resources marked with {@link UserVersioned}. The weak ETag is the version of
+ * user data, so a request with matching If-None-Match is answered with 304 Not Modified before
+ * the resource, and so the DAO, is called. The version is read before the resource, therefore
+ * data changed during the request are never tagged with the new version.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+@Provider
+@UserVersioned
+@Priority(Priorities.USER)
+public class UserVersionFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    static final String ENTITY_TAG_PROPERTY = UserVersionFilter.class.getName() + ".entityTag";
+
+    @EJB
+    private UserVersions userVersions;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) throws IOException {
+        final String method = requestContext.getMethod();
+        final Principal principal = requestContext.getSecurityContext().getUserPrincipal();
+        if (!HttpMethod.GET.equals(method) && !HttpMethod.HEAD.equals(method)
+                || !(principal instanceof UserPrincipal)) {
+            return;
+        }
+        final EntityTag entityTag = new EntityTag(
+                getUserVersions().getVersion(((UserPrincipal) principal).getId()), true);
+        requestContext.setProperty(ENTITY_TAG_PROPERTY, entityTag);
+        final Response.ResponseBuilder notModified
+                = requestContext.getRequest().evaluatePreconditions(entityTag);
+        if (notModified != null) {
+            requestContext.abortWith(notModified.tag(entityTag).build());
+        }
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext,
+            ContainerResponseContext responseContext) throws IOException {
+
+        final Object entityTag = requestContext.getProperty(ENTITY_TAG_PROPERTY);
+        if (entityTag != null && responseContext.getStatus() == Response.Status.OK.getStatusCode()) {
+            responseContext.getHeaders().putSingle(HttpHeaders.ETAG, entityTag);
+            responseContext.getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+    }
+
+    UserVersions getUserVersions() {
+        return userVersions;
+    }
+}
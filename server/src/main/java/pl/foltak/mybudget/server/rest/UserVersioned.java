@@ -0,0 +1,19 @@
+package pl.foltak.mybudget.server.rest;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import javax.ws.rs.NameBinding;
+
+/**
+ * Marks resources which return only data of the authenticated user, so their GET responses are
+ * tagged with the version of user data by {@link UserVersionFilter}.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+@NameBinding
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface UserVersioned {
+}
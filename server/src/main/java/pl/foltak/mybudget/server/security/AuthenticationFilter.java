@@ -1,47 +1,88 @@
 package pl.foltak.mybudget.server.security;
 
 import java.io.IOException;
+import java.util.Optional;
+import javax.annotation.Priority;
 import javax.ejb.EJB;
+import javax.ws.rs.Priorities;
 import javax.ws.rs.container.ContainerRequestContext;
 import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.ext.Provider;
 
 /**
- * The authorization filter.
+ * The authorization filter. Accepts either a session token sent in the Authorization header or
+ * username and password sent in Authorization-User and Authorization-Password headers. The
+ * security context carries an {@link UserPrincipal} with the id of user, so the user is looked
+ * up at most once per request.
  *
  * @author Mariusz Foltak <mariusz@foltak.pl>
  */
 @Provider
+@Priority(Priorities.AUTHENTICATION)
 public class AuthenticationFilter implements ContainerRequestFilter {
 
     public static final String AUTHORIZATION_PASSWORD = "Authorization-Password";
     public static final String AUTHORIZATION_USERNAME = "Authorization-User";
+    public static final String BEARER_PREFIX = "Bearer ";
+    public static final String PASSWORD_SCHEME = "Password";
+    public static final String TOKEN_SCHEME = "Bearer";
     
     @EJB
     private UserAuthenticator userAuthenticator;
 
+    @EJB
+    private TokenManager tokenManager;
+
     @Override
     public void filter(ContainerRequestContext requestContext) throws IOException {
+        final String authorization = requestContext.getHeaderString(HttpHeaders.AUTHORIZATION);
         final String username = requestContext.getHeaderString(AUTHORIZATION_USERNAME);
         final String password = requestContext.getHeaderString(AUTHORIZATION_PASSWORD);
 
         if (requestContext.getRequest().getMethod().equals("OPTIONS")) {
             return;
         }
+
+        if (authorization != null && authorization.startsWith(BEARER_PREFIX)) {
+            final Optional<UserPrincipal> principal = getTokenManager()
+                    .verify(authorization.substring(BEARER_PREFIX.length()).trim());
+            if (principal.isPresent()) {
+                authenticated(requestContext, principal.get(), TOKEN_SCHEME);
+            } else {
+                requestContext.abortWith(Response.status(Response.Status.UNAUTHORIZED).build());
+            }
+            return;
+        }
         
         if (username == null || username.isEmpty() || password == null || password.isEmpty()) {
             requestContext.abortWith(Response.status(Response.Status.UNAUTHORIZED).build());
             return;
         }
         
-        if (!getUserAuthenticator().authenticate(username, password)) {
+        final Optional<Long> userId = getUserAuthenticator().authenticate(username, password);
+        if (!userId.isPresent()) {
             requestContext.abortWith(Response.status(Response.Status.UNAUTHORIZED).build());
+            return;
         }
+        authenticated(requestContext, new UserPrincipal(userId.get(), username), PASSWORD_SCHEME);
+    }
+
+    private static void authenticated(ContainerRequestContext requestContext,
+            UserPrincipal principal, String scheme) {
+        final boolean secure = requestContext.getSecurityContext() != null
+                && requestContext.getSecurityContext().isSecure();
+        requestContext.setSecurityContext(
+                new UserSecurityContext(principal, scheme, secure));
     }
 
     UserAuthenticator getUserAuthenticator() {
         return userAuthenticator;
     }
 
+    TokenManager getTokenManager() {
+        return tokenManager;
+    }
+
 }
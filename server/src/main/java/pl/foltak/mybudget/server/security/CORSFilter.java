@@ -16,7 +16,8 @@ public class CORSFilter implements ContainerResponseFilter {
    public void filter(final ContainerRequestContext requestContext,
                       final ContainerResponseContext cres) throws IOException {
       cres.getHeaders().add("Access-Control-Allow-Origin", "*");
-      cres.getHeaders().add("Access-Control-Allow-Headers", "origin, content-type, accept, authorization, Authorization-User, Authorization-Password");
+      cres.getHeaders().add("Access-Control-Allow-Headers", "origin, content-type, accept, authorization, Authorization-User, Authorization-Password, If-None-Match");
+      cres.getHeaders().add("Access-Control-Expose-Headers", "ETag");
       cres.getHeaders().add("Access-Control-Allow-Credentials", "true");
       cres.getHeaders().add("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, OPTIONS, HEAD");
       cres.getHeaders().add("Access-Control-Max-Age", "1209600");
@@ -0,0 +1,191 @@
+package pl.foltak.mybudget.server.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.Singleton;
+
+/**
+ * Bounded cache of successfully verified credentials. Passwords are never stored, only their
+ * HMAC computed with a key generated at startup, so a cache hit lets the caller skip both the
+ * password hash query and BCrypt verification.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+@Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class CredentialCache {
+
+    static final String MAX_SIZE_PROPERTY = "mybudget.auth.cache.maxSize";
+    static final String TTL_PROPERTY = "mybudget.auth.cache.ttlSeconds";
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final SecretKeySpec key;
+    private final int maxSize;
+    private final long ttlMillis;
+
+    public CredentialCache() {
+        this(Integer.getInteger(MAX_SIZE_PROPERTY, 10000), Long.getLong(TTL_PROPERTY, 300) * 1000);
+    }
+
+    CredentialCache(int maxSize, long ttlMillis) {
+        final byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        this.key = new SecretKeySpec(secret, HMAC_ALGORITHM);
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Returns the id of user if given credentials were verified recently and the entry hasn't
+     * expired yet.
+     *
+     * @param username the name of user
+     * @param password the password presented by the user
+     * @return the id of user wrapped in Optional, or empty Optional if credentials aren't in the
+     * cache
+     */
+    public Optional<Long> getUserId(String username, String password) {
+        final Entry entry = entries.get(username);
+        if (entry == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        if (entry.expiresAt <= currentTimeMillis()) {
+            evict(username, entry);
+            misses.increment();
+            return Optional.empty();
+        }
+        if (!MessageDigest.isEqual(entry.digest, digest(username, password))) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(entry.userId);
+    }
+
+    /**
+     * Stores credentials that were successfully verified against given password hash.
+     *
+     * @param userId the id of user
+     * @param username the name of user
+     * @param password the verified password
+     * @param passwordHash the hash the password was verified against
+     */
+    public void put(long userId, String username, String password, String passwordHash) {
+        if (maxSize <= 0) {
+            return;
+        }
+        if (!entries.containsKey(username) && entries.size() >= maxSize) {
+            makeRoom();
+        }
+        entries.put(username, new Entry(userId, digest(username, password), passwordHash,
+                currentTimeMillis() + ttlMillis));
+    }
+
+    /**
+     * Removes cached credentials of given user.
+     *
+     * @param username the name of user
+     */
+    public void invalidate(String username) {
+        entries.remove(username);
+    }
+
+    /**
+     * Removes cached credentials of given user if they were verified against another password
+     * hash than the current one.
+     *
+     * @param username the name of user
+     * @param currentPasswordHash the password hash currently stored for the user
+     */
+    public void invalidate(String username, String currentPasswordHash) {
+        final Entry entry = entries.get(username);
+        if (entry != null && !entry.passwordHash.equals(currentPasswordHash)) {
+            entries.remove(username, entry);
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    private void makeRoom() {
+        final long now = currentTimeMillis();
+        Map.Entry<String, Entry> oldest = null;
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            if (e.getValue().expiresAt <= now) {
+                evict(e.getKey(), e.getValue());
+            } else if (oldest == null || e.getValue().expiresAt < oldest.getValue().expiresAt) {
+                oldest = e;
+            }
+        }
+        if (entries.size() >= maxSize && oldest != null) {
+            evict(oldest.getKey(), oldest.getValue());
+        }
+    }
+
+    private void evict(String username, Entry entry) {
+        if (entries.remove(username, entry)) {
+            evictions.increment();
+        }
+    }
+
+    private byte[] digest(String username, String password) {
+        try {
+            final Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            mac.update(username.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return mac.doFinal(password.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static final class Entry {
+
+        private final long userId;
+        private final byte[] digest;
+        private final String passwordHash;
+        private final long expiresAt;
+
+        private Entry(long userId, byte[] digest, String passwordHash, long expiresAt) {
+            this.userId = userId;
+            this.digest = digest;
+            this.passwordHash = passwordHash;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package pl.foltak.mybudget.server.security;
+
+import javax.inject.Inject;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+import pl.foltak.mybudget.server.entity.User;
+
+/**
+ * Entity listener that drops cached credentials when the password hash of an user changes or the
+ * user is removed.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class CredentialCacheInvalidator {
+
+    @Inject
+    CredentialCache credentialCache;
+
+    @PostUpdate
+    public void userUpdated(User user) {
+        credentialCache.invalidate(user.getUsername(), user.getPasswordHash());
+    }
+
+    @PostRemove
+    public void userRemoved(User user) {
+        credentialCache.invalidate(user.getUsername());
+    }
+}
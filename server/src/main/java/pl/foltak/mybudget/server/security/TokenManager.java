@@ -0,0 +1,133 @@
+package pl.foltak.mybudget.server.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Optional;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.Singleton;
+
+/**
+ * Issues and verifies self-contained session tokens. A token carries the id and name of user and
+ * its expiration time, signed with HMAC, so it can be verified without touching the database.
+ *
+ * <p>
+ * The signing key is read from the {@value #SECRET_PROPERTY} system property (Base64 encoded). If
+ * it is not set, a random key is generated, so tokens are valid only on this node until restart.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+@Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class TokenManager {
+
+    static final String SECRET_PROPERTY = "mybudget.token.secret";
+    static final String TTL_PROPERTY = "mybudget.token.ttlSeconds";
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final char SEPARATOR = '.';
+
+    private final SecretKeySpec key;
+    private final long ttlMillis;
+
+    public TokenManager() {
+        this(readSecret(), Long.getLong(TTL_PROPERTY, 3600) * 1000);
+    }
+
+    TokenManager(byte[] secret, long ttlMillis) {
+        this.key = new SecretKeySpec(secret, HMAC_ALGORITHM);
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Returns expiration time of tokens issued now.
+     *
+     * @return expiration time in milliseconds
+     */
+    public long getExpirationTime() {
+        return currentTimeMillis() + ttlMillis;
+    }
+
+    /**
+     * Verifies signature and expiration time of given token.
+     *
+     * @param token the token to be verified
+     * @return principal of user that the token was issued for wrapped in Optional, or empty
+     * Optional if the token is invalid or expired
+     */
+    public Optional<UserPrincipal> verify(String token) {
+        final int separator = token.indexOf(SEPARATOR);
+        if (separator < 0) {
+            return Optional.empty();
+        }
+        final String payload = token.substring(0, separator);
+        final byte[] signature;
+        final String decoded;
+        try {
+            signature = Base64.getUrlDecoder().decode(token.substring(separator + 1));
+            decoded = new String(Base64.getUrlDecoder().decode(payload), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException ex) {
+            return Optional.empty();
+        }
+        if (!MessageDigest.isEqual(signature, sign(payload))) {
+            return Optional.empty();
+        }
+        // expiration time, id and name of user, the name may contain colons
+        final String[] fields = decoded.split(":", 3);
+        if (fields.length < 3) {
+            return Optional.empty();
+        }
+        try {
+            if (Long.parseLong(fields[0]) <= currentTimeMillis()) {
+                return Optional.empty();
+            }
+            return Optional.of(new UserPrincipal(Long.parseLong(fields[1]), fields[2]));
+        } catch (NumberFormatException ex) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Creates new token for given user.
+     *
+     * @param principal the principal of user
+     * @param expiresAt expiration time of the token in milliseconds
+     * @return signed token
+     */
+    public String issue(UserPrincipal principal, long expiresAt) {
+        final String payload = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                (expiresAt + ":" + principal.getId() + ":" + principal.getName())
+                .getBytes(StandardCharsets.UTF_8));
+        return payload + SEPARATOR + Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(sign(payload));
+    }
+
+    long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    private byte[] sign(String payload) {
+        try {
+            final Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static byte[] readSecret() {
+        final String secret = System.getProperty(SECRET_PROPERTY);
+        if (secret != null && !secret.isEmpty()) {
+            return Base64.getDecoder().decode(secret);
+        }
+        final byte[] random = new byte[32];
+        new SecureRandom().nextBytes(random);
+        return random;
+    }
+}
@@ -1,11 +1,15 @@
 package pl.foltak.mybudget.server.security;
 
+import java.util.List;
+import java.util.Optional;
+import javax.ejb.EJB;
 import javax.ejb.LocalBean;
 import javax.ejb.Stateless;
 import javax.persistence.EntityManager;
-import javax.persistence.NoResultException;
 import javax.persistence.PersistenceContext;
 import org.mindrot.jbcrypt.BCrypt;
+import pl.foltak.mybudget.server.metrics.LatencyMetric;
+import pl.foltak.mybudget.server.metrics.Metrics;
 
 /**
  *
@@ -15,26 +19,65 @@ import org.mindrot.jbcrypt.BCrypt;
 @LocalBean
 public class UserAuthenticator {
 
-    static final String SELECT_PASSWORD = "SELECT u.passwordHash FROM users AS u WHERE u.username = :username";
+    static final String SELECT_CREDENTIALS
+            = "SELECT u.id, u.passwordHash FROM users AS u WHERE u.username = :username";
 
     @PersistenceContext
     EntityManager em;
 
-    public boolean authenticate(String username, String password) {
-        String passwordHash = getPasswordHashForUser(username);
-        if ("".equals(passwordHash)) {
-            return false;
+    @EJB
+    CredentialCache credentialCache;
+
+    @EJB
+    Metrics metrics;
+
+    /**
+     * Checks given credentials and returns the id of user. Credentials verified recently are
+     * answered from {@link CredentialCache}, otherwise the id and password hash of user are read
+     * in one query and password is checked against the hash.
+     *
+     * @param username the name of user
+     * @param password the password of user
+     * @return the id of user wrapped in Optional, or empty Optional if credentials are incorrect
+     */
+    public Optional<Long> authenticate(String username, String password) {
+        final Optional<Long> cachedUserId = credentialCache.getUserId(username, password);
+        if (cachedUserId.isPresent()) {
+            return cachedUserId;
+        }
+        final Object[] credentials = getCredentials(username);
+        if (credentials == null) {
+            return Optional.empty();
         }
-        return BCrypt.checkpw(password, passwordHash);
+        final long userId = (Long) credentials[0];
+        final String passwordHash = (String) credentials[1];
+        if (passwordHash == null || passwordHash.isEmpty()
+                || !checkPassword(password, passwordHash)) {
+            return Optional.empty();
+        }
+        credentialCache.put(userId, username, password, passwordHash);
+        return Optional.of(userId);
     }
 
-    String getPasswordHashForUser(String username) {
+    private boolean checkPassword(String password, String passwordHash) {
+        final long start = System.nanoTime();
         try {
-            return (String) em.createQuery(SELECT_PASSWORD).setParameter("username", username)
-                    .getSingleResult();
-        } catch (NoResultException e) {
-            return "";
+            return BCrypt.checkpw(password, passwordHash);
+        } finally {
+            metrics.getHistogram(LatencyMetric.PASSWORD_CHECK).record(System.nanoTime() - start);
         }
     }
 
+    /**
+     * Reads the id and password hash of an user with given name.
+     *
+     * @param username the name of user
+     * @return the id and password hash, or null if user doesn't exist
+     */
+    Object[] getCredentials(String username) {
+        final List<Object[]> credentials = em.createQuery(SELECT_CREDENTIALS, Object[].class)
+                .setParameter("username", username).getResultList();
+        return credentials.isEmpty() ? null : credentials.get(0);
+    }
+
 }
@@ -0,0 +1,29 @@
+package pl.foltak.mybudget.server.security;
+
+import java.security.Principal;
+
+/**
+ * The principal of an authenticated user. It carries the id of user, resolved once during
+ * authentication, so resources and DAO don't have to look the user up by name again.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class UserPrincipal implements Principal {
+
+    private final long id;
+    private final String name;
+
+    public UserPrincipal(long id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+}
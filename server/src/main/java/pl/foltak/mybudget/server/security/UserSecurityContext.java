@@ -0,0 +1,43 @@
+package pl.foltak.mybudget.server.security;
+
+import java.security.Principal;
+import javax.ws.rs.core.SecurityContext;
+
+/**
+ * Security context set by {@link AuthenticationFilter} for authenticated requests.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class UserSecurityContext implements SecurityContext {
+
+    private final UserPrincipal principal;
+    private final String authenticationScheme;
+    private final boolean secure;
+
+    public UserSecurityContext(UserPrincipal principal, String authenticationScheme,
+            boolean secure) {
+        this.principal = principal;
+        this.authenticationScheme = authenticationScheme;
+        this.secure = secure;
+    }
+
+    @Override
+    public Principal getUserPrincipal() {
+        return principal;
+    }
+
+    @Override
+    public boolean isUserInRole(String role) {
+        return false;
+    }
+
+    @Override
+    public boolean isSecure() {
+        return secure;
+    }
+
+    @Override
+    public String getAuthenticationScheme() {
+        return authenticationScheme;
+    }
+}
@@ -0,0 +1,58 @@
+package pl.foltak.mybudget.server.dao;
+
+import java.util.List;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import pl.foltak.mybudget.server.dto.CategoryNodeDTO;
+
+/**
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class CategoryTreeTest {
+
+    /**
+     * Sub categories should be attached to their main categories, whatever the order of rows.
+     */
+    @Test
+    public void areSubCategoriesAttachedToMainCategories() {
+        final CategoryTree tree = new CategoryTree(false);
+        tree.addCategory(5L, 1L, "candy");
+        tree.addCategory(1L, null, "food");
+        tree.addCategory(2L, null, "house");
+        tree.addCategory(1L, null, "food");
+        tree.addCategory(6L, 1L, "fruits");
+
+        final List<CategoryNodeDTO> mainCategories = tree.getMainCategories();
+
+        assertThat(mainCategories.size(), is(2));
+        assertThat(mainCategories.get(0).getName(), is("food"));
+        assertThat(mainCategories.get(0).getSubCategories().size(), is(2));
+        assertThat(mainCategories.get(0).getSubCategories().get(0).getName(), is("candy"));
+        assertThat(mainCategories.get(0).getSubCategories().get(1).getName(), is("fruits"));
+        assertTrue(mainCategories.get(1).getSubCategories().isEmpty());
+        assertNull(mainCategories.get(0).getTransactionCount());
+    }
+
+    /**
+     * Totals of main category should include totals of its sub categories.
+     */
+    @Test
+    public void areTotalsOfSubCategoriesAddedToMainCategory() {
+        final CategoryTree tree = new CategoryTree(true);
+        tree.addCategory(1L, null, "food");
+        tree.addCategory(5L, 1L, "candy");
+        tree.addCategory(6L, 1L, "fruits");
+        tree.addTotals(5L, 2L, 1500L);
+        tree.addTotals(6L, 1L, 250L);
+        tree.addTotals(1L, 1L, 100L);
+
+        final CategoryNodeDTO food = tree.getMainCategories().get(0);
+
+        assertThat(food.getTransactionCount(), is(4L));
+        assertThat(food.getAmountSum(), is(1850L));
+        assertThat(food.getSubCategories().get(0).getAmountSum(), is(1500L));
+        assertThat(food.getSubCategories().get(1).getTransactionCount(), is(1L));
+    }
+}
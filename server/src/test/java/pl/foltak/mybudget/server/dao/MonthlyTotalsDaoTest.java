@@ -0,0 +1,52 @@
+package pl.foltak.mybudget.server.dao;
+
+import java.util.Arrays;
+import javax.ejb.EJBException;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import org.junit.Before;
+import org.junit.Test;
+import static org.mockito.Mockito.*;
+
+/**
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class MonthlyTotalsDaoTest {
+
+    private MonthlyTotalsDao monthlyTotalsDao;
+    private MonthlyTotalsRebuildJob job;
+
+    @Before
+    public void setUp() {
+        monthlyTotalsDao = mock(MonthlyTotalsDao.class);
+        job = spy(new MonthlyTotalsRebuildJob());
+        doReturn(monthlyTotalsDao).when(job).getMonthlyTotalsDao();
+    }
+
+    /**
+     * Month of a transaction should be represented by its first day.
+     */
+    @Test
+    public void isFirstDayOfMonthReturned() {
+        assertThat(MonthlyTotalsDao.monthStart(java.sql.Date.valueOf("2015-03-17")),
+                is(java.sql.Date.valueOf("2015-03-01")));
+        assertThat(MonthlyTotalsDao.monthStart(java.sql.Date.valueOf("2015-02-01")),
+                is(java.sql.Date.valueOf("2015-02-01")));
+    }
+
+    /**
+     * Rebuild job should rebuild totals of every user, even if one of them fails.
+     */
+    @Test
+    public void areTotalsOfAllUsersRebuilt() {
+        when(monthlyTotalsDao.getUserIds()).thenReturn(Arrays.asList(1L, 2L, 3L));
+        doThrow(new EJBException()).when(monthlyTotalsDao).rebuild(2L);
+
+        job.rebuild();
+
+        verify(monthlyTotalsDao).rebuild(1L);
+        verify(monthlyTotalsDao).rebuild(2L);
+        verify(monthlyTotalsDao).rebuild(3L);
+    }
+}
@@ -1,25 +1,37 @@
 package pl.foltak.mybudget.server.dao;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.persistence.TypedQuery;
 import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 import org.junit.Before;
 import org.junit.Test;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doCallRealMethod;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import pl.foltak.mybudget.server.dao.exception.AccountAlreadyExistsException;
 import pl.foltak.mybudget.server.dao.exception.AccountCantBeRemovedException;
 import pl.foltak.mybudget.server.dao.exception.AccountNotFoundException;
+import pl.foltak.mybudget.server.dto.AccountDTO;
 import pl.foltak.mybudget.server.entity.Account;
 import pl.foltak.mybudget.server.entity.User;
+import static pl.foltak.mybudget.server.test.TestUtils.duplicateEntry;
+import static pl.foltak.mybudget.server.test.TestUtils.uniqueViolation;
 
 /**
  *
@@ -29,35 +41,40 @@ public class MyBudgetDaoAccountTest {
 
     private static final String BANK = "Bank";
     private static final String WALLET = "wallet";
-    private static final String USERNAME = "alibaba";
+    private static final long USER_ID = 7L;
     private static final String NONEXISTENT = "nonexistent";
 
     private User user;
     private Account walletAccount;
     private Account bankAccount;
     private MyBudgetDao instance;
+    private UserVersions userVersions;
 
     @Before
     public void setUp() {
         instance = spy(new MyBudgetDao());
+        instance.em = mock(EntityManager.class);
+        userVersions = mock(UserVersions.class);
+        doReturn(userVersions).when(instance).getUserVersions();
         user = mock(User.class);
         walletAccount = mock(Account.class);
         bankAccount = mock(Account.class);
 
-        doReturn(user).when(instance).getUserByName(USERNAME);
+        doReturn(user).when(instance).getUser(USER_ID);
         doNothing().when(instance).setAccountFields(any(), any());
 
         when(walletAccount.getName()).thenReturn(WALLET);
         when(bankAccount.getName()).thenReturn(BANK);
 
-        when(user.findAccount(any(String.class))).thenReturn(Optional.ofNullable(null));
-        when(user.findAccount(any(Long.class))).thenReturn(Optional.ofNullable(null));
-        when(user.findAccount(WALLET)).thenReturn(Optional.of(walletAccount));
-        when(user.findAccount(11L)).thenReturn(Optional.of(walletAccount));
-        when(user.findAccount(BANK)).thenReturn(Optional.of(bankAccount));
-        when(user.findAccount(12L)).thenReturn(Optional.of(bankAccount));
+        doReturn(Optional.ofNullable(null)).when(instance).findAccount(any(User.class), any(String.class));
+        doReturn(Optional.ofNullable(null)).when(instance).findAccount(any(User.class), any(Long.class));
+        doReturn(Optional.of(walletAccount)).when(instance).findAccount(user, WALLET);
+        doReturn(Optional.of(walletAccount)).when(instance).findAccount(user, 11L);
+        doReturn(Optional.of(bankAccount)).when(instance).findAccount(user, BANK);
+        doReturn(Optional.of(bankAccount)).when(instance).findAccount(user, 12L);
 
-        when(walletAccount.hasTransactions()).thenReturn(Boolean.TRUE);
+        doReturn(false).when(instance).hasTransactions(any(Account.class));
+        doReturn(true).when(instance).hasTransactions(walletAccount);
     }
 
     /**
@@ -70,8 +87,9 @@ public class MyBudgetDaoAccountTest {
 
         final Account newAccount = mock(Account.class);
 
-        instance.addAccount(USERNAME, newAccount);
+        instance.addAccount(USER_ID, newAccount);
         verify(user).addAccount(newAccount);
+        verify(instance.em).persist(newAccount);
     }
 
     /**
@@ -83,7 +101,9 @@ public class MyBudgetDaoAccountTest {
     public void isExceptionThrownWhenTryToCreateAccountThatAlreadyExists()
             throws AccountAlreadyExistsException {
 
-        instance.addAccount(USERNAME, walletAccount);
+        doThrow(uniqueViolation(MyBudgetDao.ACCOUNT_NAME_CONSTRAINT)).when(instance.em)
+                .persist(walletAccount);
+        instance.addAccount(USER_ID, walletAccount);
     }
 
     /**
@@ -98,7 +118,7 @@ public class MyBudgetDaoAccountTest {
 
         final Account newAccount = mock(Account.class);
 
-        instance.updateAccount(USERNAME, WALLET, newAccount);
+        instance.updateAccount(USER_ID, WALLET, newAccount);
         verify(instance).setAccountFields(walletAccount, newAccount);
     }
 
@@ -113,7 +133,7 @@ public class MyBudgetDaoAccountTest {
     public void isExceptionThrownWhenTryModifyAccountThatDoesntExist()
             throws AccountAlreadyExistsException, AccountNotFoundException {
 
-        instance.updateAccount(USERNAME, NONEXISTENT, walletAccount);
+        instance.updateAccount(USER_ID, NONEXISTENT, walletAccount);
     }
 
     /**
@@ -130,7 +150,7 @@ public class MyBudgetDaoAccountTest {
         final Account newAccount = mock(Account.class);
         when(newAccount.getName()).thenReturn(WALLET);
 
-        instance.updateAccount(USERNAME, BANK, newAccount);
+        instance.updateAccount(USER_ID, BANK, newAccount);
     }
 
     // TODO: 4. not throw exception when account name and new account name are equals
@@ -144,8 +164,8 @@ public class MyBudgetDaoAccountTest {
     public void isEntityDeletedWhenRemovingAccount()
             throws AccountNotFoundException, AccountCantBeRemovedException {
 
-        instance.removeAccount(USERNAME, 12L);
-        verify(user).removeAccount(bankAccount);
+        instance.removeAccount(USER_ID, 12L);
+        verify(instance.em).remove(bankAccount);
     }
 
     /**
@@ -159,7 +179,7 @@ public class MyBudgetDaoAccountTest {
     public void isExceptionThrownWhenTryToDeleteAccountThatDoesntExist()
             throws AccountNotFoundException, AccountCantBeRemovedException {
 
-        instance.removeAccount(USERNAME, 13L);
+        instance.removeAccount(USER_ID, 13L);
     }
 
     /**
@@ -173,17 +193,39 @@ public class MyBudgetDaoAccountTest {
     public void isExceptionThrownWhenAccountHasTransactions()
             throws AccountNotFoundException, AccountCantBeRemovedException {
 
-        instance.removeAccount(USERNAME, 11L);
+        instance.removeAccount(USER_ID, 11L);
     }
 
     /**
-     * Method getAccounts should return list of user accounts.
+     * Method hasTransactions should probe for a single transaction instead of loading the list.
+     */
+    @Test
+    public void isSingleRowQueriedWhenCheckingIfAccountHasTransactions() {
+        final Query query = mock(Query.class);
+        when(instance.em.createQuery(anyString())).thenReturn(query);
+        when(query.setParameter("account", bankAccount)).thenReturn(query);
+        when(query.setMaxResults(1)).thenReturn(query);
+        when(query.getResultList()).thenReturn(Collections.emptyList());
+        doCallRealMethod().when(instance).hasTransactions(bankAccount);
+
+        assertFalse("Account shouldn't have transactions", instance.hasTransactions(bankAccount));
+        verify(query).setMaxResults(1);
+        verify(bankAccount, never()).hasTransactions();
+    }
+
+    /**
+     * Method getAccounts should return list of user accounts read by a projection query.
      */
     @Test
     public void isAccountListReturned() {
-        final List accounts = mock(List.class);
-        when(user.getAccounts()).thenReturn(accounts);
-        assertSame(accounts, instance.getAccounts(USERNAME));
+        final List<AccountDTO> accounts = mock(List.class);
+        final TypedQuery<AccountDTO> query = mock(TypedQuery.class);
+        when(instance.em.createQuery(anyString(), eq(AccountDTO.class))).thenReturn(query);
+        when(query.setParameter("user", user)).thenReturn(query);
+        when(query.getResultList()).thenReturn(accounts);
+
+        assertSame(accounts, instance.getAccounts(USER_ID));
+        verify(user, never()).getAccounts();
     }
     
     /**
@@ -198,4 +240,59 @@ public class MyBudgetDaoAccountTest {
         instance.setAccountFields(account, values);
         assertThat(account.getName(), is(BANK));
     }
+
+    /**
+     * Violations of other constraints shouldn't be reported as existing account.
+     *
+     * @throws AccountAlreadyExistsException shouldn't be thrown
+     */
+    @Test(expected = javax.persistence.PersistenceException.class)
+    public void isOtherConstraintViolationRethrownWhenAddingAccount()
+            throws AccountAlreadyExistsException {
+
+        doThrow(uniqueViolation("fk_accounts_user_id")).when(instance.em).persist(walletAccount);
+        instance.addAccount(USER_ID, walletAccount);
+    }
+
+    /**
+     * Constraint names reported by MySQL 8 are prefixed with the table name.
+     */
+    @Test
+    public void isViolationRecognizedByConstraintNameWithTablePrefix() {
+        assertThat(MyBudgetDao.isViolationOf(uniqueViolation("accounts.UK_ACCOUNTS_USER_NAME"),
+                MyBudgetDao.ACCOUNT_NAME_CONSTRAINT), is(true));
+        assertThat(MyBudgetDao.isViolationOf(uniqueViolation("uk_categories_user_name"),
+                MyBudgetDao.ACCOUNT_NAME_CONSTRAINT), is(false));
+    }
+
+    /**
+     * Without the constraint name, which MySQLDialect doesn't extract, the violation should be
+     * recognized by the key at the end of MySQL message, not by the entry given by the user.
+     */
+    @Test
+    public void isViolationRecognizedByMySqlDuplicateEntryMessage() {
+        assertThat(MyBudgetDao.isViolationOf(duplicateEntry("7-wallet", "uk_accounts_user_name"),
+                MyBudgetDao.ACCOUNT_NAME_CONSTRAINT), is(true));
+        assertThat(MyBudgetDao.isViolationOf(
+                duplicateEntry("7-wallet", "accounts.uk_accounts_user_name"),
+                MyBudgetDao.ACCOUNT_NAME_CONSTRAINT), is(true));
+        assertThat(MyBudgetDao.isViolationOf(
+                duplicateEntry("7-x' for key 'uk_accounts_user_name", "uk_categories_user_name"),
+                MyBudgetDao.ACCOUNT_NAME_CONSTRAINT), is(false));
+    }
+
+    /**
+     * When a duplicate name of account is detected by MySQL, then dao should throw
+     * AccountAlreadyExistsException.
+     *
+     * @throws AccountAlreadyExistsException
+     */
+    @Test(expected = AccountAlreadyExistsException.class)
+    public void isExceptionThrownWhenMySqlReportsDuplicateAccountName()
+            throws AccountAlreadyExistsException {
+
+        doThrow(duplicateEntry("7-wallet", MyBudgetDao.ACCOUNT_NAME_CONSTRAINT)).when(instance.em)
+                .persist(walletAccount);
+        instance.addAccount(USER_ID, walletAccount);
+    }
 }
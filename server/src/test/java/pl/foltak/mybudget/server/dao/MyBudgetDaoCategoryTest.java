@@ -2,6 +2,8 @@ package pl.foltak.mybudget.server.dao;
 
 import java.util.List;
 import java.util.Optional;
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
 import javax.ws.rs.BadRequestException;
 import static org.junit.Assert.*;
 import org.junit.Before;
@@ -10,9 +12,11 @@ import static org.mockito.Mockito.*;
 import pl.foltak.mybudget.server.dao.exception.CategoryAlreadyExistsException;
 import pl.foltak.mybudget.server.dao.exception.CategoryCantBeRemovedException;
 import pl.foltak.mybudget.server.dao.exception.CategoryNotFoundException;
+import pl.foltak.mybudget.server.dto.CategoryDTO;
 import pl.foltak.mybudget.server.entity.Category;
 import pl.foltak.mybudget.server.entity.User;
 import static pl.foltak.mybudget.server.test.TestUtils.expectedException;
+import static pl.foltak.mybudget.server.test.TestUtils.uniqueViolation;
 
 /**
  *
@@ -23,10 +27,11 @@ public class MyBudgetDaoCategoryTest {
     private static final String FOOD = "food";
     private static final String CANDY = "candy";
     private static final String HOUSE = "house";
-    private static final String USERNAME = "alibaba";
+    private static final long USER_ID = 7L;
     private static final String NONEXISTENT = "nonexistent";
 
     private MyBudgetDao instance;
+    private UserVersions userVersions;
     private User user;
     private Category foodCategory;
     private Category candyCategory;
@@ -35,19 +40,24 @@ public class MyBudgetDaoCategoryTest {
     @Before
     public void setUp() {
         instance = spy(new MyBudgetDao());
+        instance.em = mock(EntityManager.class);
+        userVersions = mock(UserVersions.class);
+        doReturn(userVersions).when(instance).getUserVersions();
         user = mock(User.class);
         foodCategory = mock(Category.class);
         candyCategory = mock(Category.class);
         houseCategory = mock(Category.class);
 
-        doReturn(user).when(instance).getUserByName(USERNAME);
-        when(user.findCategory(any())).thenReturn(Optional.ofNullable(null));
-        when(user.findCategory(FOOD)).thenReturn(Optional.of(foodCategory));
+        doReturn(user).when(instance).getUser(USER_ID);
+        doReturn(Optional.ofNullable(null)).when(instance).findMainCategory(any(), any());
+        doReturn(Optional.of(foodCategory)).when(instance).findMainCategory(user, FOOD);
         when(foodCategory.getName()).thenReturn(FOOD);
-        when(foodCategory.findSubCategory(any())).thenReturn(Optional.ofNullable(null));
-        when(foodCategory.findSubCategory(CANDY)).thenReturn(Optional.of(candyCategory));
+        doReturn(Optional.ofNullable(null)).when(instance).findSubCategory(any(), any());
+        doReturn(Optional.of(candyCategory)).when(instance).findSubCategory(foodCategory, CANDY);
         when(candyCategory.getName()).thenReturn(CANDY);
         when(houseCategory.getName()).thenReturn(HOUSE);
+        doReturn(false).when(instance).hasSubCategories(any());
+        doReturn(false).when(instance).hasTransactions(any(Category.class));
     }
 
     /**
@@ -60,9 +70,10 @@ public class MyBudgetDaoCategoryTest {
         final String car = "car";
         final Category category = mock(Category.class);
         when(category.getName()).thenReturn(car);
-        instance.addMainCategory(USERNAME, category);
+        instance.addMainCategory(USER_ID, category);
 
         verify(user).addCategory(category);
+        verify(instance.em).persist(category);
     }
 
     /**
@@ -74,7 +85,9 @@ public class MyBudgetDaoCategoryTest {
     public void isCategoryAlreadyExistsThrownWhenAddingExistingMainCategory()
             throws CategoryAlreadyExistsException {
 
-        instance.addMainCategory(USERNAME, foodCategory);
+        doThrow(uniqueViolation(MyBudgetDao.MAIN_CATEGORY_NAME_CONSTRAINT)).when(instance.em)
+                .persist(foodCategory);
+        instance.addMainCategory(USER_ID, foodCategory);
     }
 
     /**
@@ -87,8 +100,8 @@ public class MyBudgetDaoCategoryTest {
     public void testRemovingCategoryFromUserWhenRemovingExistingMainCategory()
             throws CategoryNotFoundException, CategoryCantBeRemovedException {
 
-        instance.removeMainCategory(USERNAME, FOOD);
-        verify(user).removeCategory(foodCategory);
+        instance.removeMainCategory(USER_ID, FOOD);
+        verify(instance.em).remove(foodCategory);
     }
 
     /**
@@ -101,7 +114,7 @@ public class MyBudgetDaoCategoryTest {
     public void testReturnNotFoundExceptionWhenRemovingNonexistingMainCategory()
             throws CategoryNotFoundException, CategoryCantBeRemovedException {
 
-        instance.removeMainCategory(USERNAME, NONEXISTENT);
+        instance.removeMainCategory(USER_ID, NONEXISTENT);
     }
 
     /**
@@ -114,12 +127,12 @@ public class MyBudgetDaoCategoryTest {
     public void isExceptionThrownWhenRemovingMainCategoryWithSubCategories()
             throws CategoryNotFoundException {
 
-        when(foodCategory.hasSubCategories()).thenReturn(true);
+        doReturn(true).when(instance).hasSubCategories(foodCategory);
         try {
-            instance.removeMainCategory(USERNAME, FOOD);
+            instance.removeMainCategory(USER_ID, FOOD);
             expectedException(BadRequestException.class);
         } catch (CategoryCantBeRemovedException ex) {
-            verify(user, never()).removeCategory(any());
+            verify(instance.em, never()).remove(any());
         }
     }
 
@@ -133,12 +146,12 @@ public class MyBudgetDaoCategoryTest {
     public void isExceptionThrownWhenRemovingMainCategoryWithTransactions()
             throws CategoryNotFoundException {
 
-        when(foodCategory.hasTransactions()).thenReturn(true);
+        doReturn(true).when(instance).hasTransactions(foodCategory);
         try {
-            instance.removeMainCategory(USERNAME, FOOD);
+            instance.removeMainCategory(USER_ID, FOOD);
             expectedException(BadRequestException.class);
         } catch (CategoryCantBeRemovedException ex) {
-            verify(user, never()).removeCategory(any());
+            verify(instance.em, never()).remove(any());
         }
     }
 
@@ -153,10 +166,24 @@ public class MyBudgetDaoCategoryTest {
             throws CategoryNotFoundException, CategoryAlreadyExistsException {
 
         doNothing().when(instance).setCategoryFields(any(), any());
-        instance.updateMainCategory(USERNAME, FOOD, foodCategory);
+        instance.updateMainCategory(USER_ID, FOOD, foodCategory);
         verify(instance).setCategoryFields(foodCategory, foodCategory);
     }
 
+    /**
+     * Method setCategoryFields should copy the name of category.
+     */
+    @Test
+    public void isCategoryNameCopied() {
+        Category category = new Category();
+        Category categoryValues = new Category();
+        categoryValues.setName(HOUSE);
+
+        instance.setCategoryFields(category, categoryValues);
+
+        assertEquals(HOUSE, category.getName());
+    }
+
     /**
      * Method updateMainCategory should throw CategoryNotFoundException if a category with given
      * name doesn't exist.
@@ -168,7 +195,7 @@ public class MyBudgetDaoCategoryTest {
     public void isNotFoundThrownWhenUpdatingNonexistedMainCategory()
             throws CategoryNotFoundException, CategoryAlreadyExistsException {
 
-        instance.updateMainCategory(USERNAME, NONEXISTENT, houseCategory);
+        instance.updateMainCategory(USER_ID, NONEXISTENT, houseCategory);
     }
 
     /**
@@ -184,10 +211,12 @@ public class MyBudgetDaoCategoryTest {
 
         Category categoryValues = mock(Category.class);
         when(categoryValues.getName()).thenReturn(FOOD);
-        when(user.findCategory(HOUSE)).thenReturn(Optional.of(houseCategory));
+        doReturn(Optional.of(houseCategory)).when(instance).findMainCategory(user, HOUSE);
         doNothing().when(instance).setCategoryFields(any(), any());
+        doThrow(uniqueViolation(MyBudgetDao.MAIN_CATEGORY_NAME_CONSTRAINT)).when(instance.em)
+                .flush();
 
-        instance.updateMainCategory(USERNAME, HOUSE, categoryValues);
+        instance.updateMainCategory(USER_ID, HOUSE, categoryValues);
     }
 
     /**
@@ -200,8 +229,9 @@ public class MyBudgetDaoCategoryTest {
     public void isSubCategoryAddedToParentCategory()
             throws CategoryNotFoundException, CategoryAlreadyExistsException {
 
-        instance.addSubCategory(USERNAME, FOOD, houseCategory);
+        instance.addSubCategory(USER_ID, FOOD, houseCategory);
         verify(foodCategory).addSubCategory(houseCategory);
+        verify(instance.em).persist(houseCategory);
     }
 
     /**
@@ -214,7 +244,7 @@ public class MyBudgetDaoCategoryTest {
     public void isCategoryNotFoundExceptionThrownWhenCreatingSubcategoryAndMainCategoryDoesntExist()
             throws CategoryNotFoundException, CategoryAlreadyExistsException {
 
-        instance.addSubCategory(USERNAME, NONEXISTENT, houseCategory);
+        instance.addSubCategory(USER_ID, NONEXISTENT, houseCategory);
     }
 
     /**
@@ -227,7 +257,9 @@ public class MyBudgetDaoCategoryTest {
     public void isCategoryAlreadyExistsExceptionThrownWhenAddingSubCategoryAlreadyExist()
             throws CategoryNotFoundException, CategoryAlreadyExistsException {
 
-        instance.addSubCategory(USERNAME, FOOD, candyCategory);
+        doThrow(uniqueViolation(MyBudgetDao.SUB_CATEGORY_NAME_CONSTRAINT)).when(instance.em)
+                .persist(candyCategory);
+        instance.addSubCategory(USER_ID, FOOD, candyCategory);
     }
 
     /**
@@ -240,8 +272,8 @@ public class MyBudgetDaoCategoryTest {
     public void isSubCategoryRemoved()
             throws CategoryNotFoundException, CategoryCantBeRemovedException {
 
-        instance.removeSubCategory(USERNAME, FOOD, CANDY);
-        verify(foodCategory).removeSubCategory(candyCategory);
+        instance.removeSubCategory(USER_ID, FOOD, CANDY);
+        verify(instance.em).remove(candyCategory);
     }
 
     /**
@@ -255,7 +287,7 @@ public class MyBudgetDaoCategoryTest {
     public void isCategoryNotFoundExceptionThrownWhenRemovingSubCategoryButMainCategoryDoesntExist()
             throws CategoryNotFoundException, CategoryCantBeRemovedException {
 
-        instance.removeSubCategory(USERNAME, NONEXISTENT, CANDY);
+        instance.removeSubCategory(USER_ID, NONEXISTENT, CANDY);
     }
 
     /**
@@ -269,7 +301,7 @@ public class MyBudgetDaoCategoryTest {
     public void isCategoryNotFoundExceptionThrownWhenRemovingSubcategoryThatDoesntExist()
             throws CategoryNotFoundException, CategoryCantBeRemovedException {
 
-        instance.removeSubCategory(USERNAME, FOOD, NONEXISTENT);
+        instance.removeSubCategory(USER_ID, FOOD, NONEXISTENT);
     }
 
     /**
@@ -283,8 +315,8 @@ public class MyBudgetDaoCategoryTest {
     public void isCategoryCantBeRemovedExceptionThrownWhenRemovingSubCategoryThatHasTransactions()
             throws CategoryNotFoundException, CategoryCantBeRemovedException {
 
-        when(candyCategory.hasTransactions()).thenReturn(Boolean.TRUE);
-        instance.removeSubCategory(USERNAME, FOOD, CANDY);
+        doReturn(true).when(instance).hasTransactions(candyCategory);
+        instance.removeSubCategory(USER_ID, FOOD, CANDY);
     }
 
     /**
@@ -298,7 +330,7 @@ public class MyBudgetDaoCategoryTest {
             throws CategoryNotFoundException, CategoryAlreadyExistsException {
 
         doNothing().when(instance).setCategoryFields(any(), any());
-        instance.updateSubCategory(USERNAME, FOOD, CANDY, candyCategory);
+        instance.updateSubCategory(USER_ID, FOOD, CANDY, candyCategory);
         verify(instance).setCategoryFields(candyCategory, candyCategory);
     }
 
@@ -313,7 +345,7 @@ public class MyBudgetDaoCategoryTest {
     public void isCategoryNotFoundExceptionThrownWhenMainCategoryDoesntExist()
             throws CategoryNotFoundException, CategoryAlreadyExistsException {
 
-        instance.updateSubCategory(USERNAME, NONEXISTENT, CANDY, houseCategory);
+        instance.updateSubCategory(USER_ID, NONEXISTENT, CANDY, houseCategory);
     }
 
     /**
@@ -327,7 +359,7 @@ public class MyBudgetDaoCategoryTest {
     public void isCategoryNotFoundExceptionThrownWhenSubCategoryDoesntExist()
             throws CategoryNotFoundException, CategoryAlreadyExistsException {
 
-        instance.updateSubCategory(USERNAME, FOOD, NONEXISTENT, houseCategory);
+        instance.updateSubCategory(USER_ID, FOOD, NONEXISTENT, houseCategory);
     }
 
     /**
@@ -341,8 +373,12 @@ public class MyBudgetDaoCategoryTest {
     public void isCategoryAlreadyExistsExceptionThrownWhenSubCategoryWithNewNameAlreadyExist()
             throws CategoryNotFoundException, CategoryAlreadyExistsException {
 
-        when(foodCategory.findSubCategory("fruits")).thenReturn(Optional.of(mock(Category.class)));
-        instance.updateSubCategory(USERNAME, FOOD, "fruits", candyCategory);
+        doReturn(Optional.of(mock(Category.class))).when(instance)
+                .findSubCategory(foodCategory, "fruits");
+        doNothing().when(instance).setCategoryFields(any(), any());
+        doThrow(uniqueViolation(MyBudgetDao.SUB_CATEGORY_NAME_CONSTRAINT)).when(instance.em)
+                .flush();
+        instance.updateSubCategory(USER_ID, FOOD, "fruits", candyCategory);
     }
 
     /**
@@ -350,9 +386,12 @@ public class MyBudgetDaoCategoryTest {
      */
     @Test
     public void testReturnCategoriesListWhenGettingAllCategories() {
-        List<Category> categories = mock(List.class);
-        when(user.getCategories()).thenReturn(categories);
-        List<Category> result = (List<Category>) instance.getAllCategories(USERNAME);
+        List<CategoryDTO> categories = mock(List.class);
+        TypedQuery<CategoryDTO> query = mock(TypedQuery.class);
+        when(instance.em.createQuery(anyString(), eq(CategoryDTO.class))).thenReturn(query);
+        when(query.setParameter("user", user)).thenReturn(query);
+        when(query.getResultList()).thenReturn(categories);
+        List<CategoryDTO> result = instance.getAllCategories(USER_ID);
         assertEquals("List of categories it's not equals", categories, result);
     }
 
@@ -363,9 +402,12 @@ public class MyBudgetDaoCategoryTest {
      */
     @Test
     public void isSubCategoriesListReturnWhenGettingSubCategories() throws CategoryNotFoundException {
-        List<Category> categories = mock(List.class);
-        when(foodCategory.getSubCategories()).thenReturn(categories);
-        List<Category> result = (List<Category>) instance.getSubCategories(USERNAME, FOOD);
+        List<CategoryDTO> categories = mock(List.class);
+        TypedQuery<CategoryDTO> query = mock(TypedQuery.class);
+        when(instance.em.createQuery(anyString(), eq(CategoryDTO.class))).thenReturn(query);
+        when(query.setParameter("parent", foodCategory)).thenReturn(query);
+        when(query.getResultList()).thenReturn(categories);
+        List<CategoryDTO> result = instance.getSubCategories(USER_ID, FOOD);
         assertEquals("List of categories it's not equals", categories, result);
     }
 
@@ -379,6 +421,6 @@ public class MyBudgetDaoCategoryTest {
     public void isCategoryNotFoundExceptionThrownWhenGettingSubCategoriesFromCategoryThatDoesntExist()
             throws CategoryNotFoundException {
 
-        instance.getSubCategories(USERNAME, NONEXISTENT);
+        instance.getSubCategories(USER_ID, NONEXISTENT);
     }
 }
@@ -0,0 +1,93 @@
+package pl.foltak.mybudget.server.dao;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import javax.persistence.EntityManager;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import org.hibernate.ScrollableResults;
+import org.junit.Before;
+import org.junit.Test;
+import static org.mockito.Mockito.*;
+import pl.foltak.mybudget.server.dto.TransactionDTO;
+import pl.foltak.mybudget.server.entity.User;
+
+/**
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class MyBudgetDaoExportTest {
+
+    private static final long USER_ID = 7L;
+    private static final java.sql.Date DATE = java.sql.Date.valueOf("2015-03-17");
+
+    private MyBudgetDao instance;
+    private User user;
+    private ScrollableResults results;
+    private List<TransactionDTO> exported;
+
+    @Before
+    public void setUp() {
+        instance = spy(new MyBudgetDao());
+        instance.em = mock(EntityManager.class);
+        user = mock(User.class);
+        results = mock(ScrollableResults.class);
+        exported = new LinkedList<>();
+
+        doReturn(user).when(instance).getUser(USER_ID);
+        doReturn(results).when(instance).scrollExportedTransactions(user);
+    }
+
+    @Test
+    public void shouldMergeTagRowsOfTransaction() {
+        when(results.next()).thenReturn(true, true, true, false);
+        when(results.get()).thenReturn(
+                row(1L, "candy", "food", "sweet"),
+                row(1L, "candy", "food", "weekend"),
+                row(2L, "salary", null, null));
+
+        instance.exportTransactions(USER_ID, exported::add);
+
+        assertThat(exported.size(), is(2));
+        assertThat(exported.get(0).getMainCategoryName(), is("food"));
+        assertThat(exported.get(0).getSubCategoryName(), is("candy"));
+        assertThat(exported.get(0).getTags(), is(Arrays.asList("sweet", "weekend")));
+        assertThat(exported.get(1).getMainCategoryName(), is("salary"));
+        assertThat(exported.get(1).getTags().isEmpty(), is(true));
+        verify(results).close();
+    }
+
+    @Test
+    public void shouldExportScalarRowsWithoutClearingPersistenceContext() {
+        final int count = 2001;
+        final long[] id = {0};
+        when(results.next()).thenAnswer(invocation -> id[0]++ < count);
+        when(results.get()).thenAnswer(invocation -> row(id[0], "candy", "food", null));
+
+        instance.exportTransactions(USER_ID, exported::add);
+
+        assertThat(exported.size(), is(count));
+        verify(instance.em, never()).clear();
+    }
+
+    @Test
+    public void shouldCloseResultsWhenConsumerFails() {
+        when(results.next()).thenReturn(true, true, false);
+        when(results.get()).thenReturn(row(1L, "candy", "food", null), row(2L, "candy", "food", null));
+
+        try {
+            instance.exportTransactions(USER_ID, transaction -> {
+                throw new IllegalStateException();
+            });
+        } catch (IllegalStateException ex) {
+            verify(results).close();
+            return;
+        }
+        throw new AssertionError("Exception wasn't thrown");
+    }
+
+    private static Object[] row(long id, String category, String parent, String tag) {
+        return new Object[]{id, DATE, "wallet", category, parent, 1250L, "description", tag};
+    }
+}
@@ -0,0 +1,180 @@
+package pl.foltak.mybudget.server.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import static org.hamcrest.CoreMatchers.is;
+import org.hibernate.Session;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.mockito.Mockito.*;
+import pl.foltak.mybudget.server.entity.Transaction;
+
+/**
+ * Monthly totals maintained together with transactions, against an embedded H2 database with the
+ * schema created from entities, which references accounts and categories from the totals.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class MyBudgetDaoMonthlyTotalsTest {
+
+    private static final String PERSISTENCE_UNIT = "pl.foltak.my-budget.test";
+    private static final long USER_ID = 1L;
+    private static final long WALLET_ID = 1L;
+    private static final long BANK_ID = 2L;
+
+    private static EntityManagerFactory entityManagerFactory;
+
+    private MyBudgetDao instance;
+    private MonthlyTotalsDao monthlyTotalsDao;
+    private EntityManager em;
+
+    @BeforeClass
+    public static void setUpClass() {
+        entityManagerFactory = Persistence.createEntityManagerFactory(PERSISTENCE_UNIT);
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        entityManagerFactory.close();
+    }
+
+    @Before
+    public void setUp() {
+        em = entityManagerFactory.createEntityManager();
+        em.getTransaction().begin();
+        em.unwrap(Session.class).doWork(MyBudgetDaoMonthlyTotalsTest::insertData);
+
+        monthlyTotalsDao = new MonthlyTotalsDao();
+        monthlyTotalsDao.em = em;
+        instance = spy(new MyBudgetDao());
+        instance.em = em;
+        doReturn(monthlyTotalsDao).when(instance).getMonthlyTotalsDao();
+        doReturn(mock(UserVersions.class)).when(instance).getUserVersions();
+    }
+
+    @After
+    public void tearDown() {
+        em.getTransaction().rollback();
+        em.close();
+    }
+
+    /**
+     * The total emptied by the last transaction of an account should be deleted, so the account
+     * can be removed.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void isAccountRemovedAfterItsLastTransaction() throws Exception {
+        removeTransaction(3L);
+
+        instance.removeAccount(USER_ID, BANK_ID);
+        em.flush();
+
+        assertThat(countTotals(BANK_ID), is(0L));
+    }
+
+    /**
+     * The total should only be decreased while it has other transactions.
+     */
+    @Test
+    public void isTotalDecreasedWhenOtherTransactionsRemain() {
+        removeTransaction(1L);
+
+        assertThat(countTotals(WALLET_ID), is(1L));
+        assertThat(em.createQuery("SELECT m.transactionCount FROM monthly_totals AS m "
+                + "WHERE m.id.accountId = :accountId", Long.class)
+                .setParameter("accountId", WALLET_ID).getSingleResult(), is(1L));
+    }
+
+    /**
+     * Removing the last transaction of a total should delete the transaction and the total.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void isTotalDeletedWhenLastTransactionIsRemoved() throws Exception {
+        instance.removeTransaction(USER_ID, 3L);
+        em.flush();
+
+        assertThat(countTotals(BANK_ID), is(0L));
+        assertNull(em.find(Transaction.class, 3L));
+    }
+
+    /**
+     * Transactions without a date or a category don't belong to any total, so removing them
+     * shouldn't change totals.
+     */
+    @Test
+    public void areTotalsKeptWhenTransactionWithoutTotalIsRemoved() {
+        removeTransaction(4L);
+        removeTransaction(5L);
+
+        assertThat(countTotals(WALLET_ID), is(1L));
+        assertThat(sumTotals(WALLET_ID), is(1450L));
+    }
+
+    /**
+     * Rebuilt totals should skip transactions without a date or a category, like the migration
+     * which created them.
+     */
+    @Test
+    public void areTransactionsWithoutCategorySkippedByRebuild() {
+        monthlyTotalsDao.rebuild(USER_ID);
+        em.flush();
+
+        assertThat(countTotals(WALLET_ID), is(1L));
+        assertThat(sumTotals(WALLET_ID), is(1450L));
+        assertThat(countTotals(BANK_ID), is(1L));
+    }
+
+    private long sumTotals(long accountId) {
+        return em.createQuery("SELECT SUM(m.amountSum) FROM monthly_totals AS m "
+                + "WHERE m.id.accountId = :accountId", Long.class)
+                .setParameter("accountId", accountId).getSingleResult();
+    }
+
+    private void removeTransaction(long id) {
+        final Transaction transaction = em.find(Transaction.class, id);
+        monthlyTotalsDao.subtract(transaction);
+        em.remove(transaction);
+        em.flush();
+    }
+
+    private long countTotals(long accountId) {
+        return em.createQuery("SELECT COUNT(m) FROM monthly_totals AS m "
+                + "WHERE m.id.accountId = :accountId", Long.class)
+                .setParameter("accountId", accountId).getSingleResult();
+    }
+
+    private static void insertData(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("INSERT INTO users (id, username, passwordHash) "
+                    + "VALUES (1, 'alibaba', '')");
+            statement.executeUpdate("INSERT INTO accounts (id, name, user_id) "
+                    + "VALUES (1, 'wallet', 1), (2, 'bank', 1)");
+            statement.executeUpdate("INSERT INTO categories (id, name, user_id, parent_id) "
+                    + "VALUES (1, 'food', 1, NULL), (2, 'sweets', NULL, 1)");
+            statement.executeUpdate("INSERT INTO transactions (id, description, amount, "
+                    + "transaction_date, account_id, category_id) "
+                    + "VALUES (1, 'candy', 250, DATE '2015-03-01', 1, 2), "
+                    + "(2, 'cake', 1200, DATE '2015-03-02', 1, 2), "
+                    + "(3, 'cookie', 300, DATE '2015-03-03', 2, 2), "
+                    + "(4, 'gift', 500, NULL, 1, NULL), "
+                    + "(5, 'change', 20, DATE '2015-03-04', 1, NULL)");
+            statement.executeUpdate("INSERT INTO monthly_totals (user_id, account_id, "
+                    + "category_id, month_start, amount_sum, transaction_count) "
+                    + "VALUES (1, 1, 2, DATE '2015-03-01', 1450, 2), "
+                    + "(1, 2, 2, DATE '2015-03-01', 300, 1)");
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package pl.foltak.mybudget.server.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import static org.hamcrest.CoreMatchers.is;
+import org.hibernate.Session;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertThat;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import pl.foltak.mybudget.server.dto.TransactionFilter;
+import pl.foltak.mybudget.server.metrics.SqlStatementRule;
+
+/**
+ * Numbers of SQL statements of read operations, against an embedded H2 database with the schema
+ * created from entities. A new statement usually means a lazy association navigated per row.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class MyBudgetDaoStatementsTest {
+
+    private static final String PERSISTENCE_UNIT = "pl.foltak.my-budget.test";
+    private static final long USER_ID = 1L;
+
+    private static EntityManagerFactory entityManagerFactory;
+
+    @Rule
+    public final SqlStatementRule statements = new SqlStatementRule();
+
+    private MyBudgetDao instance;
+
+    @BeforeClass
+    public static void setUpClass() {
+        entityManagerFactory = Persistence.createEntityManagerFactory(PERSISTENCE_UNIT);
+        final EntityManager em = entityManagerFactory.createEntityManager();
+        em.getTransaction().begin();
+        em.unwrap(Session.class).doWork(MyBudgetDaoStatementsTest::insertData);
+        em.getTransaction().commit();
+        em.close();
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        entityManagerFactory.close();
+    }
+
+    @Before
+    public void setUp() {
+        instance = new MyBudgetDao();
+        instance.em = entityManagerFactory.createEntityManager();
+        statements.reset();
+    }
+
+    @After
+    public void tearDown() {
+        instance.em.close();
+    }
+
+    @Test
+    public void shouldReadAccountsInOneStatement() {
+        assertThat(instance.getAccounts(USER_ID).size(), is(2));
+        statements.assertCount(1);
+    }
+
+    @Test
+    public void shouldReadTagsInOneStatement() {
+        assertThat(instance.getTags(USER_ID).size(), is(2));
+        statements.assertCount(1);
+    }
+
+    @Test
+    public void shouldReadCategoryTreeInOneStatement() {
+        assertThat(instance.getCategoryTree(USER_ID, false).size(), is(2));
+        statements.assertCount(1);
+    }
+
+    @Test
+    public void shouldReadTotalsOfCategoryTreeInOneStatement() {
+        instance.getCategoryTree(USER_ID, true);
+        statements.assertCount(2);
+    }
+
+    /**
+     * Tags of a page are read by one statement for all transactions, however many there are.
+     */
+    @Test
+    public void shouldReadPageOfTransactionsInTwoStatements() {
+        final TransactionFilter filter = new TransactionFilter();
+        filter.setLimit(50);
+
+        assertThat(instance.getTransactions(USER_ID, filter).size(), is(3));
+        statements.assertCount(2);
+    }
+
+    private static void insertData(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("INSERT INTO users (id, username, passwordHash) "
+                    + "VALUES (1, 'alibaba', '')");
+            statement.executeUpdate("INSERT INTO accounts (id, name, user_id) "
+                    + "VALUES (1, 'wallet', 1), (2, 'bank', 1)");
+            statement.executeUpdate("INSERT INTO categories (id, name, user_id, parent_id) "
+                    + "VALUES (1, 'food', 1, NULL), (2, 'home', 1, NULL), "
+                    + "(3, 'sweets', NULL, 1), (4, 'rent', NULL, 2)");
+            statement.executeUpdate("INSERT INTO tags (id, name, user_id) "
+                    + "VALUES (1, 'weekend', 1), (2, 'holiday', 1)");
+            statement.executeUpdate("INSERT INTO transactions (id, description, amount, "
+                    + "transaction_date, account_id, category_id) "
+                    + "VALUES (1, 'candy', 250, DATE '2015-03-01', 1, 3), "
+                    + "(2, 'cake', 1200, DATE '2015-03-02', 1, 3), "
+                    + "(3, 'march', 150000, DATE '2015-03-03', 2, 4)");
+            statement.executeUpdate("INSERT INTO transactions_tags (transaction_id, tag_id) "
+                    + "VALUES (1, 1), (2, 1), (2, 2), (3, 2)");
+        }
+    }
+}
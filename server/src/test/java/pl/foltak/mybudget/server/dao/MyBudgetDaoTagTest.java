@@ -1,6 +1,8 @@
 package pl.foltak.mybudget.server.dao;
 
 import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.*;
 import org.junit.Before;
@@ -10,6 +12,7 @@ import org.mockito.Mock;
 import static org.mockito.Mockito.*;
 import org.mockito.Spy;
 import org.mockito.runners.MockitoJUnitRunner;
+import pl.foltak.mybudget.server.dto.TagDTO;
 import pl.foltak.mybudget.server.entity.Tag;
 import pl.foltak.mybudget.server.entity.User;
 
@@ -20,7 +23,7 @@ import pl.foltak.mybudget.server.entity.User;
 @RunWith(MockitoJUnitRunner.class)
 public class MyBudgetDaoTagTest {
 
-    private static final String USERNAME = "alibaba";
+    private static final long USER_ID = 7L;
 
     @Spy
     private MyBudgetDao instance;
@@ -29,7 +32,7 @@ public class MyBudgetDaoTagTest {
 
     @Before
     public void setUp() {
-        doReturn(user).when(instance).getUserByName(USERNAME);
+        doReturn(user).when(instance).getUser(USER_ID);
     }
 
     /**
@@ -37,10 +40,30 @@ public class MyBudgetDaoTagTest {
      */
     @Test
     public void doesServiceReturnListOfTagsWhenGetTagsIsCalled() {
-        List<Tag> tags = mock(List.class);
-        when(user.getTags()).thenReturn(tags);
+        List<TagDTO> tags = mock(List.class);
+        TypedQuery<TagDTO> query = mock(TypedQuery.class);
+        instance.em = mock(EntityManager.class);
+        when(instance.em.createQuery(anyString(), eq(TagDTO.class))).thenReturn(query);
+        when(query.setParameter("user", user)).thenReturn(query);
+        when(query.getResultList()).thenReturn(tags);
 
-        assertThat(instance.getTags(USERNAME), is(tags));
+        assertThat(instance.getTags(USER_ID), is(tags));
+    }
+
+    /**
+     * Tag should be referenced by the id from the dictionary, without loading it.
+     */
+    @Test
+    public void isTagReferencedByIdFromDictionary() {
+        TagDictionary tagDictionary = mock(TagDictionary.class);
+        Tag tag = mock(Tag.class);
+        instance.em = mock(EntityManager.class);
+        doReturn(tagDictionary).when(instance).getTagDictionary();
+        when(user.getId()).thenReturn(7L);
+        when(tagDictionary.getTagId(7L, "holiday")).thenReturn(5L);
+        when(instance.em.getReference(Tag.class, 5L)).thenReturn(tag);
+
+        assertThat(instance.findOrCreateTag(user, "holiday"), is(tag));
     }
 
 }
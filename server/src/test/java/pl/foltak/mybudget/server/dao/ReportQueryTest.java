@@ -0,0 +1,146 @@
+package pl.foltak.mybudget.server.dao;
+
+import java.util.EnumSet;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.matchers.JUnitMatchers.containsString;
+import org.junit.Before;
+import org.junit.Test;
+import static org.mockito.Mockito.mock;
+import pl.foltak.mybudget.server.dto.ReportDimension;
+import pl.foltak.mybudget.server.dto.ReportFilter;
+import pl.foltak.mybudget.server.dto.ReportRowDTO;
+import pl.foltak.mybudget.server.entity.User;
+
+/**
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class ReportQueryTest {
+
+    private User user;
+    private ReportFilter filter;
+
+    @Before
+    public void setUp() {
+        user = mock(User.class);
+        filter = new ReportFilter();
+    }
+
+    /**
+     * Without dimensions, query should return one row with the total of all user transactions.
+     */
+    @Test
+    public void isTotalReturnedWhenThereAreNoDimensions() {
+        ReportQuery query = new ReportQuery(user, filter);
+
+        assertThat(query.getJpql(),
+                containsString("SELECT SUM(m.amountSum), SUM(m.transactionCount) FROM"));
+        assertThat(query.getJpql(), containsString("WHERE a.user = :user"));
+        assertThat(query.getJpql(), not(containsString("GROUP BY")));
+        assertThat(query.convert(new Object[]{1250L, 3L}).getCount(), is(3L));
+        assertThat(query.convert(new Object[]{null, 0L}).getSum(), is(0L));
+    }
+
+    /**
+     * Transactions should be grouped by main category and month.
+     */
+    @Test
+    public void areTransactionsGroupedByMainCategoryAndMonth() {
+        filter.setDimensions(EnumSet.of(ReportDimension.MAIN_CATEGORY, ReportDimension.MONTH));
+
+        ReportQuery query = new ReportQuery(user, filter);
+        ReportRowDTO row = query.convert(new Object[]{1250L, 3L, "food", 2015, 3});
+
+        assertThat(query.getJpql(), containsString("GROUP BY COALESCE(p.name, c.name), "
+                + "YEAR(m.id.monthStart), MONTH(m.id.monthStart)"));
+        assertThat(row.getMainCategoryName(), is("food"));
+        assertThat(row.getSubCategoryName(), is(nullValue()));
+        assertThat(row.getMonth(), is("2015-03"));
+        assertThat(row.getSum(), is(1250L));
+    }
+
+    /**
+     * Grouping by sub category should group by its parent too.
+     */
+    @Test
+    public void isParentGroupedWithSubCategory() {
+        filter.setDimensions(EnumSet.of(ReportDimension.SUB_CATEGORY));
+
+        ReportQuery query = new ReportQuery(user, filter);
+        ReportRowDTO row = query.convert(new Object[]{1250L, 3L, "food", "candy"});
+
+        assertThat(query.getJpql(), containsString("GROUP BY p.name, c.name"));
+        assertThat(row.getMainCategoryName(), is("food"));
+        assertThat(row.getSubCategoryName(), is("candy"));
+    }
+
+    /**
+     * Tags should be joined only when transactions are grouped by tag.
+     */
+    @Test
+    public void areTagsJoinedOnlyWhenGroupedByTag() {
+        assertThat(new ReportQuery(user, filter).getJpql(), not(containsString("t.tags")));
+
+        filter.setDimensions(EnumSet.of(ReportDimension.ACCOUNT, ReportDimension.TAG));
+        ReportQuery query = new ReportQuery(user, filter);
+        ReportRowDTO row = query.convert(new Object[]{1250L, 3L, "wallet", "weekend"});
+
+        assertThat(query.isMonthlyTotals(), is(false));
+        assertThat(query.getJpql(), containsString("LEFT JOIN t.tags AS g"));
+        assertThat(query.getJpql(), containsString("GROUP BY a.name, g.name"));
+        assertThat(row.getAccountName(), is("wallet"));
+        assertThat(row.getTagName(), is("weekend"));
+    }
+
+    /**
+     * Given criteria should be added to the query with their parameters.
+     */
+    @Test
+    public void areCriteriaAddedToQuery() {
+        filter.setAccountName("wallet");
+        filter.setDateFrom(java.sql.Date.valueOf("2015-01-01"));
+
+        ReportQuery query = new ReportQuery(user, filter);
+
+        assertThat(query.getJpql(), containsString("AND a.name = :accountName"));
+        assertThat(query.getJpql(), containsString("AND m.id.monthStart >= :dateFrom"));
+        assertThat(query.getJpql(), not(containsString(":dateTo")));
+        assertThat(query.getParameters().size(), is(3));
+    }
+
+    /**
+     * Monthly totals should be read when the period consists of whole months.
+     */
+    @Test
+    public void areMonthlyTotalsUsedForWholeMonths() {
+        filter.setDateFrom(java.sql.Date.valueOf("2015-01-01"));
+        filter.setDateTo(java.sql.Date.valueOf("2015-02-28"));
+
+        ReportQuery query = new ReportQuery(user, filter);
+
+        assertThat(query.isMonthlyTotals(), is(true));
+        assertThat(query.getJpql(), containsString("FROM monthly_totals AS m"));
+        assertThat(query.getJpql(), containsString("AND m.transactionCount > 0"));
+    }
+
+    /**
+     * Transactions should be read when the period starts or ends in the middle of a month.
+     */
+    @Test
+    public void areTransactionsUsedForPartialMonths() {
+        filter.setDateFrom(java.sql.Date.valueOf("2015-01-01"));
+        filter.setDateTo(java.sql.Date.valueOf("2015-02-27"));
+        assertThat(new ReportQuery(user, filter).isMonthlyTotals(), is(false));
+
+        filter.setDateFrom(java.sql.Date.valueOf("2015-01-02"));
+        filter.setDateTo(null);
+        ReportQuery query = new ReportQuery(user, filter);
+
+        assertThat(query.isMonthlyTotals(), is(false));
+        assertThat(query.getJpql(), containsString("FROM transactions AS t"));
+        assertThat(query.getJpql(), containsString("AND t.transactionDate >= :dateFrom"));
+    }
+}
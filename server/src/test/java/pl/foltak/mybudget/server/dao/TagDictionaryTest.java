@@ -0,0 +1,106 @@
+package pl.foltak.mybudget.server.dao;
+
+import java.util.Collections;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.Mockito.*;
+
+/**
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class TagDictionaryTest {
+
+    private static final long USER_ID = 7L;
+    private static final long OTHER_USER_ID = 8L;
+    private static final long TTL_MILLIS = 60000L;
+    private static final String FOOD = "food";
+    private static final String HOLIDAY = "holiday";
+
+    private TagDictionary instance;
+
+    @Before
+    public void setUp() {
+        instance = spy(new TagDictionary(1, TTL_MILLIS));
+        instance.transactionRegistry = mock(TransactionSynchronizationRegistry.class);
+        doReturn(Collections.singletonMap(FOOD, 3L)).when(instance).loadTags(USER_ID);
+        doReturn(5L).when(instance).insertTag(USER_ID, HOLIDAY);
+        doReturn(Collections.singletonMap(FOOD, 4L)).when(instance).loadTags(OTHER_USER_ID);
+        doReturn(1000L).when(instance).currentTimeMillis();
+    }
+
+    /**
+     * Tags of an user should be read once and then served from memory.
+     */
+    @Test
+    public void areTagsLoadedOnlyOnce() {
+        assertThat(instance.getTagId(USER_ID, FOOD), is(3L));
+        assertThat(instance.getTagId(USER_ID, FOOD), is(3L));
+
+        verify(instance, times(1)).loadTags(USER_ID);
+        verify(instance, never()).insertTag(anyLong(), anyString());
+    }
+
+    /**
+     * A missing tag should be inserted and remembered when the transaction is committed.
+     */
+    @Test
+    public void isInsertedTagRememberedAfterCommit() {
+        assertThat(instance.getTagId(USER_ID, HOLIDAY), is(5L));
+        completeTransaction(Status.STATUS_COMMITTED);
+
+        assertThat(instance.getTagId(USER_ID, HOLIDAY), is(5L));
+        verify(instance, times(1)).insertTag(USER_ID, HOLIDAY);
+    }
+
+    /**
+     * A tag inserted by rolled back transaction doesn't exist, so it shouldn't be remembered.
+     */
+    @Test
+    public void isInsertedTagForgottenAfterRollback() {
+        instance.getTagId(USER_ID, HOLIDAY);
+        completeTransaction(Status.STATUS_ROLLEDBACK);
+
+        instance.getTagId(USER_ID, HOLIDAY);
+        verify(instance, times(2)).insertTag(USER_ID, HOLIDAY);
+    }
+
+    /**
+     * When the dictionary is full, tags of the user loaded first should be dropped.
+     */
+    @Test
+    public void isFirstLoadedUserDroppedWhenFull() {
+        instance.getTagId(USER_ID, FOOD);
+        doReturn(2000L).when(instance).currentTimeMillis();
+        instance.getTagId(OTHER_USER_ID, FOOD);
+        instance.getTagId(USER_ID, FOOD);
+
+        assertThat(instance.size(), is(1));
+        verify(instance, times(2)).loadTags(USER_ID);
+    }
+
+    /**
+     * Tags should be read again when they are kept longer than the time to live.
+     */
+    @Test
+    public void areExpiredTagsLoadedAgain() {
+        instance.getTagId(USER_ID, FOOD);
+        doReturn(1000L + TTL_MILLIS).when(instance).currentTimeMillis();
+        instance.getTagId(USER_ID, FOOD);
+
+        verify(instance, times(2)).loadTags(USER_ID);
+    }
+
+    private void completeTransaction(int status) {
+        final ArgumentCaptor<Synchronization> synchronization
+                = ArgumentCaptor.forClass(Synchronization.class);
+        verify(instance.transactionRegistry).registerInterposedSynchronization(synchronization.capture());
+        synchronization.getValue().afterCompletion(status);
+    }
+}
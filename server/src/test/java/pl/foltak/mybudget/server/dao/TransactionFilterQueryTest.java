@@ -0,0 +1,85 @@
+package pl.foltak.mybudget.server.dao;
+
+import java.util.Date;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+import static org.junit.matchers.JUnitMatchers.containsString;
+import org.junit.Before;
+import org.junit.Test;
+import static org.mockito.Mockito.mock;
+import pl.foltak.mybudget.server.dto.TransactionFilter;
+import pl.foltak.mybudget.server.entity.User;
+
+/**
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class TransactionFilterQueryTest {
+
+    private User user;
+    private TransactionFilter filter;
+
+    @Before
+    public void setUp() {
+        user = mock(User.class);
+        filter = new TransactionFilter();
+    }
+
+    /**
+     * Without filters, query should return all user transactions ordered by date and id.
+     */
+    @Test
+    public void isOnlyUserRestrictedWhenFilterIsEmpty() {
+        TransactionFilterQuery query = new TransactionFilterQuery(user, filter);
+
+        assertThat(query.getJpql(), containsString("WHERE t.account IN "
+                + "(SELECT ua FROM accounts AS ua WHERE ua.user = :user) "
+                + "ORDER BY t.transactionDate DESC, t.id DESC"));
+        assertThat(query.getParameters().size(), is(1));
+    }
+
+    /**
+     * Given filters should be added to the query with their parameters.
+     */
+    @Test
+    public void areFiltersAddedToQuery() {
+        filter.setAccountName("wallet");
+        filter.setSubCategoryName("candy");
+        filter.setAmountFrom(1000L);
+
+        TransactionFilterQuery query = new TransactionFilterQuery(user, filter);
+
+        assertThat(query.getJpql(), containsString("AND a.name = :accountName"));
+        assertThat(query.getJpql(), containsString("AND c.name = :subCategoryName"));
+        assertThat(query.getJpql(), containsString("AND t.amount >= :amountFrom"));
+        assertThat(query.getJpql(), not(containsString(":amountTo")));
+        assertThat(query.getParameters().get("accountName"), is((Object) "wallet"));
+    }
+
+    /**
+     * Tags should be joined only when transactions are filtered by tag.
+     */
+    @Test
+    public void areTagsJoinedOnlyWhenFilteringByTag() {
+        assertThat(new TransactionFilterQuery(user, filter).getJpql(), not(containsString("t.tags")));
+
+        filter.setTagName("holiday");
+        assertThat(new TransactionFilterQuery(user, filter).getJpql(),
+                containsString("JOIN t.tags AS g"));
+    }
+
+    /**
+     * Cursor of the previous page should add keyset condition.
+     */
+    @Test
+    public void isKeysetConditionAddedWhenCursorIsGiven() {
+        filter.setAfterDate(new Date());
+        filter.setAfterId(47L);
+
+        TransactionFilterQuery query = new TransactionFilterQuery(user, filter);
+
+        assertThat(query.getJpql(), containsString("AND (t.transactionDate < :afterDate OR "
+                + "(t.transactionDate = :afterDate AND t.id < :afterId))"));
+    }
+}
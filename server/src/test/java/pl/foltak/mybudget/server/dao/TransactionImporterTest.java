@@ -0,0 +1,181 @@
+package pl.foltak.mybudget.server.dao;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import javax.ejb.EJBException;
+import javax.persistence.EntityManager;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentMatcher;
+import static org.mockito.Mockito.*;
+import pl.foltak.mybudget.server.dto.ImportResultDTO;
+import pl.foltak.mybudget.server.dto.TransactionDTO;
+
+/**
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class TransactionImporterTest {
+
+    private static final long USER_ID = 7L;
+    private static final String FOOD = "food";
+    private static final String CANDY = "candy";
+    private static final String WALLET = "wallet";
+    private static final String NONEXISTENT = "nonexistent";
+
+    private TransactionImporter instance;
+    private ImportDictionary dictionary;
+
+    @Before
+    public void setUp() {
+        instance = spy(new TransactionImporter());
+        instance.em = mock(EntityManager.class);
+        dictionary = new ImportDictionary(USER_ID);
+        dictionary.putAccount(WALLET, 1L);
+        dictionary.putSubCategory(FOOD, CANDY, 2L);
+
+        doReturn(instance).when(instance).getSelf();
+        doReturn(dictionary).when(instance).loadDictionary(USER_ID);
+        doNothing().when(instance).insert(any(), any());
+        doReturn(mock(UserVersions.class)).when(instance).getUserVersions();
+    }
+
+    @Test
+    public void shouldInsertValidRows() {
+        final ImportResultDTO result = instance.importChunk(dictionary,
+                Arrays.asList(transaction(WALLET, FOOD, CANDY), transaction(WALLET, FOOD, CANDY)), 1);
+
+        assertThat(result.getImported(), is(2));
+        assertThat(result.getErrors().isEmpty(), is(true));
+        verify(instance).insert(eq(dictionary), argThat(hasSize(2)));
+        verify(instance.getUserVersions()).changed(USER_ID);
+    }
+
+    @Test
+    public void shouldReportRowsWithNonexistentAccountOrCategory() {
+        final ImportResultDTO result = instance.importChunk(dictionary, Arrays.asList(
+                transaction(NONEXISTENT, FOOD, CANDY),
+                transaction(WALLET, FOOD, CANDY),
+                transaction(WALLET, FOOD, NONEXISTENT)), 11);
+
+        assertThat(result.getImported(), is(1));
+        assertThat(result.getErrors().size(), is(2));
+        assertThat(result.getErrors().get(0).getRow(), is(11));
+        assertThat(result.getErrors().get(1).getRow(), is(13));
+        verify(instance).insert(eq(dictionary), argThat(hasSize(1)));
+    }
+
+    @Test
+    public void shouldReportRowsWithoutAmountOrWithFractionOfMinorUnit() {
+        final TransactionDTO withoutAmount = transaction(WALLET, FOOD, CANDY);
+        withoutAmount.setAmount(null);
+        final TransactionDTO withFraction = transaction(WALLET, FOOD, CANDY);
+        withFraction.setAmount(new BigDecimal("12.505"));
+
+        final ImportResultDTO result = instance.importChunk(dictionary,
+                Arrays.asList(withoutAmount, withFraction), 1);
+
+        assertThat(result.getImported(), is(0));
+        assertThat(result.getErrors().size(), is(2));
+        verify(instance, never()).insert(any(), any());
+    }
+
+    @Test
+    public void shouldReportRowsWithoutDate() {
+        final TransactionDTO withoutDate = transaction(WALLET, FOOD, CANDY);
+        withoutDate.setTransactionDate(null);
+
+        final ImportResultDTO result
+                = instance.importChunk(dictionary, Arrays.asList(withoutDate), 1);
+
+        assertThat(result.getImported(), is(0));
+        assertThat(result.getErrors().size(), is(1));
+        verify(instance, never()).insert(any(), any());
+    }
+
+    @Test
+    public void shouldSkipRowsRejectedByParser() {
+        final ImportResultDTO result = instance.importChunk(dictionary,
+                Arrays.asList(null, transaction(WALLET, FOOD, CANDY)), 1);
+
+        assertThat(result.getImported(), is(1));
+        assertThat(result.getErrors().isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldImportInChunks() {
+        doReturn(2).when(instance).getChunkSize();
+        final List<TransactionDTO> transactions = Arrays.asList(transaction(WALLET, FOOD, CANDY),
+                transaction(WALLET, FOOD, CANDY), transaction(WALLET, FOOD, CANDY));
+
+        final ImportResultDTO result = instance.importTransactions(USER_ID, transactions);
+
+        assertThat(result.getImported(), is(3));
+        verify(instance).importChunk(dictionary, transactions.subList(0, 2), 1);
+        verify(instance).importChunk(dictionary, transactions.subList(2, 3), 3);
+    }
+
+    @Test
+    public void shouldReportRowsOfFailedChunkAndContinue() {
+        doReturn(2).when(instance).getChunkSize();
+        final List<TransactionDTO> transactions = Arrays.asList(transaction(WALLET, FOOD, CANDY),
+                transaction(WALLET, FOOD, CANDY), transaction(WALLET, FOOD, CANDY));
+        doThrow(new EJBException("Deadlock")).when(instance)
+                .importChunk(dictionary, transactions.subList(0, 2), 1);
+
+        final ImportResultDTO result = instance.importTransactions(USER_ID, transactions);
+
+        assertThat(result.getImported(), is(1));
+        assertThat(result.getErrors().size(), is(2));
+        assertThat(result.getErrors().get(1).getRow(), is(2));
+        verify(instance, times(2)).loadDictionary(USER_ID);
+    }
+
+    /**
+     * Tag names which differ only in case or trailing spaces are one tag in the database, so
+     * they should be one tag of the import too: inserted once and attached to a row once.
+     */
+    @Test
+    public void shouldTreatTagNamesDifferingInCaseOrTrailingSpacesAsOne() {
+        dictionary.putTag("Weekend", 3L);
+        final TransactionDTO first = transaction(WALLET, FOOD, CANDY);
+        first.setTags(Arrays.asList("weekend ", "Holiday", "holiday "));
+        final TransactionDTO second = transaction(WALLET, FOOD, CANDY);
+        second.setTags(Arrays.asList("HOLIDAY"));
+
+        final List<TransactionImporter.ImportRow> rows = Arrays.asList(
+                new TransactionImporter.ImportRow(first, 1250L, 1L, 2L),
+                new TransactionImporter.ImportRow(second, 1250L, 1L, 2L));
+
+        assertThat(dictionary.getTagId("WEEKEND  "), is(3L));
+        assertThat(new ArrayList<>(rows.get(0).getTags()),
+                is(Arrays.asList("weekend ", "Holiday")));
+        assertThat(new ArrayList<>(TransactionImporter.newTags(dictionary, rows)),
+                is(Arrays.asList("Holiday")));
+    }
+
+    private static TransactionDTO transaction(String account, String mainCategory,
+            String subCategory) {
+        final TransactionDTO transaction = new TransactionDTO();
+        transaction.setAccountName(account);
+        transaction.setMainCategoryName(mainCategory);
+        transaction.setSubCategoryName(subCategory);
+        transaction.setAmount(new BigDecimal("12.50"));
+        transaction.setTransactionDate(new Date());
+        return transaction;
+    }
+
+    private static ArgumentMatcher<List<TransactionImporter.ImportRow>> hasSize(int size) {
+        return new ArgumentMatcher<List<TransactionImporter.ImportRow>>() {
+            @Override
+            public boolean matches(Object argument) {
+                return ((List<?>) argument).size() == size;
+            }
+        };
+    }
+}
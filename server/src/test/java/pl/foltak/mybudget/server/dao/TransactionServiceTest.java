@@ -1,15 +1,19 @@
 package pl.foltak.mybudget.server.dao;
 
+import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import javax.persistence.EntityManager;
 import static org.hamcrest.CoreMatchers.is;
 import org.junit.Assert;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 import org.junit.Before;
 import org.junit.Test;
 import static org.mockito.Mockito.*;
+import org.mockito.InOrder;
 import org.mockito.Spy;
 import pl.foltak.mybudget.server.dao.exception.AccountNotFoundException;
 import pl.foltak.mybudget.server.dao.exception.CategoryNotFoundException;
@@ -31,7 +35,7 @@ public class TransactionServiceTest {
     private static final String FOOD = "food";
     private static final String CANDY = "candy";
     private static final String WALLET = "wallet";
-    private static final String USERNAME = "alibaba";
+    private static final long USER_ID = 7L;
     private static final String FIRST_TAG = "firstTag";
     private static final String SECOND_TAG = "secondTag";
     private static final String NONEXISTENT = "nonexistent";
@@ -42,12 +46,14 @@ public class TransactionServiceTest {
     private Category mainCategory;
     @Spy
     private MyBudgetDao instance;
+    private UserVersions userVersions;
     private TransactionDTO transactionDTO;
 
     private Tag firstTag;
     private Tag secondTag;
     private List<String> tags;
     private Transaction transaction;
+    private MonthlyTotalsDao monthlyTotalsDao;
 
     @Before
     public void setUp() {
@@ -55,27 +61,33 @@ public class TransactionServiceTest {
         tags = Arrays.asList(new String[]{FIRST_TAG, SECOND_TAG});
         account = mock(Account.class);
         instance = spy(new MyBudgetDao());
+        instance.em = mock(EntityManager.class);
+        userVersions = mock(UserVersions.class);
+        doReturn(userVersions).when(instance).getUserVersions();
         firstTag = mock(Tag.class);
         secondTag = mock(Tag.class);
         subCategory = mock(Category.class);
         transaction = mock(Transaction.class);
         mainCategory = mock(Category.class);
         transactionDTO = mock(TransactionDTO.class);
+        monthlyTotalsDao = mock(MonthlyTotalsDao.class);
 
-        doReturn(user).when(instance).getUserByName(USERNAME);
-        doReturn(firstTag).when(instance).findOrCreateTag(FIRST_TAG);
-        doReturn(secondTag).when(instance).findOrCreateTag(SECOND_TAG);
+        doReturn(monthlyTotalsDao).when(instance).getMonthlyTotalsDao();
+        doReturn(user).when(instance).getUser(USER_ID);
+        doReturn(firstTag).when(instance).findOrCreateTag(user, FIRST_TAG);
+        doReturn(secondTag).when(instance).findOrCreateTag(user, SECOND_TAG);
         doReturn(transaction).when(instance).convertTransaction(transactionDTO);
         doNothing().when(instance).updateTransaction(transaction, transactionDTO);
-
-        when(user.findAccount(any(String.class))).thenReturn(Optional.ofNullable(null));
-        when(user.findAccount(WALLET)).thenReturn(Optional.of(account));
-        when(user.findCategory(any())).thenReturn(Optional.ofNullable(null));
-        when(user.findCategory(FOOD)).thenReturn(Optional.of(mainCategory));
-        when(user.findTransaction(anyLong())).thenReturn(Optional.ofNullable(null));
-        when(user.findTransaction(ID_47)).thenReturn(Optional.of(transaction));
-        when(mainCategory.findSubCategory(any())).thenReturn(Optional.ofNullable(null));
-        when(mainCategory.findSubCategory(CANDY)).thenReturn(Optional.of(subCategory));
+        doReturn(true).when(instance).deleteTransaction(any(), anyLong());
+
+        doReturn(Optional.ofNullable(null)).when(instance).findAccount(any(User.class), any(String.class));
+        doReturn(Optional.of(account)).when(instance).findAccount(user, WALLET);
+        doReturn(Optional.ofNullable(null)).when(instance).findMainCategory(any(), any());
+        doReturn(Optional.of(mainCategory)).when(instance).findMainCategory(user, FOOD);
+        doReturn(Optional.ofNullable(null)).when(instance).findTransaction(any(), anyLong());
+        doReturn(Optional.of(transaction)).when(instance).findTransaction(user, ID_47);
+        doReturn(Optional.ofNullable(null)).when(instance).findSubCategory(any(), any());
+        doReturn(Optional.of(subCategory)).when(instance).findSubCategory(mainCategory, CANDY);
         when(transactionDTO.getId()).thenReturn(ID_47);
         when(transactionDTO.getMainCategoryName()).thenReturn(FOOD);
         when(transactionDTO.getSubCategoryName()).thenReturn(CANDY);
@@ -93,10 +105,54 @@ public class TransactionServiceTest {
     public void isEntityAddedToAccountWhenCreateTransactionIsCalled()
             throws AccountNotFoundException, CategoryNotFoundException {
 
-        instance.addTransaction(USERNAME, transactionDTO);
+        instance.addTransaction(USER_ID, transactionDTO);
         verify(account).addTransaction(transaction);
     }
 
+    /**
+     * Adding and removing a transaction should change the version of user data.
+     *
+     * @throws AccountNotFoundException
+     * @throws CategoryNotFoundException
+     * @throws TransactionNotFoundException
+     */
+    @Test
+    public void isUserVersionChangedWhenTransactionIsAddedOrRemoved()
+            throws AccountNotFoundException, CategoryNotFoundException, TransactionNotFoundException {
+
+        instance.addTransaction(USER_ID, transactionDTO);
+        instance.removeTransaction(USER_ID, ID_47);
+        verify(userVersions, times(2)).changed(USER_ID);
+    }
+
+    /**
+     * When create transaction is called, then dao should persist the entity.
+     *
+     * @throws AccountNotFoundException
+     * @throws CategoryNotFoundException
+     */
+    @Test
+    public void isEntityPersistedWhenCreateTransactionIsCalled()
+            throws AccountNotFoundException, CategoryNotFoundException {
+
+        instance.addTransaction(USER_ID, transactionDTO);
+        verify(instance.em).persist(transaction);
+    }
+
+    /**
+     * When create transaction is called, then dao should add it to monthly totals.
+     *
+     * @throws AccountNotFoundException
+     * @throws CategoryNotFoundException
+     */
+    @Test
+    public void isTransactionAddedToMonthlyTotalsWhenCreateTransactionIsCalled()
+            throws AccountNotFoundException, CategoryNotFoundException {
+
+        instance.addTransaction(USER_ID, transactionDTO);
+        verify(monthlyTotalsDao).add(transaction);
+    }
+
     /**
      * When create transaction is called, then service should add entity to category.
      *
@@ -107,7 +163,7 @@ public class TransactionServiceTest {
     public void isEntityAddedToCategoryWhenCreateTransactionIsCalled()
             throws AccountNotFoundException, CategoryNotFoundException {
 
-        instance.addTransaction(USERNAME, transactionDTO);
+        instance.addTransaction(USER_ID, transactionDTO);
         verify(subCategory).addTransaction(transaction);
     }
 
@@ -123,7 +179,7 @@ public class TransactionServiceTest {
             throws AccountNotFoundException, CategoryNotFoundException {
 
         when(transactionDTO.getAccountName()).thenReturn(NONEXISTENT);
-        instance.addTransaction(USERNAME, transactionDTO);
+        instance.addTransaction(USER_ID, transactionDTO);
     }
 
     /**
@@ -139,7 +195,7 @@ public class TransactionServiceTest {
 
         when(transactionDTO.getMainCategoryName()).thenReturn(NONEXISTENT);
         when(transactionDTO.getSubCategoryName()).thenReturn(CANDY);
-        instance.addTransaction(USERNAME, transactionDTO);
+        instance.addTransaction(USER_ID, transactionDTO);
     }
 
     /**
@@ -155,7 +211,7 @@ public class TransactionServiceTest {
 
         when(transactionDTO.getMainCategoryName()).thenReturn(FOOD);
         when(transactionDTO.getSubCategoryName()).thenReturn(NONEXISTENT);
-        instance.addTransaction(USERNAME, transactionDTO);
+        instance.addTransaction(USER_ID, transactionDTO);
     }
 
     /**
@@ -169,7 +225,7 @@ public class TransactionServiceTest {
     public void areTagsAddedToTransactionWhenCreateTransactionIsCalled()
             throws AccountNotFoundException, CategoryNotFoundException {
 
-        instance.addTransaction(USERNAME, transactionDTO);
+        instance.addTransaction(USER_ID, transactionDTO);
 
         verify(transaction).addTag(firstTag);
         verify(transaction).addTag(secondTag);
@@ -186,10 +242,30 @@ public class TransactionServiceTest {
     public void isUpdateTransactionMethodCalledwhenModifyTransaction()
             throws AccountNotFoundException, TransactionNotFoundException, CategoryNotFoundException {
 
-        instance.updateTransaction(USERNAME, transactionDTO);
+        instance.updateTransaction(USER_ID, transactionDTO);
         verify(instance).updateTransaction(transaction, transactionDTO);
     }
 
+    /**
+     * When modify transaction is called, then old values should be subtracted from monthly totals
+     * before update and new values should be added after it.
+     *
+     * @throws AccountNotFoundException
+     * @throws TransactionNotFoundException
+     * @throws CategoryNotFoundException
+     */
+    @Test
+    public void areMonthlyTotalsUpdatedWhenModifyTransactionIsCalled()
+            throws AccountNotFoundException, TransactionNotFoundException, CategoryNotFoundException {
+
+        instance.updateTransaction(USER_ID, transactionDTO);
+
+        InOrder inOrder = inOrder(monthlyTotalsDao, instance);
+        inOrder.verify(monthlyTotalsDao).subtract(transaction);
+        inOrder.verify(instance).updateTransaction(transaction, transactionDTO);
+        inOrder.verify(monthlyTotalsDao).add(transaction);
+    }
+
     /**
      * AccountNotFoundException should be thrown, when updating transaction to nonexistent account.
      *
@@ -202,7 +278,7 @@ public class TransactionServiceTest {
             throws AccountNotFoundException, TransactionNotFoundException, CategoryNotFoundException {
 
         when(transactionDTO.getAccountName()).thenReturn(NONEXISTENT);
-        instance.updateTransaction(USERNAME, transactionDTO);
+        instance.updateTransaction(USER_ID, transactionDTO);
     }
 
     /**
@@ -217,7 +293,7 @@ public class TransactionServiceTest {
     public void isExceptionThrownWhenUpdatingNonexistentTransaction()
             throws AccountNotFoundException, TransactionNotFoundException, CategoryNotFoundException {
         when(transactionDTO.getId()).thenReturn(-1L);
-        instance.updateTransaction(USERNAME, transactionDTO);
+        instance.updateTransaction(USER_ID, transactionDTO);
     }
 
     /**
@@ -231,7 +307,7 @@ public class TransactionServiceTest {
     public void isTransactionAddedToCategoryWhenModifyTransactionIsCalled()
             throws AccountNotFoundException, TransactionNotFoundException, CategoryNotFoundException {
 
-        instance.updateTransaction(USERNAME, transactionDTO);
+        instance.updateTransaction(USER_ID, transactionDTO);
         verify(subCategory).addTransaction(transaction);
     }
 
@@ -248,7 +324,7 @@ public class TransactionServiceTest {
             throws AccountNotFoundException, TransactionNotFoundException, CategoryNotFoundException {
 
         when(transactionDTO.getMainCategoryName()).thenReturn("nonexistent");
-        instance.updateTransaction(USERNAME, transactionDTO);
+        instance.updateTransaction(USER_ID, transactionDTO);
     }
 
     /**
@@ -264,7 +340,7 @@ public class TransactionServiceTest {
             throws AccountNotFoundException, TransactionNotFoundException, CategoryNotFoundException {
 
         when(transactionDTO.getSubCategoryName()).thenReturn("nonexistent");
-        instance.updateTransaction(USERNAME, transactionDTO);
+        instance.updateTransaction(USER_ID, transactionDTO);
     }
 
     /**
@@ -278,7 +354,7 @@ public class TransactionServiceTest {
     public void areAllOldTagsRemovedFromTransactionWhenItIsModified() 
             throws AccountNotFoundException, TransactionNotFoundException, CategoryNotFoundException {
         
-        instance.updateTransaction(USERNAME, transactionDTO);
+        instance.updateTransaction(USER_ID, transactionDTO);
         verify(transaction).clearTags();
     }
 
@@ -294,7 +370,7 @@ public class TransactionServiceTest {
             throws AccountNotFoundException, TransactionNotFoundException, CategoryNotFoundException {
         
         when(transaction.getTags()).thenReturn(mock(List.class));
-        instance.updateTransaction(USERNAME, transactionDTO);
+        instance.updateTransaction(USER_ID, transactionDTO);
 
         verify(transaction).addTag(firstTag);
         verify(transaction).addTag(secondTag);
@@ -303,15 +379,46 @@ public class TransactionServiceTest {
 //    TODO: Validate transactionDTO (hasCategoryPath, hasDescription, etc)
 
     /**
-     * When transaction is removed, then service should remove entity from an account.
+     * When transaction is removed, then service should delete it by the owner and id.
      * 
      * @throws pl.foltak.mybudget.server.dao.exception.TransactionNotFoundException
      */
     @Test
-    public void isEntityRemovedFromAccountWhenRemoveTransactionIsCalled() 
+    public void isEntityDeletedWhenRemoveTransactionIsCalled() 
             throws TransactionNotFoundException {
-        instance.removeTransaction(USERNAME, ID_47);
-        verify(user).removeTransaction(transaction);
+        instance.removeTransaction(USER_ID, ID_47);
+        verify(instance).deleteTransaction(user, ID_47);
+    }
+
+    /**
+     * When transaction is removed, then it should be subtracted from monthly totals.
+     *
+     * @throws pl.foltak.mybudget.server.dao.exception.TransactionNotFoundException
+     */
+    @Test
+    public void isTransactionSubtractedFromMonthlyTotalsWhenRemoveTransactionIsCalled()
+            throws TransactionNotFoundException {
+        instance.removeTransaction(USER_ID, ID_47);
+        verify(monthlyTotalsDao).subtract(transaction);
+    }
+
+    /**
+     * When the transaction was deleted by a concurrent remove, service should return 404 Not
+     * Found and leave monthly totals unchanged.
+     *
+     * @throws pl.foltak.mybudget.server.dao.exception.TransactionNotFoundException
+     */
+    @Test
+    public void isTransactionSubtractedOnlyByRemoveWhichDeletedIt()
+            throws TransactionNotFoundException {
+        doReturn(false).when(instance).deleteTransaction(user, ID_47);
+        try {
+            instance.removeTransaction(USER_ID, ID_47);
+            fail("Transaction should be reported as not found");
+        } catch (TransactionNotFoundException ex) {
+            verify(monthlyTotalsDao, never()).subtract(any());
+            verify(userVersions, never()).changed(anyLong());
+        }
     }
 
     /**
@@ -323,7 +430,7 @@ public class TransactionServiceTest {
     @Test(expected = TransactionNotFoundException.class)
     public void isNotFoundExceptionThrownWhenRemoveTransactionIsCalledButAccountDoesntExist() 
             throws TransactionNotFoundException {
-        instance.removeTransaction(USERNAME, 404L);
+        instance.removeTransaction(USER_ID, 404L);
     }
     
     @Test
@@ -332,15 +439,29 @@ public class TransactionServiceTest {
         dto.setAccountName(WALLET);
         dto.setMainCategoryName(FOOD);
         dto.setSubCategoryName(CANDY);
-        dto.setAmount(3.14);
+        dto.setAmount(new BigDecimal("3.14"));
         dto.setDescription("test");
         dto.setTransactionDate(new Date());
         
         Transaction entity = instance.convertTransaction(dto);
-        assertThat(entity.getAmount(), is(dto.getAmount()));
+        assertThat(entity.getAmount(), is(314L));
         assertThat(entity.getDescription(), is(dto.getDescription()));
         assertThat(entity.getTransactionDate(), is(dto.getTransactionDate()));
     }
 
-//    TODO: Get transactions by filters
+    /**
+     * Converting entity to dto should copy transaction fields.
+     */
+    @Test
+    public void testConvertingTransactionEntityToTransactionDto() {
+        Transaction entity = new Transaction();
+        entity.setAmount(314L);
+        entity.setDescription("test");
+        entity.setTransactionDate(new Date());
+
+        TransactionDTO dto = instance.convertTransaction(entity);
+        assertThat(dto.getAmount(), is(new BigDecimal("3.14")));
+        assertThat(dto.getDescription(), is(entity.getDescription()));
+        assertThat(dto.getTransactionDate(), is(entity.getTransactionDate()));
+    }
 }
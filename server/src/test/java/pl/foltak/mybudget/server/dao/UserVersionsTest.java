@@ -0,0 +1,107 @@
+package pl.foltak.mybudget.server.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import org.hibernate.Session;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.*;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Versions of users data against an embedded H2 database, the data_version column isn't mapped,
+ * so it's added to the schema created from entities.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class UserVersionsTest {
+
+    private static final String PERSISTENCE_UNIT = "pl.foltak.my-budget.test";
+    private static final long USER_ID = 1L;
+    private static final long OTHER_USER_ID = 2L;
+
+    private static EntityManagerFactory entityManagerFactory;
+
+    private UserVersions instance;
+    private EntityManager em;
+
+    @BeforeClass
+    public static void setUpClass() {
+        entityManagerFactory = Persistence.createEntityManagerFactory(PERSISTENCE_UNIT);
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        entityManagerFactory.close();
+    }
+
+    @Before
+    public void setUp() {
+        em = entityManagerFactory.createEntityManager();
+        em.getTransaction().begin();
+        em.unwrap(Session.class).doWork(UserVersionsTest::insertData);
+        em.getTransaction().commit();
+
+        instance = new UserVersions();
+        instance.em = em;
+    }
+
+    @After
+    public void tearDown() {
+        em.getTransaction().begin();
+        em.unwrap(Session.class).doWork(UserVersionsTest::deleteData);
+        em.getTransaction().commit();
+        em.close();
+    }
+
+    /**
+     * The version should change after the commit, only for given user.
+     */
+    @Test
+    public void isVersionChangedByCommit() {
+        final String before = instance.getVersion(USER_ID);
+        final String other = instance.getVersion(OTHER_USER_ID);
+
+        em.getTransaction().begin();
+        instance.changed(USER_ID);
+        em.getTransaction().commit();
+
+        assertFalse(before.equals(instance.getVersion(USER_ID)));
+        assertEquals(other, instance.getVersion(OTHER_USER_ID));
+    }
+
+    /**
+     * The version shouldn't change when the transaction which changed data is rolled back.
+     */
+    @Test
+    public void isVersionKeptAfterRollback() {
+        final String before = instance.getVersion(USER_ID);
+
+        em.getTransaction().begin();
+        instance.changed(USER_ID);
+        em.getTransaction().rollback();
+
+        assertEquals(before, instance.getVersion(USER_ID));
+    }
+
+    private static void insertData(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("ALTER TABLE users "
+                    + "ADD COLUMN IF NOT EXISTS data_version BIGINT DEFAULT 0 NOT NULL");
+            statement.executeUpdate("INSERT INTO users (id, username, passwordHash) "
+                    + "VALUES (1, 'alibaba', ''), (2, 'kasim', '')");
+        }
+    }
+
+    private static void deleteData(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("DELETE FROM users");
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package pl.foltak.mybudget.server.dto;
+
+import java.math.BigDecimal;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+
+/**
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class MoneyTest {
+
+    @Test
+    public void shouldParseDecimalAmountToMinorUnits() {
+        assertThat(Money.parse("12.5"), is(1250L));
+        assertThat(Money.parse("12.50"), is(1250L));
+        assertThat(Money.parse("7"), is(700L));
+        assertThat(Money.parse("-0.05"), is(-5L));
+        assertThat(Money.parse("0.10"), is(10L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectMoreThanTwoDecimalPlaces() {
+        Money.parse("1.234");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNotNumbers() {
+        Money.parse("abc");
+    }
+
+    @Test
+    public void shouldConvertDecimalAmountToMinorUnitsAndBack() {
+        assertThat(Money.toMinorUnits(new BigDecimal("12.5")), is(1250L));
+        assertThat(Money.toDecimal(1250L), is(new BigDecimal("12.50")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectMissingAmount() {
+        Money.toMinorUnits(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectFractionOfMinorUnit() {
+        Money.toMinorUnits(new BigDecimal("12.505"));
+    }
+
+    @Test
+    public void shouldFormatMinorUnitsAsDecimal() {
+        assertThat(Money.format(1250L), is("12.50"));
+        assertThat(Money.format(-5L), is("-0.05"));
+        assertThat(Money.format(0L), is("0.00"));
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void shouldDetectOverflow() {
+        Money.add(Long.MAX_VALUE, 1L);
+    }
+}
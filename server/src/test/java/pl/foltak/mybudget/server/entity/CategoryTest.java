@@ -126,4 +126,21 @@ public class CategoryTest {
         assertThat(name, equalTo(instance.getName()));
     }
 
+
+    /**
+     * The getSubCategories method should return a read-only copy of subcategories.
+     */
+    @Test
+    public void isReturnedReadOnlyCopyOfSubCategoriesWhenGetSubCategoriesIsCalled() {
+        instance.addSubCategory(subCategory);
+        List<Category> subCategories = instance.getSubCategories();
+
+        assertEquals(Arrays.asList(subCategory), subCategories);
+        try {
+            subCategories.add(new Category());
+            fail("Returned list should be read-only");
+        } catch (UnsupportedOperationException ex) {
+            // expected
+        }
+    }
 }
@@ -92,6 +92,14 @@ public class UserTest {
                 instance.getCategories());
     }
 
+    /**
+     * The getCategories method should return a list which can't be modified.
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void isReturnedCategoryListReadOnly() {
+        instance.getCategories().add(new Category());
+    }
+
     /**
      * The addAccount method should add account to the accounts list.
      */
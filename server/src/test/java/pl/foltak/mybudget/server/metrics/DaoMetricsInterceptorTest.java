@@ -0,0 +1,70 @@
+package pl.foltak.mybudget.server.metrics;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import javax.interceptor.InvocationContext;
+import static org.junit.Assert.*;
+import static org.junit.matchers.JUnitMatchers.containsString;
+import org.junit.Before;
+import org.junit.Test;
+import static org.mockito.Mockito.*;
+
+/**
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class DaoMetricsInterceptorTest {
+
+    private DaoMetricsInterceptor instance;
+    private Metrics metrics;
+    private InvocationContext context;
+
+    @Before
+    public void setUp() throws Exception {
+        metrics = spy(new Metrics());
+        context = mock(InvocationContext.class);
+        when(context.getMethod()).thenReturn(String.class.getMethod("trim"));
+        when(context.getTarget()).thenReturn("target");
+        instance = spy(new DaoMetricsInterceptor());
+        doReturn(metrics).when(instance).getMetrics();
+    }
+
+    /**
+     * The result of method should be returned and its time recorded.
+     */
+    @Test
+    public void isCallRecorded() throws Exception {
+        when(context.proceed()).thenReturn("result");
+
+        assertEquals("result", instance.measure(context));
+        instance.measure(context);
+
+        assertThat(write(), containsString(
+                "mybudget_dao_call_duration_seconds_count{dao=\"String\",method=\"trim\"} 2\n"));
+        verify(metrics, times(1)).getHistogram(any(LatencyMetric.class), anyVararg());
+    }
+
+    /**
+     * A call which throws an exception should be recorded too.
+     */
+    @Test
+    public void isFailedCallRecorded() throws Exception {
+        final IllegalStateException exception = new IllegalStateException();
+        when(context.proceed()).thenThrow(exception);
+
+        try {
+            instance.measure(context);
+            fail("The exception should be rethrown");
+        } catch (IllegalStateException ex) {
+            assertSame(exception, ex);
+        }
+
+        assertThat(write(), containsString("mybudget_dao_call_duration_seconds_count{"));
+    }
+
+    private String write() throws IOException {
+        final StringWriter writer = new StringWriter();
+        metrics.write(writer);
+        return writer.toString();
+    }
+}
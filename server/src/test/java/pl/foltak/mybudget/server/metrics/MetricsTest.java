@@ -0,0 +1,142 @@
+package pl.foltak.mybudget.server.metrics;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.*;
+import static org.junit.matchers.JUnitMatchers.containsString;
+import org.junit.Before;
+import org.junit.Test;
+import static org.mockito.Mockito.*;
+
+/**
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class MetricsTest {
+
+    private Metrics instance;
+    private MBeanServer mBeanServer;
+
+    @Before
+    public void setUp() throws Exception {
+        mBeanServer = mock(MBeanServer.class);
+        instance = spy(new Metrics());
+        doReturn(mBeanServer).when(instance).getMBeanServer();
+        when(mBeanServer.getAttributes(any(ObjectName.class), any(String[].class)))
+                .thenThrow(new InstanceNotFoundException());
+    }
+
+    /**
+     * The same metric and labels should give the same histogram.
+     */
+    @Test
+    public void isHistogramCreatedOnce() {
+        assertSame(instance.getHistogram(LatencyMetric.DAO_CALL, "method", "getAccounts"),
+                instance.getHistogram(LatencyMetric.DAO_CALL, "method", "getAccounts"));
+        assertNotSame(instance.getHistogram(LatencyMetric.DAO_CALL, "method", "getAccounts"),
+                instance.getHistogram(LatencyMetric.DAO_CALL, "method", "getTags"));
+    }
+
+    /**
+     * Buckets should be cumulative, the count should equal the +Inf bucket and the sum should be
+     * in seconds.
+     */
+    @Test
+    public void isHistogramWrittenInPrometheusFormat() throws IOException {
+        final LatencyHistogram histogram = instance.getHistogram(LatencyMetric.HTTP_REQUEST,
+                "resource", "AccountService", "method", "getAccounts");
+        histogram.record(TimeUnit.MICROSECONDS.toNanos(300));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(1));
+        histogram.record(TimeUnit.SECONDS.toNanos(20));
+
+        final String metrics = write();
+
+        final String labels = "resource=\"AccountService\",method=\"getAccounts\"";
+        assertThat(metrics, containsString(
+                "# TYPE mybudget_http_request_duration_seconds histogram\n"));
+        assertThat(metrics, containsString(
+                "mybudget_http_request_duration_seconds_bucket{" + labels + ",le=\"0.00025\"} 0\n"));
+        assertThat(metrics, containsString(
+                "mybudget_http_request_duration_seconds_bucket{" + labels + ",le=\"0.0005\"} 1\n"));
+        assertThat(metrics, containsString(
+                "mybudget_http_request_duration_seconds_bucket{" + labels + ",le=\"0.001\"} 2\n"));
+        assertThat(metrics, containsString(
+                "mybudget_http_request_duration_seconds_bucket{" + labels + ",le=\"10\"} 2\n"));
+        assertThat(metrics, containsString(
+                "mybudget_http_request_duration_seconds_bucket{" + labels + ",le=\"+Inf\"} 3\n"));
+        assertThat(metrics, containsString(
+                "mybudget_http_request_duration_seconds_sum{" + labels + "} 20.0013\n"));
+        assertThat(metrics, containsString(
+                "mybudget_http_request_duration_seconds_count{" + labels + "} 3\n"));
+        assertThat(metrics, not(containsString("mybudget_dao_call_duration_seconds")));
+    }
+
+    /**
+     * A histogram without labels shouldn't have empty braces.
+     */
+    @Test
+    public void isHistogramWithoutLabelsWritten() throws IOException {
+        instance.getHistogram(LatencyMetric.PASSWORD_CHECK).record(1);
+
+        final String metrics = write();
+
+        assertThat(metrics, containsString(
+                "mybudget_password_check_duration_seconds_bucket{le=\"0.0001\"} 1\n"));
+        assertThat(metrics, containsString("mybudget_password_check_duration_seconds_count 1\n"));
+    }
+
+    /**
+     * Quotes in values of labels should be escaped.
+     */
+    @Test
+    public void areLabelValuesEscaped() throws IOException {
+        instance.getHistogram(LatencyMetric.DAO_CALL, "method", "a\"b").record(1);
+
+        assertThat(write(), containsString("method=\"a\\\"b\""));
+    }
+
+    /**
+     * Statistics of the connection pool should be written when the datasource provides them.
+     */
+    @Test
+    public void arePoolStatisticsWritten() throws Exception {
+        final AttributeList attributes = new AttributeList();
+        attributes.add(new Attribute("ActiveCount", 3));
+        attributes.add(new Attribute("WaitCount", 12L));
+        attributes.add(new Attribute("TotalBlockingTime", 1500L));
+        doReturn(attributes).when(mBeanServer).getAttributes(
+                new ObjectName(String.format(Metrics.POOL_STATISTICS, "mybudgetDS")),
+                Metrics.POOL_ATTRIBUTES);
+
+        final String metrics = write();
+
+        assertThat(metrics, containsString(
+                "mybudget_datasource_active_connections{data_source=\"mybudgetDS\"} 3.0\n"));
+        assertThat(metrics, containsString(
+                "mybudget_datasource_waits_total{data_source=\"mybudgetDS\"} 12.0\n"));
+        assertThat(metrics, containsString(
+                "mybudget_datasource_wait_seconds_total{data_source=\"mybudgetDS\"} 1.5\n"));
+        assertThat(metrics, not(containsString("mybudget_datasource_max_wait_seconds")));
+    }
+
+    /**
+     * Metrics should be written without pool statistics when the datasource isn't available.
+     */
+    @Test
+    public void arePoolStatisticsSkippedWhenDataSourceIsMissing() throws IOException {
+        assertThat(write(), not(containsString("mybudget_datasource")));
+    }
+
+    private String write() throws IOException {
+        final StringWriter writer = new StringWriter();
+        instance.write(writer);
+        return writer.toString();
+    }
+}
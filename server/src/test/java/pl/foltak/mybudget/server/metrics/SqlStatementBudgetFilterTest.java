@@ -0,0 +1,85 @@
+package pl.foltak.mybudget.server.metrics;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.Mockito.*;
+
+/**
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class SqlStatementBudgetFilterTest {
+
+    private static final String SELECT_REPORT = "select sum(amount) from monthly_totals";
+
+    private SqlStatementBudgetFilter instance;
+    private HttpServletRequest request;
+    private ServletResponse response;
+    private FilterChain chain;
+    private AtomicReference<SqlStatementRecording> recording;
+
+    @Before
+    public void setUp() throws IOException, ServletException {
+        instance = new SqlStatementBudgetFilter();
+        request = mock(HttpServletRequest.class);
+        response = mock(ServletResponse.class);
+        chain = mock(FilterChain.class);
+        recording = new AtomicReference<>();
+
+        when(request.getMethod()).thenReturn("GET");
+        when(request.getRequestURI()).thenReturn("/report");
+        doAnswer(invocation -> {
+            recording.set(SqlStatementRecording.current());
+            SqlStatementRecording.record(SELECT_REPORT);
+            return null;
+        }).when(chain).doFilter(request, response);
+    }
+
+    /**
+     * The recording should be closed when the request is handled.
+     */
+    @Test
+    public void isRecordingClosedWhenRequestIsHandled() throws IOException, ServletException {
+        instance.doFilter(request, response, chain);
+
+        assertThat(recording.get().getCount(), is(1));
+        assertTrue(recording.get().isClosed());
+        assertNull(SqlStatementRecording.current());
+    }
+
+    /**
+     * The recording of a suspended request should be closed when the response is complete and
+     * count statements of the operation which resumes the request.
+     */
+    @Test
+    public void isRecordingOfSuspendedRequestClosedWhenResponseIsComplete()
+            throws IOException, ServletException {
+
+        final AsyncContext asyncContext = mock(AsyncContext.class);
+        when(request.isAsyncStarted()).thenReturn(true);
+        when(request.getAsyncContext()).thenReturn(asyncContext);
+
+        instance.doFilter(request, response, chain);
+        assertFalse(recording.get().isClosed());
+        assertNull(SqlStatementRecording.current());
+
+        recording.get().wrap(() -> SqlStatementRecording.record(SELECT_REPORT)).run();
+        final ArgumentCaptor<AsyncListener> listener = ArgumentCaptor.forClass(AsyncListener.class);
+        verify(asyncContext).addListener(listener.capture());
+        listener.getValue().onComplete(null);
+
+        assertThat(recording.get().getCount(), is(2));
+        assertTrue(recording.get().isClosed());
+    }
+}
@@ -0,0 +1,124 @@
+package pl.foltak.mybudget.server.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+import static org.junit.matchers.JUnitMatchers.containsString;
+import org.junit.Rule;
+import org.junit.Test;
+
+/**
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class SqlStatementRecordingTest {
+
+    private static final String SELECT_ACCOUNTS = "select * from accounts where user_id=?";
+    private static final String SELECT_TRANSACTIONS
+            = "select count(id) from transactions where account_id=?";
+
+    @Rule
+    public final SqlStatementRule statements = new SqlStatementRule();
+
+    private final SqlStatementInterceptor interceptor = new SqlStatementInterceptor();
+
+    /**
+     * Every prepared statement should be counted and its SQL returned unchanged.
+     */
+    @Test
+    public void areStatementsCounted() {
+        assertThat(interceptor.onPrepareStatement(SELECT_ACCOUNTS), is(SELECT_ACCOUNTS));
+        interceptor.onPrepareStatement(SELECT_TRANSACTIONS);
+        interceptor.onPrepareStatement(SELECT_TRANSACTIONS);
+
+        final Map<String, Integer> expected = new LinkedHashMap<>();
+        expected.put(SELECT_ACCOUNTS, 1);
+        expected.put(SELECT_TRANSACTIONS, 2);
+        assertThat(statements.getStatements(), is(expected));
+        statements.assertCount(3);
+        statements.assertCount(0);
+    }
+
+    /**
+     * A nested recording should hide the outer one until it's closed.
+     */
+    @Test
+    public void isNestedRecordingSeparate() {
+        try (SqlStatementRecording nested = SqlStatementRecording.start("nested")) {
+            interceptor.onPrepareStatement(SELECT_ACCOUNTS);
+            assertThat(SqlStatementRecording.current(), is(nested));
+            assertThat(nested.getCount(), is(1));
+        }
+        interceptor.onPrepareStatement(SELECT_ACCOUNTS);
+
+        statements.assertCount(1);
+    }
+
+    /**
+     * A recording detached from its thread should still record statements of wrapped tasks run by
+     * other threads, until it's closed.
+     *
+     * @throws InterruptedException
+     */
+    @Test
+    public void isRecordingContinuedByWrappedTask() throws InterruptedException {
+        final SqlStatementRecording recording = SqlStatementRecording.start("GET /report");
+        interceptor.onPrepareStatement(SELECT_ACCOUNTS);
+        recording.detach();
+        interceptor.onPrepareStatement(SELECT_ACCOUNTS);
+
+        final Thread thread = new Thread(recording.wrap(() -> {
+            interceptor.onPrepareStatement(SELECT_TRANSACTIONS);
+            assertThat(SqlStatementRecording.current(), is(recording));
+        }));
+        thread.start();
+        thread.join();
+        assertFalse(recording.isClosed());
+        recording.close();
+
+        assertThat(recording.getCount(), is(2));
+        assertTrue(recording.isClosed());
+        statements.assertCount(1);
+    }
+
+    /**
+     * Repeated statements should be described with the call site of the first repetition.
+     */
+    @Test
+    public void isCallSiteOfRepeatedStatementDescribed() {
+        final SqlStatementRecording recording = SqlStatementRecording.start("GET /accounts", 1);
+        try {
+            interceptor.onPrepareStatement(SELECT_ACCOUNTS);
+            interceptor.onPrepareStatement(SELECT_TRANSACTIONS);
+            interceptor.onPrepareStatement(SELECT_TRANSACTIONS);
+        } finally {
+            recording.close();
+        }
+
+        final String description = recording.describe();
+        assertThat(description, containsString(
+                "GET /accounts prepared 3 SQL statements, the budget is 1:\n"
+                + "  2 x " + SELECT_TRANSACTIONS + "\n    at "));
+        assertThat(description, containsString("  1 x " + SELECT_ACCOUNTS));
+    }
+
+    /**
+     * The call site should consist of frames of the application outside of this package.
+     */
+    @Test
+    public void isCallSiteFoundInApplicationFrames() {
+        final StackTraceElement[] stackTrace = {
+            new StackTraceElement("org.hibernate.Loader", "load", "Loader.java", 1),
+            new StackTraceElement(SqlStatementInterceptor.class.getName(), "onPrepareStatement",
+            "SqlStatementInterceptor.java", 2),
+            new StackTraceElement("pl.foltak.mybudget.server.entity.Account", "getTransactions",
+            "Account.java", 3),
+            new StackTraceElement("pl.foltak.mybudget.server.dao.MyBudgetDao", "removeAccount",
+            "MyBudgetDao.java", 4)};
+
+        assertThat(SqlStatementRecording.findCallSite(stackTrace), is(
+                "pl.foltak.mybudget.server.entity.Account.getTransactions(Account.java:3) < "
+                + "pl.foltak.mybudget.server.dao.MyBudgetDao.removeAccount(MyBudgetDao.java:4)"));
+    }
+}
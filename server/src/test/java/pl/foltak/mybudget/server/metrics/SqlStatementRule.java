@@ -0,0 +1,91 @@
+package pl.foltak.mybudget.server.metrics;
+
+import java.util.Map;
+import static org.junit.Assert.assertEquals;
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+/**
+ * Records SQL statements prepared by Hibernate during a test, so a test can assert how many
+ * statements an operation runs. The persistence unit of test has to register
+ * {@link SqlStatementInterceptor}. Statements of the setup can be forgotten with {@link #reset()}:
+ *
+ * <pre>
+ * &#64;Rule
+ * public final SqlStatementRule statements = new SqlStatementRule();
+ *
+ * &#64;Test
+ * public void shouldReadAccountsInOneQuery() {
+ *     statements.reset();
+ *     dao.getAccounts(USER_ID);
+ *     statements.assertCount(1);
+ * }
+ * </pre>
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class SqlStatementRule implements TestRule {
+
+    private SqlStatementRecording recording;
+
+    @Override
+    public Statement apply(Statement base, Description description) {
+        return new Statement() {
+
+            @Override
+            public void evaluate() throws Throwable {
+                try (SqlStatementRecording started = SqlStatementRecording.start(
+                        description.getDisplayName(), Integer.MAX_VALUE)) {
+                    recording = started;
+                    base.evaluate();
+                } finally {
+                    recording = null;
+                }
+            }
+        };
+    }
+
+    /**
+     * Forgets statements recorded so far.
+     */
+    public void reset() {
+        getRecording().reset();
+    }
+
+    /**
+     * Returns the number of statements recorded since the start of test or the last reset.
+     *
+     * @return the number of statements
+     */
+    public int getCount() {
+        return getRecording().getCount();
+    }
+
+    /**
+     * Returns numbers of statements recorded since the start of test or the last reset.
+     *
+     * @return numbers of statements by their SQL
+     */
+    public Map<String, Integer> getStatements() {
+        return getRecording().getStatements();
+    }
+
+    /**
+     * Checks the number of statements recorded since the start of test or the last reset and
+     * forgets them, so the next operation can be checked.
+     *
+     * @param expected the expected number of statements
+     */
+    public void assertCount(int expected) {
+        assertEquals("SQL statements: " + getStatements(), expected, getCount());
+        reset();
+    }
+
+    private SqlStatementRecording getRecording() {
+        if (recording == null) {
+            throw new IllegalStateException("Statements are recorded only during a test");
+        }
+        return recording;
+    }
+}
@@ -14,6 +14,7 @@ import pl.foltak.mybudget.server.dao.MyBudgetDaoLocal;
 import pl.foltak.mybudget.server.dao.exception.AccountAlreadyExistsException;
 import pl.foltak.mybudget.server.dao.exception.AccountCantBeRemovedException;
 import pl.foltak.mybudget.server.dao.exception.AccountNotFoundException;
+import pl.foltak.mybudget.server.dto.AccountDTO;
 import pl.foltak.mybudget.server.entity.Account;
 import pl.foltak.mybudget.server.rest.exception.ConflictException;
 
@@ -25,7 +26,7 @@ public class AccountServiceTest {
 
     private static final String WALLET = "wallet";
     private static final String BANK = "bank";
-    private static final String USERNAME = "alibaba";
+    private static final long USER_ID = 7L;
     private static final String NONEXISTENT = "nonexistent";
 
     private AccountService instance;
@@ -41,7 +42,7 @@ public class AccountServiceTest {
         walletAccount = mock(Account.class);
         bankAccount = mock(Account.class);
 
-        doReturn(USERNAME).when(instance).getUsername();
+        doReturn(USER_ID).when(instance).getUserId();
         doReturn(dao).when(instance).getDao();
         
         when(bankAccount.getName()).thenReturn(BANK);
@@ -75,7 +76,7 @@ public class AccountServiceTest {
     public void isServiceAddAccountToUserWhenAccountIsCreated() 
             throws AccountAlreadyExistsException {
         instance.createAccount(bankAccount);
-        verify(dao).addAccount(USERNAME, bankAccount);
+        verify(dao).addAccount(USER_ID, bankAccount);
     }
 
     /**
@@ -88,7 +89,7 @@ public class AccountServiceTest {
     public void isConflictExceptionThrownWhenTryToCreateAccountThatAlreadyExists() 
             throws AccountAlreadyExistsException {
         doThrow(AccountAlreadyExistsException.class).when(dao)
-                .addAccount(USERNAME, walletAccount);
+                .addAccount(USER_ID, walletAccount);
         instance.createAccount(walletAccount);
     }
 
@@ -112,7 +113,7 @@ public class AccountServiceTest {
             throws AccountAlreadyExistsException, AccountNotFoundException {
         
         instance.modifyAccount(WALLET, bankAccount);
-        verify(dao).updateAccount(USERNAME, WALLET, bankAccount);
+        verify(dao).updateAccount(USER_ID, WALLET, bankAccount);
     }
 
     /**
@@ -127,7 +128,7 @@ public class AccountServiceTest {
             throws AccountAlreadyExistsException, AccountNotFoundException {
         
         doThrow(AccountNotFoundException.class).when(dao)
-                .updateAccount(USERNAME, NONEXISTENT, walletAccount);
+                .updateAccount(USER_ID, NONEXISTENT, walletAccount);
         
         instance.modifyAccount(NONEXISTENT, walletAccount);
     }
@@ -144,7 +145,7 @@ public class AccountServiceTest {
             throws AccountAlreadyExistsException, AccountNotFoundException {
         
         doThrow(AccountAlreadyExistsException.class).when(dao)
-                .updateAccount(USERNAME, WALLET, walletAccount);
+                .updateAccount(USER_ID, WALLET, walletAccount);
         
         instance.modifyAccount(WALLET, walletAccount);
     }
@@ -169,7 +170,7 @@ public class AccountServiceTest {
             throws AccountNotFoundException, AccountCantBeRemovedException {
         
         instance.removeAccount(12L);
-        verify(dao).removeAccount(USERNAME, 12L);
+        verify(dao).removeAccount(USER_ID, 12L);
     }
 
     /**
@@ -183,7 +184,7 @@ public class AccountServiceTest {
             throws AccountNotFoundException, AccountCantBeRemovedException {
         
         doThrow(AccountNotFoundException.class).when(dao)
-                .removeAccount(USERNAME, 13L);
+                .removeAccount(USER_ID, 13L);
         
         instance.removeAccount(13L);
     }
@@ -200,7 +201,7 @@ public class AccountServiceTest {
             throws AccountNotFoundException, AccountCantBeRemovedException {
         
         doThrow(AccountCantBeRemovedException.class).when(dao)
-                .removeAccount(USERNAME, 12L);
+                .removeAccount(USER_ID, 12L);
         
         instance.removeAccount(12L);
     }
@@ -219,11 +220,11 @@ public class AccountServiceTest {
      */
     @Test
     public void doesServiceReturnListOfAccountsWhenGetAccountsIsCalled() {
-        List<Account> accounts = new LinkedList<>();
-        accounts.add(bankAccount);
-        accounts.add(walletAccount);
-        when(dao.getAccounts(USERNAME)).thenReturn(accounts);
-        List<Account> result = (List<Account>) instance.getAccounts().getEntity();
+        List<AccountDTO> accounts = new LinkedList<>();
+        accounts.add(new AccountDTO(1L, "bank"));
+        accounts.add(new AccountDTO(2L, "wallet"));
+        when(dao.getAccounts(USER_ID)).thenReturn(accounts);
+        List<AccountDTO> result = (List<AccountDTO>) instance.getAccounts().getEntity();
         assertEquals("Incorrect account list", accounts, result);
     }
 }
@@ -0,0 +1,97 @@
+package pl.foltak.mybudget.server.rest;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+import javax.servlet.ServletRequest;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.Mockito.*;
+
+/**
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class BulkheadFilterTest {
+
+    private BulkheadFilter instance;
+    private Bulkheads bulkheads;
+    private ResourceInfo resourceInfo;
+    private ServletRequest servletRequest;
+    private ContainerRequestContext requestContext;
+
+    @Before
+    public void setUp() {
+        bulkheads = mock(Bulkheads.class);
+        resourceInfo = mock(ResourceInfo.class);
+        servletRequest = mock(ServletRequest.class);
+        requestContext = mock(ContainerRequestContext.class);
+        instance = spy(new BulkheadFilter());
+
+        doReturn(bulkheads).when(instance).getBulkheads();
+        doReturn(resourceInfo).when(instance).getResourceInfo();
+        doReturn(servletRequest).when(instance).getServletRequest();
+    }
+
+    /**
+     * The permit should be kept in the request, so it's released when the request ends.
+     */
+    @Test
+    public void isPermitStoredInRequest() throws IOException {
+        final Bulkheads.Permit permit = new Bulkheads.Permit(new Semaphore(0));
+        doReturn(Optional.of(permit)).when(bulkheads).acquire(BulkheadGroup.INTERACTIVE);
+        mockResource(AccountService.class, "getAccounts");
+
+        instance.filter(requestContext);
+
+        verify(servletRequest).setAttribute(BulkheadFilter.PERMIT_ATTRIBUTE, permit);
+        verify(requestContext, never()).abortWith(any(Response.class));
+    }
+
+    /**
+     * A request without a permit should get 503 with Retry-After.
+     */
+    @Test
+    public void isServiceUnavailableReturnedWhenRequestIsShed() throws IOException {
+        doReturn(Optional.empty()).when(bulkheads).acquire(BulkheadGroup.ANALYTICAL);
+        mockResource(ReportService.class, "getReport");
+
+        instance.filter(requestContext);
+
+        final ArgumentCaptor<Response> response = ArgumentCaptor.forClass(Response.class);
+        verify(requestContext).abortWith(response.capture());
+        assertEquals(503, response.getValue().getStatus());
+        assertEquals(BulkheadFilter.RETRY_AFTER_SECONDS,
+                response.getValue().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        verifyZeroInteractions(servletRequest);
+    }
+
+    /**
+     * The group should be taken from the method, then from the class, INTERACTIVE by default.
+     */
+    @Test
+    public void isGroupTakenFromAnnotations() {
+        mockResource(TransactionService.class, "exportTransactions");
+        assertEquals(BulkheadGroup.ANALYTICAL, BulkheadFilter.getGroup(resourceInfo));
+
+        mockResource(TransactionService.class, "getTransactions");
+        assertEquals(BulkheadGroup.INTERACTIVE, BulkheadFilter.getGroup(resourceInfo));
+
+        mockResource(ReportService.class, "getReport");
+        assertEquals(BulkheadGroup.ANALYTICAL, BulkheadFilter.getGroup(resourceInfo));
+    }
+
+    private void mockResource(Class<?> resource, String method) {
+        doReturn(resource).when(resourceInfo).getResourceClass();
+        doReturn(Arrays.stream(resource.getMethods())
+                .filter(candidate -> candidate.getName().equals(method))
+                .findFirst().get()).when(resourceInfo).getResourceMethod();
+    }
+}
@@ -0,0 +1,107 @@
+package pl.foltak.mybudget.server.rest;
+
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import pl.foltak.mybudget.server.dto.BulkheadStatisticsDTO;
+
+/**
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class BulkheadsTest {
+
+    /**
+     * Permits up to the limit should be given at once, the next request should be shed when the
+     * queue is empty.
+     */
+    @Test
+    public void isRequestShedWhenLimitIsReached() {
+        final Bulkheads instance = new Bulkheads(2, 0, 0);
+
+        assertTrue(instance.acquire(BulkheadGroup.ANALYTICAL).isPresent());
+        assertTrue(instance.acquire(BulkheadGroup.ANALYTICAL).isPresent());
+        assertFalse(instance.acquire(BulkheadGroup.ANALYTICAL).isPresent());
+
+        final BulkheadStatisticsDTO statistics = getStatistics(instance, BulkheadGroup.ANALYTICAL);
+        assertThat(statistics.getActiveCount(), is(2));
+        assertThat(statistics.getShedCount(), is(1L));
+    }
+
+    /**
+     * A full group shouldn't limit other groups.
+     */
+    @Test
+    public void areGroupsIndependent() {
+        final Bulkheads instance = new Bulkheads(1, 0, 0);
+
+        assertTrue(instance.acquire(BulkheadGroup.ANALYTICAL).isPresent());
+
+        assertTrue(instance.acquire(BulkheadGroup.INTERACTIVE).isPresent());
+    }
+
+    /**
+     * A released permit should be given to the next request, releasing it again shouldn't add a
+     * permit.
+     */
+    @Test
+    public void isPermitReleasedOnce() {
+        final Bulkheads instance = new Bulkheads(1, 0, 0);
+        final Bulkheads.Permit permit = instance.acquire(BulkheadGroup.INTERACTIVE).get();
+
+        permit.release();
+        permit.release();
+
+        assertTrue(instance.acquire(BulkheadGroup.INTERACTIVE).isPresent());
+        assertFalse(instance.acquire(BulkheadGroup.INTERACTIVE).isPresent());
+    }
+
+    /**
+     * A queued request should get the permit released while it waits.
+     */
+    @Test
+    public void doesQueuedRequestGetReleasedPermit() throws InterruptedException {
+        final Bulkheads instance = new Bulkheads(1, 1, TimeUnit.SECONDS.toMillis(30));
+        final Bulkheads.Permit permit = instance.acquire(BulkheadGroup.INTERACTIVE).get();
+        final CountDownLatch acquired = new CountDownLatch(1);
+        final Thread waiting = new Thread(() -> {
+            if (instance.acquire(BulkheadGroup.INTERACTIVE).isPresent()) {
+                acquired.countDown();
+            }
+        });
+        waiting.start();
+        while (getStatistics(instance, BulkheadGroup.INTERACTIVE).getWaitingCount() == 0) {
+            Thread.sleep(10);
+        }
+
+        // the queue is full
+        assertFalse(instance.acquire(BulkheadGroup.INTERACTIVE).isPresent());
+        permit.release();
+
+        assertTrue(acquired.await(30, TimeUnit.SECONDS));
+        waiting.join();
+    }
+
+    /**
+     * A request which waits longer than the configured time should be shed.
+     */
+    @Test
+    public void isRequestShedAfterWaitTime() {
+        final Bulkheads instance = new Bulkheads(1, 1, 10);
+        instance.acquire(BulkheadGroup.INTERACTIVE);
+
+        final Optional<Bulkheads.Permit> permit = instance.acquire(BulkheadGroup.INTERACTIVE);
+
+        assertFalse(permit.isPresent());
+        assertThat(getStatistics(instance, BulkheadGroup.INTERACTIVE).getWaitingCount(), is(0));
+    }
+
+    private static BulkheadStatisticsDTO getStatistics(Bulkheads instance, BulkheadGroup group) {
+        return instance.getStatistics().stream()
+                .filter(statistics -> statistics.getGroup().equals(group.name()))
+                .findFirst().get();
+    }
+}
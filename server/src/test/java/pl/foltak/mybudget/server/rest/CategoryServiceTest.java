@@ -13,6 +13,7 @@ import static org.mockito.Mockito.*;
 import pl.foltak.mybudget.server.dao.MyBudgetDaoLocal;
 import pl.foltak.mybudget.server.dao.exception.CategoryCantBeRemovedException;
 import pl.foltak.mybudget.server.dao.exception.CategoryNotFoundException;
+import pl.foltak.mybudget.server.dto.CategoryDTO;
 import pl.foltak.mybudget.server.entity.Category;
 import pl.foltak.mybudget.server.rest.exception.ConflictException;
 
@@ -25,7 +26,7 @@ public class CategoryServiceTest {
     private static final String FOOD = "food";
     private static final String CANDY = "candy";
     private static final String HOUSE = "house";
-    private static final String USERNAME = "alibaba";
+    private static final long USER_ID = 7L;
     private static final String NONEXISTENT = "nonexistent";
 
     private CategoryService instance;
@@ -43,7 +44,7 @@ public class CategoryServiceTest {
         subCategory = mock(Category.class);
         houseCategory = mock(Category.class);
 
-        doReturn(USERNAME).when(instance).getUsername();
+        doReturn(USER_ID).when(instance).getUserId();
         doReturn(dao).when(instance).getDao();
         
         when(houseCategory.getName()).thenReturn(HOUSE);
@@ -77,7 +78,7 @@ public class CategoryServiceTest {
     public void isMyBudgetDaoCalledWhenAddingMainCategory()
             throws CategoryAlreadyExistsException {
         instance.addMainCategory(houseCategory);
-        verify(dao).addMainCategory(USERNAME, houseCategory);
+        verify(dao).addMainCategory(USER_ID, houseCategory);
     }
 
     /**
@@ -90,7 +91,7 @@ public class CategoryServiceTest {
     public void isConflictExceptionThrownWhenAddingExistingMainCategory()
             throws CategoryAlreadyExistsException {
         doThrow(CategoryAlreadyExistsException.class).when(dao)
-                .addMainCategory(USERNAME, mainCategory);
+                .addMainCategory(USER_ID, mainCategory);
         instance.addMainCategory(mainCategory);
     }
 
@@ -115,7 +116,7 @@ public class CategoryServiceTest {
             throws CategoryNotFoundException, CategoryCantBeRemovedException {
 
         instance.removeMainCategory(FOOD);
-        verify(dao).removeMainCategory(USERNAME, FOOD);
+        verify(dao).removeMainCategory(USER_ID, FOOD);
     }
 
     /**
@@ -129,7 +130,7 @@ public class CategoryServiceTest {
             throws CategoryNotFoundException, CategoryCantBeRemovedException {
 
         doThrow(CategoryNotFoundException.class).when(dao)
-                .removeMainCategory(USERNAME, NONEXISTENT);
+                .removeMainCategory(USER_ID, NONEXISTENT);
         instance.removeMainCategory(NONEXISTENT);
     }
 
@@ -145,7 +146,7 @@ public class CategoryServiceTest {
             throws CategoryNotFoundException, CategoryCantBeRemovedException {
 
         doThrow(CategoryCantBeRemovedException.class).when(dao)
-                .removeMainCategory(USERNAME, FOOD);
+                .removeMainCategory(USER_ID, FOOD);
 
         instance.removeMainCategory(FOOD);
     }
@@ -161,7 +162,7 @@ public class CategoryServiceTest {
             throws CategoryNotFoundException, CategoryAlreadyExistsException {
         
         instance.editMainCategory(FOOD, houseCategory);
-        verify(dao).updateMainCategory(USERNAME, FOOD, houseCategory);
+        verify(dao).updateMainCategory(USER_ID, FOOD, houseCategory);
     }
 
     /**
@@ -185,7 +186,7 @@ public class CategoryServiceTest {
             throws CategoryNotFoundException, CategoryAlreadyExistsException {
 
         doThrow(CategoryNotFoundException.class).when(dao)
-                .updateMainCategory(any(), any(), any());
+                .updateMainCategory(anyLong(), any(), any());
         instance.editMainCategory(NONEXISTENT, subCategory);
     }
 
@@ -200,7 +201,7 @@ public class CategoryServiceTest {
             throws CategoryNotFoundException, CategoryAlreadyExistsException {
 
         instance.addSubCategory(FOOD, houseCategory);
-        verify(dao).addSubCategory(USERNAME, FOOD, houseCategory);
+        verify(dao).addSubCategory(USER_ID, FOOD, houseCategory);
     }
 
     /**
@@ -233,7 +234,7 @@ public class CategoryServiceTest {
             throws CategoryNotFoundException, CategoryAlreadyExistsException {
 
         doThrow(CategoryNotFoundException.class).when(dao)
-                .addSubCategory(any(), any(), any());
+                .addSubCategory(anyLong(), any(), any());
         instance.addSubCategory(NONEXISTENT, houseCategory);
     }
 
@@ -248,7 +249,7 @@ public class CategoryServiceTest {
             throws CategoryNotFoundException, CategoryAlreadyExistsException {
 
         doThrow(CategoryAlreadyExistsException.class).when(dao)
-                .addSubCategory(any(), any(), any());
+                .addSubCategory(anyLong(), any(), any());
         instance.addSubCategory(FOOD, subCategory);
     }
 
@@ -263,7 +264,7 @@ public class CategoryServiceTest {
             throws CategoryNotFoundException, CategoryCantBeRemovedException {
 
         instance.removeSubCategory(FOOD, CANDY);
-        verify(dao).removeSubCategory(USERNAME, FOOD, CANDY);
+        verify(dao).removeSubCategory(USER_ID, FOOD, CANDY);
     }
 
     /**
@@ -286,7 +287,7 @@ public class CategoryServiceTest {
             throws CategoryNotFoundException, CategoryCantBeRemovedException {
 
         doThrow(CategoryNotFoundException.class).when(dao)
-                .removeSubCategory(any(), any(), any());
+                .removeSubCategory(anyLong(), any(), any());
         instance.removeSubCategory(NONEXISTENT, CANDY);
     }
 
@@ -301,7 +302,7 @@ public class CategoryServiceTest {
             throws CategoryNotFoundException, CategoryCantBeRemovedException {
 
         doThrow(CategoryCantBeRemovedException.class).when(dao)
-                .removeSubCategory(any(), any(), any());
+                .removeSubCategory(anyLong(), any(), any());
         instance.removeSubCategory(FOOD, CANDY);
     }
 
@@ -325,7 +326,7 @@ public class CategoryServiceTest {
             throws CategoryNotFoundException, CategoryAlreadyExistsException {
         
         instance.editSubCategory(FOOD, CANDY, houseCategory);
-        verify(dao).updateSubCategory(USERNAME, FOOD, CANDY, houseCategory);
+        verify(dao).updateSubCategory(USER_ID, FOOD, CANDY, houseCategory);
     }
 
     /**
@@ -339,7 +340,7 @@ public class CategoryServiceTest {
             throws CategoryNotFoundException, CategoryAlreadyExistsException {
 
         doThrow(CategoryNotFoundException.class).when(dao)
-                .updateSubCategory(any(), any(), any(), any());
+                .updateSubCategory(anyLong(), any(), any(), any());
         instance.editSubCategory(NONEXISTENT, CANDY, houseCategory);
     }
 
@@ -354,7 +355,7 @@ public class CategoryServiceTest {
             throws CategoryNotFoundException, CategoryAlreadyExistsException {
         
         doThrow(CategoryAlreadyExistsException.class).when(dao)
-                .updateSubCategory(any(), any(), any(), any());
+                .updateSubCategory(anyLong(), any(), any(), any());
         instance.editSubCategory(FOOD, CANDY, subCategory);
     }
 
@@ -372,9 +373,9 @@ public class CategoryServiceTest {
      */
     @Test
     public void isCategoriesListReturnedWhenGettingAllCategories() {
-        List<Category> categories = mock(List.class);
-        when(dao.getAllCategories(USERNAME)).thenReturn(categories);
-        List<Category> result = (List<Category>) instance.getAllCategories().getEntity();
+        List<CategoryDTO> categories = mock(List.class);
+        when(dao.getAllCategories(USER_ID)).thenReturn(categories);
+        List<CategoryDTO> result = (List<CategoryDTO>) instance.getAllCategories().getEntity();
         assertEquals("List of categories it's not equals", categories, result);
     }
 
@@ -395,9 +396,9 @@ public class CategoryServiceTest {
     @Test
     public void isSubCategoriesListReturnedWhenGettingSubCategories() 
             throws CategoryNotFoundException {
-        List<Category> categories = mock(List.class);
-        when(dao.getSubCategories(USERNAME, FOOD)).thenReturn(categories);
-        List<Category> result = (List<Category>) instance.getSubcategories(FOOD).getEntity();
+        List<CategoryDTO> categories = mock(List.class);
+        when(dao.getSubCategories(USER_ID, FOOD)).thenReturn(categories);
+        List<CategoryDTO> result = (List<CategoryDTO>) instance.getSubcategories(FOOD).getEntity();
         assertEquals("List of categories it's not equals", categories, result);
     }
 
@@ -411,7 +412,7 @@ public class CategoryServiceTest {
             throws CategoryNotFoundException {
         
         doThrow(CategoryNotFoundException.class).when(dao)
-                .getSubCategories(any(), any());
+                .getSubCategories(anyLong(), any());
         instance.getSubcategories(NONEXISTENT);
     }
 
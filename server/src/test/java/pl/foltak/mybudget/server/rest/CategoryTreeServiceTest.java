@@ -0,0 +1,46 @@
+package pl.foltak.mybudget.server.rest;
+
+import java.util.Arrays;
+import java.util.List;
+import javax.ws.rs.core.Response;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+import pl.foltak.mybudget.server.dao.MyBudgetDaoLocal;
+import pl.foltak.mybudget.server.dto.CategoryNodeDTO;
+
+/**
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class CategoryTreeServiceTest {
+
+    private static final long USER_ID = 7L;
+
+    private CategoryTreeService instance;
+    private MyBudgetDaoLocal dao;
+
+    @Before
+    public void setUp() {
+        dao = mock(MyBudgetDaoLocal.class);
+        instance = spy(new CategoryTreeService());
+
+        doReturn(dao).when(instance).getDao();
+        doReturn(USER_ID).when(instance).getUserId();
+    }
+
+    /**
+     * The tree read by the DAO should be returned, with totals if they are requested.
+     */
+    @Test
+    public void isTreeReturned() {
+        final List<CategoryNodeDTO> tree = Arrays.asList(new CategoryNodeDTO("food"));
+        when(dao.getCategoryTree(USER_ID, true)).thenReturn(tree);
+
+        Response response = instance.getCategoryTree(true);
+
+        assertEquals(200, response.getStatus());
+        assertSame(tree, response.getEntity());
+    }
+}
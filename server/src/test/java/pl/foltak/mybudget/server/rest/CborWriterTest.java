@@ -0,0 +1,72 @@
+package pl.foltak.mybudget.server.rest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Date;
+import javax.ws.rs.core.MediaType;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+import pl.foltak.mybudget.server.dto.TagDTO;
+
+/**
+ * Expected values come from the examples in appendix A of RFC 7049.
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class CborWriterTest {
+
+    private final CborWriter instance = new CborWriter();
+
+    @Test
+    public void areIntegersWritten() throws IOException {
+        assertThat(write(0), is("00"));
+        assertThat(write(23), is("17"));
+        assertThat(write(24), is("1818"));
+        assertThat(write(1000), is("1903e8"));
+        assertThat(write(1000000L), is("1a000f4240"));
+        assertThat(write(1000000000000L), is("1b000000e8d4a51000"));
+        assertThat(write(-1), is("20"));
+        assertThat(write(-1000L), is("3903e7"));
+    }
+
+    @Test
+    public void areSimpleValuesWritten() throws IOException {
+        assertThat(write(null), is("f6"));
+        assertThat(write(true), is("f5"));
+        assertThat(write(false), is("f4"));
+        assertThat(write(1.5), is("fb3ff8000000000000"));
+    }
+
+    @Test
+    public void areTextsAndArraysWritten() throws IOException {
+        assertThat(write(""), is("60"));
+        assertThat(write("a"), is("6161"));
+        assertThat(write("\u00fc"), is("62c3bc"));
+        assertThat(write(Arrays.asList(1, 2, 3)), is("83010203"));
+        assertThat(write(new int[]{1, 2}), is("820102"));
+    }
+
+    /**
+     * Beans should be written as maps of their properties and dates as milliseconds, as in JSON.
+     *
+     * @throws IOException never
+     */
+    @Test
+    public void areBeansAndDatesWritten() throws IOException {
+        assertThat(write(new TagDTO("x")), is("a1646e616d656178"));
+        assertThat(write(new Date(1000)), is("1903e8"));
+    }
+
+    private String write(Object entity) throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        instance.writeTo(entity, Object.class, Object.class, null,
+                MediaType.valueOf(CborWriter.APPLICATION_CBOR), null, output);
+        final StringBuilder hex = new StringBuilder();
+        for (byte b : output.toByteArray()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,135 @@
+package pl.foltak.mybudget.server.rest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class CompressionInterceptorTest {
+
+    private static final int THRESHOLD = 100;
+
+    private CompressionInterceptor instance;
+    private HttpHeaders requestHeaders;
+    private WriterInterceptorContext context;
+    private MultivaluedMap<String, Object> headers;
+    private ByteArrayOutputStream body;
+    private byte[] payload;
+
+    @Before
+    public void setUp() throws IOException {
+        instance = spy(new CompressionInterceptor());
+        requestHeaders = mock(HttpHeaders.class);
+        context = mock(WriterInterceptorContext.class);
+        headers = new MultivaluedHashMap<>();
+        body = new ByteArrayOutputStream();
+        final OutputStream[] output = {body};
+
+        doReturn(requestHeaders).when(instance).getRequestHeaders();
+        doReturn(THRESHOLD).when(instance).getThreshold();
+        when(context.getHeaders()).thenReturn(headers);
+        when(context.getOutputStream()).thenAnswer(invocation -> output[0]);
+        doAnswer(invocation -> output[0] = (OutputStream) invocation.getArguments()[0])
+                .when(context).setOutputStream(any(OutputStream.class));
+        doAnswer(invocation -> {
+            output[0].write(payload);
+            output[0].flush();
+            return null;
+        }).when(context).proceed();
+    }
+
+    @Test
+    public void isEncodingNegotiated() {
+        assertNull(CompressionInterceptor.negotiate(null));
+        assertNull(CompressionInterceptor.negotiate("identity"));
+        assertNull(CompressionInterceptor.negotiate("*;q=0"));
+        assertEquals("gzip", CompressionInterceptor.negotiate("deflate, gzip"));
+        assertEquals("gzip", CompressionInterceptor.negotiate("*"));
+        assertEquals("deflate", CompressionInterceptor.negotiate("gzip;q=0, deflate"));
+        assertEquals("deflate", CompressionInterceptor.negotiate("gzip;q=0.5, deflate;q=0.8"));
+    }
+
+    @Test
+    public void isLargeResponseCompressedWithGzip() throws IOException {
+        payload = payload(THRESHOLD * 10);
+        when(requestHeaders.getHeaderString(HttpHeaders.ACCEPT_ENCODING)).thenReturn("gzip");
+
+        instance.aroundWriteTo(context);
+
+        assertEquals("gzip", headers.getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, headers.getFirst(HttpHeaders.VARY));
+        assertTrue(body.size() < payload.length);
+        assertArrayEquals(payload, read(new GZIPInputStream(
+                new ByteArrayInputStream(body.toByteArray()))));
+    }
+
+    @Test
+    public void isLargeResponseCompressedWithDeflate() throws IOException {
+        payload = payload(THRESHOLD * 10);
+        when(requestHeaders.getHeaderString(HttpHeaders.ACCEPT_ENCODING)).thenReturn("deflate");
+
+        instance.aroundWriteTo(context);
+
+        assertEquals("deflate", headers.getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertArrayEquals(payload, read(new InflaterInputStream(
+                new ByteArrayInputStream(body.toByteArray()))));
+    }
+
+    /**
+     * A response below the threshold should be sent as it is, even if gzip is accepted.
+     *
+     * @throws IOException never
+     */
+    @Test
+    public void isSmallResponseNotCompressed() throws IOException {
+        payload = payload(THRESHOLD);
+        when(requestHeaders.getHeaderString(HttpHeaders.ACCEPT_ENCODING)).thenReturn("gzip");
+
+        instance.aroundWriteTo(context);
+
+        assertFalse(headers.containsKey(HttpHeaders.CONTENT_ENCODING));
+        assertArrayEquals(payload, body.toByteArray());
+    }
+
+    @Test
+    public void isResponseNotCompressedWhenNotAccepted() throws IOException {
+        payload = payload(THRESHOLD * 10);
+
+        instance.aroundWriteTo(context);
+
+        assertFalse(headers.containsKey(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, headers.getFirst(HttpHeaders.VARY));
+        assertArrayEquals(payload, body.toByteArray());
+    }
+
+    private static byte[] payload(int length) {
+        final byte[] payload = new byte[length];
+        Arrays.fill(payload, (byte) 'a');
+        return payload;
+    }
+
+    private static byte[] read(InputStream input) throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[1024];
+        for (int read = input.read(buffer); read > 0; read = input.read(buffer)) {
+            output.write(buffer, 0, read);
+        }
+        return output.toByteArray();
+    }
+}
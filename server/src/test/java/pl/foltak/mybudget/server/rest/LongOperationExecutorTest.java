@@ -0,0 +1,143 @@
+package pl.foltak.mybudget.server.rest;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.ServiceUnavailableException;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.HttpHeaders;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.Mockito.*;
+import pl.foltak.mybudget.server.dto.ExecutorStatisticsDTO;
+import pl.foltak.mybudget.server.metrics.SqlStatementRecording;
+
+/**
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class LongOperationExecutorTest {
+
+    private static final long TIMEOUT = 30;
+
+    private LongOperationExecutor instance;
+    private ExecutorService executorService;
+    private CountDownLatch release;
+
+    @Before
+    public void setUp() {
+        executorService = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(1));
+        instance = spy(new LongOperationExecutor(TIMEOUT));
+        doReturn(executorService).when(instance).getExecutorService();
+        release = new CountDownLatch(1);
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        executorService.shutdownNow();
+    }
+
+    /**
+     * The request should be resumed with the result of operation and get the configured timeout.
+     */
+    @Test
+    public void isRequestResumedWithResult() {
+        final AsyncResponse asyncResponse = mock(AsyncResponse.class);
+
+        instance.execute(asyncResponse, () -> "report");
+
+        verify(asyncResponse).setTimeout(TIMEOUT, TimeUnit.SECONDS);
+        verify(asyncResponse, timeout(1000)).resume("report");
+    }
+
+    /**
+     * The recording of request should be closed by the operation which resumed the request, the
+     * filter may add its listener after the response is complete.
+     */
+    @Test
+    public void isRecordingClosedWhenRequestIsResumed() throws InterruptedException {
+        final AsyncResponse asyncResponse = mock(AsyncResponse.class);
+        when(asyncResponse.isDone()).thenReturn(false, true);
+        final SqlStatementRecording recording = SqlStatementRecording.start("GET /export");
+
+        instance.execute(asyncResponse, () -> "report");
+        recording.detach();
+        executorService.shutdown();
+        executorService.awaitTermination(1, TimeUnit.SECONDS);
+
+        verify(asyncResponse).resume("report");
+        assertTrue(recording.isClosed());
+    }
+
+    /**
+     * An exception thrown by the operation should be passed to the request, so it's mapped like
+     * an exception thrown by a resource method.
+     */
+    @Test
+    public void isRequestResumedWithException() {
+        final AsyncResponse asyncResponse = mock(AsyncResponse.class);
+        final IllegalStateException exception = new IllegalStateException();
+
+        instance.execute(asyncResponse, () -> {
+            throw exception;
+        });
+
+        verify(asyncResponse, timeout(1000)).resume(exception);
+    }
+
+    /**
+     * A request rejected by the executor should get 503 with Retry-After at once.
+     */
+    @Test
+    public void isRequestRejectedByExecutor() throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        instance.execute(mock(AsyncResponse.class), () -> {
+            started.countDown();
+            return release.await(TIMEOUT, TimeUnit.SECONDS);
+        });
+        assertTrue(started.await(TIMEOUT, TimeUnit.SECONDS));
+        instance.execute(mock(AsyncResponse.class), () -> "queued");
+        final AsyncResponse rejected = mock(AsyncResponse.class);
+
+        instance.execute(rejected, () -> "rejected");
+
+        final ArgumentCaptor<Throwable> response = ArgumentCaptor.forClass(Throwable.class);
+        verify(rejected).resume(response.capture());
+        assertTrue(response.getValue() instanceof ServiceUnavailableException);
+        assertEquals(String.valueOf(LongOperationExecutor.RETRY_AFTER_SECONDS),
+                ((ServiceUnavailableException) response.getValue()).getResponse()
+                .getHeaderString(HttpHeaders.RETRY_AFTER));
+        final ExecutorStatisticsDTO statistics = instance.getStatistics();
+        assertEquals(1, statistics.getActiveCount());
+        assertEquals(1, statistics.getQueueDepth());
+        assertEquals(1, statistics.getRejectedCount());
+        assertEquals(0, statistics.getCompletedCount());
+    }
+
+    /**
+     * An operation of request which timed out while it was waiting in the queue shouldn't run.
+     */
+    @Test
+    public void isOperationOfExpiredRequestSkipped() {
+        final AsyncResponse asyncResponse = mock(AsyncResponse.class);
+        when(asyncResponse.isDone()).thenReturn(true);
+
+        final AsyncResponse next = mock(AsyncResponse.class);
+
+        instance.execute(asyncResponse, () -> "report");
+        instance.execute(next, () -> "next");
+
+        // there is one thread, so the first operation was handled before the next one
+        verify(next, timeout(1000)).resume("next");
+        verify(asyncResponse, never()).resume(any(Object.class));
+        verify(asyncResponse, never()).resume(any(Throwable.class));
+        assertEquals(1, instance.getStatistics().getExpiredCount());
+    }
+}
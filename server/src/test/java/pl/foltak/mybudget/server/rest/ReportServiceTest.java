@@ -0,0 +1,101 @@
+package pl.foltak.mybudget.server.rest;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.Response;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+import org.mockito.ArgumentCaptor;
+import pl.foltak.mybudget.server.dao.MyBudgetDaoLocal;
+import pl.foltak.mybudget.server.dto.ReportDimension;
+import pl.foltak.mybudget.server.dto.ReportFilter;
+import pl.foltak.mybudget.server.dto.ReportRowDTO;
+
+/**
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class ReportServiceTest {
+
+    private static final long USER_ID = 7L;
+
+    private ReportService instance;
+    private MyBudgetDaoLocal dao;
+    private LongOperationExecutor executor;
+    private AsyncResponse asyncResponse;
+
+    @Before
+    public void setUp() {
+        dao = mock(MyBudgetDaoLocal.class);
+        executor = mock(LongOperationExecutor.class);
+        asyncResponse = mock(AsyncResponse.class);
+        instance = spy(new ReportService());
+
+        doReturn(dao).when(instance).getDao();
+        doReturn(USER_ID).when(instance).getUserId();
+        doReturn(executor).when(instance).getExecutor();
+        doAnswer(invocation -> {
+            final Callable<?> operation = (Callable<?>) invocation.getArguments()[1];
+            asyncResponse.resume(operation.call());
+            return null;
+        }).when(executor).execute(same(asyncResponse), any(Callable.class));
+    }
+
+    /**
+     * Method getReport should pass parsed dimensions and criteria to MyBudgetDao.
+     */
+    @Test
+    public void isFilterPassedToDao() {
+        final List<ReportRowDTO> report = Arrays.asList(new ReportRowDTO());
+        when(dao.getReport(eq(USER_ID), any(ReportFilter.class))).thenReturn(report);
+
+        instance.getReport("mainCategory, month", "wallet", "2015-01-01", null, asyncResponse);
+
+        ArgumentCaptor<ReportFilter> filter = ArgumentCaptor.forClass(ReportFilter.class);
+        verify(dao).getReport(eq(USER_ID), filter.capture());
+        assertEquals(EnumSet.of(ReportDimension.MAIN_CATEGORY, ReportDimension.MONTH),
+                filter.getValue().getDimensions());
+        assertEquals("wallet", filter.getValue().getAccountName());
+        assertEquals(java.sql.Date.valueOf("2015-01-01"), filter.getValue().getDateFrom());
+        assertNull(filter.getValue().getDateTo());
+        ArgumentCaptor<Response> response = ArgumentCaptor.forClass(Response.class);
+        verify(asyncResponse).resume(response.capture());
+        assertEquals(200, response.getValue().getStatus());
+        assertSame(report, response.getValue().getEntity());
+    }
+
+    /**
+     * Method getReport should throw BadRequestException when dimension is unknown.
+     */
+    @Test(expected = BadRequestException.class)
+    public void isBadRequestThrownWhenDimensionIsUnknown() {
+        instance.getReport("week", null, null, null, asyncResponse);
+    }
+
+    /**
+     * Method getReport should throw BadRequestException when date is incorrect.
+     */
+    @Test(expected = BadRequestException.class)
+    public void isBadRequestThrownWhenDateIsIncorrect() {
+        instance.getReport(null, null, "01.01.2015", null, asyncResponse);
+    }
+
+    /**
+     * Invalid parameters should be rejected before anything is submitted to the executor.
+     */
+    @Test
+    public void isNothingSubmittedWhenParametersAreInvalid() {
+        try {
+            instance.getReport("week", null, null, null, asyncResponse);
+            fail("BadRequestException expected");
+        } catch (BadRequestException ex) {
+            verifyZeroInteractions(executor, dao);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package pl.foltak.mybudget.server.rest;
+
+import javax.ws.rs.ForbiddenException;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.SecurityContext;
+import static org.junit.Assert.*;
+import org.junit.Before;
+import org.junit.Test;
+import static org.mockito.Mockito.*;
+import pl.foltak.mybudget.server.dto.TokenDTO;
+import pl.foltak.mybudget.server.security.AuthenticationFilter;
+import pl.foltak.mybudget.server.security.TokenManager;
+import pl.foltak.mybudget.server.security.UserPrincipal;
+
+/**
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class SessionServiceTest {
+
+    private static final UserPrincipal PRINCIPAL = new UserPrincipal(7L, "alibaba");
+    private static final String TOKEN = "token";
+    private static final long EXPIRES_AT = 1000L;
+
+    private SessionService instance;
+    private TokenManager tokenManager;
+    private SecurityContext securityContext;
+
+    @Before
+    public void setUp() {
+        instance = spy(new SessionService());
+        tokenManager = mock(TokenManager.class);
+        securityContext = mock(SecurityContext.class);
+
+        doReturn(PRINCIPAL).when(instance).getUserPrincipal();
+        doReturn(tokenManager).when(instance).getTokenManager();
+        doReturn(securityContext).when(instance).getSecurityContext();
+
+        when(securityContext.getAuthenticationScheme())
+                .thenReturn(AuthenticationFilter.PASSWORD_SCHEME);
+        when(tokenManager.getExpirationTime()).thenReturn(EXPIRES_AT);
+        when(tokenManager.issue(PRINCIPAL, EXPIRES_AT)).thenReturn(TOKEN);
+    }
+
+    /**
+     * When session is created, service should return 201 Created with the token.
+     */
+    @Test
+    public void isTokenReturnedWhenSessionIsCreated() {
+        Response response = instance.createSession();
+        assertEquals("Incorrect status code", 201, response.getStatus());
+        assertEquals("Incorrect token", TOKEN, ((TokenDTO) response.getEntity()).getToken());
+        assertEquals("Incorrect expiration time", EXPIRES_AT,
+                ((TokenDTO) response.getEntity()).getExpiresAt().getTime());
+    }
+
+    /**
+     * When request was authenticated with a token, service shouldn't issue another one.
+     */
+    @Test(expected = ForbiddenException.class)
+    public void isForbiddenExceptionThrownWhenAuthenticatedWithToken() {
+        when(securityContext.getAuthenticationScheme())
+                .thenReturn(AuthenticationFilter.TOKEN_SCHEME);
+        instance.createSession();
+    }
+}
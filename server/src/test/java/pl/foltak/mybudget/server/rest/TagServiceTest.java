@@ -7,7 +7,7 @@ import org.junit.Before;
 import org.junit.Test;
 import static org.mockito.Mockito.*;
 import pl.foltak.mybudget.server.dao.MyBudgetDaoLocal;
-import pl.foltak.mybudget.server.entity.Tag;
+import pl.foltak.mybudget.server.dto.TagDTO;
 
 /**
  *
@@ -15,7 +15,7 @@ import pl.foltak.mybudget.server.entity.Tag;
  */
 public class TagServiceTest {
     
-    private static final String USERNAME = "alibaba";
+    private static final long USER_ID = 7L;
 
     private TagService instance;
     private MyBudgetDaoLocal dao;
@@ -25,7 +25,7 @@ public class TagServiceTest {
         instance = spy(new TagService());
         dao = mock(MyBudgetDaoLocal.class);
 
-        doReturn(USERNAME).when(instance).getUsername();
+        doReturn(USER_ID).when(instance).getUserId();
         doReturn(dao).when(instance).getDao();
     }
 
@@ -43,12 +43,12 @@ public class TagServiceTest {
      */
     @Test
     public void doesServiceReturnListOfTagsWhenGetTagsIsCalled() {
-        List<Tag> tags = new LinkedList<>();
-        tags.add(mock(Tag.class));
-        tags.add(mock(Tag.class));
-        when(dao.getTags(USERNAME)).thenReturn(tags);
+        List<TagDTO> tags = new LinkedList<>();
+        tags.add(new TagDTO("holiday"));
+        tags.add(new TagDTO("work"));
+        when(dao.getTags(USER_ID)).thenReturn(tags);
 
-        List<Tag> result = (List<Tag>) instance.getTags().getEntity();
+        List<TagDTO> result = (List<TagDTO>) instance.getTags().getEntity();
         assertEquals("Incorrect list of tags", tags, result);
     }
 
@@ -0,0 +1,111 @@
+package pl.foltak.mybudget.server.rest;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import org.junit.Before;
+import org.junit.Test;
+import pl.foltak.mybudget.server.dto.ImportErrorDTO;
+import pl.foltak.mybudget.server.dto.TransactionDTO;
+
+/**
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class TransactionCsvParserTest {
+
+    private static final String HEADER = "date,account,mainCategory,subCategory,amount,description,tags\n";
+
+    private TransactionCsvParser instance;
+    private List<ImportErrorDTO> errors;
+
+    @Before
+    public void setUp() {
+        instance = new TransactionCsvParser();
+        errors = new LinkedList<>();
+    }
+
+    @Test
+    public void shouldParseTransactions() throws IOException {
+        final List<TransactionDTO> transactions = parse(HEADER
+                + "2015-03-17,wallet,food,candy,12.5,\"Candies, lollipops\",sweet;weekend\n");
+
+        assertThat(transactions.size(), is(1));
+        final TransactionDTO transaction = transactions.get(0);
+        assertThat(transaction.getTransactionDate(), is(java.sql.Date.valueOf("2015-03-17")));
+        assertThat(transaction.getAccountName(), is("wallet"));
+        assertThat(transaction.getMainCategoryName(), is("food"));
+        assertThat(transaction.getSubCategoryName(), is("candy"));
+        assertThat(transaction.getAmount(), is(new BigDecimal("12.50")));
+        assertThat(transaction.getDescription(), is("Candies, lollipops"));
+        assertThat(transaction.getTags(), is(Arrays.asList("sweet", "weekend")));
+        assertThat(errors.isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldAllowColumnsInAnyOrderWithoutOptionalOnes() throws IOException {
+        final List<TransactionDTO> transactions
+                = parse("amount,subCategory,mainCategory,account,date\n7,candy,food,wallet,2015-03-17\n");
+
+        assertThat(transactions.get(0).getAmount(), is(new BigDecimal("7.00")));
+        assertThat(transactions.get(0).getDescription(), is(nullValue()));
+        assertThat(transactions.get(0).getTags().isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldReportMalformedLinesAndKeepRowNumbers() throws IOException {
+        final List<TransactionDTO> transactions = parse(HEADER
+                + "2015-03-17,wallet,food,candy,1.234,,\n"
+                + "17.03.2015,wallet,food,candy,1,,\n"
+                + "2015-03-17,wallet,food,candy,1,,\n");
+
+        assertThat(transactions.size(), is(3));
+        assertThat(transactions.get(0), is(nullValue()));
+        assertThat(transactions.get(1), is(nullValue()));
+        assertThat(errors.size(), is(2));
+        assertThat(errors.get(0).getRow(), is(1));
+        assertThat(errors.get(1).getRow(), is(2));
+    }
+
+    @Test
+    public void shouldParseQuotedValuesWithLineBreaks() throws IOException {
+        final List<TransactionDTO> transactions = parse(HEADER
+                + "2015-03-17,wallet,food,candy,1,\"Candies,\nlollipops\n\"\"sweet\"\"\",\n"
+                + "2015-03-18,wallet,food,candy,2,cake,\n");
+
+        assertThat(transactions.size(), is(2));
+        assertThat(transactions.get(0).getDescription(), is("Candies,\nlollipops\n\"sweet\""));
+        assertThat(transactions.get(1).getDescription(), is("cake"));
+        assertThat(errors.isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldReportUnterminatedQuotedValue() throws IOException {
+        final List<TransactionDTO> transactions = parse(HEADER
+                + "2015-03-17,wallet,food,candy,1,\"Candies,\nlollipops,\n");
+
+        assertThat(transactions.size(), is(1));
+        assertThat(transactions.get(0), is(nullValue()));
+        assertThat(errors.get(0).getRow(), is(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenRequiredColumnIsMissing() throws IOException {
+        parse("date,account,amount\n2015-03-17,wallet,1\n");
+    }
+
+    @Test
+    public void shouldSplitQuotedValues() {
+        assertThat(TransactionCsvParser.split("a,\"b,\"\"c\"\"\",d"), is(Arrays.asList("a", "b,\"c\"", "d")));
+    }
+
+    private List<TransactionDTO> parse(String csv) throws IOException {
+        return instance.parse(new StringReader(csv), errors);
+    }
+}
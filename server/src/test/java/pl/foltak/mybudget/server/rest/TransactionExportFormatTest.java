@@ -0,0 +1,105 @@
+package pl.foltak.mybudget.server.rest;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.function.Consumer;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+import pl.foltak.mybudget.server.dto.ImportErrorDTO;
+import pl.foltak.mybudget.server.dto.Money;
+import pl.foltak.mybudget.server.dto.TransactionDTO;
+
+/**
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class TransactionExportFormatTest {
+
+    @Test
+    public void shouldFindFormatByName() {
+        assertThat(TransactionExportFormat.of("csv"), is(TransactionExportFormat.CSV));
+        assertThat(TransactionExportFormat.of("jsonl"), is(TransactionExportFormat.JSON_LINES));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionForUnknownFormat() {
+        TransactionExportFormat.of("xls");
+    }
+
+    @Test
+    public void shouldWriteCsvWithHeader() throws IOException {
+        final StringWriter writer = new StringWriter();
+        final Consumer<TransactionDTO> consumer = TransactionExportFormat.CSV.createWriter(writer);
+
+        consumer.accept(transaction("Candies, \"sweet\"", 1250L, "sweet", "weekend"));
+        consumer.accept(transaction(null, -5L));
+
+        assertThat(writer.toString(),
+                is("date,account,mainCategory,subCategory,amount,description,tags\n"
+                        + "2015-03-17,wallet,food,candy,12.50,\"Candies, \"\"sweet\"\"\",sweet;weekend\n"
+                        + "2015-03-17,wallet,food,candy,-0.05,,\n"));
+    }
+
+    @Test
+    public void shouldWriteEmptyDateOfUndatedTransaction() throws IOException {
+        final StringWriter writer = new StringWriter();
+        final TransactionDTO transaction = transaction("Gift", 500L);
+        transaction.setTransactionDate(null);
+
+        TransactionExportFormat.CSV.createWriter(writer).accept(transaction);
+
+        assertThat(writer.toString().split("\n")[1], is(",wallet,food,candy,5.00,Gift,"));
+    }
+
+    @Test
+    public void shouldWriteCsvWhichCanBeImported() throws IOException {
+        final StringWriter writer = new StringWriter();
+        TransactionExportFormat.CSV.createWriter(writer)
+                .accept(transaction("Candies, \"sweet\"", 1250L, "sweet", "weekend"));
+        final List<ImportErrorDTO> errors = new LinkedList<>();
+
+        final List<TransactionDTO> transactions
+                = new TransactionCsvParser().parse(new StringReader(writer.toString()), errors);
+
+        assertThat(errors.isEmpty(), is(true));
+        assertThat(transactions.get(0).getDescription(), is("Candies, \"sweet\""));
+        assertThat(transactions.get(0).getTags(), is(Arrays.asList("sweet", "weekend")));
+        assertThat(transactions.get(0).getAmount(), is(new BigDecimal("12.50")));
+    }
+
+    @Test
+    public void shouldImportExportedCsvWithLineBreaksInDescription() throws IOException {
+        final StringWriter writer = new StringWriter();
+        final Consumer<TransactionDTO> consumer = TransactionExportFormat.CSV.createWriter(writer);
+        consumer.accept(transaction("Candies,\nlollipops", 1250L, "sweet"));
+        consumer.accept(transaction("Cake", 500L));
+        final List<ImportErrorDTO> errors = new LinkedList<>();
+
+        final List<TransactionDTO> transactions
+                = new TransactionCsvParser().parse(new StringReader(writer.toString()), errors);
+
+        assertThat(errors.isEmpty(), is(true));
+        assertThat(transactions.size(), is(2));
+        assertThat(transactions.get(0).getDescription(), is("Candies,\nlollipops"));
+        assertThat(transactions.get(0).getTags(), is(Arrays.asList("sweet")));
+        assertThat(transactions.get(1).getDescription(), is("Cake"));
+    }
+
+    private static TransactionDTO transaction(String description, long amount, String... tags) {
+        final TransactionDTO transaction = new TransactionDTO();
+        transaction.setTransactionDate(java.sql.Date.valueOf("2015-03-17"));
+        transaction.setAccountName("wallet");
+        transaction.setMainCategoryName("food");
+        transaction.setSubCategoryName("candy");
+        transaction.setDescription(description);
+        transaction.setAmount(Money.toDecimal(amount));
+        transaction.setTags(Arrays.asList(tags));
+        return transaction;
+    }
+}
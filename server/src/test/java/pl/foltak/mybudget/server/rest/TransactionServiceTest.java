@@ -1,17 +1,24 @@
 package pl.foltak.mybudget.server.rest;
 
+import java.math.BigDecimal;
 import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+import javax.ws.rs.BadRequestException;
 import javax.ws.rs.NotFoundException;
 import javax.ws.rs.core.Response;
 import org.junit.Before;
 import org.junit.Test;
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
+import org.mockito.ArgumentCaptor;
 import pl.foltak.mybudget.server.dao.MyBudgetDaoLocal;
 import pl.foltak.mybudget.server.dao.exception.AccountNotFoundException;
 import pl.foltak.mybudget.server.dao.exception.CategoryNotFoundException;
 import pl.foltak.mybudget.server.dao.exception.TransactionNotFoundException;
 import pl.foltak.mybudget.server.dto.TransactionDTO;
+import pl.foltak.mybudget.server.dto.TransactionFilter;
+import pl.foltak.mybudget.server.dto.TransactionPageDTO;
 import pl.foltak.mybudget.server.entity.Transaction;
 
 /**
@@ -22,7 +29,7 @@ public class TransactionServiceTest {
 
     private static final long ID_47 = 47L;
     private static final String WALLET = "wallet";
-    private static final String USERNAME = "alibaba";
+    private static final long USER_ID = 7L;
     private static final String NONEXISTENT = "nonexistent";
 
     private TransactionService instance;
@@ -39,9 +46,10 @@ public class TransactionServiceTest {
         transactionDTO = mock(TransactionDTO.class);
 
         doReturn(dao).when(instance).getDao();
-        doReturn(USERNAME).when(instance).getUsername();
+        doReturn(USER_ID).when(instance).getUserId();
 
         when(transactionDTO.getId()).thenReturn(ID_47);
+        when(transactionDTO.getAmount()).thenReturn(new BigDecimal("12.50"));
     }
 
     /**
@@ -75,7 +83,7 @@ public class TransactionServiceTest {
             throws AccountNotFoundException, CategoryNotFoundException {
         
         instance.createTransaction(WALLET, transactionDTO);
-        verify(dao).addTransaction(USERNAME, transactionDTO);
+        verify(dao).addTransaction(USER_ID, transactionDTO);
     }
 
     /**
@@ -90,7 +98,7 @@ public class TransactionServiceTest {
             throws AccountNotFoundException, CategoryNotFoundException {
 
         doThrow(AccountNotFoundException.class).when(dao)
-                .addTransaction(any(), any());
+                .addTransaction(anyLong(), any());
         instance.createTransaction(NONEXISTENT, transactionDTO);
     }
 
@@ -105,7 +113,7 @@ public class TransactionServiceTest {
             throws AccountNotFoundException, CategoryNotFoundException {
         
         doThrow(CategoryNotFoundException.class).when(dao)
-                .addTransaction(any(), any());
+                .addTransaction(anyLong(), any());
         instance.createTransaction(WALLET, transactionDTO);
     }
 
@@ -129,7 +137,7 @@ public class TransactionServiceTest {
     public void isDaoCalledwhenModifyTransaction() 
             throws AccountNotFoundException, TransactionNotFoundException, CategoryNotFoundException {
         instance.modifyTransaction(WALLET, transactionDTO);
-        verify(dao).updateTransaction(USERNAME, transactionDTO);
+        verify(dao).updateTransaction(USER_ID, transactionDTO);
     }
 
     /**
@@ -145,8 +153,8 @@ public class TransactionServiceTest {
             throws AccountNotFoundException, TransactionNotFoundException, CategoryNotFoundException {
         
         doThrow(TransactionNotFoundException.class).when(dao)
-                .updateTransaction(any(), any());
-        instance.modifyTransaction(WALLET, mock(TransactionDTO.class));
+                .updateTransaction(anyLong(), any());
+        instance.modifyTransaction(WALLET, transactionDTO);
     }
 
     /**
@@ -162,7 +170,7 @@ public class TransactionServiceTest {
             throws AccountNotFoundException, TransactionNotFoundException, CategoryNotFoundException {
         
         doThrow(CategoryNotFoundException.class).when(dao)
-                .updateTransaction(any(), any());
+                .updateTransaction(anyLong(), any());
         instance.modifyTransaction(WALLET, transactionDTO);
     }
 
@@ -186,7 +194,7 @@ public class TransactionServiceTest {
             throws TransactionNotFoundException {
         
         instance.removeTransaction(WALLET, ID_47);
-        verify(dao).removeTransaction(USERNAME, ID_47);
+        verify(dao).removeTransaction(USER_ID, ID_47);
     }
 
     /**
@@ -200,9 +208,124 @@ public class TransactionServiceTest {
             throws TransactionNotFoundException {
         
         doThrow(TransactionNotFoundException.class).when(dao)
-                .removeTransaction(any(), anyLong());
+                .removeTransaction(anyLong(), anyLong());
         instance.removeTransaction(WALLET, 13L);
     }
 
-//    TODO: Get transactions by filters
+    /**
+     * When get transactions is called, then service should pass filters to dao and ask for one
+     * transaction more than the limit.
+     */
+    @Test
+    public void isFilterPassedToDaoWhenGetTransactionsIsCalled() {
+        ArgumentCaptor<TransactionFilter> filter = ArgumentCaptor.forClass(TransactionFilter.class);
+        when(dao.getTransactions(eq(USER_ID), filter.capture())).thenReturn(Arrays.asList());
+
+        instance.getTransactions(WALLET, "food", "candy", "tag", "2015-03-01", "2015-03-31",
+                "1.00", "2.50", "2015-03-15", ID_47, 10);
+
+        assertEquals("Incorrect account", WALLET, filter.getValue().getAccountName());
+        assertEquals("Incorrect tag", "tag", filter.getValue().getTagName());
+        assertEquals("Incorrect after id", Long.valueOf(ID_47), filter.getValue().getAfterId());
+        assertEquals("Incorrect date", java.sql.Date.valueOf("2015-03-01"),
+                filter.getValue().getDateFrom());
+        assertEquals("Incorrect amount", Long.valueOf(250), filter.getValue().getAmountTo());
+        assertEquals("Incorrect limit", 11, filter.getValue().getLimit());
+    }
+
+    /**
+     * When there are more transactions than the limit, then service should return the cursor of
+     * the next page.
+     */
+    @Test
+    public void isNextPageCursorReturnedWhenThereAreMoreTransactions() {
+        TransactionDTO first = transaction(48L);
+        TransactionDTO second = transaction(ID_47);
+        TransactionDTO third = transaction(46L);
+        when(dao.getTransactions(eq(USER_ID), any())).thenReturn(Arrays.asList(first, second, third));
+
+        TransactionPageDTO page = (TransactionPageDTO) instance.getTransactions(null, null, null,
+                null, null, null, null, null, null, null, 2).getEntity();
+
+        assertEquals("Incorrect page", Arrays.asList(first, second), page.getTransactions());
+        assertEquals("Incorrect cursor", Long.valueOf(ID_47), page.getNextAfterId());
+        assertEquals("Incorrect cursor", "2015-03-15", page.getNextAfterDate());
+    }
+
+    /**
+     * When the last page is returned, then the cursor shouldn't be set.
+     */
+    @Test
+    public void isCursorNotReturnedForTheLastPage() {
+        List<TransactionDTO> transactions = Arrays.asList(transaction(ID_47));
+        when(dao.getTransactions(eq(USER_ID), any())).thenReturn(transactions);
+
+        TransactionPageDTO page = (TransactionPageDTO) instance.getTransactions(null, null, null,
+                null, null, null, null, null, null, null, 2).getEntity();
+
+        assertEquals("Incorrect page", transactions, page.getTransactions());
+        assertNull("Cursor shouldn't be set", page.getNextAfterId());
+    }
+
+    /**
+     * When limit is out of range, then service should return 400 Bad Request.
+     */
+    @Test(expected = BadRequestException.class)
+    public void isBadRequestThrownWhenLimitIsTooBig() {
+        instance.getTransactions(null, null, null, null, null, null, null, null, null, null,
+                TransactionService.MAX_LIMIT + 1);
+    }
+
+    /**
+     * When date has incorrect format, then service should return 400 Bad Request.
+     */
+    @Test(expected = BadRequestException.class)
+    public void isBadRequestThrownWhenDateIsIncorrect() {
+        instance.getTransactions(null, null, null, null, "01.03.2015", null, null, null, null, null,
+                10);
+    }
+
+    /**
+     * When amount has more than two decimal places, then service should return 400 Bad Request.
+     */
+    @Test(expected = BadRequestException.class)
+    public void isBadRequestThrownWhenAmountIsIncorrect() {
+        instance.getTransactions(null, null, null, null, null, null, "0.125", null, null, null,
+                10);
+    }
+
+    /**
+     * When transaction has no amount, then service should return 400 Bad Request and shouldn't
+     * call the dao.
+     *
+     * @throws AccountNotFoundException
+     * @throws CategoryNotFoundException
+     */
+    @Test
+    public void isBadRequestThrownWhenCreatedTransactionHasNoAmount()
+            throws AccountNotFoundException, CategoryNotFoundException {
+        when(transactionDTO.getAmount()).thenReturn(null);
+        try {
+            instance.createTransaction(WALLET, transactionDTO);
+            fail("Transaction without amount should be rejected");
+        } catch (BadRequestException ex) {
+            verify(dao, never()).addTransaction(anyLong(), any());
+        }
+    }
+
+    /**
+     * When only a part of the cursor is sent, then service should return 400 Bad Request.
+     */
+    @Test(expected = BadRequestException.class)
+    public void isBadRequestThrownWhenCursorIsIncomplete() {
+        instance.getTransactions(null, null, null, null, null, null, null, null, "2015-03-01", null,
+                10);
+    }
+
+    private static TransactionDTO transaction(long id) {
+        TransactionDTO dto = new TransactionDTO();
+        dto.setId(id);
+        dto.setTransactionDate(java.sql.Date.valueOf("2015-03-15"));
+        return dto;
+    }
 }
@@ -0,0 +1,103 @@
+package pl.foltak.mybudget.server.rest;
+
+import java.io.IOException;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.SecurityContext;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.Mockito.*;
+import pl.foltak.mybudget.server.dao.UserVersions;
+import pl.foltak.mybudget.server.security.UserPrincipal;
+
+/**
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class UserVersionFilterTest {
+
+    private static final long USER_ID = 7L;
+    private static final String USERNAME = "alibaba";
+    private static final EntityTag ENTITY_TAG = new EntityTag("abc-3", true);
+
+    private UserVersionFilter instance;
+    private ContainerRequestContext requestContext;
+    private Request request;
+
+    @Before
+    public void setUp() {
+        final UserVersions userVersions = mock(UserVersions.class);
+        final SecurityContext securityContext = mock(SecurityContext.class);
+        requestContext = mock(ContainerRequestContext.class);
+        request = mock(Request.class);
+        instance = spy(new UserVersionFilter());
+
+        doReturn(userVersions).when(instance).getUserVersions();
+        when(userVersions.getVersion(USER_ID)).thenReturn("abc-3");
+        when(securityContext.getUserPrincipal()).thenReturn(new UserPrincipal(USER_ID, USERNAME));
+        when(requestContext.getSecurityContext()).thenReturn(securityContext);
+        when(requestContext.getRequest()).thenReturn(request);
+        when(requestContext.getMethod()).thenReturn("GET");
+    }
+
+    /**
+     * When If-None-Match matches the version, the request should be aborted with 304.
+     *
+     * @throws IOException never
+     */
+    @Test
+    public void isNotModifiedReturnedWhenVersionMatches() throws IOException {
+        when(request.evaluatePreconditions(ENTITY_TAG)).thenReturn(Response.notModified());
+
+        instance.filter(requestContext);
+
+        ArgumentCaptor<Response> response = ArgumentCaptor.forClass(Response.class);
+        verify(requestContext).abortWith(response.capture());
+        assertEquals(304, response.getValue().getStatus());
+        assertEquals(ENTITY_TAG, response.getValue().getEntityTag());
+    }
+
+    /**
+     * When the version doesn't match, the request should go on and the response get the ETag.
+     *
+     * @throws IOException never
+     */
+    @Test
+    public void isEntityTagAddedWhenVersionDoesntMatch() throws IOException {
+        final ContainerResponseContext responseContext = mock(ContainerResponseContext.class);
+        final MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+        when(responseContext.getStatus()).thenReturn(200);
+        when(responseContext.getHeaders()).thenReturn(headers);
+
+        instance.filter(requestContext);
+        verify(requestContext, never()).abortWith(any());
+        verify(requestContext).setProperty(UserVersionFilter.ENTITY_TAG_PROPERTY, ENTITY_TAG);
+
+        when(requestContext.getProperty(UserVersionFilter.ENTITY_TAG_PROPERTY)).thenReturn(ENTITY_TAG);
+        instance.filter(requestContext, responseContext);
+        assertEquals(ENTITY_TAG, headers.getFirst(HttpHeaders.ETAG));
+    }
+
+    /**
+     * Requests which change data shouldn't be tagged.
+     *
+     * @throws IOException never
+     */
+    @Test
+    public void areOtherMethodsIgnored() throws IOException {
+        when(requestContext.getMethod()).thenReturn("PUT");
+
+        instance.filter(requestContext);
+
+        verify(instance, never()).getUserVersions();
+        verify(requestContext, never()).abortWith(any());
+    }
+}
@@ -1,8 +1,11 @@
 package pl.foltak.mybudget.server.security;
 
 import java.io.IOException;
+import java.util.Optional;
 import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.SecurityContext;
 import static org.junit.Assert.assertEquals;
 import org.junit.Before;
 import org.junit.Test;
@@ -22,23 +25,33 @@ import static org.mockito.Mockito.when;
  */
 public class AuthenticationFilterTest {
     private static final String PASSWORD = "password";
+    private static final long USER_ID = 7L;
     private static final String USERNAME = "username";
+    private static final String TOKEN = "token";
 
     private AuthenticationFilter instance;
     private ContainerRequestContext requestContext;
     private UserAuthenticator authenticator;
+    private TokenManager tokenManager;
     private ArgumentCaptor<Response> responseCaptor;
+    private ArgumentCaptor<SecurityContext> securityContextCaptor;
 
     @Before
     public void setUp() {
         instance = spy(new AuthenticationFilter());
         requestContext = mock(ContainerRequestContext.class, RETURNS_DEEP_STUBS);
         responseCaptor = ArgumentCaptor.forClass(Response.class);
+        securityContextCaptor = ArgumentCaptor.forClass(SecurityContext.class);
         authenticator = mock(UserAuthenticator.class);
+        tokenManager = mock(TokenManager.class);
         when(requestContext.getRequest().getMethod()).thenReturn("POST");
         when(requestContext.getHeaderString(AuthenticationFilter.AUTHORIZATION_USERNAME)).thenReturn(USERNAME);
         when(requestContext.getHeaderString(AuthenticationFilter.AUTHORIZATION_PASSWORD)).thenReturn(PASSWORD);
         doReturn(authenticator).when(instance).getUserAuthenticator();
+        doReturn(tokenManager).when(instance).getTokenManager();
+        when(tokenManager.verify(any())).thenReturn(Optional.empty());
+        when(tokenManager.verify(TOKEN)).thenReturn(Optional.of(new UserPrincipal(USER_ID, USERNAME)));
+        when(authenticator.authenticate(any(), any())).thenReturn(Optional.empty());
     }
 
     /**
@@ -105,7 +118,7 @@ public class AuthenticationFilterTest {
      */
     @Test
     public void isRequestAbortedWithUnauthorizedStatusIfUserIsNotAuthenticated() {
-        when(authenticator.authenticate(USERNAME, PASSWORD)).thenReturn(Boolean.FALSE);
+        when(authenticator.authenticate(USERNAME, PASSWORD)).thenReturn(Optional.empty());
         callFilter(requestContext);
         verify(requestContext).abortWith(responseCaptor.capture());
         assertEquals("Incorrect status code", 401, responseCaptor.getValue().getStatus());
@@ -116,11 +129,60 @@ public class AuthenticationFilterTest {
      */
     @Test
     public void isFilterDoNothingIfUserCredentialsAreCorrect() {
-        when(authenticator.authenticate(USERNAME, PASSWORD)).thenReturn(Boolean.TRUE);
+        when(authenticator.authenticate(USERNAME, PASSWORD)).thenReturn(Optional.of(USER_ID));
         callFilter(requestContext);
         verify(requestContext, never()).abortWith(any());
     }
 
+    /**
+     * When username and password are correct, then filter should set security context with the
+     * user principal carrying the id of user.
+     */
+    @Test
+    public void isSecurityContextSetIfUserCredentialsAreCorrect() {
+        when(authenticator.authenticate(USERNAME, PASSWORD)).thenReturn(Optional.of(USER_ID));
+        callFilter(requestContext);
+        verify(requestContext).setSecurityContext(securityContextCaptor.capture());
+        assertEquals("Incorrect principal", USERNAME,
+                securityContextCaptor.getValue().getUserPrincipal().getName());
+        assertEquals("Incorrect user id", USER_ID,
+                ((UserPrincipal) securityContextCaptor.getValue().getUserPrincipal()).getId());
+        assertEquals("Incorrect scheme", AuthenticationFilter.PASSWORD_SCHEME,
+                securityContextCaptor.getValue().getAuthenticationScheme());
+    }
+
+    /**
+     * When a valid token is sent, then filter should set security context without checking
+     * password.
+     */
+    @Test
+    public void isSecurityContextSetIfTokenIsValid() {
+        when(requestContext.getHeaderString(HttpHeaders.AUTHORIZATION)).thenReturn("Bearer " + TOKEN);
+        callFilter(requestContext);
+        verify(requestContext, never()).abortWith(any());
+        verify(authenticator, never()).authenticate(any(), any());
+        verify(requestContext).setSecurityContext(securityContextCaptor.capture());
+        assertEquals("Incorrect principal", USERNAME,
+                securityContextCaptor.getValue().getUserPrincipal().getName());
+        assertEquals("Incorrect user id", USER_ID,
+                ((UserPrincipal) securityContextCaptor.getValue().getUserPrincipal()).getId());
+        assertEquals("Incorrect scheme", AuthenticationFilter.TOKEN_SCHEME,
+                securityContextCaptor.getValue().getAuthenticationScheme());
+    }
+
+    /**
+     * When an invalid token is sent, then filter should abort request with Unauthorized status,
+     * even if correct username and password are sent.
+     */
+    @Test
+    public void isRequestAbortedWithUnauthorizedStatusIfTokenIsInvalid() {
+        when(requestContext.getHeaderString(HttpHeaders.AUTHORIZATION)).thenReturn("Bearer invalid");
+        when(authenticator.authenticate(USERNAME, PASSWORD)).thenReturn(Optional.of(USER_ID));
+        callFilter(requestContext);
+        verify(requestContext).abortWith(responseCaptor.capture());
+        assertEquals("Incorrect status code", 401, responseCaptor.getValue().getStatus());
+    }
+
     /**
      * Calls method filter in AuthenticationFilter and intercepts IOException,
      * which should never be thrown in tests.
@@ -0,0 +1,115 @@
+package pl.foltak.mybudget.server.security;
+
+import java.util.Optional;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+
+/**
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class CredentialCacheTest {
+
+    private static final long USER_ID = 7L;
+    private static final String USERNAME = "alibaba";
+    private static final String PASSWORD = "fortythieves";
+    private static final String HASH = "hash";
+    private static final long TTL = 1000L;
+
+    private CredentialCache instance;
+
+    @Before
+    public void setUp() {
+        instance = spy(new CredentialCache(2, TTL));
+        doReturn(0L).when(instance).currentTimeMillis();
+    }
+
+    /**
+     * Stored credentials should be answered with the id of user and counted as a hit.
+     */
+    @Test
+    public void isHitReturnedForStoredCredentials() {
+        instance.put(USER_ID, USERNAME, PASSWORD, HASH);
+
+        assertEquals("Incorrect user id", Optional.of(USER_ID),
+                instance.getUserId(USERNAME, PASSWORD));
+        assertEquals("Incorrect number of hits", 1, instance.getHits());
+    }
+
+    /**
+     * Unknown credentials should be counted as a miss.
+     */
+    @Test
+    public void isMissReturnedForUnknownUser() {
+        assertFalse("Credentials shouldn't be verified",
+                instance.getUserId(USERNAME, PASSWORD).isPresent());
+        assertEquals("Incorrect number of misses", 1, instance.getMisses());
+    }
+
+    /**
+     * Another password of cached user shouldn't be reported as verified.
+     */
+    @Test
+    public void isMissReturnedForAnotherPassword() {
+        instance.put(USER_ID, USERNAME, PASSWORD, HASH);
+
+        assertFalse("Credentials shouldn't be verified",
+                instance.getUserId(USERNAME, "other").isPresent());
+    }
+
+    /**
+     * Expired entry should be evicted.
+     */
+    @Test
+    public void isExpiredEntryEvicted() {
+        instance.put(USER_ID, USERNAME, PASSWORD, HASH);
+        doReturn(TTL).when(instance).currentTimeMillis();
+
+        assertFalse("Credentials shouldn't be verified",
+                instance.getUserId(USERNAME, PASSWORD).isPresent());
+        assertEquals("Incorrect number of evictions", 1, instance.getEvictions());
+        assertEquals("Cache should be empty", 0, instance.size());
+    }
+
+    /**
+     * Cache shouldn't grow over its maximum size.
+     */
+    @Test
+    public void isCacheBounded() {
+        instance.put(1L, "first", PASSWORD, HASH);
+        instance.put(2L, "second", PASSWORD, HASH);
+        instance.put(3L, "third", PASSWORD, HASH);
+
+        assertEquals("Incorrect cache size", 2, instance.size());
+        assertEquals("Incorrect number of evictions", 1, instance.getEvictions());
+    }
+
+    /**
+     * Entry should be removed when password hash has changed.
+     */
+    @Test
+    public void isEntryInvalidatedWhenPasswordHashChanged() {
+        instance.put(USER_ID, USERNAME, PASSWORD, HASH);
+        instance.invalidate(USERNAME, "newHash");
+
+        assertFalse("Credentials shouldn't be verified",
+                instance.getUserId(USERNAME, PASSWORD).isPresent());
+    }
+
+    /**
+     * Entry should be kept when password hash hasn't changed.
+     */
+    @Test
+    public void isEntryKeptWhenPasswordHashIsTheSame() {
+        instance.put(USER_ID, USERNAME, PASSWORD, HASH);
+        instance.invalidate(USERNAME, HASH);
+
+        assertTrue("Credentials should be verified",
+                instance.getUserId(USERNAME, PASSWORD).isPresent());
+    }
+}
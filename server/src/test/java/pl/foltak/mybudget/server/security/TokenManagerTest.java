@@ -0,0 +1,86 @@
+package pl.foltak.mybudget.server.security;
+
+import java.util.Optional;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import org.junit.Before;
+import org.junit.Test;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+
+/**
+ *
+ * @author Mariusz Foltak <mariusz@foltak.pl>
+ */
+public class TokenManagerTest {
+
+    private static final UserPrincipal PRINCIPAL = new UserPrincipal(7L, "alibaba");
+    private static final byte[] SECRET = "secret".getBytes();
+
+    private TokenManager instance;
+
+    @Before
+    public void setUp() {
+        instance = spy(new TokenManager(SECRET, 1000L));
+        doReturn(500L).when(instance).currentTimeMillis();
+    }
+
+    /**
+     * Issued token should be verified and return the id and name of user.
+     */
+    @Test
+    public void isPrincipalReturnedForIssuedToken() {
+        String token = instance.issue(PRINCIPAL, instance.getExpirationTime());
+        Optional<UserPrincipal> principal = instance.verify(token);
+        assertEquals("Incorrect user id", 7L, principal.get().getId());
+        assertEquals("Incorrect username", "alibaba", principal.get().getName());
+    }
+
+    /**
+     * Name of user may contain the separator of token fields.
+     */
+    @Test
+    public void isUsernameWithColonReturnedForIssuedToken() {
+        String token = instance.issue(new UserPrincipal(7L, "ali:baba"), 1500L);
+        assertEquals("Incorrect username", "ali:baba", instance.verify(token).get().getName());
+    }
+
+    /**
+     * Expired token should be rejected.
+     */
+    @Test
+    public void isExpiredTokenRejected() {
+        String token = instance.issue(PRINCIPAL, 500L);
+        assertFalse("Token should be rejected", instance.verify(token).isPresent());
+    }
+
+    /**
+     * Token signed with another key should be rejected.
+     */
+    @Test
+    public void isTokenWithAnotherSignatureRejected() {
+        String token = new TokenManager("another".getBytes(), 1000L).issue(PRINCIPAL, 1500L);
+        assertFalse("Token should be rejected", instance.verify(token).isPresent());
+    }
+
+    /**
+     * Token with modified payload should be rejected.
+     */
+    @Test
+    public void isModifiedTokenRejected() {
+        String token = instance.issue(PRINCIPAL, 1500L);
+        String forged = instance.issue(new UserPrincipal(8L, "someone"), 1500L);
+        String payload = forged.substring(0, forged.indexOf('.'));
+        String signature = token.substring(token.indexOf('.'));
+        assertFalse("Token should be rejected", instance.verify(payload + signature).isPresent());
+    }
+
+    /**
+     * Malformed token should be rejected.
+     */
+    @Test
+    public void isMalformedTokenRejected() {
+        assertFalse("Token should be rejected", instance.verify("malformed").isPresent());
+        assertFalse("Token should be rejected", instance.verify("mal.formed!").isPresent());
+    }
+}
@@ -1,16 +1,22 @@
-    package pl.foltak.mybudget.server.security;
+package pl.foltak.mybudget.server.security;
 
+import java.util.Collections;
+import java.util.Optional;
 import javax.persistence.EntityManager;
-import javax.persistence.NoResultException;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
-import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.assertNull;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
+import pl.foltak.mybudget.server.metrics.Metrics;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -20,6 +26,7 @@ import static org.mockito.Mockito.when;
 public class UserAuthenticatorTest {
 
     private static final String HASH = "$2a$12$3jEVRVePvSgbQ2Y42ilYzOju6iA4YRVzEwWNG6NIf5/jQGPraYgPS";
+    private static final long USER_ID = 7L;
 
     private UserAuthenticator instance;
 
@@ -27,62 +34,111 @@ public class UserAuthenticatorTest {
     public void setUp() {
         instance = spy(new UserAuthenticator());
         instance.em = mock(EntityManager.class, Mockito.RETURNS_DEEP_STUBS);
+        instance.credentialCache = mock(CredentialCache.class);
+        instance.metrics = new Metrics();
+        when(instance.credentialCache.getUserId(any(), any())).thenReturn(Optional.empty());
     }
 
     /**
-     * Test is true returned, when given password matches to hash stored in user entity.
+     * Test is the id of user returned, when given password matches to hash stored in user entity.
      */
     @Test
-    public void isTrueReturnedWhenGivenPasswordMatchesToHash() {
-        doReturn(HASH).when(instance).getPasswordHashForUser("alibaba");
+    public void isUserIdReturnedWhenGivenPasswordMatchesToHash() {
+        doReturn(new Object[]{USER_ID, HASH}).when(instance).getCredentials("alibaba");
 
-        assertTrue("Authenticate should return true", instance.authenticate("alibaba",
-                "fortythieves"));
+        assertEquals("Authenticate should return the id of user", Optional.of(USER_ID),
+                instance.authenticate("alibaba", "fortythieves"));
     }
 
     /**
-     * Test is false returned, when given password doesn't much to hash stored in user entity.
+     * Test is the id of user returned without reading credentials, when they are cached.
      */
     @Test
-    public void isFalseReturnedWhenPasswordDoesntMatchToHash() {
-        doReturn(HASH).when(instance).getPasswordHashForUser("alibaba");
+    public void isUserIdReturnedWithoutLookupWhenCredentialsAreCached() {
+        when(instance.credentialCache.getUserId("alibaba", "fortythieves"))
+                .thenReturn(Optional.of(USER_ID));
 
-        assertFalse("Authenticate should return false", instance.authenticate("alibaba",
-                "incorrectPassword"));
+        assertEquals("Authenticate should return the id of user", Optional.of(USER_ID),
+                instance.authenticate("alibaba", "fortythieves"));
+        verify(instance, never()).getCredentials("alibaba");
+    }
+
+    /**
+     * Test are verified credentials stored in the cache.
+     */
+    @Test
+    public void isVerifiedPasswordStoredInCache() {
+        doReturn(new Object[]{USER_ID, HASH}).when(instance).getCredentials("alibaba");
+
+        instance.authenticate("alibaba", "fortythieves");
+        verify(instance.credentialCache).put(USER_ID, "alibaba", "fortythieves", HASH);
+    }
+
+    /**
+     * Test are incorrect credentials not stored in the cache.
+     */
+    @Test
+    public void isIncorrectPasswordNotStoredInCache() {
+        doReturn(new Object[]{USER_ID, HASH}).when(instance).getCredentials("alibaba");
+
+        instance.authenticate("alibaba", "incorrectPassword");
+        verify(instance.credentialCache, never()).put(USER_ID, "alibaba", "incorrectPassword", HASH);
+    }
+
+    /**
+     * Test is nothing returned, when given password doesn't much to hash stored in user entity.
+     */
+    @Test
+    public void isEmptyReturnedWhenPasswordDoesntMatchToHash() {
+        doReturn(new Object[]{USER_ID, HASH}).when(instance).getCredentials("alibaba");
+
+        assertFalse("Authenticate should return nothing", instance.authenticate("alibaba",
+                "incorrectPassword").isPresent());
     }
     
     /**
-     * Tests, is false returned, when password hash is empty string.
+     * Tests, is nothing returned, when password hash is empty string.
+     */
+    @Test
+    public void isEmptyReturnedWhenHashIsEmpty() {
+        doReturn(new Object[]{USER_ID, ""}).when(instance).getCredentials("alibaba");
+
+        assertFalse("Authenticate should return nothing", instance.authenticate("alibaba",
+                "incorrectPassword").isPresent());
+    }
+
+    /**
+     * Tests, is nothing returned, when user doesn't exist.
      */
     @Test
-    public void isFalseReturnedWhenHashIsEmpty() {
-        doReturn("").when(instance).getPasswordHashForUser("alibaba");
+    public void isEmptyReturnedWhenUserDoesntExist() {
+        doReturn(null).when(instance).getCredentials("someone");
 
-        assertFalse("Authenticate should return false", instance.authenticate("alibaba",
-                "incorrectPassword"));
+        assertFalse("Authenticate should return nothing", instance.authenticate("someone",
+                "password").isPresent());
     }
 
     /**
-     * Test is null returned from getPasswordHashForUser, when user doesn't exist.
+     * Test is null returned from getCredentials, when user doesn't exist.
      */
     @Test
-    public void isNullReturnedWhenUserDoesntExistInGetPasswordHashForUser() {
-        when(instance.em.createQuery(UserAuthenticator.SELECT_PASSWORD)
+    public void isNullReturnedWhenUserDoesntExistInGetCredentials() {
+        when(instance.em.createQuery(UserAuthenticator.SELECT_CREDENTIALS, Object[].class)
                 .setParameter("username", "someone")
-                .getSingleResult()).thenThrow(NoResultException.class);
-        assertEquals("Method should return empty string", "", instance.getPasswordHashForUser(
-                "someone"));
+                .getResultList()).thenReturn(Collections.emptyList());
+        assertNull("Method should return null", instance.getCredentials("someone"));
     }
 
     /**
-     * Test is hash returned from getPasswordHashForUser.
+     * Test are id and hash returned from getCredentials.
      */
     @Test
-    public void isHashReturnedFromGetPasswordHashForUser() {
-        when(instance.em.createQuery(UserAuthenticator.SELECT_PASSWORD)
+    public void isIdAndHashReturnedFromGetCredentials() {
+        final Object[] credentials = {USER_ID, "somehash"};
+        when(instance.em.createQuery(UserAuthenticator.SELECT_CREDENTIALS, Object[].class)
                 .setParameter("username", "someone")
-                .getSingleResult()).thenReturn("somehash");
-        assertEquals("Method should return empty string", "somehash", instance.getPasswordHashForUser(
-                "someone"));
+                .getResultList()).thenReturn(Collections.singletonList(credentials));
+        assertArrayEquals("Method should return id and hash", credentials,
+                instance.getCredentials("someone"));
     }
 }
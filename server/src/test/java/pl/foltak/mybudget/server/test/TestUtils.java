@@ -1,6 +1,9 @@
 
 package pl.foltak.mybudget.server.test;
 
+import java.sql.SQLException;
+import javax.persistence.PersistenceException;
+import org.hibernate.exception.ConstraintViolationException;
 import static org.junit.Assert.fail;
 
 /**
@@ -18,5 +21,30 @@ public class TestUtils {
     public static <T extends Throwable> void expectedException(Class<T> exceptionClass) {
         fail("Expected exception: " + exceptionClass.getName());
     }
+
+    /**
+     * Creates an exception thrown by the entity manager when given unique constraint is violated.
+     *
+     * @param constraintName the name of constraint
+     * @return the exception
+     */
+    public static PersistenceException uniqueViolation(String constraintName) {
+        return new PersistenceException(new ConstraintViolationException("Duplicate entry",
+                new SQLException("Duplicate entry", "23000", 1062), constraintName));
+    }
+
+    /**
+     * Creates an exception thrown by the entity manager when MySQL reports a duplicate entry of
+     * given unique key. MySQLDialect doesn't extract the constraint name, only the message has it.
+     *
+     * @param entry the duplicated entry
+     * @param keyName the name of key
+     * @return the exception
+     */
+    public static PersistenceException duplicateEntry(String entry, String keyName) {
+        final String message = "Duplicate entry '" + entry + "' for key '" + keyName + "'";
+        return new PersistenceException(new ConstraintViolationException(message,
+                new SQLException(message, "23000", 1062), null));
+    }
     
 }